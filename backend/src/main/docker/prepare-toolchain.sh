@@ -0,0 +1,27 @@
+#!/bin/bash
+# Builds the toolchain acceleration artifacts into the executor image; mirrors ToolchainProfiles
+# usage: prepare-toolchain.sh <target dir> <java training program>
+set -e
+TARGET=${1:-/opt/shodh-toolchain}
+TRAINING=${2:-/tmp/toolchain/Main.java}
+
+# C++: precompiled bits/stdc++.h, picked up through -I$TARGET/pch
+mkdir -p "$TARGET/pch/bits"
+echo '#include_next <bits/stdc++.h>' > "$TARGET/pch/bits/stdc++.h"
+(cd "$TARGET" && g++ -w -x c++-header pch/bits/stdc++.h -o pch/bits/stdc++.h.gch)
+
+# Java: CDS archive of the JDK classes javac and a typical submission load
+mkdir -p "$TARGET/java/training"
+cp "$TRAINING" "$TARGET/java/training/Main.java"
+(cd "$TARGET/java/training" \
+    && javac -J-XX:DumpLoadedClassList=../javac.classlist Main.java \
+    && echo 1 | java -XX:DumpLoadedClassList=../run.classlist Main > /dev/null)
+grep -hE '^(@[a-z-]+ )?(java|javax|jdk|sun|com/sun)/' "$TARGET/java/javac.classlist" "$TARGET/java/run.classlist" \
+    | sed -E 's/ id: [0-9]+$//' | awk '!seen[$0]++' > "$TARGET/java/jdk.classlist"
+(cd "$TARGET/java" && java -Xshare:dump -XX:SharedClassListFile=jdk.classlist -XX:SharedArchiveFile=jdk.jsa > /dev/null)
+rm -rf "$TARGET/java/training"
+
+# Python: make sure the stdlib bytecode is current; submissions are compiled to main.pyc per run
+python3 -m compileall -q -j 0 "$(python3 -c 'import sysconfig; print(sysconfig.get_paths()["stdlib"])')" > /dev/null || true
+
+chmod -R a+rX "$TARGET"
@@ -0,0 +1,71 @@
+#!/bin/bash
+# Assembles target/fast-start (thin jar + lib/), trains the application CDS archive and reports
+# time-to-first-request for the regular jar against the fast-start launch.
+# usage: startup-benchmark.sh <target dir> <final name> [runs] [target ms] [enforce]
+set -e
+
+TARGET=$(cd "$1" && pwd)
+NAME=$2
+RUNS=${3:-3}
+TARGET_MS=${4:-9999}
+ENFORCE=${5:-false}
+PORT=${STARTUP_BENCHMARK_PORT:-18080}
+OUT="$TARGET/fast-start"
+
+# Executor warm-up is excluded: it gates readiness, not the first API request
+APP_ARGS="--server.port=$PORT --execution.service.type=local --judge.warmup.enabled=false"
+FAST_ARGS="--spring.profiles.active=fast-start"
+FAST_JVM="-XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true"
+
+command -v curl > /dev/null || { echo "startup benchmark needs curl"; exit 1; }
+
+cp "$TARGET/$NAME.jar.original" "$OUT/app.jar"
+
+echo "Training CDS archive"
+rm -f "$OUT/app.jsa"
+(cd "$OUT" && java -XX:ArchiveClassesAtExit=app.jsa -Dspring.aot.enabled=true -Dspring.context.exit=onRefresh \
+    -jar app.jar $APP_ARGS $FAST_ARGS > training.log 2>&1) || { tail -20 "$OUT/training.log"; exit 1; }
+
+# Prints milliseconds from process start until GET /api/contests/CONTEST-001 answers
+time_to_first_request() {
+    local dir=$1 jar=$2 jvm=$3 args=$4
+    local start end pid
+    start=$(date +%s%N)
+    (cd "$dir" && exec java $jvm -jar "$jar" $APP_ARGS $args > "$OUT/benchmark.log" 2>&1) &
+    pid=$!
+    until curl -sf "http://localhost:$PORT/api/contests/CONTEST-001" > /dev/null; do
+        if ! kill -0 $pid 2> /dev/null; then
+            tail -20 "$OUT/benchmark.log" >&2
+            return 1
+        fi
+        sleep 0.05
+    done
+    end=$(date +%s%N)
+    kill $pid
+    wait $pid 2> /dev/null || true
+    echo $(( (end - start) / 1000000 ))
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print v[int((NR + 1) / 2)] }'
+}
+
+baseline=()
+fast=()
+for i in $(seq 1 "$RUNS"); do
+    baseline+=("$(time_to_first_request "$TARGET" "$NAME.jar" "" "")")
+    fast+=("$(time_to_first_request "$OUT" app.jar "$FAST_JVM" "$FAST_ARGS")")
+done
+
+BASELINE_MS=$(printf '%s\n' "${baseline[@]}" | median)
+FAST_MS=$(printf '%s\n' "${fast[@]}" | median)
+
+echo "Time to first request (median of $RUNS)"
+echo "  regular jar: ${BASELINE_MS} ms   [${baseline[*]}]"
+echo "  fast-start:  ${FAST_MS} ms   [${fast[*]}]"
+
+if [ "$FAST_MS" -gt "$TARGET_MS" ]; then
+    echo "Fast-start time to first request ${FAST_MS} ms is above the ${TARGET_MS} ms target"
+    [ "$ENFORCE" = "true" ] && exit 1
+fi
+exit 0
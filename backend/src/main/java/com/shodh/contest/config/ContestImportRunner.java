@@ -0,0 +1,43 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.dto.ImportReport;
+import com.shodh.contest.service.ContestImporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Command-line import: {@code --contest.import.paths=/data/round1.zip,/data/round2} imports each
+ * package (zip or directory) at startup.
+ */
+@Component
+public class ContestImportRunner implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(ContestImportRunner.class);
+
+    @Value("${contest.import.paths:}")
+    private List<String> paths;
+
+    @Autowired
+    private ContestImporter contestImporter;
+
+    @Override
+    public void run(String... args) {
+        for (String path : paths) {
+            if (path.isBlank()) {
+                continue;
+            }
+            try {
+                ImportReport report = contestImporter.importPath(Paths.get(path.trim()));
+                logger.info("Imported {} from {}", report.getContestId(), path);
+            } catch (RuntimeException e) {
+                logger.error("Import of {} failed: {}", path, e.getMessage());
+            }
+        }
+    }
+}
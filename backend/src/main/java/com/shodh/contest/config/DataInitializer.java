@@ -1,7 +1,9 @@
 package com.shodh.contest.config;
 
 import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.JudgingPolicy;
 import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Subtask;
 import com.shodh.contest.repository.ContestRepository;
 import com.shodh.contest.repository.ProblemRepository;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -87,6 +89,12 @@ public class DataInitializer implements CommandLineRunner {
                 "3",
                 "-1"
         ));
+        // Partial credit: the first test is worth 40 points, the other two 60 together
+        problem2.setJudgingPolicy(JudgingPolicy.IOI);
+        problem2.setSubtasks(Arrays.asList(
+                new Subtask(1, 40),
+                new Subtask(2, 60)
+        ));
         problem2.setTimeLimitSeconds(5);
         problem2.setMemoryLimitMB(256);
 
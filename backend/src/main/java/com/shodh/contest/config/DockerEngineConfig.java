@@ -0,0 +1,43 @@
+package com.shodh.contest.config;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.core.DefaultDockerClientConfig;
+import com.github.dockerjava.core.DockerClientConfig;
+import com.github.dockerjava.core.DockerClientImpl;
+import com.github.dockerjava.httpclient5.ApacheDockerHttpClient;
+import com.github.dockerjava.transport.DockerHttpClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class DockerEngineConfig {
+
+    @Value("${docker.host:unix:///var/run/docker.sock}")
+    private String dockerHost;
+
+    @Value("${docker.api.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${docker.api.connect-timeout-ms:5000}")
+    private long connectTimeoutMillis;
+
+    @Bean(destroyMethod = "close")
+    public DockerClient dockerClient() {
+        DockerClientConfig config = DefaultDockerClientConfig.createDefaultConfigBuilder()
+                .withDockerHost(dockerHost)
+                .build();
+
+        // One pooled client for the whole judge, so container calls reuse connections
+        DockerHttpClient httpClient = new ApacheDockerHttpClient.Builder()
+                .dockerHost(config.getDockerHost())
+                .sslConfig(config.getSSLConfig())
+                .maxConnections(maxConnections)
+                .connectionTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+
+        return DockerClientImpl.getInstance(config, httpClient);
+    }
+}
@@ -0,0 +1,27 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.ContestPrescaler;
+import com.shodh.contest.service.ExecutorWarmup;
+import com.shodh.contest.service.JudgeWorkerPool;
+import com.shodh.contest.service.MetadataCache;
+import com.shodh.contest.service.OrphanReaper;
+import com.shodh.contest.service.RejudgeService;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans that start with the application even when lazy initialization is on, because nothing
+ * requests them: the judge dispatcher, the rejudge pump, the executor warm-up, the orphan reaper, the
+ * contest pre-scaler and the cache metrics.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerJudgeBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                JudgeWorkerPool.class, RejudgeService.class, ExecutorWarmup.class, OrphanReaper.class,
+                ContestPrescaler.class, MetadataCache.class);
+    }
+}
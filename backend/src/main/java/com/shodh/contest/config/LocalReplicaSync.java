@@ -0,0 +1,382 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.ReplicaHealth;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.h2.jdbc.JdbcConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.CallableStatement;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps a local H2 replica in step with an H2 primary, so read/write routing can be run on one
+ * machine with two databases. On start the replica is rebuilt from a SCRIPT of the primary and a
+ * {@link ReplicationTrigger} goes on every table. Triggers collect row images per H2 session;
+ * when a transaction commits through one of the primary's connections its rows are queued, and a
+ * single applier thread replays transactions on the replica in commit order. Rolled back work is
+ * dropped. A change that fails to apply takes the replica out of service, as it no longer matches
+ * the primary.
+ */
+public class LocalReplicaSync {
+    private static final Logger logger = LoggerFactory.getLogger(LocalReplicaSync.class);
+
+    private static final Commit STOP = new Commit(List.of());
+
+    // Triggers are instantiated by H2, and find the running sync here
+    private static volatile LocalReplicaSync active;
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaHealth replicaHealth;
+    private final Counter applied;
+
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    // Uncommitted row changes by H2 session
+    private final Map<Object, List<RowChange>> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<Commit> commits = new LinkedBlockingQueue<>();
+    private Thread applier;
+
+    LocalReplicaSync(DataSource primary, DataSource replica, ReplicaHealth replicaHealth, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.replicaHealth = replicaHealth;
+        this.applied = meterRegistry.counter("datasource.replica.sync.applied");
+        meterRegistry.gauge("datasource.replica.sync.queued", commits, Collection::size);
+    }
+
+    /**
+     * Wraps the primary pool so that commits and rollbacks on its connections settle the rows
+     * their triggers collected.
+     */
+    DataSource tracking(DataSource pool) {
+        return new DelegatingDataSource(pool) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return track(super.getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return track(super.getConnection(username, password));
+            }
+        };
+    }
+
+    // Must run while nothing writes to the primary: rows written between the copy and the
+    // triggers would never reach the replica
+    void start() throws SQLException {
+        try (Connection source = primary.getConnection(); Connection target = replica.getConnection();
+             Statement read = source.createStatement(); Statement write = target.createStatement()) {
+            readTables(source.getMetaData());
+            write.execute("DROP ALL OBJECTS");
+            try (ResultSet script = read.executeQuery("SCRIPT")) {
+                while (script.next()) {
+                    String sql = script.getString(1);
+                    if (!sql.startsWith("--")) {
+                        write.execute(sql);
+                    }
+                }
+            }
+            active = this;
+            for (Table table : tables.values()) {
+                read.execute("CREATE TRIGGER " + quote("REPLICATE_" + table.name) + " AFTER INSERT, UPDATE, DELETE ON "
+                        + quote(table.name) + " FOR EACH ROW CALL '" + ReplicationTrigger.class.getName() + "'");
+            }
+        }
+        applier = Thread.ofPlatform().name("replica-sync").daemon().start(this::applyCommits);
+        logger.info("Replicating {} tables into the local replica", tables.size());
+    }
+
+    void stop() {
+        active = null;
+        if (applier != null) {
+            // Not an interrupt: H2 closes a file database whose IO is interrupted
+            commits.add(STOP);
+        }
+    }
+
+    static void record(Connection connection, String table, Object[] oldRow, Object[] newRow) throws SQLException {
+        LocalReplicaSync sync = active;
+        if (sync == null) {
+            return;
+        }
+        // The trigger's own connection never reports auto-commit; the statement wrapper settles those
+        sync.pending.computeIfAbsent(session(connection), session -> new ArrayList<>())
+                .add(new RowChange(table, detach(oldRow), detach(newRow)));
+    }
+
+    private Connection track(Connection connection) throws SQLException {
+        Object session = session(connection);
+        return (Connection) Proxy.newProxyInstance(LocalReplicaSync.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "commit" -> {
+                            commit(session, connection::commit);
+                            return null;
+                        }
+                        case "setAutoCommit" -> {
+                            // Turning auto-commit on commits the open transaction
+                            if ((Boolean) args[0] && !connection.getAutoCommit()) {
+                                commit(session, () -> connection.setAutoCommit(true));
+                                return null;
+                            }
+                        }
+                        // Savepoint rollbacks are not tracked; nothing here uses them
+                        case "rollback", "close" -> {
+                            if (args == null) {
+                                pending.remove(session);
+                            }
+                        }
+                        case "equals" -> {
+                            return proxy == args[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                        }
+                    }
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement) {
+                        return trackStatement(statement, method.getReturnType(), connection, session);
+                    }
+                    return result;
+                });
+    }
+
+    private Object trackStatement(Statement statement, Class<?> type, Connection connection, Object session) {
+        Class<?> statementType = type == CallableStatement.class || type == PreparedStatement.class ? type : Statement.class;
+        return Proxy.newProxyInstance(LocalReplicaSync.class.getClassLoader(), new Class<?>[] {statementType},
+                (proxy, method, args) -> {
+                    Object result = invoke(statement, method, args);
+                    // In auto-commit mode the statement has committed by the time it returns. Queued
+                    // after the fact, so unlike explicit commits this can overtake a racing writer
+                    if (method.getName().startsWith("execute") && connection.getAutoCommit()) {
+                        List<RowChange> changes = pending.remove(session);
+                        if (changes != null) {
+                            Commit commit = new Commit(changes);
+                            commits.add(commit);
+                            commit.outcome.complete(true);
+                        }
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private void commit(Object session, SqlAction action) throws SQLException {
+        List<RowChange> changes = pending.remove(session);
+        if (changes == null) {
+            action.run();
+            return;
+        }
+        // Queued before committing: a transaction that waited on our row locks can only commit
+        // after us, so it also queues after us
+        Commit commit = new Commit(changes);
+        commits.add(commit);
+        boolean committed = false;
+        try {
+            action.run();
+            committed = true;
+        } finally {
+            commit.outcome.complete(committed);
+        }
+    }
+
+    private void applyCommits() {
+        try (Connection target = replica.getConnection()) {
+            target.setAutoCommit(false);
+            while (true) {
+                Commit commit = commits.take();
+                if (commit == STOP) {
+                    return;
+                }
+                if (!commit.outcome.get()) {
+                    continue;
+                }
+                for (RowChange change : commit.changes) {
+                    apply(target, change);
+                }
+                target.commit();
+                applied.increment();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (SQLException | ExecutionException | RuntimeException e) {
+            replicaHealth.replicaFailed("local replication stopped: " + e.getMessage());
+        }
+    }
+
+    private void apply(Connection target, RowChange change) throws SQLException {
+        Table table = tables.get(change.table());
+        if (table == null) {
+            throw new SQLException("Change to untracked table " + change.table());
+        }
+        if (change.oldRow() != null && (change.newRow() == null || !table.sameKey(change.oldRow(), change.newRow()))) {
+            execute(target, table.delete, table.matchValues(change.oldRow()));
+        }
+        if (change.newRow() != null) {
+            execute(target, table.upsert, change.newRow());
+        }
+    }
+
+    private static void execute(Connection target, String sql, Object[] values) throws SQLException {
+        try (PreparedStatement statement = target.prepareStatement(sql)) {
+            for (int i = 0; i < values.length; i++) {
+                statement.setObject(i + 1, values[i]);
+            }
+            statement.executeUpdate();
+        }
+    }
+
+    private void readTables(DatabaseMetaData meta) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (ResultSet rs = meta.getTables(null, "PUBLIC", "%", null)) {
+            while (rs.next()) {
+                String type = rs.getString("TABLE_TYPE");
+                if ("TABLE".equals(type) || "BASE TABLE".equals(type)) {
+                    names.add(rs.getString("TABLE_NAME"));
+                }
+            }
+        }
+        for (String name : names) {
+            Map<Integer, String> columns = new TreeMap<>();
+            try (ResultSet rs = meta.getColumns(null, "PUBLIC", name, "%")) {
+                while (rs.next()) {
+                    if (name.equals(rs.getString("TABLE_NAME"))) {
+                        columns.put(rs.getInt("ORDINAL_POSITION"), rs.getString("COLUMN_NAME"));
+                    }
+                }
+            }
+            Map<Integer, String> key = new TreeMap<>();
+            try (ResultSet rs = meta.getPrimaryKeys(null, "PUBLIC", name)) {
+                while (rs.next()) {
+                    key.put(rs.getInt("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+                }
+            }
+            tables.put(name, new Table(name, new ArrayList<>(columns.values()), new ArrayList<>(key.values())));
+        }
+    }
+
+    private static Object session(Connection connection) throws SQLException {
+        return connection.unwrap(JdbcConnection.class).getSession();
+    }
+
+    // LOB values are bound to the session that read them; copy them out while it is ours
+    private static Object[] detach(Object[] row) throws SQLException {
+        if (row == null) {
+            return null;
+        }
+        Object[] copy = row.clone();
+        for (int i = 0; i < copy.length; i++) {
+            if (copy[i] instanceof Clob clob) {
+                copy[i] = clob.getSubString(1, (int) clob.length());
+            } else if (copy[i] instanceof Blob blob) {
+                copy[i] = blob.getBytes(1, (int) blob.length());
+            }
+        }
+        return copy;
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private interface SqlAction {
+        void run() throws SQLException;
+    }
+
+    private record RowChange(String table, Object[] oldRow, Object[] newRow) {
+    }
+
+    private static final class Commit {
+        final List<RowChange> changes;
+        final CompletableFuture<Boolean> outcome = new CompletableFuture<>();
+
+        Commit(List<RowChange> changes) {
+            this.changes = changes;
+        }
+    }
+
+    private static final class Table {
+        final String name;
+        final int[] key;
+        // Rows are matched on their key, or on every column in tables without one
+        final int[] match;
+        final String upsert;
+        final String delete;
+
+        Table(String name, List<String> columns, List<String> keyColumns) {
+            this.name = name;
+            this.key = keyColumns.stream().mapToInt(columns::indexOf).toArray();
+            this.match = key.length > 0 ? key : IntStream.range(0, columns.size()).toArray();
+            String columnList = columns.stream().map(LocalReplicaSync::quote).collect(Collectors.joining(", "));
+            String values = String.join(", ", Collections.nCopies(columns.size(), "?"));
+            this.upsert = key.length > 0
+                    ? "MERGE INTO " + quote(name) + " (" + columnList + ") KEY ("
+                        + keyColumns.stream().map(LocalReplicaSync::quote).collect(Collectors.joining(", "))
+                        + ") VALUES (" + values + ")"
+                    : "INSERT INTO " + quote(name) + " (" + columnList + ") VALUES (" + values + ")";
+            this.delete = key.length > 0
+                    ? "DELETE FROM " + quote(name) + " WHERE " + conditions(columns, " = ?")
+                    : "DELETE FROM " + quote(name) + " WHERE " + conditions(columns, " IS NOT DISTINCT FROM ?")
+                        + " FETCH FIRST ROW ONLY";
+        }
+
+        boolean sameKey(Object[] oldRow, Object[] newRow) {
+            if (key.length == 0) {
+                return false;
+            }
+            for (int index : key) {
+                if (!Objects.deepEquals(oldRow[index], newRow[index])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        Object[] matchValues(Object[] row) {
+            return IntStream.of(match).mapToObj(index -> row[index]).toArray();
+        }
+
+        private String conditions(List<String> columns, String test) {
+            return IntStream.of(match).mapToObj(index -> quote(columns.get(index)) + test)
+                    .collect(Collectors.joining(" AND "));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.QueryCounter;
+import com.shodh.contest.service.QueryMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements each request executes, including lazy loads during response
+ * serialization, and reports them per endpoint pattern.
+ */
+@Component
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private QueryMetrics queryMetrics;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        QueryCounter.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            long statements = QueryCounter.end();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null) {
+                queryMetrics.recordRequest(request.getMethod(), pattern.toString(), statements);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.QueryCounter;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Wraps the pool so that every executed statement is reported to {@link QueryCounter}. A batch
+ * counts once, since it is one round trip.
+ */
+public class QueryCountingDataSource extends DelegatingDataSource {
+
+    public QueryCountingDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+                    Object result = invoke(proxy, connection, method, args);
+                    if (result instanceof Statement statement) {
+                        return wrapStatement(statement, method.getReturnType());
+                    }
+                    return result;
+                });
+    }
+
+    private static Object wrapStatement(Statement statement, Class<?> type) {
+        Class<?> statementType = type == CallableStatement.class || type == PreparedStatement.class ? type : Statement.class;
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                QueryCounter.increment();
+            }
+            return invoke(proxy, statement, method, args);
+        };
+        return Proxy.newProxyInstance(QueryCountingDataSource.class.getClassLoader(), new Class<?>[] {statementType}, handler);
+    }
+
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        // Identity belongs to the proxy; pools and Hibernate compare the objects they were handed
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.ReplicaHealth;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Replaces the single pool with a primary and a read replica pool when datasource.replica.url
+ * is set. The pools stay private to {@link ReplicaRouting}, so the application still sees one
+ * DataSource bean.
+ */
+@Configuration
+@ConditionalOnExpression("!'${datasource.replica.url:}'.isBlank()")
+public class ReadReplicaConfig {
+
+    @Value("${datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${datasource.replica.username:sa}")
+    private String replicaUsername;
+
+    @Value("${datasource.replica.password:}")
+    private String replicaPassword;
+
+    @Value("${datasource.replica.pool-size:10}")
+    private int replicaPoolSize;
+
+    // Short, so a replica that went away costs a read this long at most before falling back
+    @Value("${datasource.replica.connect-timeout-ms:1000}")
+    private long replicaConnectTimeoutMs;
+
+    @Value("${datasource.replica.local-sync:false}")
+    private boolean localSync;
+
+    @Bean(destroyMethod = "close")
+    ReplicaRouting replicaRouting(DataSourceProperties properties, ReplicaHealth replicaHealth, MeterRegistry meterRegistry) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        primary.setMetricRegistry(meterRegistry);
+
+        HikariDataSource replica = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+        replica.setPoolName("replica");
+        replica.setMaximumPoolSize(replicaPoolSize);
+        replica.setConnectionTimeout(replicaConnectTimeoutMs);
+        // Start even when the replica is down; reads use the primary until it shows up
+        replica.setInitializationFailTimeout(-1);
+        replica.setMetricRegistry(meterRegistry);
+
+        LocalReplicaSync sync = localSync ? new LocalReplicaSync(primary, replica, replicaHealth, meterRegistry) : null;
+        return new ReplicaRouting(primary, replica, sync, replicaHealth);
+    }
+
+    @Bean
+    DataSource dataSource(ReplicaRouting replicaRouting) {
+        return replicaRouting.getDataSource();
+    }
+}
@@ -0,0 +1,44 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.ReadRouting;
+import com.shodh.contest.service.ReplicaHealth;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Lets API reads be served from the read replica: contest pages, submission status, history and
+ * leaderboards. Admin endpoints always see the primary.
+ */
+@Component
+public class ReplicaReadFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private ReplicaHealth replicaHealth;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !replicaHealth.isEnabled()
+                || !"GET".equals(request.getMethod())
+                || !uri.startsWith("/api/")
+                || uri.startsWith("/api/admin/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ReadRouting.allowReplica();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadRouting.end();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.ReadRouting;
+import com.shodh.contest.service.ReplicaHealth;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sends a connection to the read replica when it is asked for inside a read-only transaction, on
+ * a thread {@link ReadRouting} lets read from the replica, while {@link ReplicaHealth} says the
+ * replica is fresh enough. Everything else goes to the primary, as does a read whose replica
+ * connection fails. The lazy proxy in front defers the choice to the first statement, by which
+ * time the transaction's read-only flag is known.
+ */
+public class ReplicaRouting {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRouting.class);
+
+    private final HikariDataSource primaryPool;
+    private final HikariDataSource replicaPool;
+    private final DataSource primary;
+    private final LocalReplicaSync localSync;
+    private final ReplicaHealth replicaHealth;
+    private final DataSource dataSource;
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    ReplicaRouting(HikariDataSource primaryPool, HikariDataSource replicaPool, LocalReplicaSync localSync,
+                   ReplicaHealth replicaHealth) {
+        this.primaryPool = primaryPool;
+        this.replicaPool = replicaPool;
+        this.primary = localSync != null ? localSync.tracking(primaryPool) : primaryPool;
+        this.localSync = localSync;
+        this.replicaHealth = replicaHealth;
+        this.dataSource = new LazyConnectionDataSourceProxy(new Router());
+    }
+
+    DataSource getDataSource() {
+        return dataSource;
+    }
+
+    // After the schema exists and before any runner writes, so a local copy starts complete
+    @EventListener(ContextRefreshedEvent.class)
+    public void start() throws SQLException {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        JdbcTemplate jdbc = new JdbcTemplate(primary);
+        jdbc.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        if (jdbc.update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1", System.currentTimeMillis()) == 0) {
+            jdbc.update("INSERT INTO replica_heartbeat (id, beat_at) VALUES (1, ?)", System.currentTimeMillis());
+        }
+        if (localSync != null) {
+            localSync.start();
+        }
+        logger.info("Routing read-only API reads to {}", replicaPool.getJdbcUrl());
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replica.heartbeat-interval-ms:250}")
+    public void heartbeat() {
+        if (!started.get()) {
+            return;
+        }
+        try {
+            new JdbcTemplate(primary).update("UPDATE replica_heartbeat SET beat_at = ? WHERE id = 1",
+                    System.currentTimeMillis());
+        } catch (DataAccessException e) {
+            // The replica's heartbeat ages past the bound by itself; nothing else to do here
+            logger.warn("Could not write replica heartbeat: {}", e.getMessage());
+        }
+        try {
+            Long beatAt = new JdbcTemplate(replicaPool).queryForObject(
+                    "SELECT beat_at FROM replica_heartbeat WHERE id = 1", Long.class);
+            if (beatAt != null) {
+                replicaHealth.heartbeatReplicated(beatAt);
+            }
+        } catch (DataAccessException e) {
+            replicaHealth.replicaUnreachable(e);
+        }
+    }
+
+    void close() {
+        if (localSync != null) {
+            localSync.stop();
+        }
+        replicaPool.close();
+        primaryPool.close();
+    }
+
+    private class Router extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (ReadRouting.isReplicaAllowed() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                if (replicaHealth.isServing()) {
+                    try {
+                        Connection connection = replicaPool.getConnection();
+                        replicaHealth.recordRead(true);
+                        ReadRouting.replicaUsed();
+                        return connection;
+                    } catch (SQLException e) {
+                        replicaHealth.replicaUnreachable(e);
+                    }
+                }
+                replicaHealth.recordRead(false);
+            }
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+    }
+}
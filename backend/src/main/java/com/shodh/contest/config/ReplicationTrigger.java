@@ -0,0 +1,26 @@
+package com.shodh.contest.config;
+
+import org.h2.api.Trigger;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Row trigger that {@link LocalReplicaSync} installs on every primary table. H2 creates one per
+ * table by class name, so it hands rows to the running sync instead of holding state itself.
+ */
+public class ReplicationTrigger implements Trigger {
+
+    private String table;
+
+    @Override
+    public void init(Connection connection, String schemaName, String triggerName, String tableName,
+                     boolean before, int type) {
+        this.table = tableName;
+    }
+
+    @Override
+    public void fire(Connection connection, Object[] oldRow, Object[] newRow) throws SQLException {
+        LocalReplicaSync.record(connection, table, oldRow, newRow);
+    }
+}
@@ -0,0 +1,73 @@
+package com.shodh.contest.config;
+
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ExpiryPolicyBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.time.Duration;
+
+/**
+ * Regions of Hibernate's second-level cache, each bounded in entries. Hibernate is handed this
+ * cache manager and fails at startup when a cached entity or query has no region here.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    private static final String CONTESTS = "contests";
+    private static final String PROBLEMS = "problems";
+    private static final String PROBLEM_SUBTASKS = "problem-subtasks";
+
+    @Value("${cache.second-level.ttl-seconds:600}")
+    private long ttlSeconds;
+
+    @Value("${cache.second-level.contests.max-entries:1000}")
+    private long contestEntries;
+
+    @Value("${cache.second-level.problems.max-entries:10000}")
+    private long problemEntries;
+
+    @Value("${cache.second-level.queries.max-entries:10000}")
+    private long queryEntries;
+
+    @Bean(destroyMethod = "close")
+    CacheManager secondLevelCacheManager() {
+        CachingProvider provider = Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(provider.getDefaultURI(), getClass().getClassLoader());
+
+        // Entries also expire, which bounds how stale a row read from the replica or edited
+        // outside Hibernate can get
+        Duration ttl = Duration.ofSeconds(ttlSeconds);
+        cacheManager.createCache(CONTESTS, region(contestEntries, ttl));
+        cacheManager.createCache(PROBLEMS, region(problemEntries, ttl));
+        cacheManager.createCache(PROBLEM_SUBTASKS, region(problemEntries, ttl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, region(queryEntries, ttl));
+        // One entry per table; query results are only valid while these are, so they never expire
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, region(1000, null));
+        return cacheManager;
+    }
+
+    @Bean
+    HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager);
+    }
+
+    private static javax.cache.configuration.Configuration<Object, Object> region(long maxEntries, Duration ttl) {
+        return Eh107Configuration.fromEhcacheCacheConfiguration(
+                CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                                ResourcePoolsBuilder.heap(maxEntries))
+                        .withExpiry(ttl != null
+                                ? ExpiryPolicyBuilder.timeToLiveExpiration(ttl)
+                                : ExpiryPolicyBuilder.noExpiration()));
+    }
+}
@@ -0,0 +1,40 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.WorkloadCapture;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Feeds API reads to the workload capture: polling of submissions, leaderboards and contest
+ * pages. Admin endpoints are left out, as they are not part of contest traffic.
+ */
+@Component
+public class WorkloadCaptureFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private WorkloadCapture workloadCapture;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        return !workloadCapture.isEnabled()
+                || !"GET".equals(request.getMethod())
+                || !uri.startsWith("/api/")
+                || uri.startsWith("/api/admin/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String query = request.getQueryString();
+        workloadCapture.recordRead(query != null ? request.getRequestURI() + "?" + query : request.getRequestURI());
+        chain.doFilter(request, response);
+    }
+}
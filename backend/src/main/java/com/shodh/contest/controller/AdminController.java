@@ -0,0 +1,240 @@
+package com.shodh.contest.controller;
+
+import com.shodh.contest.dto.CacheRegionStats;
+import com.shodh.contest.dto.CompileBenchmark;
+import com.shodh.contest.dto.ContestPrescale;
+import com.shodh.contest.dto.ImportReport;
+import com.shodh.contest.dto.JudgeCapacity;
+import com.shodh.contest.dto.JudgeQueueStats;
+import com.shodh.contest.dto.LanguageWarmup;
+import com.shodh.contest.dto.RejudgeProgress;
+import com.shodh.contest.dto.RejudgeRequest;
+import com.shodh.contest.dto.ReplayReport;
+import com.shodh.contest.dto.ReplayRequest;
+import com.shodh.contest.dto.ReplicaStatus;
+import com.shodh.contest.dto.ToolchainProfile;
+import com.shodh.contest.service.CodeSimilarityIndex;
+import com.shodh.contest.service.ContestImporter;
+import com.shodh.contest.service.ContestPrescaler;
+import com.shodh.contest.service.ExecutorWarmup;
+import com.shodh.contest.service.JudgeQueue;
+import com.shodh.contest.service.JudgeSlots;
+import com.shodh.contest.service.MetadataCache;
+import com.shodh.contest.service.RejudgeService;
+import com.shodh.contest.service.ReplicaHealth;
+import com.shodh.contest.service.SubmissionTracer;
+import com.shodh.contest.service.ToolchainProfiles;
+import com.shodh.contest.service.WorkloadReplayer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+import java.nio.file.Paths;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    @Autowired
+    private JudgeQueue judgeQueue;
+
+    @Autowired
+    private RejudgeService rejudgeService;
+
+    @Autowired
+    private ExecutorWarmup executorWarmup;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private JudgeSlots judgeSlots;
+
+    @Autowired
+    private WorkloadReplayer workloadReplayer;
+
+    @Autowired
+    private CodeSimilarityIndex codeSimilarityIndex;
+
+    @Autowired
+    private SubmissionTracer submissionTracer;
+
+    @Autowired
+    private ContestImporter contestImporter;
+
+    @Autowired
+    private ReplicaHealth replicaHealth;
+
+    @Autowired
+    private ContestPrescaler contestPrescaler;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @GetMapping("/judge/queue")
+    public ResponseEntity<JudgeQueueStats> getJudgeQueueStats() {
+        return ResponseEntity.ok(judgeQueue.getStats());
+    }
+
+    @GetMapping("/judge/capacity")
+    public ResponseEntity<JudgeCapacity> getCapacity() {
+        return ResponseEntity.ok(judgeSlots.getCapacity());
+    }
+
+    @GetMapping("/datasource/replica")
+    public ResponseEntity<ReplicaStatus> getReplicaStatus() {
+        return ResponseEntity.ok(replicaHealth.getStatus());
+    }
+
+    @GetMapping("/cache")
+    public ResponseEntity<List<CacheRegionStats>> getCacheStats() {
+        return ResponseEntity.ok(metadataCache.getStats());
+    }
+
+    @PostMapping("/cache/invalidate")
+    public ResponseEntity<List<CacheRegionStats>> invalidateCache() {
+        metadataCache.invalidate();
+        return ResponseEntity.ok(metadataCache.getStats());
+    }
+
+    @GetMapping("/judge/prescale")
+    public ResponseEntity<List<ContestPrescale>> getPrescaleHistory() {
+        return ResponseEntity.ok(contestPrescaler.getHistory());
+    }
+
+    @GetMapping("/judge/warmup")
+    public ResponseEntity<List<LanguageWarmup>> getWarmup() {
+        return ResponseEntity.ok(executorWarmup.getResults());
+    }
+
+    @GetMapping("/judge/toolchain")
+    public ResponseEntity<List<ToolchainProfile>> getToolchainProfiles() {
+        return ResponseEntity.ok(toolchainProfiles.getProfiles());
+    }
+
+    @PostMapping("/judge/toolchain/benchmark")
+    public ResponseEntity<?> benchmarkToolchain(@RequestParam String language,
+                                                @RequestParam(defaultValue = "3") int iterations) {
+        try {
+            CompileBenchmark benchmark = toolchainProfiles.benchmark(language, iterations);
+            return ResponseEntity.ok(benchmark);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/similarity/{contestId}/{problemId}")
+    public ResponseEntity<?> getSimilarityClusters(@PathVariable String contestId,
+                                                   @PathVariable String problemId,
+                                                   @RequestParam(defaultValue = "0.8") double threshold,
+                                                   @RequestParam(defaultValue = "50") int limit) {
+        try {
+            return ResponseEntity.ok(codeSimilarityIndex.clusters(contestId, problemId, threshold, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/traces")
+    public ResponseEntity<?> getSlowestTraces(@RequestParam(defaultValue = "15") int minutes,
+                                              @RequestParam(defaultValue = "20") int limit) {
+        try {
+            return ResponseEntity.ok(submissionTracer.slowest(minutes, limit));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/traces/{submissionId}")
+    public ResponseEntity<?> getTrace(@PathVariable String submissionId) {
+        try {
+            return ResponseEntity.ok(submissionTracer.getTrace(submissionId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+
+    // Either a package path on the server, or a zip as the request body
+    @PostMapping("/contests/import")
+    public ResponseEntity<?> importContest(@RequestParam(required = false) String path, InputStream body) {
+        try {
+            ImportReport report = path != null
+                    ? contestImporter.importPath(Paths.get(path))
+                    : contestImporter.importZip(body);
+            return ResponseEntity.status(HttpStatus.CREATED).body(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/rejudges")
+    public ResponseEntity<?> startRejudge(@RequestBody RejudgeRequest request) {
+        try {
+            RejudgeProgress progress = rejudgeService.startRejudge(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(progress);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/rejudges")
+    public ResponseEntity<List<RejudgeProgress>> listRejudges() {
+        return ResponseEntity.ok(rejudgeService.listRejudges());
+    }
+
+    @GetMapping("/rejudges/{taskId}")
+    public ResponseEntity<?> getRejudge(@PathVariable String taskId) {
+        try {
+            return ResponseEntity.ok(rejudgeService.getProgress(taskId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/rejudges/{taskId}/cancel")
+    public ResponseEntity<?> cancelRejudge(@PathVariable String taskId) {
+        try {
+            return ResponseEntity.ok(rejudgeService.cancelRejudge(taskId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+
+    @PostMapping("/workload/replays")
+    public ResponseEntity<?> startReplay(@RequestBody ReplayRequest request) {
+        try {
+            ReplayReport report = workloadReplayer.startReplay(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/workload/replays")
+    public ResponseEntity<List<ReplayReport>> listReplays() {
+        return ResponseEntity.ok(workloadReplayer.listReports());
+    }
+
+    @GetMapping("/workload/replays/{replayId}")
+    public ResponseEntity<?> getReplay(@PathVariable String replayId) {
+        try {
+            return ResponseEntity.ok(workloadReplayer.getReport(replayId));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+}
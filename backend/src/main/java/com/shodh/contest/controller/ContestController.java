@@ -1,13 +1,18 @@
 package com.shodh.contest.controller;
 
 import com.shodh.contest.dto.ContestDto;
+import com.shodh.contest.dto.CustomRunRequest;
+import com.shodh.contest.dto.CustomRunResponse;
 import com.shodh.contest.dto.LeaderboardEntry;
 import com.shodh.contest.dto.ProblemDto;
+import com.shodh.contest.dto.SubmissionPage;
 import com.shodh.contest.dto.SubmissionRequest;
 import com.shodh.contest.dto.SubmissionResponse;
 import com.shodh.contest.model.Contest;
 import com.shodh.contest.model.Problem;
 import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.service.CustomRunService;
+import com.shodh.contest.service.SubmissionHistoryService;
 import com.shodh.contest.service.SubmissionService;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,6 +35,12 @@ public class ContestController {
     @Autowired
     private SubmissionService submissionService;
 
+    @Autowired
+    private SubmissionHistoryService submissionHistoryService;
+
+    @Autowired
+    private CustomRunService customRunService;
+
     @GetMapping("/contests/{contestId}")
     public ResponseEntity<?> getContest(@PathVariable String contestId) {
         Optional<Contest> contestOpt = contestRepository.findByContestIdWithProblems(contestId);
@@ -79,6 +90,64 @@ public class ContestController {
         }
     }
 
+    @PostMapping("/custom-runs")
+    public ResponseEntity<?> submitCustomRun(@RequestBody CustomRunRequest request) {
+        try {
+            CustomRunResponse response = customRunService.submit(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/custom-runs/{runId}")
+    public ResponseEntity<?> getCustomRun(@PathVariable String runId) {
+        try {
+            CustomRunResponse response = customRunService.getRun(runId);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/contests/{contestId}/submissions")
+    public ResponseEntity<?> getContestSubmissions(@PathVariable String contestId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
+        try {
+            SubmissionPage page = submissionHistoryService.getContestHistory(contestId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+
+    @GetMapping("/contests/{contestId}/problems/{problemId}/submissions")
+    public ResponseEntity<?> getProblemSubmissions(@PathVariable String contestId,
+                                                   @PathVariable String problemId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
+        try {
+            SubmissionPage page = submissionHistoryService.getProblemHistory(contestId, problemId, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(e.getMessage());
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(e.getMessage());
+        }
+    }
+
     @GetMapping("/contests/{contestId}/leaderboard")
     public ResponseEntity<?> getLeaderboard(@PathVariable String contestId) {
         try {
@@ -1,10 +1,13 @@
 package com.shodh.contest.controller;
 
+import com.shodh.contest.dto.SubmissionPage;
 import com.shodh.contest.dto.UserDto;
 import com.shodh.contest.model.Contest;
 import com.shodh.contest.model.User;
 import com.shodh.contest.repository.ContestRepository;
 import com.shodh.contest.repository.UserRepository;
+import com.shodh.contest.service.ContestMembershipService;
+import com.shodh.contest.service.SubmissionHistoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -25,6 +28,12 @@ public class UserController {
     @Autowired
     private ContestRepository contestRepository;
 
+    @Autowired
+    private SubmissionHistoryService submissionHistoryService;
+
+    @Autowired
+    private ContestMembershipService contestMembershipService;
+
     @PostMapping("/register")
     public ResponseEntity<?> registerUser(@RequestBody UserDto userDto) {
         if (userRepository.existsByUsername(userDto.getUsername())) {
@@ -44,10 +53,9 @@ public class UserController {
     
     @PostMapping("/join-contest")
     public ResponseEntity<?> joinContest(@RequestParam String username, @RequestParam String contestId) {
-        Optional<User> userOpt = userRepository.findByUsername(username);
         Optional<Contest> contestOpt = contestRepository.findByContestId(contestId);
         
-        if (userOpt.isEmpty()) {
+        if (!userRepository.existsByUsername(username)) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "User not found"));
         }
         
@@ -55,16 +63,23 @@ public class UserController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("message", "Contest not found"));
         }
         
-        User user = userOpt.get();
-        Contest contest = contestOpt.get();
-        
-        if (user.getJoinedContests() != null && user.getJoinedContests().contains(contest)) {
+        if (!contestMembershipService.join(username, contestOpt.get())) {
             return ResponseEntity.ok(Map.of("message", "User already joined this contest"));
         }
         
-        user.getJoinedContests().add(contest);
-        userRepository.save(user);
-        
         return ResponseEntity.ok(Map.of("message", "Successfully joined contest"));
     }
-}
\ No newline at end of file
+
+    @GetMapping("/{username}/submissions")
+    public ResponseEntity<?> getUserSubmissions(@PathVariable String username,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer limit) {
+        try {
+            SubmissionPage page = submissionHistoryService.getUserHistory(username, cursor, limit);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(Map.of("message", e.getMessage()));
+        }
+    }
+}
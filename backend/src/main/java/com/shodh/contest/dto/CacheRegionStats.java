@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheRegionStats {
+    private String region;
+    private Long hits;
+    private Long misses;
+    private Long puts;
+    private Double hitRate;
+}
@@ -0,0 +1,18 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CompileBenchmark {
+    private String language;
+    private String profile;
+    private int iterations;
+    private Long baselineCompileMs;
+    private Long acceleratedCompileMs;
+    private Long baselineRunMs;
+    private Long acceleratedRunMs;
+}
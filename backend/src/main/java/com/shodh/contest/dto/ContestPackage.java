@@ -0,0 +1,24 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The contest.json manifest of an import package. Each problem's files live in a directory named
+ * after its problemId next to the manifest.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContestPackage {
+    private String contestId;
+    private String name;
+    private String description;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private List<ProblemPackage> problems;
+}
@@ -0,0 +1,24 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContestPrescale {
+    private String contestId;
+    private String window;
+    private LocalDateTime windowStart;
+    private LocalDateTime windowEnd;
+    private LocalDateTime preparedAt;
+    private Long durationMs;
+    private Integer problems;
+    private Long testDataMb;
+    private List<LanguageWarmup> languages;
+    private String error;
+}
@@ -0,0 +1,12 @@
+package com.shodh.contest.dto;
+
+import lombok.Data;
+
+@Data
+public class CustomRunRequest {
+    private String contestId;
+    private String username;
+    private String code;
+    private String language;
+    private String input;
+}
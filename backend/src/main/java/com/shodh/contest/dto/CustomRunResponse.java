@@ -0,0 +1,26 @@
+package com.shodh.contest.dto;
+
+import com.shodh.contest.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomRunResponse {
+    private String runId;
+    private String username;
+    private String language;
+    private SubmissionStatus status;
+    private String stdout;
+    private String stderr;
+    private String errorMessage;
+    private Integer exitCode;
+    private Long timeMillis;
+    private Boolean outputTruncated;
+    private LocalDateTime submittedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+    private String contestId;
+    private Integer problems;
+    private Long testCases;
+    private Long testBytes;
+    private Long durationMs;
+}
@@ -0,0 +1,22 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeCapacity {
+    private Integer slots;
+    private Integer busySlots;
+    private Boolean pinned;
+    private String reservedCpus;
+    private List<String> slotCpus;
+    private Long memoryPerSlotMb;
+    private Integer availableCpus;
+    private Long availableMemoryMb;
+    private Integer activeSlots;
+}
@@ -0,0 +1,23 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class JudgeQueueStats {
+    private Integer queued;
+    private Integer customRunQueued;
+    private Integer backgroundQueued;
+    private Long firstAttemptWaitP50Ms;
+    private Long firstAttemptWaitP99Ms;
+    private Long repeatAttemptWaitP50Ms;
+    private Long repeatAttemptWaitP99Ms;
+    private Long timeToVerdictP50Ms;
+    private Long timeToVerdictP99Ms;
+    private List<LaneStats> lanes;
+}
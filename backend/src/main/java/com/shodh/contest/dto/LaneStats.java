@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LaneStats {
+    private String lane;
+    private Long queued;
+    private Long dispatched;
+    private Long avgWaitMs;
+    private Long maxWaitMs;
+}
@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import com.shodh.contest.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LanguageWarmup {
+    private String language;
+    private SubmissionStatus status;
+    private Long coldMs;
+    private Long warmMs;
+}
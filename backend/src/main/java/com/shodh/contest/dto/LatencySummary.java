@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencySummary {
+    private Long count;
+    private Long p50Millis;
+    private Long p95Millis;
+    private Long p99Millis;
+    private Long maxMillis;
+}
@@ -12,4 +12,5 @@ public class LeaderboardEntry {
     private Long totalSubmissions;
     private Long acceptedSubmissions;
     private Long totalProblemsSolved;
+    private Long totalPoints;
 }
@@ -1,5 +1,7 @@
 package com.shodh.contest.dto;
 
+import com.shodh.contest.model.JudgingPolicy;
+import com.shodh.contest.model.Subtask;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -16,6 +18,8 @@ public class ProblemDto {
     private String description;
     private List<String> inputTestCases;
     private List<String> expectedOutputs;
+    private JudgingPolicy judgingPolicy;
+    private List<Subtask> subtasks;
     private Integer timeLimitSeconds;
     private Integer memoryLimitMB;
 }
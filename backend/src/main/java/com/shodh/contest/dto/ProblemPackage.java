@@ -0,0 +1,27 @@
+package com.shodh.contest.dto;
+
+import com.shodh.contest.model.JudgingPolicy;
+import com.shodh.contest.model.Subtask;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One problem of an import package. The statement is read from {@code statement} (default
+ * statement.md) in the problem's directory, and test cases are the matching .in/.out pairs in
+ * its tests directory, in natural order of their names.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProblemPackage {
+    private String problemId;
+    private String title;
+    private String statement;
+    private Integer timeLimitSeconds;
+    private Integer memoryLimitMB;
+    private JudgingPolicy judgingPolicy;
+    private List<Subtask> subtasks;
+}
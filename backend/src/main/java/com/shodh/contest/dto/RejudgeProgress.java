@@ -0,0 +1,26 @@
+package com.shodh.contest.dto;
+
+import com.shodh.contest.model.RejudgeStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejudgeProgress {
+    private String taskId;
+    private String contestId;
+    private String problemId;
+    private RejudgeStatus status;
+    private Double capacityShare;
+    private Long totalSubmissions;
+    private Long completedSubmissions;
+    private Long changedVerdicts;
+    private Long reusedResults;
+    private Long etaSeconds;
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
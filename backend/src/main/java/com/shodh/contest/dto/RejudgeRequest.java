@@ -0,0 +1,15 @@
+package com.shodh.contest.dto;
+
+import com.shodh.contest.model.SubmissionStatus;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class RejudgeRequest {
+    private String contestId;
+    private String problemId;
+    private String username;
+    private List<SubmissionStatus> statuses;
+    private Double capacityShare;
+}
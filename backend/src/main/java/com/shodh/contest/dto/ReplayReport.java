@@ -0,0 +1,35 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress and results of a workload replay. Throughput is verdicts per second. The captured
+ * figures are scaled by the replay speed, so an unchanged build matches them.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplayReport {
+    private String replayId;
+    private String file;
+    private String mode;
+    private Double speed;
+    private String status;
+    private String error;
+    private Long submissionsSent;
+    private Long readsSent;
+    private Long failedRequests;
+    private Long verdictsPending;
+    private Long verdictMismatches;
+    private LatencySummary capturedVerdictLatency;
+    private LatencySummary replayedVerdictLatency;
+    private LatencySummary replayedReadLatency;
+    private Double capturedThroughput;
+    private Double replayedThroughput;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,14 @@
+package com.shodh.contest.dto;
+
+import lombok.Data;
+
+@Data
+public class ReplayRequest {
+    // Capture file to replay, as written by the workload capture
+    private String file;
+    // 1.0 replays at the captured pace, 10.0 ten times faster
+    private Double speed;
+    // SERVICE submits through SubmissionService in this process, HTTP posts to baseUrl
+    private String mode;
+    private String baseUrl;
+}
@@ -0,0 +1,18 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReplicaStatus {
+    private Boolean enabled;
+    private Boolean serving;
+    private Long stalenessMs;
+    private Long maxStalenessMs;
+    private Long replicaReads;
+    private Long primaryReads;
+    private String failure;
+}
@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarityCluster {
+    private Integer users;
+    // Oldest submission first
+    private List<SimilarityMember> members;
+}
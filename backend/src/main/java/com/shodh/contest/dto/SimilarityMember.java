@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarityMember {
+    private String submissionId;
+    private String username;
+    private String language;
+    // Estimated Jaccard similarity of the normalized code to the cluster's first submission
+    private Double similarity;
+}
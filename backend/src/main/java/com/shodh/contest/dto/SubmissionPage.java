@@ -0,0 +1,16 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionPage {
+    private List<SubmissionSummary> submissions;
+    // Pass back as ?cursor= for the next (older) page; null on the last page
+    private String nextCursor;
+}
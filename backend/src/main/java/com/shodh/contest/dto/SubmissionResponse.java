@@ -19,6 +19,9 @@ public class SubmissionResponse {
     private String errorMessage;
     private Integer testCasesPassed;
     private Integer totalTestCases;
+    private Integer score;
+    private Double calibrationFactor;
+    private Integer reruns;
     private LocalDateTime submittedAt;
     private LocalDateTime processedAt;
 }
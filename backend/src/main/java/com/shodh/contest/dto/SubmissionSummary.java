@@ -0,0 +1,32 @@
+package com.shodh.contest.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.shodh.contest.model.SubmissionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A submission as listed in history pages: verdict and timing only, without code or compiler
+ * output.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionSummary {
+    @JsonIgnore
+    private Long id;
+    private String submissionId;
+    private String contestId;
+    private String problemId;
+    private String username;
+    private String language;
+    private SubmissionStatus status;
+    private Integer testCasesPassed;
+    private Integer totalTestCases;
+    private Integer score;
+    private LocalDateTime submittedAt;
+    private LocalDateTime processedAt;
+}
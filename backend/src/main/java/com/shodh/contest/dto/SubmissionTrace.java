@@ -0,0 +1,27 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Timeline of one submission from the submit request to its verdict. Spans are left out of
+ * listings and ordered by start time when present.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubmissionTrace {
+    private String traceId;
+    private String submissionId;
+    private String username;
+    private String problemId;
+    private String language;
+    private String status;
+    private LocalDateTime startedAt;
+    private Double durationMs;
+    private List<TraceSpan> spans;
+}
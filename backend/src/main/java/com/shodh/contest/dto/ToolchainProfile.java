@@ -0,0 +1,17 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ToolchainProfile {
+    private String language;
+    private String profile;
+    private boolean enabled;
+    private boolean ready;
+    private Long prepareMs;
+    private String detail;
+}
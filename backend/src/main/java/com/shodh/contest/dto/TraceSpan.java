@@ -0,0 +1,22 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * One step of a submission's trace. Offsets are relative to the start of the trace.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TraceSpan {
+    private String spanId;
+    private String parentSpanId;
+    private String name;
+    private Double offsetMs;
+    private Double durationMs;
+    private Map<String, Object> attributes;
+}
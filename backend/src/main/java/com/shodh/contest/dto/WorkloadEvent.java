@@ -0,0 +1,36 @@
+package com.shodh.contest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One line of a workload capture. {@code t} is milliseconds since the capture started; only the
+ * fields of the event's type are set.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WorkloadEvent {
+    public enum Type { SUBMIT, READ, VERDICT }
+
+    private long t;
+    private Type type;
+
+    // SUBMIT and VERDICT
+    private String submissionId;
+
+    // SUBMIT
+    private String contestId;
+    private String problemId;
+    private String username;
+    private String language;
+    private String code;
+
+    // READ: path and query string of a GET request
+    private String path;
+
+    // VERDICT
+    private String status;
+    private Long latencyMillis;
+}
@@ -0,0 +1,34 @@
+package com.shodh.contest.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * MinHash signature of an accepted submission's normalized code, so the similarity index can be
+ * rebuilt at startup without tokenizing every submission again.
+ */
+@Entity
+@Table(name = "code_signatures", indexes = @Index(columnList = "problemId"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CodeSignature {
+    // Same id as the submission
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private String submissionId;
+
+    @Column(nullable = false)
+    private Long problemId;
+
+    private String username;
+    private String language;
+
+    // One big-endian int per hash function
+    @Column(nullable = false, length = 1024)
+    private byte[] minHash;
+}
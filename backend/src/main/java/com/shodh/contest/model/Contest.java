@@ -6,12 +6,15 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "contests")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "contests")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,33 @@
+package com.shodh.contest.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One user's membership of one contest. Kept apart from {@link User} so that checking a single
+ * pair is one indexed lookup rather than loading every contest the user has joined.
+ */
+@Entity
+@Table(name = "contest_memberships",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"username", "contest_id"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ContestMembership {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private String username;
+
+    @Column(nullable = false)
+    private Long contestId;
+
+    @Column(nullable = false)
+    private LocalDateTime joinedAt;
+}
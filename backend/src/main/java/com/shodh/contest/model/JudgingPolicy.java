@@ -0,0 +1,12 @@
+package com.shodh.contest.model;
+
+/**
+ * How a problem's tests turn into a verdict and a score.
+ */
+public enum JudgingPolicy {
+    // All-or-nothing: judging stops at the first failing test
+    ICPC,
+    // Partial scoring: each subtask scores its points only if all of its tests pass, and the rest
+    // of a subtask is skipped after its first failure
+    IOI
+}
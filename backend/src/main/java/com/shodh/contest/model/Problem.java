@@ -5,15 +5,21 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
+import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "problems")
+@Table(name = "problems", indexes = @Index(name = "idx_problems_contest_problem", columnList = "contest_id, problem_id", unique = true))
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "problems")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Problem {
+    public static final int DEFAULT_POINTS = 100;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -32,16 +38,35 @@ public class Problem {
     @Column(length = 5000)
     private String description;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    // Test data is only read when TestDataStore materializes a new version to disk
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "problem_input_test_cases", joinColumns = @JoinColumn(name = "problem_id"))
     @Column(name = "input_case")
     private List<String> inputTestCases;
 
-    @ElementCollection(fetch = FetchType.EAGER)
+    @ElementCollection(fetch = FetchType.LAZY)
     @CollectionTable(name = "problem_expected_outputs", joinColumns = @JoinColumn(name = "problem_id"))
     @Column(name = "expected_output")
     private List<String> expectedOutputs;
 
+    // Set for imported problems, whose test files stay on disk instead of in the collections above
+    @JsonIgnore
+    private String testDataDir;
+
+    // Bumped by Hibernate on every change, including test data edits
+    @Version
+    private Long version;
+
+    // Empty means the whole test set is a single group worth DEFAULT_POINTS
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "problem_subtasks", joinColumns = @JoinColumn(name = "problem_id"))
+    @OrderColumn(name = "position")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "problem-subtasks")
+    private List<Subtask> subtasks = new ArrayList<>();
+
+    @Enumerated(EnumType.STRING)
+    private JudgingPolicy judgingPolicy = JudgingPolicy.ICPC;
+
     private Integer timeLimitSeconds = 5;
     private Integer memoryLimitMB = 256;
 
@@ -0,0 +1,7 @@
+package com.shodh.contest.model;
+
+public enum RejudgeStatus {
+    RUNNING,
+    COMPLETED,
+    CANCELLED
+}
@@ -0,0 +1,50 @@
+package com.shodh.contest.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "rejudge_tasks")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RejudgeTask {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true)
+    private String taskId;
+
+    @Column(nullable = false)
+    private String contestId;
+
+    // Optional filters; null means "any"
+    private String problemId;
+    private String username;
+    private String statuses;
+
+    private Double capacityShare;
+
+    @Enumerated(EnumType.STRING)
+    private RejudgeStatus status = RejudgeStatus.RUNNING;
+
+    private Long totalSubmissions = 0L;
+    private Long completedSubmissions = 0L;
+    private Long changedVerdicts = 0L;
+    private Long reusedResults = 0L;
+
+    // Every submission with an id at or below the cursor has been rejudged
+    private Long cursor = 0L;
+
+    // Ids above the cursor that have been rejudged too, comma-separated, so a resumed task skips them
+    @Column(columnDefinition = "TEXT")
+    private String finishedAboveCursor;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime finishedAt;
+}
@@ -8,7 +8,11 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "submissions")
+@Table(name = "submissions", indexes = {
+        @Index(name = "idx_submissions_contest_history", columnList = "contest_id, submitted_at, id"),
+        @Index(name = "idx_submissions_problem_history", columnList = "problem_id, submitted_at, id"),
+        @Index(name = "idx_submissions_user_history", columnList = "username, submitted_at, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -44,6 +48,11 @@ public class Submission {
 
     private Integer testCasesPassed = 0;
     private Integer totalTestCases = 0;
+    private Integer score = 0;
+
+    // Time limit factor of the node that judged it, and how many near-limit runs were repeated
+    private Double calibrationFactor;
+    private Integer reruns = 0;
 
     private LocalDateTime submittedAt;
     private LocalDateTime processedAt;
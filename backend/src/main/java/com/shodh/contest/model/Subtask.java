@@ -0,0 +1,19 @@
+package com.shodh.contest.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A group of consecutive test cases scored together. Subtasks follow each other in test order,
+ * so the first one covers tests 1..testCount, the next one the tests after that, and so on.
+ */
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Subtask {
+    private Integer testCount;
+    private Integer points;
+}
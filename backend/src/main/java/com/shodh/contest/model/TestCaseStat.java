@@ -0,0 +1,40 @@
+package com.shodh.contest.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Decayed run and failure counts of one test case, used to run likely failures first.
+ */
+@Entity
+@Table(name = "test_case_stats", uniqueConstraints = @UniqueConstraint(columnNames = {"problem_id", "test_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TestCaseStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long problemId;
+
+    @Column(nullable = false)
+    private Integer testIndex;
+
+    // Counts from another test data version describe different tests and are discarded
+    private Long testDataVersion;
+
+    private Double runs = 0.0;
+    private Double failures = 0.0;
+
+    // Both counts are decayed from this point in time
+    private LocalDateTime updatedAt;
+
+    // Position in the frozen run order; recomputed from the counts once per refresh interval
+    private Integer orderRank;
+}
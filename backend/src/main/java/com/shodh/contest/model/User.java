@@ -26,12 +26,5 @@ public class User {
     @OneToMany(mappedBy = "username", fetch = FetchType.LAZY)
     private List<Submission> submissions;
 
-    // Track which contests the user has joined
-    @ManyToMany(fetch = FetchType.EAGER)
-    @JoinTable(
-        name = "user_contests",
-        joinColumns = @JoinColumn(name = "user_id"),
-        inverseJoinColumns = @JoinColumn(name = "contest_id")
-    )
-    private List<Contest> joinedContests = new java.util.ArrayList<>();
+    // Joined contests live in contest_memberships, see ContestMembershipService
 }
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.shodh.contest.repository;
+
+import com.shodh.contest.model.CodeSignature;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface CodeSignatureRepository extends JpaRepository<CodeSignature, Long> {
+
+    @Query("SELECT c FROM CodeSignature c WHERE c.id > :afterId ORDER BY c.id")
+    List<CodeSignature> findPage(@Param("afterId") Long afterId, Pageable pageable);
+}
@@ -0,0 +1,10 @@
+package com.shodh.contest.repository;
+
+import com.shodh.contest.model.ContestMembership;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ContestMembershipRepository extends JpaRepository<ContestMembership, Long> {
+    boolean existsByUsernameAndContestId(String username, Long contestId);
+}
@@ -1,19 +1,32 @@
 package com.shodh.contest.repository;
 
 import com.shodh.contest.model.Contest;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ContestRepository extends JpaRepository<Contest, Long> {
+    // Cached: every submission looks its contest up
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Contest> findByContestId(String contestId);
-    
+
+    // Read-only so contest pages can be served by the read replica
+    @Transactional(readOnly = true)
     @EntityGraph(attributePaths = {"problems"})
     @Query("SELECT c FROM Contest c WHERE c.contestId = :contestId")
     Optional<Contest> findByContestIdWithProblems(@Param("contestId") String contestId);
+
+    @Query("SELECT c FROM Contest c WHERE c.startTime BETWEEN :from AND :to OR c.endTime BETWEEN :from AND :to")
+    List<Contest> findStartingOrEndingBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
 }
@@ -1,7 +1,10 @@
 package com.shodh.contest.repository;
 
 import com.shodh.contest.model.Problem;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,5 +13,8 @@ import java.util.Optional;
 @Repository
 public interface ProblemRepository extends JpaRepository<Problem, Long> {
     List<Problem> findByContestId(Long contestId);
-    Optional<Problem> findByProblemId(String problemId);
+
+    // Cached: every submission looks its problem up
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    Optional<Problem> findByContestIdAndProblemId(Long contestId, String problemId);
 }
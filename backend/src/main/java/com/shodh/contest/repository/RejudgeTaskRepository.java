@@ -0,0 +1,16 @@
+package com.shodh.contest.repository;
+
+import com.shodh.contest.model.RejudgeStatus;
+import com.shodh.contest.model.RejudgeTask;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RejudgeTaskRepository extends JpaRepository<RejudgeTask, Long> {
+    Optional<RejudgeTask> findByTaskId(String taskId);
+    List<RejudgeTask> findByStatus(RejudgeStatus status);
+    List<RejudgeTask> findAllByOrderByCreatedAtDesc();
+}
@@ -1,9 +1,16 @@
 package com.shodh.contest.repository;
 
+import com.shodh.contest.dto.SubmissionSummary;
 import com.shodh.contest.model.Submission;
+import com.shodh.contest.model.SubmissionStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,4 +18,60 @@ import java.util.Optional;
 public interface SubmissionRepository extends JpaRepository<Submission, Long> {
     Optional<Submission> findBySubmissionId(String submissionId);
     List<Submission> findByContestIdOrderBySubmittedAtDesc(Long contestId);
+
+    boolean existsByUsernameAndProblemId(String username, Long problemId);
+
+    @Query("SELECT s.id FROM Submission s WHERE s.contest.id = :contestId" +
+            " AND (:problemId IS NULL OR s.problem.id = :problemId)" +
+            " AND (:username IS NULL OR s.username = :username)" +
+            " AND s.status IN :statuses AND s.id > :afterId ORDER BY s.id")
+    List<Long> findIdsForRejudge(@Param("contestId") Long contestId,
+                                 @Param("problemId") Long problemId,
+                                 @Param("username") String username,
+                                 @Param("statuses") Collection<SubmissionStatus> statuses,
+                                 @Param("afterId") Long afterId,
+                                 Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM Submission s WHERE s.contest.id = :contestId" +
+            " AND (:problemId IS NULL OR s.problem.id = :problemId)" +
+            " AND (:username IS NULL OR s.username = :username)" +
+            " AND s.status IN :statuses AND s.id > :afterId")
+    long countForRejudge(@Param("contestId") Long contestId,
+                         @Param("problemId") Long problemId,
+                         @Param("username") String username,
+                         @Param("statuses") Collection<SubmissionStatus> statuses,
+                         @Param("afterId") Long afterId);
+
+    // Accepted submissions the similarity index has no signature for yet, in id order
+    @Query("SELECT s FROM Submission s WHERE s.status = :status AND s.id > :afterId" +
+            " AND NOT EXISTS (SELECT c.id FROM CodeSignature c WHERE c.id = s.id) ORDER BY s.id")
+    List<Submission> findUnsigned(@Param("status") SubmissionStatus status,
+                                  @Param("afterId") Long afterId,
+                                  Pageable pageable);
+
+    // History pages seek on (submittedAt, id) newest first, so every page costs the same however
+    // deep it is. Each query is backed by an index ending in (submitted_at, id).
+    String SUMMARY = "SELECT new com.shodh.contest.dto.SubmissionSummary(s.id, s.submissionId, c.contestId," +
+            " p.problemId, s.username, s.language, s.status, s.testCasesPassed, s.totalTestCases," +
+            " s.score, s.submittedAt, s.processedAt) FROM Submission s JOIN s.contest c JOIN s.problem p";
+    String BEFORE_CURSOR = " AND (s.submittedAt < :beforeTime OR (s.submittedAt = :beforeTime AND s.id < :beforeId))" +
+            " ORDER BY s.submittedAt DESC, s.id DESC";
+
+    @Query(SUMMARY + " WHERE s.contest.id = :contestId" + BEFORE_CURSOR)
+    List<SubmissionSummary> findContestHistory(@Param("contestId") Long contestId,
+                                               @Param("beforeTime") LocalDateTime beforeTime,
+                                               @Param("beforeId") Long beforeId,
+                                               Pageable pageable);
+
+    @Query(SUMMARY + " WHERE s.problem.id = :problemId" + BEFORE_CURSOR)
+    List<SubmissionSummary> findProblemHistory(@Param("problemId") Long problemId,
+                                               @Param("beforeTime") LocalDateTime beforeTime,
+                                               @Param("beforeId") Long beforeId,
+                                               Pageable pageable);
+
+    @Query(SUMMARY + " WHERE s.username = :username" + BEFORE_CURSOR)
+    List<SubmissionSummary> findUserHistory(@Param("username") String username,
+                                            @Param("beforeTime") LocalDateTime beforeTime,
+                                            @Param("beforeId") Long beforeId,
+                                            Pageable pageable);
 }
@@ -0,0 +1,12 @@
+package com.shodh.contest.repository;
+
+import com.shodh.contest.model.TestCaseStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TestCaseStatRepository extends JpaRepository<TestCaseStat, Long> {
+    List<TestCaseStat> findByProblemId(Long problemId);
+}
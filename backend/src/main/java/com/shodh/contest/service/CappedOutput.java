@@ -0,0 +1,35 @@
+package com.shodh.contest.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Byte sink that keeps the first maxBytes written and only counts the rest, so a program flooding
+ * stderr or the compiler's output cannot grow the heap, or the stored error message, without bound.
+ */
+final class CappedOutput {
+
+    private final int maxBytes;
+    private final ByteArrayOutputStream head = new ByteArrayOutputStream();
+    private long totalBytes;
+
+    CappedOutput(int maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    synchronized void write(byte[] bytes, int offset, int length) {
+        int kept = (int) Math.min(length, Math.max(0, maxBytes - totalBytes));
+        head.write(bytes, offset, kept);
+        totalBytes += length;
+    }
+
+    synchronized boolean isTruncated() {
+        return totalBytes > maxBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        String text = head.toString(StandardCharsets.UTF_8);
+        return isTruncated() ? text + "\n... [truncated, " + totalBytes + " bytes in total]" : text;
+    }
+}
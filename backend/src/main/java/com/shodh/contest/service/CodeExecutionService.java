@@ -1,10 +1,13 @@
 package com.shodh.contest.service;
 
+import com.shodh.contest.dto.CustomRunResponse;
 import com.shodh.contest.model.Problem;
 
 public interface CodeExecutionService {
     ExecutionResult executeCode(String code, Problem problem);
     ExecutionResult executeCode(String code, Problem problem, String language);
+    ExecutionResult executeCode(String code, TestSet tests, String language);
+    CustomRunResponse runCustom(CustomRun run);
     
     class ExecutionResult {
         private com.shodh.contest.model.SubmissionStatus status;
@@ -12,6 +15,9 @@ public interface CodeExecutionService {
         private String errorMessage;
         private int testCasesPassed;
         private int totalTestCases;
+        private int score;
+        private long timeMillis;
+        private int reruns;
 
         public com.shodh.contest.model.SubmissionStatus getStatus() { return status; }
         public void setStatus(com.shodh.contest.model.SubmissionStatus status) { this.status = status; }
@@ -23,5 +29,11 @@ public interface CodeExecutionService {
         public void setTestCasesPassed(int testCasesPassed) { this.testCasesPassed = testCasesPassed; }
         public int getTotalTestCases() { return totalTestCases; }
         public void setTotalTestCases(int totalTestCases) { this.totalTestCases = totalTestCases; }
+        public int getScore() { return score; }
+        public void setScore(int score) { this.score = score; }
+        public long getTimeMillis() { return timeMillis; }
+        public void setTimeMillis(long timeMillis) { this.timeMillis = timeMillis; }
+        public int getReruns() { return reruns; }
+        public void setReruns(int reruns) { this.reruns = reruns; }
     }
 }
@@ -0,0 +1,366 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.SimilarityCluster;
+import com.shodh.contest.dto.SimilarityMember;
+import com.shodh.contest.model.CodeSignature;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Submission;
+import com.shodh.contest.model.SubmissionStatus;
+import com.shodh.contest.repository.CodeSignatureRepository;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import com.shodh.contest.repository.SubmissionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds groups of near-identical accepted submissions per problem without comparing every pair.
+ *
+ * <p>Each accepted submission's code is tokenized and normalized ({@link CodeTokenizer}), cut into
+ * overlapping shingles of similarity.shingle-tokens tokens, and reduced to a MinHash signature of
+ * bands x rows values. Two signatures agree in a position with probability equal to the Jaccard
+ * similarity of the shingle sets. Signatures are computed in the background as verdicts arrive,
+ * persisted, and reloaded at startup.
+ *
+ * <p>A cluster query buckets every signature of the problem by each band (locality-sensitive
+ * hashing). Only submissions that share a whole band are compared, so the work is close to linear
+ * in the number of submissions.
+ */
+@Service
+public class CodeSimilarityIndex {
+    private static final Logger logger = LoggerFactory.getLogger(CodeSimilarityIndex.class);
+
+    private static final int PAGE_SIZE = 1000;
+
+    // Band hashes keep this many bits; the low bits carry the submission's position when sorting
+    private static final int INDEX_BITS = 24;
+
+    @Value("${similarity.enabled:true}")
+    private boolean enabled;
+
+    @Value("${similarity.bands:16}")
+    private int bands;
+
+    @Value("${similarity.rows:4}")
+    private int rows;
+
+    @Value("${similarity.shingle-tokens:5}")
+    private int shingleTokens;
+
+    @Autowired
+    private CodeSignatureRepository codeSignatureRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, ProblemSignatures> problems = new ConcurrentHashMap<>();
+    private final ExecutorService indexer =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("similarity-indexer").factory());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        meterRegistry.gauge("similarity.signatures", problems,
+                p -> p.values().stream().mapToInt(ProblemSignatures::size).sum());
+        indexer.execute(() -> {
+            try {
+                loadSignatures();
+                backfill();
+            } catch (RuntimeException e) {
+                logger.error("Loading the similarity index failed", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        indexer.shutdownNow();
+    }
+
+    /**
+     * Brings the index in line with a newly judged or rejudged submission: accepted code is
+     * signed and indexed, anything else is dropped. The work happens off the judging thread.
+     */
+    public void record(Submission submission) {
+        if (!enabled) {
+            return;
+        }
+        Long problemId = submission.getProblem().getId();
+        if (submission.getStatus() != SubmissionStatus.ACCEPTED) {
+            // Queued behind any pending add of the same submission
+            Long id = submission.getId();
+            indexer.execute(() -> {
+                ProblemSignatures signatures = problems.get(problemId);
+                if (signatures != null && signatures.remove(id)) {
+                    codeSignatureRepository.deleteById(id);
+                }
+            });
+            return;
+        }
+        CodeSignature pending = new CodeSignature(submission.getId(), submission.getSubmissionId(), problemId,
+                submission.getUsername(), submission.getLanguage(), null);
+        String code = submission.getCode();
+        indexer.execute(() -> {
+            try {
+                pending.setMinHash(encode(signature(code, pending.getLanguage())));
+                codeSignatureRepository.save(pending);
+                add(pending);
+            } catch (RuntimeException e) {
+                logger.warn("Could not index submission {}", pending.getSubmissionId(), e);
+            }
+        });
+    }
+
+    /**
+     * Groups of accepted submissions to the contest's problem whose estimated similarity to the
+     * group's first submission is at least the threshold. Only groups with two or more users are
+     * returned, largest first.
+     */
+    public List<SimilarityCluster> clusters(String contestId, String problemId, double threshold, int limit) {
+        Contest contest = contestRepository.findByContestId(contestId)
+                .orElseThrow(() -> new RuntimeException("Contest not found: " + contestId));
+        Problem problem = problemRepository.findByContestIdAndProblemId(contest.getId(), problemId)
+                .orElseThrow(() -> new RuntimeException("Problem not found: " + problemId));
+        if (threshold <= 0 || threshold > 1) {
+            throw new RuntimeException("Threshold must be in (0, 1]: " + threshold);
+        }
+        ProblemSignatures signatures = problems.get(problem.getId());
+        if (signatures == null) {
+            return List.of();
+        }
+        List<Entry> entries = signatures.snapshot();
+        int n = entries.size();
+        int[] parent = new int[n];
+        for (int i = 0; i < n; i++) {
+            parent[i] = i;
+        }
+
+        long[] keys = new long[n];
+        for (int band = 0; band < bands; band++) {
+            for (int i = 0; i < n; i++) {
+                keys[i] = (bandHash(entries.get(i).minHash(), band) << INDEX_BITS) | i;
+            }
+            Arrays.sort(keys);
+            // Runs of equal band hashes are the LSH buckets; members are checked against the first
+            int runStart = 0;
+            for (int k = 1; k <= n; k++) {
+                if (k < n && keys[k] >>> INDEX_BITS == keys[runStart] >>> INDEX_BITS) {
+                    continue;
+                }
+                int first = (int) (keys[runStart] & ((1 << INDEX_BITS) - 1));
+                for (int j = runStart + 1; j < k; j++) {
+                    int other = (int) (keys[j] & ((1 << INDEX_BITS) - 1));
+                    if (find(parent, first) != find(parent, other)
+                            && similarity(entries.get(first).minHash(), entries.get(other).minHash()) >= threshold) {
+                        parent[find(parent, other)] = find(parent, first);
+                    }
+                }
+                runStart = k;
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            groups.computeIfAbsent(find(parent, i), root -> new ArrayList<>()).add(i);
+        }
+        List<SimilarityCluster> clusters = new ArrayList<>();
+        for (List<Integer> group : groups.values()) {
+            Set<String> users = new HashSet<>();
+            group.forEach(i -> users.add(entries.get(i).username()));
+            if (users.size() < 2) {
+                continue;
+            }
+            // Oldest submission first: it is the likeliest original
+            group.sort(Comparator.comparingLong(i -> entries.get(i).id()));
+            int[] reference = entries.get(group.get(0)).minHash();
+            List<SimilarityMember> members = group.stream()
+                    .map(i -> {
+                        Entry entry = entries.get(i);
+                        return new SimilarityMember(entry.submissionId(), entry.username(), entry.language(),
+                                similarity(reference, entry.minHash()));
+                    })
+                    .toList();
+            clusters.add(new SimilarityCluster(users.size(), members));
+        }
+        clusters.sort(Comparator.comparing(SimilarityCluster::getUsers).reversed());
+        return clusters.size() > limit ? clusters.subList(0, limit) : clusters;
+    }
+
+    int[] signature(String code, String language) {
+        List<String> tokens = CodeTokenizer.tokenize(code != null ? code : "", language);
+        int[] minHash = new int[bands * rows];
+        Arrays.fill(minHash, Integer.MAX_VALUE);
+        int shingles = Math.max(1, tokens.size() - shingleTokens + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingle = 0;
+            for (int t = start; t < Math.min(start + shingleTokens, tokens.size()); t++) {
+                shingle = mix(shingle ^ tokens.get(t).hashCode());
+            }
+            // One hash function per position, derived from the shingle hash with a different seed
+            for (int h = 0; h < minHash.length; h++) {
+                int value = (int) (mix(shingle + h * 0x9E3779B97F4A7C15L) >>> 32);
+                if (value < minHash[h]) {
+                    minHash[h] = value;
+                }
+            }
+        }
+        return minHash;
+    }
+
+    private void loadSignatures() {
+        int expected = bands * rows * Integer.BYTES;
+        long afterId = 0;
+        int loaded = 0;
+        List<CodeSignature> page;
+        do {
+            page = codeSignatureRepository.findPage(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (CodeSignature signature : page) {
+                // Signed with a different band layout: sign it again in the backfill
+                if (signature.getMinHash().length != expected) {
+                    codeSignatureRepository.delete(signature);
+                    continue;
+                }
+                add(signature);
+                loaded++;
+            }
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        logger.info("Loaded {} code signatures", loaded);
+    }
+
+    private void backfill() {
+        long afterId = 0;
+        int signed = 0;
+        List<Submission> page;
+        do {
+            page = submissionRepository.findUnsigned(SubmissionStatus.ACCEPTED, afterId, PageRequest.of(0, PAGE_SIZE));
+            List<CodeSignature> batch = new ArrayList<>();
+            for (Submission submission : page) {
+                batch.add(new CodeSignature(submission.getId(), submission.getSubmissionId(), submission.getProblem().getId(),
+                        submission.getUsername(), submission.getLanguage(),
+                        encode(signature(submission.getCode(), submission.getLanguage()))));
+            }
+            codeSignatureRepository.saveAll(batch);
+            batch.forEach(this::add);
+            signed += batch.size();
+            if (!page.isEmpty()) {
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == PAGE_SIZE);
+        if (signed > 0) {
+            logger.info("Signed {} accepted submissions for the similarity index", signed);
+        }
+    }
+
+    private void add(CodeSignature signature) {
+        problems.computeIfAbsent(signature.getProblemId(), id -> new ProblemSignatures())
+                .put(new Entry(signature.getId(), signature.getSubmissionId(), signature.getUsername(),
+                        signature.getLanguage(), decode(signature.getMinHash())));
+    }
+
+    private long bandHash(int[] minHash, int band) {
+        long hash = band;
+        for (int r = band * rows; r < (band + 1) * rows; r++) {
+            hash = mix(hash ^ minHash[r]);
+        }
+        return hash >>> INDEX_BITS;
+    }
+
+    private static double similarity(int[] a, int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / a.length;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static byte[] encode(int[] minHash) {
+        ByteBuffer buffer = ByteBuffer.allocate(minHash.length * Integer.BYTES);
+        buffer.asIntBuffer().put(minHash);
+        return buffer.array();
+    }
+
+    private static int[] decode(byte[] bytes) {
+        int[] minHash = new int[bytes.length / Integer.BYTES];
+        ByteBuffer.wrap(bytes).asIntBuffer().get(minHash);
+        return minHash;
+    }
+
+    private record Entry(long id, String submissionId, String username, String language, int[] minHash) {
+    }
+
+    /**
+     * The signatures of one problem's accepted submissions, by submission id.
+     */
+    private static class ProblemSignatures {
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        synchronized void put(Entry entry) {
+            entries.put(entry.id(), entry);
+        }
+
+        synchronized boolean remove(long submissionId) {
+            return entries.remove(submissionId) != null;
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+
+        synchronized List<Entry> snapshot() {
+            return new ArrayList<>(entries.values());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.shodh.contest.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Turns source code into a token stream that survives the usual disguises: comments and layout
+ * are dropped, identifiers become {@code I}, and number and string literals become {@code N} and
+ * {@code S}. Keywords and operators are kept, since they carry the structure of the program.
+ */
+final class CodeTokenizer {
+
+    private static final Set<String> KEYWORDS = Set.of(
+            // Shared by the C family and Java/JavaScript
+            "if", "else", "for", "while", "do", "switch", "case", "default", "break", "continue", "return",
+            "new", "class", "struct", "try", "catch", "finally", "throw", "this", "true", "false", "null",
+            // Types and modifiers
+            "int", "long", "short", "char", "byte", "float", "double", "boolean", "bool", "void", "unsigned",
+            "signed", "const", "static", "final", "public", "private", "protected", "auto", "var", "let",
+            "function", "import", "using", "namespace", "template", "typename", "extends", "implements",
+            // Python
+            "def", "lambda", "in", "is", "not", "and", "or", "elif", "pass", "None", "True", "False",
+            "from", "as", "with", "yield", "global", "nonlocal", "del", "assert");
+
+    private CodeTokenizer() {
+    }
+
+    static List<String> tokenize(String code, String language) {
+        boolean python = "python".equals(language);
+        boolean cFamily = "c".equals(language) || "cpp".equals(language);
+        List<String> tokens = new ArrayList<>();
+        int length = code.length();
+        int i = 0;
+        boolean lineStart = true;
+        while (i < length) {
+            char c = code.charAt(i);
+            if (c == '\n') {
+                lineStart = true;
+                i++;
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+            boolean atLineStart = lineStart;
+            lineStart = false;
+
+            // Comments, and preprocessor lines, which are boilerplate in C and C++
+            if (python && c == '#' || cFamily && atLineStart && c == '#' || !python && code.startsWith("//", i)) {
+                i = endOfLine(code, i);
+                continue;
+            }
+            if (!python && code.startsWith("/*", i)) {
+                int end = code.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+                continue;
+            }
+
+            if (python && (code.startsWith("\"\"\"", i) || code.startsWith("'''", i))) {
+                int end = code.indexOf(code.substring(i, i + 3), i + 3);
+                i = end < 0 ? length : end + 3;
+                tokens.add("S");
+            } else if (c == '"' || c == '\'' || c == '`' && !python) {
+                i = endOfString(code, i, c);
+                tokens.add("S");
+            } else if (Character.isDigit(c)) {
+                while (i < length && (Character.isLetterOrDigit(code.charAt(i)) || code.charAt(i) == '.' || code.charAt(i) == '_')) {
+                    i++;
+                }
+                tokens.add("N");
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int start = i;
+                while (i < length && Character.isJavaIdentifierPart(code.charAt(i))) {
+                    i++;
+                }
+                String word = code.substring(start, i);
+                tokens.add(KEYWORDS.contains(word) ? word : "I");
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    private static int endOfLine(String code, int from) {
+        int end = code.indexOf('\n', from);
+        return end < 0 ? code.length() : end;
+    }
+
+    private static int endOfString(String code, int from, char quote) {
+        int i = from + 1;
+        while (i < code.length()) {
+            char c = code.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote || c == '\n' && quote != '`') {
+                return i + 1;
+            } else {
+                i++;
+            }
+        }
+        return code.length();
+    }
+}
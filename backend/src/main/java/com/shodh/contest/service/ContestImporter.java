@@ -0,0 +1,509 @@
+package com.shodh.contest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.contest.dto.ContestPackage;
+import com.shodh.contest.dto.ImportReport;
+import com.shodh.contest.dto.ProblemPackage;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.JudgingPolicy;
+import com.shodh.contest.model.Subtask;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Imports a contest package: a contest.json manifest plus, for each problem, a directory with its
+ * statement and a tests directory of .in/.out pairs. The package can be a directory on the server
+ * or a zip streamed in.
+ *
+ * <p>Test files never pass through the heap or the database. Each problem is validated and its
+ * tests are placed in the import store in parallel, numbered the way {@link TestDataStore} expects:
+ * zip entries are streamed to disk once and renamed into place, and files of a directory package
+ * are hard-linked when the filesystem allows it. Only when every problem is valid are the contest
+ * and its problems stored, with batched JDBC inserts in a single transaction.
+ */
+@Service
+public class ContestImporter {
+    private static final Logger logger = LoggerFactory.getLogger(ContestImporter.class);
+
+    private static final String MANIFEST_FILE = "contest.json";
+    private static final String DEFAULT_STATEMENT = "statement.md";
+    private static final String TESTS_DIR = "tests";
+    private static final int MAX_STATEMENT_CHARS = 5000;
+    private static final Pattern SAFE_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]*");
+
+    private static final String INSERT_PROBLEM = "INSERT INTO problems (contest_id, problem_id, title, description, "
+            + "judging_policy, time_limit_seconds, memory_limitmb, test_data_dir, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_SUBTASK = "INSERT INTO problem_subtasks (problem_id, position, test_count, points) "
+            + "VALUES (?, ?, ?, ?)";
+
+    @Value("${contest.import.dir:${java.io.tmpdir}/shodh-imports}")
+    private String importDir;
+
+    // Imported problems live in an in-memory database, so their files are orphans after a restart
+    @Value("${contest.import.clear-on-startup:true}")
+    private boolean clearOnStartup;
+
+    @Value("${contest.import.max-test-bytes:2147483648}")
+    private long maxTestBytes;
+
+    // Uncompressed size limit of an uploaded zip
+    @Value("${contest.import.max-package-bytes:53687091200}")
+    private long maxPackageBytes;
+
+    @Value("${contest.import.link-files:true}")
+    private boolean linkFiles;
+
+    @Value("${contest.import.batch-size:500}")
+    private int batchSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @PostConstruct
+    void init() {
+        if (clearOnStartup) {
+            deleteRecursively(Paths.get(importDir));
+        }
+    }
+
+    /**
+     * Imports a package directory, or a zip file, on the server's filesystem.
+     */
+    public ImportReport importPath(Path path) {
+        if (Files.isDirectory(path)) {
+            return importDirectory(path, false);
+        }
+        if (!Files.isRegularFile(path)) {
+            throw new RuntimeException("No contest package at " + path);
+        }
+        try (InputStream in = Files.newInputStream(path)) {
+            return importZip(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read contest package " + path, e);
+        }
+    }
+
+    /**
+     * Imports a zipped package read from the stream. Entries are written to a staging directory as
+     * they arrive, so the package never has to fit in memory.
+     */
+    public ImportReport importZip(InputStream in) {
+        Path staging = store().resolve("upload-" + UUID.randomUUID());
+        try {
+            unzip(in, staging);
+            return importDirectory(packageRoot(staging), true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot unpack contest package", e);
+        } finally {
+            deleteRecursively(staging);
+        }
+    }
+
+    private ImportReport importDirectory(Path packageDir, boolean moveFiles) {
+        long start = System.nanoTime();
+        ContestPackage manifest = readManifest(packageDir);
+        List<ProblemPackage> problems = manifest.getProblems() != null ? manifest.getProblems() : List.of();
+
+        List<String> errors = new ArrayList<>(validateContest(manifest, problems));
+        if (!errors.isEmpty()) {
+            throw new RuntimeException(String.join("\n", errors));
+        }
+
+        Path target = store().resolve(manifest.getContestId() + "-" + System.currentTimeMillis());
+        try {
+            List<PlacedProblem> placed = placeAll(packageDir, problems, target, moveFiles);
+            placed.forEach(problem -> errors.addAll(problem.errors));
+            if (!errors.isEmpty()) {
+                throw new RuntimeException(String.join("\n", errors));
+            }
+            transactionTemplate.executeWithoutResult(status -> insert(manifest, placed));
+            // The problem rows went in around Hibernate
+            metadataCache.invalidate();
+
+            long tests = placed.stream().mapToLong(problem -> problem.tests).sum();
+            long bytes = placed.stream().mapToLong(problem -> problem.bytes).sum();
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            logger.info("Imported contest {}: {} problems, {} test cases, {} bytes in {} ms",
+                    manifest.getContestId(), placed.size(), tests, bytes, millis);
+            return new ImportReport(manifest.getContestId(), placed.size(), tests, bytes, millis);
+        } catch (RuntimeException e) {
+            deleteRecursively(target);
+            throw e;
+        }
+    }
+
+    private ContestPackage readManifest(Path packageDir) {
+        Path manifest = packageDir.resolve(MANIFEST_FILE);
+        if (!Files.isRegularFile(manifest)) {
+            throw new RuntimeException("Contest package has no " + MANIFEST_FILE);
+        }
+        try {
+            return objectMapper.readValue(manifest.toFile(), ContestPackage.class);
+        } catch (IOException e) {
+            throw new RuntimeException("Invalid " + MANIFEST_FILE + ": " + e.getMessage());
+        }
+    }
+
+    private List<String> validateContest(ContestPackage manifest, List<ProblemPackage> problems) {
+        List<String> errors = new ArrayList<>();
+        if (manifest.getContestId() == null || !SAFE_ID.matcher(manifest.getContestId()).matches()) {
+            errors.add("contestId must be letters, digits, '_', '.' or '-'");
+        } else if (contestRepository.findByContestId(manifest.getContestId()).isPresent()) {
+            errors.add("Contest already exists: " + manifest.getContestId());
+        }
+        if (manifest.getName() == null || manifest.getName().isBlank()) {
+            errors.add("Contest name is required");
+        }
+        if (problems.isEmpty()) {
+            errors.add("Contest package has no problems");
+        }
+
+        Set<String> seen = new HashSet<>();
+        for (ProblemPackage problem : problems) {
+            String problemId = problem.getProblemId();
+            if (problemId == null || !SAFE_ID.matcher(problemId).matches()) {
+                errors.add("problemId must be letters, digits, '_', '.' or '-': " + problemId);
+            } else if (!seen.add(problemId)) {
+                errors.add("Duplicate problemId: " + problemId);
+            }
+        }
+        // Problem ids only need to be unique within their contest, which is new here
+        return errors;
+    }
+
+    private List<PlacedProblem> placeAll(Path packageDir, List<ProblemPackage> problems, Path target, boolean moveFiles) {
+        // File work is I/O bound, so every problem gets its own virtual thread
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<PlacedProblem>> futures = new ArrayList<>();
+            for (ProblemPackage problem : problems) {
+                futures.add(executor.submit(() -> place(packageDir.resolve(problem.getProblemId()), problem,
+                        target.resolve(problem.getProblemId()), moveFiles)));
+            }
+            List<PlacedProblem> placed = new ArrayList<>();
+            for (Future<PlacedProblem> future : futures) {
+                placed.add(future.get());
+            }
+            return placed;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Import interrupted");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new RuntimeException(e.getCause());
+        }
+    }
+
+    private PlacedProblem place(Path source, ProblemPackage spec, Path target, boolean moveFiles) throws IOException {
+        PlacedProblem placed = new PlacedProblem(spec);
+        String prefix = spec.getProblemId() + ": ";
+        if (spec.getTitle() == null || spec.getTitle().isBlank()) {
+            placed.errors.add(prefix + "title is required");
+        }
+        if (spec.getTimeLimitSeconds() != null && spec.getTimeLimitSeconds() <= 0) {
+            placed.errors.add(prefix + "timeLimitSeconds must be positive");
+        }
+
+        Path statement = source.resolve(spec.getStatement() != null ? spec.getStatement() : DEFAULT_STATEMENT).normalize();
+        if (!statement.startsWith(source) || !Files.isRegularFile(statement)) {
+            placed.errors.add(prefix + "statement file not found");
+        } else if (Files.size(statement) > MAX_STATEMENT_CHARS * 4L) {
+            placed.errors.add(prefix + "statement is longer than " + MAX_STATEMENT_CHARS + " characters");
+        } else {
+            placed.description = Files.readString(statement, StandardCharsets.UTF_8);
+            if (placed.description.length() > MAX_STATEMENT_CHARS) {
+                placed.errors.add(prefix + "statement is longer than " + MAX_STATEMENT_CHARS + " characters");
+            }
+        }
+
+        // Test name to [input, output], in natural order so that 2.in runs before 10.in
+        Map<String, Path[]> pairs = new TreeMap<>(ContestImporter::compareNatural);
+        Path testsDir = source.resolve(TESTS_DIR);
+        if (!Files.isDirectory(testsDir)) {
+            placed.errors.add(prefix + "tests directory not found");
+            return placed;
+        }
+        try (Stream<Path> files = Files.list(testsDir)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String name = file.getFileName().toString();
+                int dot = name.lastIndexOf('.');
+                String extension = dot < 0 ? "" : name.substring(dot + 1);
+                if (extension.equals("in") || extension.equals("out")) {
+                    pairs.computeIfAbsent(name.substring(0, dot), key -> new Path[2])[extension.equals("in") ? 0 : 1] = file;
+                }
+            });
+        }
+        pairs.forEach((name, pair) -> {
+            if (pair[0] == null || pair[1] == null) {
+                placed.errors.add(prefix + "test " + name + " has no ." + (pair[0] == null ? "in" : "out") + " file");
+            }
+        });
+        if (pairs.isEmpty()) {
+            placed.errors.add(prefix + "no test cases");
+        }
+        validateSubtasks(spec, pairs.size(), prefix, placed.errors);
+        if (!placed.errors.isEmpty()) {
+            return placed;
+        }
+
+        Files.createDirectories(target);
+        int index = 0;
+        for (Map.Entry<String, Path[]> entry : pairs.entrySet()) {
+            for (int side = 0; side < 2; side++) {
+                Path file = entry.getValue()[side];
+                long size = Files.size(file);
+                if (size > maxTestBytes) {
+                    placed.errors.add(prefix + file.getFileName() + " is larger than " + maxTestBytes + " bytes");
+                    return placed;
+                }
+                transfer(file, target.resolve(TestSet.fileName(index, side == 0 ? "in" : "out")), moveFiles);
+                placed.bytes += size;
+            }
+            index++;
+        }
+        Files.writeString(target.resolve(TestDataStore.MANIFEST), String.valueOf(index));
+        placed.tests = index;
+        placed.directory = target;
+        return placed;
+    }
+
+    private static void validateSubtasks(ProblemPackage spec, int tests, String prefix, List<String> errors) {
+        if (spec.getSubtasks() == null) {
+            return;
+        }
+        int covered = 0;
+        for (Subtask subtask : spec.getSubtasks()) {
+            if (subtask.getTestCount() == null || subtask.getTestCount() <= 0
+                    || subtask.getPoints() == null || subtask.getPoints() < 0) {
+                errors.add(prefix + "subtasks need a positive testCount and non-negative points");
+                return;
+            }
+            covered += subtask.getTestCount();
+        }
+        if (covered > tests) {
+            errors.add(prefix + "subtasks cover " + covered + " tests but the package has " + tests);
+        }
+    }
+
+    private void transfer(Path source, Path target, boolean move) throws IOException {
+        if (move) {
+            Files.move(source, target);
+            return;
+        }
+        if (linkFiles) {
+            try {
+                Files.createLink(target, source);
+                return;
+            } catch (IOException | UnsupportedOperationException e) {
+                // Different filesystem, or links not supported: fall back to a streaming copy
+            }
+        }
+        Files.copy(source, target);
+    }
+
+    private void insert(ContestPackage manifest, List<PlacedProblem> problems) {
+        Contest contest = new Contest();
+        contest.setContestId(manifest.getContestId());
+        contest.setName(manifest.getName());
+        contest.setDescription(manifest.getDescription());
+        contest.setStartTime(manifest.getStartTime());
+        contest.setEndTime(manifest.getEndTime());
+        // Flushed so the problem rows below can reference it
+        Long contestId = contestRepository.saveAndFlush(contest).getId();
+
+        jdbcTemplate.batchUpdate(INSERT_PROBLEM, problems, batchSize, (statement, problem) -> {
+            ProblemPackage spec = problem.spec;
+            statement.setLong(1, contestId);
+            statement.setString(2, spec.getProblemId());
+            statement.setString(3, spec.getTitle());
+            statement.setString(4, problem.description);
+            statement.setString(5, (spec.getJudgingPolicy() != null ? spec.getJudgingPolicy() : JudgingPolicy.ICPC).name());
+            statement.setInt(6, spec.getTimeLimitSeconds() != null ? spec.getTimeLimitSeconds() : 5);
+            statement.setInt(7, spec.getMemoryLimitMB() != null ? spec.getMemoryLimitMB() : 256);
+            statement.setString(8, problem.directory.toAbsolutePath().toString());
+        });
+
+        // Identity keys are not returned from a batch, so read them back in one query
+        Map<String, Long> ids = new HashMap<>();
+        jdbcTemplate.query("SELECT id, problem_id FROM problems WHERE contest_id = ?",
+                row -> { ids.put(row.getString(2), row.getLong(1)); }, contestId);
+
+        List<Object[]> subtasks = new ArrayList<>();
+        for (PlacedProblem problem : problems) {
+            List<Subtask> configured = problem.spec.getSubtasks() != null ? problem.spec.getSubtasks() : List.of();
+            for (int position = 0; position < configured.size(); position++) {
+                Subtask subtask = configured.get(position);
+                subtasks.add(new Object[] {ids.get(problem.spec.getProblemId()), position,
+                        subtask.getTestCount(), subtask.getPoints()});
+            }
+        }
+        if (!subtasks.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_SUBTASK, subtasks,
+                    new int[] {Types.BIGINT, Types.INTEGER, Types.INTEGER, Types.INTEGER});
+        }
+    }
+
+    private void unzip(InputStream in, Path staging) throws IOException {
+        Files.createDirectories(staging);
+        long total = 0;
+        byte[] buffer = new byte[65536];
+        try (ZipInputStream zip = new ZipInputStream(in)) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                Path file = staging.resolve(entry.getName()).normalize();
+                if (!file.startsWith(staging)) {
+                    throw new RuntimeException("Zip entry outside the package: " + entry.getName());
+                }
+                if (entry.isDirectory()) {
+                    Files.createDirectories(file);
+                    continue;
+                }
+                Files.createDirectories(file.getParent());
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    for (int read; (read = zip.read(buffer)) > 0; ) {
+                        total += read;
+                        if (total > maxPackageBytes) {
+                            throw new RuntimeException("Contest package is larger than " + maxPackageBytes + " bytes");
+                        }
+                        out.write(buffer, 0, read);
+                    }
+                }
+            }
+        }
+    }
+
+    // Zip tools often wrap everything in one top-level directory
+    private static Path packageRoot(Path staging) throws IOException {
+        if (Files.exists(staging.resolve(MANIFEST_FILE))) {
+            return staging;
+        }
+        try (Stream<Path> children = Files.list(staging)) {
+            List<Path> dirs = children.filter(Files::isDirectory).toList();
+            if (dirs.size() == 1 && Files.exists(dirs.get(0).resolve(MANIFEST_FILE))) {
+                return dirs.get(0);
+            }
+        }
+        return staging;
+    }
+
+    private Path store() {
+        try {
+            return Files.createDirectories(Paths.get(importDir));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create import directory " + importDir, e);
+        }
+    }
+
+    /**
+     * Compares names with runs of digits taken as numbers, so "test2" sorts before "test10".
+     */
+    static int compareNatural(String a, String b) {
+        int i = 0;
+        int j = 0;
+        while (i < a.length() && j < b.length()) {
+            char ca = a.charAt(i);
+            char cb = b.charAt(j);
+            if (Character.isDigit(ca) && Character.isDigit(cb)) {
+                int startA = i;
+                int startB = j;
+                while (i < a.length() && Character.isDigit(a.charAt(i))) {
+                    i++;
+                }
+                while (j < b.length() && Character.isDigit(b.charAt(j))) {
+                    j++;
+                }
+                int compare = new BigInteger(a.substring(startA, i)).compareTo(new BigInteger(b.substring(startB, j)));
+                if (compare != 0) {
+                    return compare;
+                }
+            } else {
+                if (ca != cb) {
+                    return Character.compare(ca, cb);
+                }
+                i++;
+                j++;
+            }
+        }
+        int compare = Integer.compare(a.length() - i, b.length() - j);
+        // Equal as numbers but spelled differently, such as "01" and "1"
+        return compare != 0 ? compare : a.compareTo(b);
+    }
+
+    private void deleteRecursively(Path directory) {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> -a.compareTo(b))
+                    .forEach(path -> {
+                        try {
+                            Files.delete(path);
+                        } catch (IOException e) {
+                            logger.debug("Error deleting file: " + path, e);
+                        }
+                    });
+        } catch (IOException e) {
+            logger.debug("Error cleaning up directory: " + directory, e);
+        }
+    }
+
+    private static class PlacedProblem {
+        final ProblemPackage spec;
+        final List<String> errors = new ArrayList<>();
+        String description;
+        Path directory;
+        int tests;
+        long bytes;
+
+        PlacedProblem(ProblemPackage spec) {
+            this.spec = spec;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.ContestMembership;
+import com.shodh.contest.repository.ContestMembershipRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Decides whether a user may submit to a contest. Answers come from a bounded LRU of
+ * (username, contest) pairs in front of the indexed membership table, so a submission costs at
+ * most one primary-key-sized lookup and usually none.
+ *
+ * <p>With {@code contest.membership.mode=auto-join} a user's first submission to a contest joins
+ * them; with {@code required} it is rejected until they join through the API.
+ */
+@Service
+public class ContestMembershipService {
+
+    @Value("${contest.membership.mode:auto-join}")
+    private String mode;
+
+    @Value("${contest.membership.cache-size:100000}")
+    private int cacheSize;
+
+    @Autowired
+    private ContestMembershipRepository membershipRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Map<String, Boolean> eligibility;
+    private TransactionTemplate joinTransaction;
+
+    @PostConstruct
+    void init() {
+        if (!mode.equals("auto-join") && !mode.equals("required")) {
+            throw new IllegalStateException("Unknown contest.membership.mode: " + mode);
+        }
+        eligibility = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        // The insert must not poison the caller's transaction when a concurrent join wins the race
+        joinTransaction = new TransactionTemplate(transactionManager);
+        joinTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isMember(String username, Contest contest) {
+        String key = key(username, contest);
+        Boolean cached;
+        synchronized (eligibility) {
+            cached = eligibility.get(key);
+        }
+        meterRegistry.counter("contest.membership.cache", "result", cached != null ? "hit" : "miss").increment();
+        if (cached != null) {
+            return cached;
+        }
+        boolean member = membershipRepository.existsByUsernameAndContestId(username, contest.getId());
+        remember(key, member);
+        return member;
+    }
+
+    /**
+     * Records the membership. Returns false if the user had already joined. The insert commits in
+     * a transaction of its own, so callers must not hold one: it would need a second connection.
+     */
+    public boolean join(String username, Contest contest) {
+        if (isMember(username, contest)) {
+            return false;
+        }
+        boolean joined;
+        try {
+            joinTransaction.executeWithoutResult(status -> membershipRepository.saveAndFlush(
+                    new ContestMembership(null, username, contest.getId(), LocalDateTime.now())));
+            joined = true;
+        } catch (DataIntegrityViolationException e) {
+            joined = false;
+        }
+        remember(key(username, contest), true);
+        return joined;
+    }
+
+    /**
+     * Throws unless the user may submit to the contest, joining them first in auto-join mode.
+     * Called outside any transaction, like {@link #join}.
+     */
+    public void checkEligible(String username, Contest contest) {
+        if (isMember(username, contest)) {
+            return;
+        }
+        if (mode.equals("auto-join")) {
+            join(username, contest);
+            return;
+        }
+        throw new RuntimeException("User " + username + " has not joined contest " + contest.getContestId());
+    }
+
+    private void remember(String key, boolean member) {
+        synchronized (eligibility) {
+            eligibility.put(key, member);
+        }
+    }
+
+    private static String key(String username, Contest contest) {
+        return contest.getId() + ":" + username;
+    }
+}
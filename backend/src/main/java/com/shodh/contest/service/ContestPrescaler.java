@@ -0,0 +1,236 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.ContestPrescale;
+import com.shodh.contest.dto.LanguageWarmup;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Gets the judge ready before contest traffic peaks instead of when it arrives. A contest has two
+ * windows: its opening, from judge.prescale.lead-minutes before the start to opening-minutes after
+ * it, and its last final-minutes. When a window opens, the contest's test data is materialized and
+ * read into the page cache, and the executor canaries run again, so images, compilers and the
+ * judge's own code paths are warm. Every judge slot is in service while any window is open;
+ * otherwise the judge scales back to judge.prescale.idle-slots.
+ */
+@Component
+public class ContestPrescaler {
+    private static final Logger logger = LoggerFactory.getLogger(ContestPrescaler.class);
+
+    private static final int HISTORY = 20;
+
+    @Value("${judge.prescale.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.prescale.lead-minutes:10}")
+    private long leadMinutes;
+
+    @Value("${judge.prescale.opening-minutes:10}")
+    private long openingMinutes;
+
+    @Value("${judge.prescale.final-minutes:15}")
+    private long finalMinutes;
+
+    // Empty: every language the executor supports
+    @Value("${judge.prescale.languages:}")
+    private Set<String> languages;
+
+    @Value("${judge.prescale.canary-runs:3}")
+    private int canaryRuns;
+
+    @Value("${judge.prescale.preload-max-mb:1024}")
+    private long preloadMaxMb;
+
+    // 0 keeps every slot in service between contests
+    @Value("${judge.prescale.idle-slots:0}")
+    private int idleSlots;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private TestDataStore testDataStore;
+
+    @Autowired
+    private ExecutorWarmup executorWarmup;
+
+    @Autowired
+    private JudgeSlots judgeSlots;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Windows open now that have been prepared or are being prepared
+    private final Set<String> prepared = ConcurrentHashMap.newKeySet();
+    private final Deque<ContestPrescale> history = new ArrayDeque<>();
+    private final AtomicBoolean preparing = new AtomicBoolean();
+
+    @Scheduled(initialDelayString = "${judge.prescale.initial-delay-ms:15000}",
+            fixedDelayString = "${judge.prescale.interval-ms:30000}")
+    public void check() {
+        if (!enabled) {
+            return;
+        }
+        List<Window> open = openWindows(LocalDateTime.now());
+        prepared.retainAll(open.stream().map(Window::key).collect(Collectors.toSet()));
+        scale(!open.isEmpty());
+
+        List<Window> due = open.stream().filter(window -> !prepared.contains(window.key())).toList();
+        if (due.isEmpty() || !preparing.compareAndSet(false, true)) {
+            return;
+        }
+        due.forEach(window -> prepared.add(window.key()));
+        // Off the scheduler thread, which other periodic work shares
+        Thread.ofVirtual().name("contest-prescale").start(() -> {
+            try {
+                due.forEach(this::prepare);
+            } finally {
+                preparing.set(false);
+            }
+        });
+    }
+
+    public List<ContestPrescale> getHistory() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    private List<Window> openWindows(LocalDateTime now) {
+        List<Window> open = new ArrayList<>();
+        LocalDateTime to = now.plusMinutes(Math.max(leadMinutes, finalMinutes));
+        for (Contest contest : contestRepository.findStartingOrEndingBetween(now.minusMinutes(openingMinutes), to)) {
+            if (contest.getStartTime() != null) {
+                Window opening = new Window(contest, "opening",
+                        contest.getStartTime().minusMinutes(leadMinutes), contest.getStartTime().plusMinutes(openingMinutes));
+                if (opening.contains(now)) {
+                    open.add(opening);
+                }
+            }
+            if (contest.getEndTime() != null) {
+                Window closing = new Window(contest, "closing",
+                        contest.getEndTime().minusMinutes(finalMinutes), contest.getEndTime());
+                if (closing.contains(now)) {
+                    open.add(closing);
+                }
+            }
+        }
+        return open;
+    }
+
+    private void scale(boolean contestWindow) {
+        int target = contestWindow || idleSlots <= 0 ? judgeSlots.getSlotCount() : idleSlots;
+        if (target != judgeSlots.getActiveSlots()) {
+            judgeSlots.setActiveSlots(target);
+            logger.info(contestWindow ? "Contest window open, judging with all {} slots"
+                    : "No contest window open, scaling the judge down to {} slots", judgeSlots.getActiveSlots());
+        }
+    }
+
+    private void prepare(Window window) {
+        long started = System.nanoTime();
+        ContestPrescale result = new ContestPrescale();
+        result.setContestId(window.contest().getContestId());
+        result.setWindow(window.kind());
+        result.setWindowStart(window.start());
+        result.setWindowEnd(window.end());
+        result.setPreparedAt(LocalDateTime.now());
+        try {
+            List<Problem> problems = problemRepository.findByContestId(window.contest().getId());
+            long budget = preloadMaxMb * 1024 * 1024;
+            long loaded = 0;
+            for (Problem problem : problems) {
+                TestSet tests = testDataStore.acquire(problem);
+                try {
+                    for (int i = 0; i < tests.size() && loaded < budget; i++) {
+                        loaded += preload(tests.input(i), budget - loaded);
+                        loaded += preload(tests.expectedOutput(i), budget - loaded);
+                    }
+                } finally {
+                    testDataStore.release(tests);
+                }
+            }
+            result.setProblems(problems.size());
+            result.setTestDataMb(loaded / (1024 * 1024));
+            result.setLanguages(executorWarmup.rewarm(languages, canaryRuns));
+        } catch (RuntimeException e) {
+            result.setError(e.getMessage());
+            logger.warn("Could not prepare the judge for the {} of contest {}", window.kind(),
+                    window.contest().getContestId(), e);
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+        result.setDurationMs(elapsed.toMillis());
+        Timer.builder("judge.prescale.duration")
+                .tag("window", window.kind())
+                .register(meterRegistry)
+                .record(elapsed);
+        synchronized (history) {
+            if (history.size() == HISTORY) {
+                history.removeLast();
+            }
+            history.addFirst(result);
+        }
+        logger.info("Prepared the judge for the {} of contest {} in {} ms: {} problems, {} MB of test data, languages {}",
+                window.kind(), result.getContestId(), result.getDurationMs(), result.getProblems(), result.getTestDataMb(),
+                result.getLanguages() != null
+                        ? result.getLanguages().stream().map(LanguageWarmup::getLanguage).toList() : List.of());
+    }
+
+    // Reads the file so its pages are cached when the first runs need them
+    private static long preload(Path file, long budget) {
+        long read = 0;
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file)) {
+            while (read < budget) {
+                int n = channel.read(buffer.clear());
+                if (n < 0) {
+                    break;
+                }
+                read += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read test file " + file, e);
+        }
+        return read;
+    }
+
+    private record Window(Contest contest, String kind, LocalDateTime start, LocalDateTime end) {
+
+        String key() {
+            return contest.getId() + ":" + kind;
+        }
+
+        boolean contains(LocalDateTime time) {
+            return !time.isBefore(start) && !time.isAfter(end);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.CustomRunResponse;
+import com.shodh.contest.model.SubmissionStatus;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * A program a user runs against their own input. The executors write the input, stdout and stderr
+ * as files in the workspace's output directory, so all three count against the workspace quota,
+ * and only the first maxOutputBytes of each output are read back.
+ */
+@Getter
+public class CustomRun {
+    static final String INPUT_FILE = "custom.in";
+    static final String STDOUT_FILE = "custom.out";
+    static final String STDERR_FILE = "custom.err";
+
+    private final String runId;
+    private final String username;
+    private final String code;
+    private final String language;
+    private final String input;
+    private final long timeLimitMillis;
+    private final int maxOutputBytes;
+    private final LocalDateTime submittedAt = LocalDateTime.now();
+    private final long enqueuedAtNanos = System.nanoTime();
+
+    private volatile SubmissionStatus status = SubmissionStatus.PENDING;
+    private volatile CustomRunResponse outcome;
+    private volatile LocalDateTime finishedAt;
+
+    CustomRun(String runId, String username, String code, String language, String input,
+              long timeLimitMillis, int maxOutputBytes) {
+        this.runId = runId;
+        this.username = username;
+        this.code = code;
+        this.language = language;
+        this.input = input;
+        this.timeLimitMillis = timeLimitMillis;
+        this.maxOutputBytes = maxOutputBytes;
+    }
+
+    void start() {
+        status = SubmissionStatus.RUNNING;
+    }
+
+    void finish(CustomRunResponse outcome) {
+        this.outcome = outcome;
+        this.finishedAt = LocalDateTime.now();
+        this.status = outcome.getStatus();
+    }
+
+    public boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    public CustomRunResponse toResponse() {
+        CustomRunResponse response = outcome != null ? outcome : new CustomRunResponse();
+        response.setRunId(runId);
+        response.setUsername(username);
+        response.setLanguage(language);
+        response.setStatus(status);
+        response.setSubmittedAt(submittedAt);
+        response.setFinishedAt(finishedAt);
+        return response;
+    }
+
+    /**
+     * The outcome of a run that got to execute, from its exit code (null when it was killed at the
+     * deadline) and the output files it left in outputDir.
+     */
+    static CustomRunResponse collect(Path outputDir, Integer exitCode, boolean quotaExceeded, long timeMillis,
+                                     long timeLimitMillis, int maxOutputBytes) throws IOException {
+        Path stdout = outputDir.resolve(STDOUT_FILE);
+        Path stderr = outputDir.resolve(STDERR_FILE);
+
+        CustomRunResponse response = new CustomRunResponse();
+        response.setStdout(head(stdout, maxOutputBytes));
+        response.setStderr(head(stderr, maxOutputBytes));
+        response.setOutputTruncated(size(stdout) > maxOutputBytes || size(stderr) > maxOutputBytes);
+        response.setExitCode(exitCode);
+        response.setTimeMillis(timeMillis);
+
+        if (exitCode == null || exitCode == NodeCalibration.TIMEOUT_EXIT_CODE) {
+            response.setTimeMillis(Math.max(timeMillis, timeLimitMillis));
+            response.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+            response.setErrorMessage("Time limit exceeded");
+        } else if (exitCode != 0 && quotaExceeded) {
+            response.setStatus(SubmissionStatus.RUNTIME_ERROR);
+            response.setErrorMessage("Output limit exceeded");
+        } else if (exitCode != 0) {
+            response.setStatus(SubmissionStatus.RUNTIME_ERROR);
+            response.setErrorMessage("Runtime error (exit code: " + exitCode + ")");
+        } else {
+            // The program ran to completion; there is nothing to check its output against
+            response.setStatus(SubmissionStatus.ACCEPTED);
+        }
+        return response;
+    }
+
+    /**
+     * The outcome of a run whose program did not compile, or that the executor could not run.
+     */
+    static CustomRunResponse failed(CodeExecutionService.ExecutionResult result) {
+        CustomRunResponse response = new CustomRunResponse();
+        response.setStatus(result.getStatus());
+        response.setErrorMessage(result.getErrorMessage());
+        return response;
+    }
+
+    private static String head(Path file, int maxBytes) throws IOException {
+        if (!Files.exists(file)) {
+            return "";
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return new String(in.readNBytes(maxBytes), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static long size(Path file) throws IOException {
+        return Files.exists(file) ? Files.size(file) : 0;
+    }
+}
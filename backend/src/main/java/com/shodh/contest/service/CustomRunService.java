@@ -0,0 +1,224 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.CustomRunRequest;
+import com.shodh.contest.dto.CustomRunResponse;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.SubmissionStatus;
+import com.shodh.contest.repository.ContestRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs a contestant's code on their own input and hands back stdout and stderr, so trying a
+ * solution on the samples does not take a judged submission. Runs go to the judge's custom-run
+ * lane, which is only drained while no live submission waits, and no more than
+ * judge.custom-run.max-concurrent of them are handed to the judge at a time. Runs are kept in
+ * memory only: they never create submission rows and never reach the leaderboard.
+ */
+@Service
+public class CustomRunService {
+    private static final Logger logger = LoggerFactory.getLogger(CustomRunService.class);
+
+    @Value("${judge.custom-run.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.custom-run.max-concurrent:1}")
+    private int maxConcurrent;
+
+    // Waiting and running runs together; a user has at most one of them
+    @Value("${judge.custom-run.max-queued:20}")
+    private int maxQueued;
+
+    @Value("${judge.custom-run.time-limit-ms:2000}")
+    private long timeLimitMillis;
+
+    @Value("${judge.custom-run.max-code-kb:64}")
+    private int maxCodeKb;
+
+    @Value("${judge.custom-run.max-input-kb:64}")
+    private int maxInputKb;
+
+    @Value("${judge.custom-run.max-output-kb:64}")
+    private int maxOutputKb;
+
+    @Value("${judge.custom-run.retention-seconds:300}")
+    private long retentionSeconds;
+
+    @Value("${execution.service.type:docker}")
+    private String executionServiceType;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ContestMembershipService contestMembershipService;
+
+    @Autowired
+    private JudgeQueue judgeQueue;
+
+    @Autowired
+    private NodeCalibration nodeCalibration;
+
+    @Autowired
+    private DockerExecutionService dockerExecutionService;
+
+    @Autowired
+    private LocalExecutionService localExecutionService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, CustomRun> runs = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<CustomRun> pending = new ArrayDeque<>();
+    private final Set<String> activeUsers = new HashSet<>();
+    private int inFlight;
+
+    @PostConstruct
+    void init() {
+        meterRegistry.gauge("judge.custom-run.active", this, CustomRunService::getActiveRuns);
+    }
+
+    public CustomRunResponse submit(CustomRunRequest request) {
+        if (!enabled) {
+            throw new RuntimeException("Custom runs are disabled");
+        }
+        if (request.getUsername() == null || request.getUsername().isBlank()) {
+            throw new RuntimeException("Username is required");
+        }
+        if (request.getCode() == null || request.getCode().isBlank()) {
+            throw new RuntimeException("Code is required");
+        }
+        String language = request.getLanguage() != null ? request.getLanguage() : "java";
+        if (!supportedLanguages().contains(language)) {
+            throw new RuntimeException("Unsupported language: " + language);
+        }
+        String input = request.getInput() != null ? request.getInput() : "";
+        checkSize("Code", request.getCode(), maxCodeKb);
+        checkSize("Input", input, maxInputKb);
+
+        Contest contest = contestRepository.findByContestId(request.getContestId())
+                .orElseThrow(() -> new RuntimeException("Contest not found: " + request.getContestId()));
+        contestMembershipService.checkEligible(request.getUsername(), contest);
+
+        // The same headroom over the base limit as judged runs get on this node
+        CustomRun run = new CustomRun(UUID.randomUUID().toString(), request.getUsername(), request.getCode(), language,
+                input, Math.round(timeLimitMillis * nodeCalibration.getFactor()), maxOutputKb * 1024);
+
+        lock.lock();
+        try {
+            if (activeUsers.contains(run.getUsername())) {
+                throw new IllegalStateException("A custom run of " + run.getUsername() + " is still running");
+            }
+            if (activeUsers.size() >= maxQueued) {
+                throw new IllegalStateException("Too many custom runs are waiting, try again shortly");
+            }
+            activeUsers.add(run.getUsername());
+            runs.put(run.getRunId(), run);
+            pending.addLast(run);
+            topUp();
+        } finally {
+            lock.unlock();
+        }
+        return run.toResponse();
+    }
+
+    public CustomRunResponse getRun(String runId) {
+        CustomRun run = runs.get(runId);
+        if (run == null) {
+            throw new RuntimeException("Custom run not found: " + runId);
+        }
+        return run.toResponse();
+    }
+
+    // Waiting and running
+    public int getActiveRuns() {
+        lock.lock();
+        try {
+            return activeUsers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called by a judge worker for a job taken from the custom-run lane.
+     */
+    public void execute(CustomRun run) {
+        long waitMillis = Duration.ofNanos(System.nanoTime() - run.getEnqueuedAtNanos()).toMillis();
+        run.start();
+        long start = System.nanoTime();
+        try {
+            CodeExecutionService executor = "local".equals(executionServiceType)
+                    ? localExecutionService : dockerExecutionService;
+            run.finish(executor.runCustom(run));
+        } catch (RuntimeException e) {
+            logger.error("Custom run " + run.getRunId() + " failed", e);
+            CustomRunResponse failed = new CustomRunResponse();
+            failed.setStatus(SubmissionStatus.RUNTIME_ERROR);
+            failed.setErrorMessage("Error running code: " + e.getMessage());
+            run.finish(failed);
+        } finally {
+            lock.lock();
+            try {
+                inFlight--;
+                activeUsers.remove(run.getUsername());
+                topUp();
+            } finally {
+                lock.unlock();
+            }
+        }
+        Timer.builder("judge.custom-run.duration")
+                .tag("language", run.getLanguage())
+                .tag("status", run.getStatus().name())
+                .register(meterRegistry)
+                .record(Duration.ofNanos(System.nanoTime() - start));
+        logger.debug("Custom run {} of {} finished with {} after waiting {} ms",
+                run.getRunId(), run.getUsername(), run.getStatus(), waitMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${judge.custom-run.purge-interval-ms:60000}")
+    public void purgeFinished() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(retentionSeconds);
+        runs.values().removeIf(run -> run.isFinished() && run.getFinishedAt().isBefore(cutoff));
+    }
+
+    // Callers hold the lock
+    private void topUp() {
+        while (inFlight < maxConcurrent && !pending.isEmpty()) {
+            inFlight++;
+            judgeQueue.submitCustomRun(JudgeJob.customRun(pending.pollFirst()));
+        }
+    }
+
+    private Set<String> supportedLanguages() {
+        return "local".equals(executionServiceType)
+                ? localExecutionService.getSupportedLanguages()
+                : dockerExecutionService.getSupportedLanguages();
+    }
+
+    private static void checkSize(String what, String text, int maxKb) {
+        if (text.getBytes(StandardCharsets.UTF_8).length > maxKb * 1024) {
+            throw new RuntimeException(what + " is larger than " + maxKb + " KB");
+        }
+    }
+}
@@ -1,10 +1,20 @@
 package com.shodh.contest.service;
 
+import com.shodh.contest.dto.CustomRunResponse;
 import com.shodh.contest.model.SubmissionStatus;
 import com.shodh.contest.model.Problem;
 import com.shodh.contest.model.Submission;
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.async.ResultCallback;
+import com.github.dockerjava.api.command.PullImageResultCallback;
+import com.github.dockerjava.api.command.WaitContainerResultCallback;
+import com.github.dockerjava.api.exception.DockerClientException;
+import com.github.dockerjava.api.exception.DockerException;
+import com.github.dockerjava.api.exception.NotFoundException;
+import com.github.dockerjava.api.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -13,10 +23,10 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 
@@ -33,8 +43,39 @@ public class DockerExecutionService implements CodeExecutionService {
     @Value("${docker.memory.limit:256m}")
     private String memoryLimit;
 
-    @Value("${docker.cpus:0.5}")
+    @Value("${docker.cpus:}")
     private String cpuLimit;
+
+    @Value("${judge.diagnostics.max-kb:64}")
+    private int maxDiagnosticsKb;
+
+    @Autowired
+    private TestDataStore testDataStore;
+
+    @Autowired
+    private DockerClient dockerClient;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private SubtaskGrader subtaskGrader;
+
+    @Autowired
+    private NodeCalibration nodeCalibration;
+
+    @Autowired
+    private WorkspacePool workspacePool;
+
+    @Autowired
+    private JudgeSlots judgeSlots;
+
+    @Autowired
+    private SubmissionTracer submissionTracer;
+
+    public static final String CONTAINER_LABEL = "shodh.executor";
+    private static final long ATTACH_DRAIN_MILLIS = 1000;
+
     
     private static final Map<String, String> LANGUAGE_FILE_EXTENSIONS = new HashMap<>();
     private static final Map<String, String> LANGUAGE_COMPILE_COMMANDS = new HashMap<>();
@@ -72,73 +113,46 @@ public class DockerExecutionService implements CodeExecutionService {
     }
     
     public CodeExecutionService.ExecutionResult executeCode(String code, Problem problem, String language) {
+        // Leased for the run, so test data updated meanwhile does not remove the files it reads
+        TestSet tests = testDataStore.acquire(problem);
+        try {
+            return executeCode(code, tests, language);
+        } finally {
+            testDataStore.release(tests);
+        }
+    }
+
+    public CodeExecutionService.ExecutionResult executeCode(String code, TestSet tests, String language) {
         String containerName = "executor-" + UUID.randomUUID().toString().substring(0, 8);
-        Path tempDir = null;
+        // Workspaces come from a pool on a RAM-backed filesystem and are reset after use
+        try (Workspace workspace = workspacePool.acquire()) {
+            Path workingDir = workspace.getDirectory();
 
-        try {
-            // Create temporary directory for the submission
-            tempDir = Files.createTempDirectory("submission-" + UUID.randomUUID());
-            
             // Get the appropriate file name for the language
             String fileName = LANGUAGE_FILE_EXTENSIONS.getOrDefault(language, "Main.java");
-            Path codeFile = tempDir.resolve(fileName);
+            Path codeFile = workingDir.resolve(fileName);
             Files.write(codeFile, code.getBytes(StandardCharsets.UTF_8));
 
-            // Prepare test cases
-            List<String> inputs = problem.getInputTestCases();
-            List<String> expectedOutputs = problem.getExpectedOutputs();
-
-            int testCasesPassed = 0;
-            List<String> errors = new ArrayList<>();
-
-            for (int i = 0; i < inputs.size(); i++) {
-                String input = inputs.get(i);
-                String expectedOutput = expectedOutputs.get(i);
-
-                // Execute the code with Docker
-                CodeExecutionService.ExecutionResult result = executeTestCase(codeFile, input, containerName + "-" + i, language);
-
-                if (result.getStatus() == SubmissionStatus.ACCEPTED) {
-                    // Normalize output (trim whitespace)
-                    String normalizedActual = result.getOutput().trim();
-                    String normalizedExpected = expectedOutput.trim();
-
-                    if (normalizedActual.equals(normalizedExpected)) {
-                        testCasesPassed++;
-                    } else {
-                        result.setStatus(SubmissionStatus.WRONG_ANSWER);
-                        result.setErrorMessage("Test case " + (i + 1) + " failed.\nExpected: " + normalizedExpected + "\nGot: " + normalizedActual);
-                        errors.add(result.getErrorMessage());
-                    }
-                } else {
-                    errors.add("Test case " + (i + 1) + ": " + result.getErrorMessage());
-                    // Return immediately on compilation error
-                    if (result.getStatus() == SubmissionStatus.COMPILATION_ERROR) {
-                        return result;
-                    }
-                }
-            }
-
-            // Clean up container
-            cleanupContainer(containerName);
+            // Test data is wired to the process as files and never loaded into the heap
+            Path outputDir = workspace.getOutputDir();
 
-            // Determine final result
-            CodeExecutionService.ExecutionResult finalResult = new CodeExecutionService.ExecutionResult();
-            finalResult.setTestCasesPassed(testCasesPassed);
-            finalResult.setTotalTestCases(inputs.size());
+            String compileCommand = toolchainProfiles.compileCommand(language,
+                    LANGUAGE_COMPILE_COMMANDS.getOrDefault(language, "javac Main.java"), true);
+            String runCommand = toolchainProfiles.runCommand(language,
+                    LANGUAGE_RUN_COMMANDS.getOrDefault(language, "java Main"), true);
 
-            if (testCasesPassed == inputs.size()) {
-                finalResult.setStatus(SubmissionStatus.ACCEPTED);
-                finalResult.setErrorMessage(null);
-            } else if (errors.isEmpty()) {
-                finalResult.setStatus(SubmissionStatus.WRONG_ANSWER);
-                finalResult.setErrorMessage("Some test cases failed");
-            } else {
-                finalResult.setStatus(SubmissionStatus.WRONG_ANSWER);
-                finalResult.setErrorMessage(String.join("\n", errors));
+            // Compile once in its own container; the build output stays in the workspace mount
+            if (!compileCommand.isEmpty()) {
+                CodeExecutionService.ExecutionResult compileResult = compile(workingDir, tests.getDirectory(), containerName + "-compile", compileCommand, language);
+                if (compileResult != null) {
+                    return compileResult;
+                }
             }
 
-            return finalResult;
+            // The judging policy decides which tests still need to run
+            long timeLimitMillis = nodeCalibration.timeLimitMillis(tests);
+            return subtaskGrader.grade(tests, outputDir, i -> executeTestCase(
+                    workingDir, tests, i, containerName + "-" + i, runCommand, timeLimitMillis));
 
         } catch (Exception e) {
             logger.error("Error executing code", e);
@@ -146,145 +160,333 @@ public class DockerExecutionService implements CodeExecutionService {
             errorResult.setStatus(SubmissionStatus.RUNTIME_ERROR);
             errorResult.setErrorMessage("Error executing code: " + e.getMessage());
             return errorResult;
-        } finally {
-            // Clean up temporary directory
-            if (tempDir != null) {
-                cleanupDirectory(tempDir);
+        }
+    }
+
+    /**
+     * Compiles and runs the program once on the user's input, without anything to compare its
+     * output against.
+     */
+    public CustomRunResponse runCustom(CustomRun run) {
+        String containerName = "executor-" + UUID.randomUUID().toString().substring(0, 8);
+        try (Workspace workspace = workspacePool.acquire()) {
+            Path workingDir = workspace.getDirectory();
+            String fileName = LANGUAGE_FILE_EXTENSIONS.getOrDefault(run.getLanguage(), "Main.java");
+            Files.write(workingDir.resolve(fileName), run.getCode().getBytes(StandardCharsets.UTF_8));
+
+            Path outputDir = workspace.getOutputDir();
+            Files.writeString(outputDir.resolve(CustomRun.INPUT_FILE), run.getInput(), StandardCharsets.UTF_8);
+
+            String compileCommand = toolchainProfiles.compileCommand(run.getLanguage(),
+                    LANGUAGE_COMPILE_COMMANDS.getOrDefault(run.getLanguage(), "javac Main.java"), true);
+            String runCommand = toolchainProfiles.runCommand(run.getLanguage(),
+                    LANGUAGE_RUN_COMMANDS.getOrDefault(run.getLanguage(), "java Main"), true);
+
+            // No test data to mount
+            if (!compileCommand.isEmpty()) {
+                CodeExecutionService.ExecutionResult compileResult = compile(workingDir, null,
+                        containerName + "-compile", compileCommand, run.getLanguage());
+                if (compileResult != null) {
+                    return CustomRun.failed(compileResult);
+                }
             }
+
+            // Both outputs go to files in the workspace mount, so the file size limit bounds them
+            String files = "/workspace/" + Workspace.OUTPUT_DIR + "/";
+            String executionCommand = "timeout " + NodeCalibration.seconds(run.getTimeLimitMillis()) + " " + runCommand
+                    + " < " + files + CustomRun.INPUT_FILE
+                    + " > " + files + CustomRun.STDOUT_FILE
+                    + " 2> " + files + CustomRun.STDERR_FILE;
+            ContainerRun container = runContainer(containerName, workingDir, null, executionCommand,
+                    run.getTimeLimitMillis() + NodeCalibration.KILL_GRACE_MILLIS);
+
+            Integer exitCode = container.getExitCode();
+            boolean quotaExceeded = exitCode != null
+                    && (workspacePool.exceededQuota(exitCode, outputDir.resolve(CustomRun.STDOUT_FILE))
+                    || workspacePool.exceededQuota(exitCode, outputDir.resolve(CustomRun.STDERR_FILE)));
+            return CustomRun.collect(outputDir, exitCode, quotaExceeded, container.getTimeMillis(),
+                    run.getTimeLimitMillis(), run.getMaxOutputBytes());
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CustomRun.failed(errorResult(e));
+        } catch (Exception e) {
+            logger.error("Error running custom run " + run.getRunId(), e);
+            return CustomRun.failed(errorResult(e));
         }
     }
 
-    private CodeExecutionService.ExecutionResult executeTestCase(Path codeFile, String input, String containerName) {
-        return executeTestCase(codeFile, input, containerName, "java");
+    public Set<String> getSupportedLanguages() {
+        return LANGUAGE_FILE_EXTENSIONS.keySet();
     }
-    
-    private CodeExecutionService.ExecutionResult executeTestCase(Path codeFile, String input, String containerName, String language) {
+
+    /**
+     * Returns null when the program compiled, otherwise the verdict for the whole submission.
+     */
+    private CodeExecutionService.ExecutionResult compile(Path workspace, Path testDirectory, String containerName,
+                                                         String compileCommand, String language) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        ContainerRun run;
+        try (SubmissionTracer.Span span = submissionTracer.startSpan("compile").attribute("language", language)) {
+            run = runContainer(containerName, workspace, testDirectory, compileCommand, maxExecutionTime);
+            span.attribute("exit.code", run.getExitCode());
+        }
+        toolchainProfiles.recordCompile(language, true, Duration.ofNanos(System.nanoTime() - start));
+
+        if (run.getExitCode() == null) {
+            CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+            result.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+            result.setErrorMessage("Compilation time limit exceeded");
+            return result;
+        }
+        if (run.getExitCode() != 0) {
+            CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+            result.setStatus(SubmissionStatus.COMPILATION_ERROR);
+            result.setErrorMessage(run.getStdout() + run.getStderr());
+            return result;
+        }
+        return null;
+    }
+
+    private CodeExecutionService.ExecutionResult executeTestCase(Path workspace, TestSet tests, int index, String containerName,
+                                                                 String runCommand, long timeLimitMillis) {
         try {
-            String compileCommand = LANGUAGE_COMPILE_COMMANDS.getOrDefault(language, "javac Main.java");
-            String runCommand = LANGUAGE_RUN_COMMANDS.getOrDefault(language, "java Main");
-            
-            String executionCommand;
-            if (compileCommand.isEmpty()) {
-                // Languages that don't need compilation (Python, JavaScript)
-                executionCommand = "timeout " + (maxExecutionTime / 1000) + " " + runCommand;
-            } else {
-                // Languages that need compilation (Java, C, C++)
-                executionCommand = compileCommand + " && timeout " + (maxExecutionTime / 1000) + " " + runCommand;
-            }
-            
-            ProcessBuilder processBuilder = new ProcessBuilder(
-                    "docker", "run",
-                    "--rm",
-                    "--name", containerName,
-                    "--memory", memoryLimit,
-                    "--cpus", cpuLimit,
-                    "-v", codeFile.getParent().toString() + ":/workspace",
-                    "-w", "/workspace",
-                    "--network", "none",
-                    "--timeout", String.valueOf(maxExecutionTime / 1000),
-                    dockerImageName,
-                    "bash", "-c",
-                    executionCommand
-            );
-
-            processBuilder.redirectErrorStream(true);
-            Process process = processBuilder.start();
-
-            // Write input to the process
-            try (OutputStream stdin = process.getOutputStream()) {
-                stdin.write(input.getBytes(StandardCharsets.UTF_8));
-                stdin.flush();
+            // Test data is bind-mounted read-only and the output lands in the workspace mount
+            String redirects = " < /tests/" + TestSet.fileName(index, "in")
+                    + " > /workspace/" + Workspace.OUTPUT_DIR + "/" + TestSet.fileName(index, "out");
+            String executionCommand = "timeout " + NodeCalibration.seconds(timeLimitMillis) + " " + runCommand + redirects;
+
+            ContainerRun run;
+            try (SubmissionTracer.Span span = submissionTracer.startSpan("run")) {
+                run = runContainer(containerName, workspace, tests.getDirectory(), executionCommand,
+                        timeLimitMillis + NodeCalibration.KILL_GRACE_MILLIS);
+                span.attribute("exit.code", run.getExitCode());
             }
 
-            // Read output
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
+            CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+            result.setTimeMillis(run.getTimeMillis());
+            if (run.getExitCode() == null || run.getExitCode() == NodeCalibration.TIMEOUT_EXIT_CODE) {
+                result.setTimeMillis(Math.max(run.getTimeMillis(), timeLimitMillis));
+                result.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+                result.setErrorMessage("Time limit exceeded");
+            } else if (run.getExitCode() != 0 && workspacePool.exceededQuota(run.getExitCode(),
+                    workspace.resolve(Workspace.OUTPUT_DIR).resolve(TestSet.fileName(index, "out")))) {
+                result.setStatus(SubmissionStatus.RUNTIME_ERROR);
+                result.setErrorMessage("Output limit exceeded");
+            } else if (run.getExitCode() != 0) {
+                result.setStatus(SubmissionStatus.RUNTIME_ERROR);
+                result.setErrorMessage(run.getStderr());
+            } else {
+                result.setStatus(SubmissionStatus.ACCEPTED);
             }
+            return result;
 
-            // Read error output
-            StringBuilder errorOutput = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getErrorStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    errorOutput.append(line).append("\n");
-                }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return errorResult(e);
+        } catch (IOException | DockerException e) {
+            logger.error("Error executing Docker container", e);
+            return errorResult(e);
+        }
+    }
+
+    private ContainerRun runContainer(String containerName, Path workspace, Path testDirectory, String command,
+                                      long timeoutMillis) throws IOException, InterruptedException {
+        // Attach before starting so no diagnostics are lost; program I/O goes through the mounted files
+        String containerId;
+        try (SubmissionTracer.Span span = submissionTracer.startSpan("container.create")) {
+            containerId = createContainer(containerName, workspace, testDirectory, command);
+        }
+        ContainerOutput output = new ContainerOutput(maxDiagnosticsKb * 1024);
+        try {
+            dockerClient.attachContainerCmd(containerId)
+                    .withStdOut(true)
+                    .withStdErr(true)
+                    .withFollowStream(true)
+                    .exec(output);
+            output.awaitStarted();
+            dockerClient.startContainerCmd(containerId).exec();
+            long start = System.nanoTime();
+
+            Integer exitCode = awaitExit(containerId, timeoutMillis);
+            long timeMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+            if (exitCode != null) {
+                output.awaitCompletion(ATTACH_DRAIN_MILLIS, TimeUnit.MILLISECONDS);
             }
+            return new ContainerRun(exitCode, timeMillis, output.getStdout(), output.getStderr());
+        } finally {
+            output.close();
+            try (SubmissionTracer.Span span = submissionTracer.startSpan("container.remove")) {
+                removeContainer(containerId);
+            }
+        }
+    }
 
-            boolean finished = process.waitFor(maxExecutionTime, java.util.concurrent.TimeUnit.MILLISECONDS);
+    private String createContainer(String containerName, Path workspace, Path testDirectory, String command) {
+        HostConfig hostConfig = HostConfig.newHostConfig()
+                .withMemory(parseMemory(memoryLimit))
+                .withNetworkMode("none")
+                // Caps each file at the quota; a size-capped workspace also caps all of them together
+                .withUlimits(new Ulimit[] {
+                        new Ulimit("fsize", workspacePool.getQuotaBytes(), workspacePool.getQuotaBytes())})
+                .withBinds(testDirectory == null
+                        ? new Bind[] {new Bind(workspace.toString(), new Volume("/workspace"))}
+                        : new Bind[] {
+                                new Bind(workspace.toString(), new Volume("/workspace")),
+                                new Bind(testDirectory.toString(), new Volume("/tests"), AccessMode.ro)});
+
+        // A pinned slot owns its cores; docker.cpus only throttles further when it is set
+        String cpuset = judgeSlots.currentCpuset();
+        if (cpuset != null) {
+            hostConfig.withCpusetCpus(cpuset);
+        }
+        if (cpuLimit != null && !cpuLimit.isBlank()) {
+            hostConfig.withNanoCPUs((long) (Double.parseDouble(cpuLimit) * 1_000_000_000L));
+        }
 
-            CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+        return dockerClient.createContainerCmd(dockerImageName)
+                .withName(containerName)
+                .withLabels(Map.of(CONTAINER_LABEL, "true"))
+                .withWorkingDir("/workspace")
+                .withNetworkDisabled(true)
+                .withAttachStdout(true)
+                .withAttachStderr(true)
+                .withHostConfig(hostConfig)
+                .withCmd("bash", "-c", command)
+                .exec()
+                .getId();
+    }
 
-            if (!finished) {
-                process.destroyForcibly();
-                result.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
-                result.setErrorMessage("Time limit exceeded");
-                cleanupContainer(containerName);
-                return result;
-            }
+    /**
+     * Returns the container's exit code, or null when it is still running after the timeout.
+     */
+    private Integer awaitExit(String containerId, long timeoutMillis) {
+        try {
+            return dockerClient.waitContainerCmd(containerId)
+                    .exec(new WaitContainerResultCallback())
+                    .awaitStatusCode(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (DockerClientException e) {
+            // awaitStatusCode signals a timeout with an exception
+            return null;
+        }
+    }
 
-            int exitCode = process.exitValue();
+    private CodeExecutionService.ExecutionResult errorResult(Exception e) {
+        CodeExecutionService.ExecutionResult errorResult = new CodeExecutionService.ExecutionResult();
+        errorResult.setStatus(SubmissionStatus.RUNTIME_ERROR);
+        errorResult.setErrorMessage("Error running code: " + e.getMessage());
+        return errorResult;
+    }
 
-            if (exitCode != 0) {
-                if (errorOutput.toString().contains("error:")) {
-                    result.setStatus(SubmissionStatus.COMPILATION_ERROR);
-                    result.setErrorMessage(errorOutput.toString());
-                } else {
-                    result.setStatus(SubmissionStatus.RUNTIME_ERROR);
-                    result.setErrorMessage(errorOutput.toString());
-                }
-                result.setOutput(output.toString());
-            } else {
-                result.setStatus(SubmissionStatus.ACCEPTED);
-                result.setOutput(output.toString());
+    static long parseMemory(String limit) {
+        String value = limit.trim().toLowerCase();
+        long multiplier = 1;
+        switch (value.charAt(value.length() - 1)) {
+            case 'k' -> multiplier = 1024L;
+            case 'm' -> multiplier = 1024L * 1024;
+            case 'g' -> multiplier = 1024L * 1024 * 1024;
+            default -> {
+                return Long.parseLong(value);
             }
+        }
+        return Long.parseLong(value.substring(0, value.length() - 1)) * multiplier;
+    }
 
-            cleanupContainer(containerName);
-            return result;
+    public String getImageName() {
+        return dockerImageName;
+    }
 
-        } catch (IOException | InterruptedException e) {
-            logger.error("Error executing Docker container", e);
-            CodeExecutionService.ExecutionResult errorResult = new CodeExecutionService.ExecutionResult();
-            errorResult.setStatus(SubmissionStatus.RUNTIME_ERROR);
-            errorResult.setErrorMessage("Error running code: " + e.getMessage());
-            cleanupContainer(containerName);
-            return errorResult;
+    /**
+     * Makes sure the image is available locally, pulling it when it is missing.
+     */
+    public boolean ensureImage(String image, long pullTimeoutMillis) {
+        try {
+            dockerClient.inspectImageCmd(image).exec();
+            return true;
+        } catch (NotFoundException e) {
+            logger.info("Image {} not present, pulling", image);
+        } catch (RuntimeException e) {
+            // Includes transport failures when the daemon is unreachable
+            logger.error("Error checking image " + image, e);
+            return false;
+        }
+
+        try {
+            int tagSeparator = image.lastIndexOf(':');
+            boolean hasTag = tagSeparator > image.lastIndexOf('/');
+            boolean pulled = dockerClient.pullImageCmd(hasTag ? image.substring(0, tagSeparator) : image)
+                    .withTag(hasTag ? image.substring(tagSeparator + 1) : "latest")
+                    .exec(new PullImageResultCallback())
+                    .awaitCompletion(pullTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (!pulled) {
+                logger.error("Timed out pulling image {}", image);
+            }
+            return pulled;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (RuntimeException e) {
+            logger.error("Failed to pull image " + image, e);
+            return false;
         }
     }
 
-    private void cleanupContainer(String containerName) {
+    private void removeContainer(String containerId) {
         try {
-            // Attempt to stop and remove the container if it exists
-            new ProcessBuilder("docker", "rm", "-f", containerName)
-                    .redirectErrorStream(true)
-                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
-                    .start()
-                    .waitFor(5, java.util.concurrent.TimeUnit.SECONDS);
+            dockerClient.removeContainerCmd(containerId).withForce(true).exec();
         } catch (Exception e) {
             // Ignore cleanup errors
-            logger.debug("Error cleaning up container: " + containerName, e);
+            logger.debug("Error removing container: " + containerId, e);
         }
     }
 
-    private void cleanupDirectory(Path directory) {
-        try {
-            Files.walk(directory)
-                    .sorted((a, b) -> -a.compareTo(b))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            logger.debug("Error deleting file: " + path, e);
-                        }
-                    });
-        } catch (IOException e) {
-            logger.debug("Error cleaning up directory: " + directory, e);
+    /**
+     * Collects the first maxBytes of the container's stdout and stderr from the attach stream.
+     */
+    private static class ContainerOutput extends ResultCallback.Adapter<Frame> {
+        private final CappedOutput stdout;
+        private final CappedOutput stderr;
+
+        ContainerOutput(int maxBytes) {
+            this.stdout = new CappedOutput(maxBytes);
+            this.stderr = new CappedOutput(maxBytes);
+        }
+
+        @Override
+        public void onNext(Frame frame) {
+            byte[] payload = frame.getPayload();
+            (frame.getStreamType() == StreamType.STDERR ? stderr : stdout).write(payload, 0, payload.length);
+        }
+
+        String getStdout() {
+            return stdout.toString();
         }
+
+        String getStderr() {
+            return stderr.toString();
+        }
+    }
+
+    /**
+     * Exit code, wall time and diagnostics of one container; a null exit code means it hit the time limit.
+     */
+    private static class ContainerRun {
+        private final Integer exitCode;
+        private final long timeMillis;
+        private final String stdout;
+        private final String stderr;
+
+        ContainerRun(Integer exitCode, long timeMillis, String stdout, String stderr) {
+            this.exitCode = exitCode;
+            this.timeMillis = timeMillis;
+            this.stdout = stdout;
+            this.stderr = stderr;
+        }
+
+        Integer getExitCode() { return exitCode; }
+        long getTimeMillis() { return timeMillis; }
+        String getStdout() { return stdout; }
+        String getStderr() { return stderr; }
     }
 
 }
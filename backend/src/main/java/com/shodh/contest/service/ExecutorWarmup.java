@@ -0,0 +1,209 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.LanguageWarmup;
+import com.shodh.contest.model.SubmissionStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Verifies or pulls the executor images, prepares the toolchain profiles and runs a canary
+ * compile-and-run per language right after startup, so the first real submissions do not pay for
+ * image pulls and cold toolchains. Readiness
+ * stays out of service until the warm-up has finished.
+ */
+@Component
+public class ExecutorWarmup implements HealthIndicator {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutorWarmup.class);
+
+    static final Map<String, String> CANARY_PROGRAMS = new HashMap<>();
+
+    static {
+        CANARY_PROGRAMS.put("java", "public class Main { public static void main(String[] args) { System.out.println(\"ok\"); } }");
+        CANARY_PROGRAMS.put("python", "print(\"ok\")");
+        CANARY_PROGRAMS.put("javascript", "console.log(\"ok\");");
+        CANARY_PROGRAMS.put("c", "#include <stdio.h>\nint main() { puts(\"ok\"); return 0; }");
+        CANARY_PROGRAMS.put("cpp", "#include <bits/stdc++.h>\nint main() { std::cout << \"ok\" << std::endl; return 0; }");
+    }
+
+    @Value("${execution.service.type:docker}")
+    private String executionServiceType;
+
+    @Value("${judge.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.warmup.iterations:2}")
+    private int iterations;
+
+    @Value("${judge.warmup.extra-images:}")
+    private String extraImages;
+
+    @Value("${judge.warmup.pull-timeout-ms:600000}")
+    private long pullTimeoutMillis;
+
+    @Autowired
+    private DockerExecutionService dockerExecutionService;
+
+    @Autowired
+    private LocalExecutionService localExecutionService;
+
+    @Autowired
+    private TestDataStore testDataStore;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile boolean finished;
+    private volatile boolean imagesReady = true;
+    private final Map<String, LanguageWarmup> results = new ConcurrentSkipListMap<>();
+    // Not a monitor: the warm-ups run on virtual threads and block on executor processes
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startWarmup() {
+        if (!enabled) {
+            finished = true;
+            return;
+        }
+        Thread.ofVirtual().name("executor-warmup").start(this::warmUp);
+    }
+
+    @Override
+    public Health health() {
+        Health.Builder builder = finished && imagesReady ? Health.up() : Health.outOfService();
+        return builder
+                .withDetail("finished", finished)
+                .withDetail("imagesReady", imagesReady)
+                .withDetail("languages", results.values())
+                .build();
+    }
+
+    public List<LanguageWarmup> getResults() {
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * Runs the canaries again ahead of a busy period such as a contest start, for the given
+     * languages or all of them when empty. Images are checked again, and compilers, toolchain
+     * artifacts and the judge's own code paths are warm again by the time it returns.
+     */
+    public List<LanguageWarmup> rewarm(Collection<String> languages, int runs) {
+        boolean docker = !"local".equals(executionServiceType);
+        lock.lock();
+        try {
+            if (docker && !pullImages()) {
+                throw new IllegalStateException("Executor images are not available");
+            }
+            List<LanguageWarmup> warmed = new ArrayList<>();
+            for (String language : supportedLanguages(docker)) {
+                if (CANARY_PROGRAMS.containsKey(language) && (languages.isEmpty() || languages.contains(language))) {
+                    warmed.add(warmUpLanguage(language, docker, runs));
+                }
+            }
+            return warmed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void warmUp() {
+        long started = System.nanoTime();
+        boolean docker = !"local".equals(executionServiceType);
+        lock.lock();
+        try {
+            if (docker) {
+                imagesReady = pullImages();
+            }
+            if (imagesReady) {
+                toolchainProfiles.prepare();
+                for (String language : supportedLanguages(docker)) {
+                    if (CANARY_PROGRAMS.containsKey(language)) {
+                        warmUpLanguage(language, docker, iterations);
+                    }
+                }
+            }
+        } catch (RuntimeException | LinkageError e) {
+            // A broken executor must keep the instance out of rotation rather than report ready
+            imagesReady = false;
+            logger.error("Executor warm-up failed", e);
+        } finally {
+            lock.unlock();
+            finished = true;
+            logger.info("Executor warm-up finished in {} ms", Duration.ofNanos(System.nanoTime() - started).toMillis());
+        }
+    }
+
+    private Set<String> supportedLanguages(boolean docker) {
+        return docker
+                ? dockerExecutionService.getSupportedLanguages()
+                : localExecutionService.getSupportedLanguages();
+    }
+
+    private boolean pullImages() {
+        List<String> images = new ArrayList<>();
+        images.add(dockerExecutionService.getImageName());
+        for (String image : extraImages.split(",")) {
+            if (!image.isBlank()) {
+                images.add(image.trim());
+            }
+        }
+
+        boolean ready = true;
+        for (String image : images) {
+            ready &= dockerExecutionService.ensureImage(image, pullTimeoutMillis);
+        }
+        return ready;
+    }
+
+    private LanguageWarmup warmUpLanguage(String language, boolean docker, int runs) {
+        TestSet canary = testDataStore.writeTestSet("canary-" + language, List.of(""), List.of("ok"));
+        LanguageWarmup warmup = new LanguageWarmup();
+        warmup.setLanguage(language);
+
+        for (int i = 0; i < runs; i++) {
+            long start = System.nanoTime();
+            CodeExecutionService.ExecutionResult result = docker
+                    ? dockerExecutionService.executeCode(CANARY_PROGRAMS.get(language), canary, language)
+                    : localExecutionService.executeCode(CANARY_PROGRAMS.get(language), canary, language);
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            String phase = i == 0 ? "cold" : "warm";
+            Timer.builder("judge.warmup.latency")
+                    .tag("language", language)
+                    .tag("phase", phase)
+                    .register(meterRegistry)
+                    .record(elapsed);
+
+            if (i == 0) {
+                warmup.setColdMs(elapsed.toMillis());
+            } else {
+                warmup.setWarmMs(elapsed.toMillis());
+            }
+            warmup.setStatus(result.getStatus());
+            if (result.getStatus() != SubmissionStatus.ACCEPTED) {
+                logger.warn("Canary for {} finished with {}: {}", language, result.getStatus(), result.getErrorMessage());
+                break;
+            }
+        }
+
+        results.put(language, warmup);
+        logger.info("Warmed up {}: cold {} ms, warm {} ms", language, warmup.getColdMs(), warmup.getWarmMs());
+        return warmup;
+    }
+}
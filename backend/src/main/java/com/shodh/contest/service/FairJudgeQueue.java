@@ -0,0 +1,171 @@
+package com.shodh.contest.service;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.BiConsumer;
+
+/**
+ * Two-level start-time fair queue: contests share the judge by weight, and users share their
+ * contest's slice by weight. Within a user's lane first attempts at a problem are served before
+ * repeat attempts, and repeats are charged a higher cost so a resubmission burst yields quickly.
+ *
+ * Not thread-safe; callers must hold their own lock.
+ */
+class FairJudgeQueue {
+
+    private static final int PRUNE_INTERVAL = 1024;
+
+    private final double repeatAttemptCost;
+    private final BiConsumer<String, String> onUserLanePruned;
+    private final Map<String, ContestLane> contests = new HashMap<>();
+    private final TreeSet<Lane> backlogged = new TreeSet<>(Lane.ORDER);
+    private double virtualTime;
+    private double maxFinishTag;
+    private long sequence;
+    private long polls;
+    private int size;
+
+    FairJudgeQueue(double repeatAttemptCost) {
+        this(repeatAttemptCost, (contestId, username) -> { });
+    }
+
+    /**
+     * onUserLanePruned is told (contestId, username) of every user lane dropped as idle.
+     */
+    FairJudgeQueue(double repeatAttemptCost, BiConsumer<String, String> onUserLanePruned) {
+        this.repeatAttemptCost = repeatAttemptCost;
+        this.onUserLanePruned = onUserLanePruned;
+    }
+
+    void offer(JudgeJob job, double contestWeight, double userWeight) {
+        ContestLane contest = contests.computeIfAbsent(job.getContestId(), ContestLane::new);
+        contest.weight = contestWeight;
+        UserLane user = contest.users.computeIfAbsent(job.getUsername(), UserLane::new);
+        user.weight = userWeight;
+
+        if (job.isFirstAttempt()) {
+            user.firstAttempts.addLast(job);
+        } else {
+            user.repeats.addLast(job);
+        }
+
+        if (user.size() == 1) {
+            user.startTag = Math.max(contest.virtualTime, user.finishTag);
+            user.sequence = sequence++;
+            contest.backlogged.add(user);
+        }
+        if (contest.backlogged.size() == 1 && user.size() == 1) {
+            contest.startTag = Math.max(virtualTime, contest.finishTag);
+            contest.sequence = sequence++;
+            backlogged.add(contest);
+        }
+        size++;
+    }
+
+    JudgeJob poll() {
+        if (backlogged.isEmpty()) {
+            return null;
+        }
+        // Before taking the job, so the lane it comes from is never pruned while it is handed out
+        if (++polls % PRUNE_INTERVAL == 0) {
+            pruneIdleLanes();
+        }
+        ContestLane contest = (ContestLane) backlogged.pollFirst();
+        UserLane user = (UserLane) contest.backlogged.pollFirst();
+
+        JudgeJob job = !user.firstAttempts.isEmpty() ? user.firstAttempts.pollFirst() : user.repeats.pollFirst();
+        double cost = job.isFirstAttempt() ? 1.0 : repeatAttemptCost;
+
+        contest.virtualTime = user.startTag;
+        user.finishTag = user.startTag + cost / user.weight;
+        contest.maxFinishTag = Math.max(contest.maxFinishTag, user.finishTag);
+        if (user.size() > 0) {
+            user.startTag = user.finishTag;
+            user.sequence = sequence++;
+            contest.backlogged.add(user);
+        }
+
+        virtualTime = contest.startTag;
+        contest.finishTag = contest.startTag + cost / contest.weight;
+        maxFinishTag = Math.max(maxFinishTag, contest.finishTag);
+        if (!contest.backlogged.isEmpty()) {
+            contest.startTag = contest.finishTag;
+            contest.sequence = sequence++;
+            backlogged.add(contest);
+        } else {
+            // As in SFQ, an idle scheduler's virtual time moves up to the largest finish tag served
+            contest.virtualTime = contest.maxFinishTag;
+        }
+        if (backlogged.isEmpty()) {
+            virtualTime = maxFinishTag;
+        }
+
+        size--;
+        return job;
+    }
+
+    /**
+     * Idle lanes only matter while their finish tag is ahead of virtual time; past that point a
+     * returning lane starts at virtual time anyway, so the bookkeeping can be dropped.
+     */
+    private void pruneIdleLanes() {
+        contests.values().removeIf(contest -> {
+            contest.users.values().removeIf(user -> {
+                if (user.size() > 0 || user.finishTag > contest.virtualTime) {
+                    return false;
+                }
+                onUserLanePruned.accept(contest.key, user.key);
+                return true;
+            });
+            return contest.users.isEmpty() && contest.finishTag <= virtualTime;
+        });
+    }
+
+    int size() {
+        return size;
+    }
+
+    private abstract static class Lane {
+        static final Comparator<Lane> ORDER = Comparator
+                .comparingDouble((Lane lane) -> lane.startTag)
+                .thenComparingLong(lane -> lane.sequence);
+
+        final String key;
+        double weight = 1.0;
+        double startTag;
+        double finishTag;
+        long sequence;
+
+        Lane(String key) {
+            this.key = key;
+        }
+    }
+
+    private static class ContestLane extends Lane {
+        final Map<String, UserLane> users = new HashMap<>();
+        final TreeSet<Lane> backlogged = new TreeSet<>(ORDER);
+        double virtualTime;
+        double maxFinishTag;
+
+        ContestLane(String key) {
+            super(key);
+        }
+    }
+
+    private static class UserLane extends Lane {
+        final Deque<JudgeJob> firstAttempts = new ArrayDeque<>();
+        final Deque<JudgeJob> repeats = new ArrayDeque<>();
+
+        UserLane(String key) {
+            super(key);
+        }
+
+        int size() {
+            return firstAttempts.size() + repeats.size();
+        }
+    }
+}
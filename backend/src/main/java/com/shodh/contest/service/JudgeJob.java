@@ -0,0 +1,53 @@
+package com.shodh.contest.service;
+
+import lombok.Getter;
+
+@Getter
+public class JudgeJob {
+    private final Long submissionId;
+    private final String contestId;
+    private final String username;
+    private final boolean firstAttempt;
+    private final String rejudgeTaskId;
+    private final CustomRun customRun;
+    private final long enqueuedAtNanos;
+
+    public JudgeJob(Long submissionId, String contestId, String username, boolean firstAttempt) {
+        this(submissionId, contestId, username, firstAttempt, null, null);
+    }
+
+    private JudgeJob(Long submissionId, String contestId, String username, boolean firstAttempt, String rejudgeTaskId,
+                     CustomRun customRun) {
+        this.submissionId = submissionId;
+        this.contestId = contestId;
+        this.username = username;
+        this.firstAttempt = firstAttempt;
+        this.rejudgeTaskId = rejudgeTaskId;
+        this.customRun = customRun;
+        this.enqueuedAtNanos = System.nanoTime();
+    }
+
+    public static JudgeJob rejudge(Long submissionId, String contestId, String rejudgeTaskId) {
+        return new JudgeJob(submissionId, contestId, null, false, rejudgeTaskId, null);
+    }
+
+    public static JudgeJob customRun(CustomRun run) {
+        return new JudgeJob(null, null, run.getUsername(), false, null, run);
+    }
+
+    public boolean isRejudge() {
+        return rejudgeTaskId != null;
+    }
+
+    public boolean isCustomRun() {
+        return customRun != null;
+    }
+
+    public String getLaneKey() {
+        return laneKey(contestId, username);
+    }
+
+    public static String laneKey(String contestId, String username) {
+        return contestId + "/" + username;
+    }
+}
@@ -0,0 +1,216 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.JudgeQueueStats;
+import com.shodh.contest.dto.LaneStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Dispatch queue between the submit path and the judge workers. Jobs are handed out in weighted
+ * fair order across (contest, user) lanes instead of arrival order. Custom runs have a lane of
+ * their own that is only drained while no live submission is waiting, and rejudge jobs sit in a
+ * background lane below that.
+ */
+@Component
+public class JudgeQueue {
+
+    @Value("${judge.scheduler.contest-weights:}")
+    private String contestWeightsConfig;
+
+    @Value("${judge.scheduler.user-weights:}")
+    private String userWeightsConfig;
+
+    @Value("${judge.scheduler.repeat-attempt-cost:2.0}")
+    private double repeatAttemptCost;
+
+    @Value("${judge.scheduler.stats.max-lanes:50}")
+    private int maxReportedLanes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<String, LaneCounters> laneCounters = new ConcurrentHashMap<>();
+    private final LatencyRecorder firstAttemptWait = new LatencyRecorder(4096);
+    private final LatencyRecorder repeatAttemptWait = new LatencyRecorder(4096);
+    private final LatencyRecorder timeToVerdict = new LatencyRecorder(4096);
+
+    private FairJudgeQueue queue;
+    private final Deque<JudgeJob> customRuns = new ArrayDeque<>();
+    private final Deque<JudgeJob> background = new ArrayDeque<>();
+    private Map<String, Double> contestWeights;
+    private Map<String, Double> userWeights;
+
+    @PostConstruct
+    void init() {
+        // A lane's counters go with its idle lane, so the map only holds recently active lanes
+        queue = new FairJudgeQueue(repeatAttemptCost,
+                (contestId, username) -> laneCounters.remove(JudgeJob.laneKey(contestId, username)));
+        contestWeights = parseWeights(contestWeightsConfig);
+        userWeights = parseWeights(userWeightsConfig);
+    }
+
+    public void submit(JudgeJob job) {
+        lock.lock();
+        try {
+            laneCounters.computeIfAbsent(job.getLaneKey(), key -> new LaneCounters()).queued.incrementAndGet();
+            queue.offer(job,
+                    contestWeights.getOrDefault(job.getContestId(), 1.0),
+                    userWeights.getOrDefault(job.getUsername(), 1.0));
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void submitCustomRun(JudgeJob job) {
+        lock.lock();
+        try {
+            customRuns.addLast(job);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void submitBackground(JudgeJob job) {
+        lock.lock();
+        try {
+            background.addLast(job);
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public JudgeJob take() throws InterruptedException {
+        JudgeJob job;
+        lock.lockInterruptibly();
+        try {
+            while ((job = queue.poll()) == null && (job = customRuns.pollFirst()) == null
+                    && (job = background.pollFirst()) == null) {
+                notEmpty.await();
+            }
+            // Under the lock, so a lane's counters are settled before the lane can be pruned
+            if (!job.isRejudge() && !job.isCustomRun()) {
+                recordDispatch(job);
+            }
+        } finally {
+            lock.unlock();
+        }
+        return job;
+    }
+
+    public void recordVerdict(long millis) {
+        timeToVerdict.record(millis);
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int customRunSize() {
+        lock.lock();
+        try {
+            return customRuns.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int backgroundSize() {
+        lock.lock();
+        try {
+            return background.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public JudgeQueueStats getStats() {
+        List<LaneStats> lanes = laneCounters.entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .sorted(Comparator.comparingLong(LaneStats::getQueued).reversed()
+                        .thenComparing(Comparator.comparingLong(LaneStats::getMaxWaitMs).reversed()))
+                .limit(maxReportedLanes)
+                .collect(Collectors.toList());
+
+        JudgeQueueStats stats = new JudgeQueueStats();
+        stats.setQueued(size());
+        stats.setCustomRunQueued(customRunSize());
+        stats.setBackgroundQueued(backgroundSize());
+        stats.setFirstAttemptWaitP50Ms(firstAttemptWait.percentile(50));
+        stats.setFirstAttemptWaitP99Ms(firstAttemptWait.percentile(99));
+        stats.setRepeatAttemptWaitP50Ms(repeatAttemptWait.percentile(50));
+        stats.setRepeatAttemptWaitP99Ms(repeatAttemptWait.percentile(99));
+        stats.setTimeToVerdictP50Ms(timeToVerdict.percentile(50));
+        stats.setTimeToVerdictP99Ms(timeToVerdict.percentile(99));
+        stats.setLanes(lanes);
+        return stats;
+    }
+
+    private void recordDispatch(JudgeJob job) {
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - job.getEnqueuedAtNanos());
+        (job.isFirstAttempt() ? firstAttemptWait : repeatAttemptWait).record(waitMs);
+
+        LaneCounters counters = laneCounters.get(job.getLaneKey());
+        if (counters != null) {
+            counters.queued.decrementAndGet();
+            counters.dispatched.incrementAndGet();
+            counters.totalWaitMs.addAndGet(waitMs);
+            counters.maxWaitMs.accumulateAndGet(waitMs, Math::max);
+        }
+    }
+
+    /**
+     * Parses "key:weight,key:weight" lists from configuration.
+     */
+    static Map<String, Double> parseWeights(String config) {
+        Map<String, Double> weights = new HashMap<>();
+        if (config == null || config.isBlank()) {
+            return weights;
+        }
+        for (String entry : config.split(",")) {
+            String[] parts = entry.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid judge weight entry: " + entry);
+            }
+            double weight = Double.parseDouble(parts[1].trim());
+            if (weight <= 0) {
+                throw new IllegalArgumentException("Judge weight must be positive: " + entry);
+            }
+            weights.put(parts[0].trim(), weight);
+        }
+        return weights;
+    }
+
+    private static class LaneCounters {
+        final AtomicLong queued = new AtomicLong();
+        final AtomicLong dispatched = new AtomicLong();
+        final AtomicLong totalWaitMs = new AtomicLong();
+        final AtomicLong maxWaitMs = new AtomicLong();
+
+        LaneStats toStats(String lane) {
+            long count = dispatched.get();
+            return new LaneStats(lane, queued.get(), count,
+                    count == 0 ? 0 : totalWaitMs.get() / count, maxWaitMs.get());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.shodh.contest.service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * One unit of judge capacity: the cores a single submission runs on.
+ */
+public class JudgeSlot {
+    private final int index;
+    private final List<Integer> cpus;
+
+    public JudgeSlot(int index, List<Integer> cpus) {
+        this.index = index;
+        this.cpus = List.copyOf(cpus);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public List<Integer> getCpus() {
+        return cpus;
+    }
+
+    /**
+     * The cores as a cpuset list, e.g. "2,3", or null when the slot is not pinned.
+     */
+    public String getCpuset() {
+        return cpus.isEmpty() ? null : cpus.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
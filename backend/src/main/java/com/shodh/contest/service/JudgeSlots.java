@@ -0,0 +1,254 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.JudgeCapacity;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Judge capacity derived from the host. At startup the usable cores (the process's CPU affinity)
+ * and memory are split into slots of judge.slots.cpus-per-slot cores and one submission's memory
+ * limit each, after setting aside judge.slots.reserved-cpus cores and reserved-memory-mb for the
+ * application itself. With pinning on, every slot owns its cores exclusively, so no two
+ * concurrent runs share a core.
+ *
+ * <p>Judge jobs lease a slot for their whole run; the executors read it through
+ * {@link #currentCpuset()}. Work outside a job, such as warm-up and benchmarks, runs on the
+ * reserved cores.
+ */
+@Component
+public class JudgeSlots {
+    private static final Logger logger = LoggerFactory.getLogger(JudgeSlots.class);
+
+    private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+    private static final ThreadLocal<JudgeSlot> CURRENT = new ThreadLocal<>();
+
+    // 0 sizes the judge from the host; a positive value fixes the slot count
+    @Value("${judge.workers:0}")
+    private int configuredSlots;
+
+    @Value("${judge.slots.cpus-per-slot:1}")
+    private int cpusPerSlot;
+
+    @Value("${judge.slots.reserved-cpus:1}")
+    private int reservedCpus;
+
+    @Value("${judge.slots.reserved-memory-mb:1024}")
+    private long reservedMemoryMb;
+
+    @Value("${judge.slots.memory-per-slot:${docker.memory.limit:256m}}")
+    private String memoryPerSlot;
+
+    @Value("${judge.slots.pin-cpus:true}")
+    private boolean pinCpus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private List<Integer> availableCpus;
+    private long availableMemoryMb;
+    private List<Integer> reserved = List.of();
+    private final List<JudgeSlot> slots = new ArrayList<>();
+    private final BlockingQueue<JudgeSlot> idle = new LinkedBlockingQueue<>();
+    // Slots taken out of service by setActiveSlots
+    private final Deque<JudgeSlot> parked = new ArrayDeque<>();
+    private volatile int activeSlots;
+    private final AtomicInteger running = new AtomicInteger();
+    private boolean pinned;
+
+    @PostConstruct
+    void init() {
+        init(allowedCpus(), totalMemoryMb());
+    }
+
+    // Sizes the slots for the given host cores and memory
+    void init(List<Integer> hostCpus, long hostMemoryMb) {
+        availableCpus = hostCpus;
+        availableMemoryMb = hostMemoryMb;
+        long slotMemoryMb = Math.max(1, DockerExecutionService.parseMemory(memoryPerSlot) / (1024 * 1024));
+
+        // Keep the reserve only when at least one slot's worth of cores is left besides it
+        int reserve = Math.max(0, Math.min(reservedCpus, availableCpus.size() - cpusPerSlot));
+        int cpuSlots = Math.max(1, (availableCpus.size() - reserve) / cpusPerSlot);
+        int memorySlots = (int) Math.max(1, (availableMemoryMb - reservedMemoryMb) / slotMemoryMb);
+        int count = Math.min(cpuSlots, memorySlots);
+
+        if (configuredSlots > 0) {
+            if (configuredSlots > count) {
+                logger.warn("judge.workers={} is more than the {} slots this host supports", configuredSlots, count);
+            }
+            count = configuredSlots;
+        }
+
+        // Pinning needs a dedicated set of cores per slot; a shared core would skew timings anyway
+        pinned = pinCpus && count <= cpuSlots && (availableCpus.size() - reserve) >= count * cpusPerSlot;
+        if (pinCpus && !pinned) {
+            logger.warn("Not pinning judge slots: {} slots of {} cores do not fit on {} cores",
+                    count, cpusPerSlot, availableCpus.size() - reserve);
+        }
+
+        reserved = pinned ? availableCpus.subList(0, reserve) : List.of();
+        for (int i = 0; i < count; i++) {
+            List<Integer> cpus = pinned
+                    ? availableCpus.subList(reserve + i * cpusPerSlot, reserve + (i + 1) * cpusPerSlot)
+                    : List.of();
+            JudgeSlot slot = new JudgeSlot(i, cpus);
+            slots.add(slot);
+            idle.add(slot);
+        }
+
+        activeSlots = count;
+
+        meterRegistry.gauge("judge.slots.total", slots, List::size);
+        meterRegistry.gauge("judge.slots.active", this, JudgeSlots::getActiveSlots);
+        meterRegistry.gauge("judge.slots.busy", this, JudgeSlots::getBusySlots);
+        logger.info("Judge capacity: {} slots from {} cores and {} MB ({} per slot, pinned: {}, reserved cores: {})",
+                count, availableCpus.size(), availableMemoryMb, memoryPerSlot, pinned, reserved);
+    }
+
+    public int getSlotCount() {
+        return slots.size();
+    }
+
+    public JudgeSlot acquire() throws InterruptedException {
+        return idle.take();
+    }
+
+    public void release(JudgeSlot slot) {
+        synchronized (parked) {
+            if (slots.size() - parked.size() > activeSlots) {
+                parked.push(slot);
+                return;
+            }
+        }
+        idle.add(slot);
+    }
+
+    public int getActiveSlots() {
+        return activeSlots;
+    }
+
+    /**
+     * Keeps only count slots in service, at least one and at most all of them. A slot leaving
+     * service finishes its current job first.
+     */
+    public void setActiveSlots(int count) {
+        synchronized (parked) {
+            activeSlots = Math.max(1, Math.min(count, slots.size()));
+            while (!parked.isEmpty() && slots.size() - parked.size() < activeSlots) {
+                idle.add(parked.pop());
+            }
+            while (slots.size() - parked.size() > activeSlots) {
+                JudgeSlot slot = idle.poll();
+                if (slot == null) {
+                    break;
+                }
+                parked.push(slot);
+            }
+        }
+    }
+
+    /**
+     * Binds a leased slot to the current thread for the duration of a judge job.
+     */
+    public void enter(JudgeSlot slot) {
+        CURRENT.set(slot);
+        running.incrementAndGet();
+    }
+
+    public void leave() {
+        CURRENT.remove();
+        running.decrementAndGet();
+    }
+
+    /**
+     * Cores the current thread's executions must run on: the leased slot's cores inside a judge
+     * job, the reserved cores otherwise, or null when nothing is pinned.
+     */
+    public String currentCpuset() {
+        JudgeSlot slot = CURRENT.get();
+        if (slot != null) {
+            return slot.getCpuset();
+        }
+        return reserved.isEmpty() ? null : new JudgeSlot(-1, reserved).getCpuset();
+    }
+
+    public JudgeCapacity getCapacity() {
+        return new JudgeCapacity(
+                slots.size(),
+                getBusySlots(),
+                pinned,
+                reserved.isEmpty() ? null : new JudgeSlot(-1, reserved).getCpuset(),
+                slots.stream().map(JudgeSlot::getCpuset).collect(Collectors.toList()),
+                DockerExecutionService.parseMemory(memoryPerSlot) / (1024 * 1024),
+                availableCpus.size(),
+                availableMemoryMb,
+                activeSlots);
+    }
+
+    // Slots running a job; the dispatcher's lease while it waits for the next job does not count
+    private int getBusySlots() {
+        return running.get();
+    }
+
+    // The cores this process may run on, which honours taskset and container cpusets; a CPU quota
+    // below that (docker --cpus) leaves only as many cores usable as the JVM reports
+    private static List<Integer> allowedCpus() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("Cpus_allowed_list:")) {
+                    List<Integer> cpus = parseCpuList(line.substring(line.indexOf(':') + 1).trim());
+                    return cpus.size() > processors ? cpus.subList(0, processors) : cpus;
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Cannot read CPU affinity", e);
+        }
+        return IntStream.range(0, processors).boxed().collect(Collectors.toList());
+    }
+
+    static List<Integer> parseCpuList(String list) {
+        List<Integer> cpus = new ArrayList<>();
+        for (String part : list.split(",")) {
+            if (part.isBlank()) {
+                continue;
+            }
+            String[] range = part.trim().split("-");
+            int from = Integer.parseInt(range[0]);
+            int to = range.length > 1 ? Integer.parseInt(range[1]) : from;
+            for (int cpu = from; cpu <= to; cpu++) {
+                cpus.add(cpu);
+            }
+        }
+        return cpus;
+    }
+
+    // Container-aware on current JDKs
+    private static long totalMemoryMb() {
+        java.lang.management.OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean hotspot) {
+            return hotspot.getTotalMemorySize() / (1024 * 1024);
+        }
+        return Runtime.getRuntime().maxMemory() / (1024 * 1024);
+    }
+}
@@ -0,0 +1,99 @@
+package com.shodh.contest.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes jobs off the judge queue and runs each on its own virtual thread. Judge concurrency is
+ * bounded by the slots of {@link JudgeSlots} rather than a thread pool: a slot is leased before the
+ * next job is chosen, so the fair queue decides what runs at the moment a slot frees up.
+ */
+@Component
+public class JudgeWorkerPool {
+    private static final Logger logger = LoggerFactory.getLogger(JudgeWorkerPool.class);
+
+    @Autowired
+    private JudgeQueue judgeQueue;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private RejudgeService rejudgeService;
+
+    @Autowired
+    private CustomRunService customRunService;
+
+    @Autowired
+    private QueryMetrics queryMetrics;
+
+    @Autowired
+    private JudgeSlots judgeSlots;
+
+    @Autowired
+    private SubmissionTracer submissionTracer;
+
+    private Thread dispatcher;
+
+    @PostConstruct
+    void start() {
+        dispatcher = Thread.ofVirtual().name("judge-dispatcher").start(this::dispatch);
+        logger.info("Judge dispatcher started with {} slots", judgeSlots.getSlotCount());
+    }
+
+    @PreDestroy
+    void stop() {
+        dispatcher.interrupt();
+    }
+
+    private void dispatch() {
+        long sequence = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                JudgeSlot slot = judgeSlots.acquire();
+                JudgeJob job;
+                try {
+                    job = judgeQueue.take();
+                } catch (InterruptedException e) {
+                    judgeSlots.release(slot);
+                    throw e;
+                }
+                Thread.ofVirtual().name("judge-" + sequence++).start(() -> {
+                    judgeSlots.enter(slot);
+                    try {
+                        runJob(job);
+                    } finally {
+                        judgeSlots.leave();
+                        judgeSlots.release(slot);
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void runJob(JudgeJob job) {
+        QueryCounter.begin();
+        try {
+            if (job.isCustomRun()) {
+                customRunService.execute(job.getCustomRun());
+            } else if (job.isRejudge()) {
+                rejudgeService.run(job);
+            } else {
+                submissionTracer.resume(job.getSubmissionId());
+                submissionService.processSubmission(job.getSubmissionId());
+            }
+        } catch (Exception | LinkageError e) {
+            logger.error("Judge job failed for submission " + job.getSubmissionId(), e);
+        } finally {
+            submissionTracer.detach();
+            queryMetrics.recordJudgeJob(job.isCustomRun() ? "custom-run" : job.isRejudge() ? "rejudge" : "live",
+                    QueryCounter.end());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.shodh.contest.service;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the most recent latency samples in a ring buffer and answers percentile queries over them.
+ */
+public class LatencyRecorder {
+    private final long[] samples;
+    private int next;
+    private int filled;
+    private long count;
+    private long max;
+
+    public LatencyRecorder(int capacity) {
+        this.samples = new long[capacity];
+    }
+
+    public synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (filled < samples.length) {
+            filled++;
+        }
+        count++;
+        max = Math.max(max, millis);
+    }
+
+    public synchronized long percentile(double p) {
+        if (filled == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, filled);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(p / 100.0 * filled) - 1;
+        return sorted[Math.max(0, Math.min(index, filled - 1))];
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+}
@@ -1,10 +1,13 @@
 package com.shodh.contest.service;
 
+import com.shodh.contest.dto.CustomRunResponse;
 import com.shodh.contest.model.SubmissionStatus;
 import com.shodh.contest.model.Problem;
 import com.shodh.contest.model.Submission;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -13,12 +16,14 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.Set;
+import java.util.stream.Stream;
 
 @Service
 public class LocalExecutionService implements CodeExecutionService {
@@ -26,6 +31,42 @@ public class LocalExecutionService implements CodeExecutionService {
 
     @Value("${judge.max-execution-time:5000}")
     private int maxExecutionTime;
+
+    @Autowired
+    private TestDataStore testDataStore;
+
+    @Autowired
+    private ToolchainProfiles toolchainProfiles;
+
+    @Autowired
+    private SubtaskGrader subtaskGrader;
+
+    @Autowired
+    private WorkspacePool workspacePool;
+
+    @Autowired
+    private JudgeSlots judgeSlots;
+
+    @Autowired
+    private NodeCalibration nodeCalibration;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private SubmissionTracer submissionTracer;
+
+    private boolean tasksetAvailable;
+
+    @PostConstruct
+    void detectTaskset() {
+        tasksetAvailable = Stream.of(System.getenv().getOrDefault("PATH", "").split(File.pathSeparator))
+                .anyMatch(dir -> Files.isExecutable(Paths.get(dir, "taskset")));
+        if (!tasksetAvailable) {
+            logger.warn("taskset not found; local executions are not pinned to judge slot cores");
+        }
+    }
+
     
     private static final Map<String, String> LANGUAGE_FILE_EXTENSIONS = new HashMap<>();
     private static final Map<String, String> LANGUAGE_COMPILE_COMMANDS = new HashMap<>();
@@ -63,69 +104,45 @@ public class LocalExecutionService implements CodeExecutionService {
     }
     
     public CodeExecutionService.ExecutionResult executeCode(String code, Problem problem, String language) {
-        Path tempDir = null;
-
+        // Leased for the run, so test data updated meanwhile does not remove the files it reads
+        TestSet tests = testDataStore.acquire(problem);
         try {
-            // Create temporary directory for the submission
-            tempDir = Files.createTempDirectory("submission-" + UUID.randomUUID());
-            
+            return executeCode(code, tests, language);
+        } finally {
+            testDataStore.release(tests);
+        }
+    }
+
+    public CodeExecutionService.ExecutionResult executeCode(String code, TestSet tests, String language) {
+        // Workspaces come from a pool on a RAM-backed filesystem and are reset after use
+        try (Workspace workspace = workspacePool.acquire()) {
+            Path workingDir = workspace.getDirectory();
+
             // Get the appropriate file name for the language
             String fileName = LANGUAGE_FILE_EXTENSIONS.getOrDefault(language, "Main.java");
-            Path codeFile = tempDir.resolve(fileName);
+            Path codeFile = workingDir.resolve(fileName);
             Files.write(codeFile, code.getBytes(StandardCharsets.UTF_8));
 
-            // Prepare test cases
-            List<String> inputs = problem.getInputTestCases();
-            List<String> expectedOutputs = problem.getExpectedOutputs();
-
-            int testCasesPassed = 0;
-            List<String> errors = new ArrayList<>();
-
-            for (int i = 0; i < inputs.size(); i++) {
-                String input = inputs.get(i);
-                String expectedOutput = expectedOutputs.get(i);
-
-                // Execute the code locally
-                CodeExecutionService.ExecutionResult result = executeTestCase(codeFile, input, language);
-
-                if (result.getStatus() == SubmissionStatus.ACCEPTED) {
-                    // Normalize output (trim whitespace)
-                    String normalizedActual = result.getOutput().trim();
-                    String normalizedExpected = expectedOutput.trim();
-
-                    if (normalizedActual.equals(normalizedExpected)) {
-                        testCasesPassed++;
-                    } else {
-                        result.setStatus(SubmissionStatus.WRONG_ANSWER);
-                        result.setErrorMessage("Test case " + (i + 1) + " failed.\nExpected: " + normalizedExpected + "\nGot: " + normalizedActual);
-                        errors.add(result.getErrorMessage());
-                    }
-                } else {
-                    errors.add("Test case " + (i + 1) + ": " + result.getErrorMessage());
-                    // Return immediately on compilation error
-                    if (result.getStatus() == SubmissionStatus.COMPILATION_ERROR) {
-                        return result;
-                    }
-                }
-            }
+            // Test data is wired to the process as files and never loaded into the heap
+            Path outputDir = workspace.getOutputDir();
 
-            // Determine final result
-            CodeExecutionService.ExecutionResult finalResult = new CodeExecutionService.ExecutionResult();
-            finalResult.setTestCasesPassed(testCasesPassed);
-            finalResult.setTotalTestCases(inputs.size());
-
-            if (testCasesPassed == inputs.size()) {
-                finalResult.setStatus(SubmissionStatus.ACCEPTED);
-                finalResult.setErrorMessage(null);
-            } else if (errors.isEmpty()) {
-                finalResult.setStatus(SubmissionStatus.WRONG_ANSWER);
-                finalResult.setErrorMessage("Some test cases failed");
-            } else {
-                finalResult.setStatus(SubmissionStatus.WRONG_ANSWER);
-                finalResult.setErrorMessage(String.join("\n", errors));
+            String compileCommand = toolchainProfiles.compileCommand(language,
+                    LANGUAGE_COMPILE_COMMANDS.getOrDefault(language, "javac Main.java"), false);
+            String runCommand = toolchainProfiles.runCommand(language,
+                    LANGUAGE_RUN_COMMANDS.getOrDefault(language, "java Main"), false);
+
+            // Compile once; every test case runs the same build output
+            if (!compileCommand.isEmpty()) {
+                CodeExecutionService.ExecutionResult compileResult = compile(workingDir, compileCommand, language);
+                if (compileResult != null) {
+                    return compileResult;
+                }
             }
 
-            return finalResult;
+            // The judging policy decides which tests still need to run
+            long timeLimitMillis = nodeCalibration.timeLimitMillis(tests);
+            return subtaskGrader.grade(tests, outputDir, i -> executeTestCase(
+                    workingDir, tests.input(i), outputDir.resolve(TestSet.fileName(i, "out")), runCommand, timeLimitMillis));
 
         } catch (Exception e) {
             logger.error("Error executing code", e);
@@ -133,101 +150,138 @@ public class LocalExecutionService implements CodeExecutionService {
             errorResult.setStatus(SubmissionStatus.RUNTIME_ERROR);
             errorResult.setErrorMessage("Error executing code: " + e.getMessage());
             return errorResult;
-        } finally {
-            // Clean up temporary directory
-            if (tempDir != null) {
-                cleanupDirectory(tempDir);
-            }
         }
     }
     
-    private CodeExecutionService.ExecutionResult executeTestCase(Path codeFile, String input, String language) {
-        try {
-            String compileCommand = LANGUAGE_COMPILE_COMMANDS.getOrDefault(language, "javac Main.java");
-            String runCommand = LANGUAGE_RUN_COMMANDS.getOrDefault(language, "java Main");
-            
-            // Change to the directory containing the code file
-            Path workingDir = codeFile.getParent();
-            
-            // Compile if needed
+    /**
+     * Compiles and runs the program once on the user's input, without anything to compare its
+     * output against.
+     */
+    public CustomRunResponse runCustom(CustomRun run) {
+        try (Workspace workspace = workspacePool.acquire()) {
+            Path workingDir = workspace.getDirectory();
+            String fileName = LANGUAGE_FILE_EXTENSIONS.getOrDefault(run.getLanguage(), "Main.java");
+            Files.write(workingDir.resolve(fileName), run.getCode().getBytes(StandardCharsets.UTF_8));
+
+            Path outputDir = workspace.getOutputDir();
+            Files.writeString(outputDir.resolve(CustomRun.INPUT_FILE), run.getInput(), StandardCharsets.UTF_8);
+
+            String compileCommand = toolchainProfiles.compileCommand(run.getLanguage(),
+                    LANGUAGE_COMPILE_COMMANDS.getOrDefault(run.getLanguage(), "javac Main.java"), false);
+            String runCommand = toolchainProfiles.runCommand(run.getLanguage(),
+                    LANGUAGE_RUN_COMMANDS.getOrDefault(run.getLanguage(), "java Main"), false);
+
             if (!compileCommand.isEmpty()) {
-                ProcessBuilder compileBuilder = new ProcessBuilder("bash", "-c", compileCommand);
-                compileBuilder.directory(workingDir.toFile());
-                compileBuilder.redirectErrorStream(true);
-                
-                Process compileProcess = compileBuilder.start();
-                
-                StringBuilder compileOutput = new StringBuilder();
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(compileProcess.getInputStream(), StandardCharsets.UTF_8))) {
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        compileOutput.append(line).append("\n");
-                    }
-                }
-                
-                boolean compileFinished = compileProcess.waitFor(maxExecutionTime, TimeUnit.MILLISECONDS);
-                
-                if (!compileFinished) {
-                    compileProcess.destroyForcibly();
-                    CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
-                    result.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
-                    result.setErrorMessage("Compilation time limit exceeded");
-                    return result;
-                }
-                
-                int compileExitCode = compileProcess.exitValue();
-                if (compileExitCode != 0) {
-                    CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
-                    result.setStatus(SubmissionStatus.COMPILATION_ERROR);
-                    result.setErrorMessage(compileOutput.toString());
-                    return result;
+                CodeExecutionService.ExecutionResult compileResult = compile(workingDir, compileCommand, run.getLanguage());
+                if (compileResult != null) {
+                    return CustomRun.failed(compileResult);
                 }
             }
-            
-            // Run the program
-            ProcessBuilder runBuilder = new ProcessBuilder("bash", "-c", "timeout " + (maxExecutionTime / 1000) + " " + runCommand);
+
+            // Both outputs go to files, so the file size limit bounds them like test output
+            Path stdout = outputDir.resolve(CustomRun.STDOUT_FILE);
+            Path stderr = outputDir.resolve(CustomRun.STDERR_FILE);
+            ProcessBuilder runBuilder = new ProcessBuilder(pinned("bash", "-c",
+                    fileSizeLimit() + "timeout " + NodeCalibration.seconds(run.getTimeLimitMillis()) + " " + runCommand));
             runBuilder.directory(workingDir.toFile());
-            runBuilder.redirectErrorStream(true);
-            
-            Process runProcess = runBuilder.start();
-            
-            // Write input to the process
-            try (OutputStream stdin = runProcess.getOutputStream()) {
-                stdin.write(input.getBytes(StandardCharsets.UTF_8));
-                stdin.flush();
-            }
-            
-            // Read output
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(runProcess.getInputStream(), StandardCharsets.UTF_8))) {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
-                }
+            runBuilder.redirectInput(outputDir.resolve(CustomRun.INPUT_FILE).toFile());
+            runBuilder.redirectOutput(stdout.toFile());
+            runBuilder.redirectError(stderr.toFile());
+
+            long start = System.nanoTime();
+            ProcessPump.Outcome outcome = processSupervisor.run(runBuilder, null,
+                    run.getTimeLimitMillis() + NodeCalibration.KILL_GRACE_MILLIS);
+            long timeMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+            Integer exitCode = outcome.isTimedOut() ? null : outcome.getExitCode();
+            boolean quotaExceeded = exitCode != null
+                    && (workspacePool.exceededQuota(exitCode, stdout) || workspacePool.exceededQuota(exitCode, stderr));
+            return CustomRun.collect(outputDir, exitCode, quotaExceeded, timeMillis,
+                    run.getTimeLimitMillis(), run.getMaxOutputBytes());
+
+        } catch (Exception e) {
+            logger.error("Error running custom run " + run.getRunId(), e);
+            CodeExecutionService.ExecutionResult errorResult = new CodeExecutionService.ExecutionResult();
+            errorResult.setStatus(SubmissionStatus.RUNTIME_ERROR);
+            errorResult.setErrorMessage("Error running code: " + e.getMessage());
+            return CustomRun.failed(errorResult);
+        }
+    }
+
+    public Set<String> getSupportedLanguages() {
+        return LANGUAGE_FILE_EXTENSIONS.keySet();
+    }
+
+    /**
+     * Returns null when the program compiled, otherwise the verdict for the whole submission.
+     */
+    private CodeExecutionService.ExecutionResult compile(Path workingDir, String compileCommand, String language)
+            throws IOException, InterruptedException {
+        ProcessBuilder compileBuilder = new ProcessBuilder(pinned("bash", "-c", fileSizeLimit() + compileCommand));
+        compileBuilder.directory(workingDir.toFile());
+        compileBuilder.redirectErrorStream(true);
+
+        long start = System.nanoTime();
+        ProcessPump.Outcome compileOutcome;
+        try (SubmissionTracer.Span span = submissionTracer.startSpan("compile").attribute("language", language)) {
+            compileOutcome = processSupervisor.run(compileBuilder, null, maxExecutionTime);
+            span.attribute("exit.code", compileOutcome.isTimedOut() ? null : compileOutcome.getExitCode());
+        }
+        toolchainProfiles.recordCompile(language, false, Duration.ofNanos(System.nanoTime() - start));
+
+        if (compileOutcome.isTimedOut()) {
+            CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+            result.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+            result.setErrorMessage("Compilation time limit exceeded");
+            return result;
+        }
+
+        if (compileOutcome.getExitCode() != 0) {
+            CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+            result.setStatus(SubmissionStatus.COMPILATION_ERROR);
+            result.setErrorMessage(compileOutcome.getStdout());
+            return result;
+        }
+        return null;
+    }
+
+    private CodeExecutionService.ExecutionResult executeTestCase(Path workingDir, Path inputFile, Path outputFile,
+                                                                 String runCommand, long timeLimitMillis) {
+        try {
+            // Run the program with stdin and stdout redirected to files; only stderr is pumped
+            ProcessBuilder runBuilder = new ProcessBuilder(pinned("bash", "-c",
+                    fileSizeLimit() + "timeout " + NodeCalibration.seconds(timeLimitMillis) + " " + runCommand));
+            runBuilder.directory(workingDir.toFile());
+            runBuilder.redirectInput(inputFile.toFile());
+            runBuilder.redirectOutput(outputFile.toFile());
+
+            long start = System.nanoTime();
+            ProcessPump.Outcome outcome;
+            try (SubmissionTracer.Span span = submissionTracer.startSpan("run")) {
+                outcome = processSupervisor.run(runBuilder, null, timeLimitMillis + NodeCalibration.KILL_GRACE_MILLIS);
+                span.attribute("exit.code", outcome.isTimedOut() ? null : outcome.getExitCode());
             }
-            
-            boolean finished = runProcess.waitFor(maxExecutionTime, TimeUnit.MILLISECONDS);
 
             CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+            result.setTimeMillis(Duration.ofNanos(System.nanoTime() - start).toMillis());
 
-            if (!finished) {
-                runProcess.destroyForcibly();
+            if (outcome.isTimedOut() || outcome.getExitCode() == NodeCalibration.TIMEOUT_EXIT_CODE) {
+                result.setTimeMillis(Math.max(result.getTimeMillis(), timeLimitMillis));
                 result.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
                 result.setErrorMessage("Time limit exceeded");
                 return result;
             }
 
-            int exitCode = runProcess.exitValue();
+            int exitCode = outcome.getExitCode();
 
-            if (exitCode != 0) {
+            if (exitCode != 0 && workspacePool.exceededQuota(exitCode, outputFile)) {
+                result.setStatus(SubmissionStatus.RUNTIME_ERROR);
+                result.setErrorMessage("Output limit exceeded");
+            } else if (exitCode != 0) {
                 result.setStatus(SubmissionStatus.RUNTIME_ERROR);
-                result.setErrorMessage("Runtime error (exit code: " + exitCode + ")");
-                result.setOutput(output.toString());
+                result.setErrorMessage("Runtime error (exit code: " + exitCode + ")\n" + outcome.getStderr());
             } else {
                 result.setStatus(SubmissionStatus.ACCEPTED);
-                result.setOutput(output.toString());
             }
 
             return result;
@@ -241,20 +295,19 @@ public class LocalExecutionService implements CodeExecutionService {
         }
     }
 
-    private void cleanupDirectory(Path directory) {
-        try {
-            Files.walk(directory)
-                    .sorted((a, b) -> -a.compareTo(b))
-                    .forEach(path -> {
-                        try {
-                            Files.delete(path);
-                        } catch (IOException e) {
-                            logger.debug("Error deleting file: " + path, e);
-                        }
-                    });
-        } catch (IOException e) {
-            logger.debug("Error cleaning up directory: " + directory, e);
+    // Runs the command on the current judge slot's cores; children inherit the affinity
+    private List<String> pinned(String... command) {
+        List<String> pinnedCommand = new ArrayList<>();
+        String cpuset = judgeSlots.currentCpuset();
+        if (cpuset != null && tasksetAvailable) {
+            pinnedCommand.addAll(List.of("taskset", "-c", cpuset));
         }
+        pinnedCommand.addAll(Arrays.asList(command));
+        return pinnedCommand;
     }
 
+    // Caps every file the process writes at the workspace quota (ulimit counts 1 KB blocks)
+    private String fileSizeLimit() {
+        return "ulimit -f " + (workspacePool.getQuotaBytes() / 1024) + "; ";
+    }
 }
@@ -0,0 +1,90 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.CacheRegionStats;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Contest and problem rows, and the lookups of the submit path, come from Hibernate's
+ * second-level cache. Changes made through Hibernate keep it current on their own; writers that
+ * go around it, like the contest importer's batched inserts, call {@link #invalidate()}. Hit and
+ * miss counts per region are published as hibernate.second.level.cache.requests.
+ */
+@Component
+public class MetadataCache {
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @PostConstruct
+    void init() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            register(region, "hit", regionStatistics, CacheRegionStatistics::getHitCount);
+            register(region, "miss", regionStatistics, CacheRegionStatistics::getMissCount);
+            FunctionCounter.builder("hibernate.second.level.cache.puts", regionStatistics, CacheRegionStatistics::getPutCount)
+                    .tag("region", region)
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Drops every cached contest, problem and lookup, for when they were changed outside Hibernate.
+     */
+    public void invalidate() {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(Contest.class);
+        cache.evictEntityData(Problem.class);
+        cache.evictCollectionData(Problem.class.getName() + ".subtasks");
+        cache.evictQueryRegions();
+        logger.info("Evicted contests and problems from the second-level cache");
+    }
+
+    public List<CacheRegionStats> getStats() {
+        List<CacheRegionStats> regions = new ArrayList<>();
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted().forEach(region -> {
+            CacheRegionStatistics stats = statistics.getCacheRegionStatistics(region);
+            if (stats != null) {
+                long requests = stats.getHitCount() + stats.getMissCount();
+                regions.add(new CacheRegionStats(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount(),
+                        requests == 0 ? null : (double) stats.getHitCount() / requests));
+            }
+        });
+        return regions;
+    }
+
+    private void register(String region, String result, CacheRegionStatistics regionStatistics,
+                          ToDoubleFunction<CacheRegionStatistics> count) {
+        FunctionCounter.builder("hibernate.second.level.cache.requests", regionStatistics, count)
+                .tag("region", region)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,115 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Measures how fast this judge node is compared with the reference machine the time limits were
+ * set on, and scales time limits by the result. A node that takes twice as long on the benchmark
+ * gives submissions twice the time, so a solution's verdict does not depend on where it ran.
+ */
+@Component
+public class NodeCalibration {
+    private static final Logger logger = LoggerFactory.getLogger(NodeCalibration.class);
+
+    // Exit status of coreutils timeout when it had to stop the command
+    public static final int TIMEOUT_EXIT_CODE = 124;
+
+    // How long the judge waits past the limit for timeout itself to stop the program
+    public static final long KILL_GRACE_MILLIS = 1000;
+
+    // 4 MB of ints: large enough to leave the L2 cache, so memory latency counts as well
+    private static final int BENCHMARK_WORDS = 1 << 20;
+    private static final int BENCHMARK_STEPS = 1 << 25;
+
+    @Value("${judge.calibration.enabled:true}")
+    private boolean enabled;
+
+    // Benchmark time on the reference machine
+    @Value("${judge.calibration.reference-ms:150}")
+    private double referenceMillis;
+
+    @Value("${judge.calibration.iterations:5}")
+    private int iterations;
+
+    @Value("${judge.calibration.min-factor:0.5}")
+    private double minFactor;
+
+    @Value("${judge.calibration.max-factor:3.0}")
+    private double maxFactor;
+
+    @Value("${judge.max-execution-time:5000}")
+    private long defaultTimeLimitMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private volatile double factor = 1.0;
+    private volatile double benchmarkMillis;
+
+    @PostConstruct
+    void calibrate() {
+        if (!enabled) {
+            return;
+        }
+        // Best of several runs: the first ones also pay for JIT compilation
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < iterations + 1; i++) {
+            long start = System.nanoTime();
+            benchmark();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        benchmarkMillis = best / 1_000_000.0;
+        double measured = benchmarkMillis / referenceMillis;
+        factor = Math.min(maxFactor, Math.max(minFactor, measured));
+
+        meterRegistry.gauge("judge.calibration.factor", this, NodeCalibration::getFactor);
+        logger.info("Node calibration: benchmark {} ms against {} ms reference, time limit factor {}",
+                String.format("%.1f", benchmarkMillis), referenceMillis, String.format("%.2f", factor));
+    }
+
+    public double getFactor() {
+        return factor;
+    }
+
+    public double getBenchmarkMillis() {
+        return benchmarkMillis;
+    }
+
+    /**
+     * The time limit for one run of a test from the set on this node.
+     */
+    public long timeLimitMillis(TestSet tests) {
+        long base = tests.getTimeLimitMillis() != null ? tests.getTimeLimitMillis() : defaultTimeLimitMillis;
+        return Math.round(base * factor);
+    }
+
+    /**
+     * Formats a limit for the timeout command, which accepts fractional seconds.
+     */
+    public static String seconds(long millis) {
+        return String.format(Locale.ROOT, "%.3f", millis / 1000.0);
+    }
+
+    // Pseudo-random walk over an array: integer ALU work plus cache misses, no allocation
+    private static int benchmark() {
+        int[] words = new int[BENCHMARK_WORDS];
+        int state = 0x9E3779B9;
+        int position = 0;
+        for (int step = 0; step < BENCHMARK_STEPS; step++) {
+            state ^= state << 13;
+            state ^= state >>> 17;
+            state ^= state << 5;
+            position = (position + (state & (BENCHMARK_WORDS - 1))) & (BENCHMARK_WORDS - 1);
+            words[position] += state;
+        }
+        return words[position];
+    }
+}
@@ -0,0 +1,190 @@
+package com.shodh.contest.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Cleans up what a judge run can leave behind when the backend dies mid-judge or a program
+ * escapes its process tree: executor containers, workspace debris and temp directories older than
+ * judge.reaper.ttl-minutes, and processes still running in a workspace that no supervised run
+ * owns. Everything removed is counted in the judge.reaper.reaped metric, tagged by kind.
+ */
+@Component
+public class OrphanReaper {
+    private static final Logger logger = LoggerFactory.getLogger(OrphanReaper.class);
+
+    // A process this young may belong to a run whose tree the supervisor has not sampled yet
+    private static final Duration PROCESS_MIN_AGE = Duration.ofSeconds(5);
+
+    private static final Path PROC = Paths.get("/proc");
+
+    @Value("${judge.reaper.enabled:true}")
+    private boolean enabled;
+
+    @Value("${judge.reaper.ttl-minutes:15}")
+    private long ttlMinutes;
+
+    // Temp directories of judge runs from older builds, which made one per submission
+    @Value("${judge.reaper.temp-prefixes:submission-,toolchain-benchmark-}")
+    private List<String> tempPrefixes;
+
+    @Value("${execution.service.type:docker}")
+    private String executionServiceType;
+
+    @Autowired
+    private WorkspacePool workspacePool;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private DockerClient dockerClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void registerMetrics() {
+        for (String kind : List.of("process", "workspace", "temp-dir", "container")) {
+            meterRegistry.counter("judge.reaper.reaped", "kind", kind);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${judge.reaper.initial-delay-ms:10000}",
+            fixedDelayString = "${judge.reaper.interval-ms:60000}")
+    public void reap() {
+        if (!enabled) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(ttlMinutes));
+        reapProcesses();
+        reapWorkspaces(cutoff);
+        if (!"local".equals(executionServiceType)) {
+            reapContainers(cutoff);
+        }
+    }
+
+    /**
+     * Kills processes whose working directory is inside the workspace pool but that no supervised
+     * run owns: leftovers of a previous backend, or children that escaped before being sampled.
+     */
+    private void reapProcesses() {
+        if (!Files.isDirectory(PROC)) {
+            return;
+        }
+        Path baseDir = workspacePool.getBaseDir();
+        Instant youngest = Instant.now().minus(PROCESS_MIN_AGE);
+        ProcessHandle.allProcesses()
+                .filter(process -> process.info().startInstant().map(start -> start.isBefore(youngest)).orElse(false))
+                .filter(process -> workingDirectory(process).map(cwd -> cwd.startsWith(baseDir)).orElse(false))
+                .filter(process -> !processSupervisor.isSupervised(process))
+                .forEach(process -> {
+                    logger.warn("Killing orphaned process {} ({})", process.pid(), process.info().command().orElse("?"));
+                    process.destroyForcibly();
+                    count("process");
+                });
+    }
+
+    private void reapWorkspaces(Instant cutoff) {
+        Path baseDir = workspacePool.getBaseDir();
+        try (Stream<Path> entries = Files.list(baseDir)) {
+            entries.filter(path -> !workspacePool.isPooled(path) && olderThan(path, cutoff))
+                    .forEach(path -> delete(path, "workspace"));
+        } catch (IOException e) {
+            logger.debug("Cannot list workspaces in {}", baseDir, e);
+        }
+
+        Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+        try (Stream<Path> entries = Files.list(tempDir)) {
+            entries.filter(path -> tempPrefixes.stream().anyMatch(prefix -> path.getFileName().toString().startsWith(prefix)))
+                    .filter(path -> Files.isDirectory(path) && olderThan(path, cutoff))
+                    .forEach(path -> delete(path, "temp-dir"));
+        } catch (IOException e) {
+            logger.debug("Cannot list temp directory {}", tempDir, e);
+        }
+    }
+
+    private void reapContainers(Instant cutoff) {
+        List<Container> containers;
+        try {
+            containers = dockerClient.listContainersCmd()
+                    .withShowAll(true)
+                    .withLabelFilter(Map.of(DockerExecutionService.CONTAINER_LABEL, "true"))
+                    .exec();
+        } catch (Exception e) {
+            logger.debug("Cannot list executor containers", e);
+            return;
+        }
+        for (Container container : containers) {
+            if (container.getCreated() == null || !Instant.ofEpochSecond(container.getCreated()).isBefore(cutoff)) {
+                continue;
+            }
+            try {
+                dockerClient.removeContainerCmd(container.getId()).withForce(true).exec();
+                logger.warn("Removed orphaned container {}", String.join(",", container.getNames()));
+                count("container");
+            } catch (Exception e) {
+                logger.debug("Cannot remove container {}", container.getId(), e);
+            }
+        }
+    }
+
+    private static Optional<Path> workingDirectory(ProcessHandle process) {
+        try {
+            return Optional.of(Files.readSymbolicLink(PROC.resolve(String.valueOf(process.pid())).resolve("cwd")));
+        } catch (IOException | SecurityException | UnsupportedOperationException e) {
+            // Gone already, or owned by another user
+            return Optional.empty();
+        }
+    }
+
+    private static boolean olderThan(Path path, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(path).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void delete(Path directory, String kind) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    logger.debug("Error deleting file: " + path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Error cleaning up directory: " + directory, e);
+        }
+        if (!Files.exists(directory)) {
+            logger.info("Removed orphaned {} {}", kind, directory);
+            count(kind);
+        }
+    }
+
+    private void count(String kind) {
+        meterRegistry.counter("judge.reaper.reaped", "kind", kind).increment();
+    }
+}
@@ -0,0 +1,89 @@
+package com.shodh.contest.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Compares program output with expected output straight from memory-mapped files. Leading and
+ * trailing bytes up to and including space are ignored, which matches String.trim() on the
+ * decoded text since UTF-8 never encodes other characters with bytes in that range. "\r\n", "\r"
+ * and "\n" are the same line break, as they were when output was read back with readLine().
+ */
+public final class OutputComparator {
+
+    private OutputComparator() {
+    }
+
+    public static boolean matches(Path actual, Path expected) throws IOException {
+        try (FileChannel actualChannel = FileChannel.open(actual, StandardOpenOption.READ);
+             FileChannel expectedChannel = FileChannel.open(expected, StandardOpenOption.READ)) {
+            ByteBuffer actualBytes = trim(map(actualChannel));
+            ByteBuffer expectedBytes = trim(map(expectedChannel));
+            // Identical bytes are the common case and compare in bulk
+            return actualBytes.equals(expectedBytes) || sameLines(actualBytes, expectedBytes);
+        }
+    }
+
+    /**
+     * Returns at most maxBytes of the trimmed file content, for error messages.
+     */
+    public static String preview(Path file, int maxBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer content = trim(map(channel));
+            boolean truncated = content.remaining() > maxBytes;
+            byte[] head = new byte[Math.min(content.remaining(), maxBytes)];
+            content.get(head);
+            String text = new String(head, StandardCharsets.UTF_8);
+            return truncated ? text + "..." : text;
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    private static boolean sameLines(ByteBuffer actual, ByteBuffer expected) {
+        int i = actual.position();
+        int j = expected.position();
+        while (i < actual.limit() && j < expected.limit()) {
+            byte a = actual.get(i);
+            byte e = expected.get(j);
+            if (isLineBreak(a) && isLineBreak(e)) {
+                i = skipLineBreak(actual, i);
+                j = skipLineBreak(expected, j);
+            } else if (a == e) {
+                i++;
+                j++;
+            } else {
+                return false;
+            }
+        }
+        return i == actual.limit() && j == expected.limit();
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == '\n' || b == '\r';
+    }
+
+    private static int skipLineBreak(ByteBuffer buffer, int index) {
+        boolean crlf = buffer.get(index) == '\r' && index + 1 < buffer.limit() && buffer.get(index + 1) == '\n';
+        return index + (crlf ? 2 : 1);
+    }
+
+    private static ByteBuffer trim(ByteBuffer buffer) {
+        int start = buffer.position();
+        int end = buffer.limit();
+        while (start < end && (buffer.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+        return buffer.slice(start, end - start);
+    }
+}
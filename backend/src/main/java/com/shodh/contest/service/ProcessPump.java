@@ -0,0 +1,92 @@
+package com.shodh.contest.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a started process to completion while feeding stdin and draining stdout and stderr on
+ * their own virtual threads, so a full pipe buffer on one side can never stall the other. Only the
+ * first maxCapturedBytes of each stream are kept; the rest is drained and dropped.
+ */
+public final class ProcessPump {
+
+    // How long to wait for the pumps after the process is gone; a leftover child holding the pipe
+    // open must not hold the judge slot as well
+    private static final long DRAIN_GRACE_MILLIS = 1000;
+
+    private ProcessPump() {
+    }
+
+    public static Outcome run(Process process, byte[] stdin, long timeoutMillis, int maxCapturedBytes)
+            throws InterruptedException {
+        CappedOutput stdout = new CappedOutput(maxCapturedBytes);
+        CappedOutput stderr = new CappedOutput(maxCapturedBytes);
+
+        Thread writer = Thread.ofVirtual().name("pump-stdin-" + process.pid()).start(() -> {
+            try (OutputStream in = process.getOutputStream()) {
+                if (stdin != null) {
+                    in.write(stdin);
+                }
+            } catch (IOException e) {
+                // The process exited without reading all of its input
+            }
+        });
+        Thread outReader = Thread.ofVirtual().name("pump-stdout-" + process.pid())
+                .start(() -> drain(process.getInputStream(), stdout));
+        Thread errReader = Thread.ofVirtual().name("pump-stderr-" + process.pid())
+                .start(() -> drain(process.getErrorStream(), stderr));
+
+        boolean finished = process.waitFor(timeoutMillis, TimeUnit.MILLISECONDS);
+        if (!finished) {
+            destroyTree(process.toHandle());
+        }
+
+        writer.join(DRAIN_GRACE_MILLIS);
+        outReader.join(DRAIN_GRACE_MILLIS);
+        errReader.join(DRAIN_GRACE_MILLIS);
+
+        Outcome outcome = new Outcome();
+        outcome.timedOut = !finished;
+        outcome.exitCode = finished ? process.exitValue() : -1;
+        outcome.stdout = stdout.toString();
+        outcome.stderr = stderr.toString();
+        return outcome;
+    }
+
+    /**
+     * Kills the process and everything below it. The tree is collected first, because children
+     * of a dead process are reparented and no longer show up as its descendants.
+     */
+    public static void destroyTree(ProcessHandle root) {
+        List<ProcessHandle> tree = root.descendants().toList();
+        root.destroyForcibly();
+        tree.forEach(ProcessHandle::destroyForcibly);
+    }
+
+    private static void drain(InputStream source, CappedOutput sink) {
+        byte[] buffer = new byte[8192];
+        try (InputStream in = source) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sink.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            // Stream closed underneath us when the process was killed
+        }
+    }
+
+    public static class Outcome {
+        private boolean timedOut;
+        private int exitCode;
+        private String stdout;
+        private String stderr;
+
+        public boolean isTimedOut() { return timedOut; }
+        public int getExitCode() { return exitCode; }
+        public String getStdout() { return stdout; }
+        public String getStderr() { return stderr; }
+    }
+}
@@ -0,0 +1,118 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns every process tree the judge spawns on this host. Killing the {@code bash -c} wrapper
+ * leaves the submission running under init, so the supervisor keeps sampling each tree's
+ * descendants while it runs and, once the run is over, kills whatever it has seen that is still
+ * alive: on timeout, and equally after a normal exit that left background children behind.
+ *
+ * <p>Process handles carry their start time, so a recycled PID is never mistaken for a
+ * remembered process.
+ */
+@Component
+public class ProcessSupervisor {
+
+    @Value("${judge.supervisor.sample-interval-ms:100}")
+    private long sampleIntervalMillis;
+
+    @Value("${judge.diagnostics.max-kb:64}")
+    private int maxDiagnosticsKb;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Root process to every descendant seen so far
+    private final Map<ProcessHandle, Set<ProcessHandle>> trees = new ConcurrentHashMap<>();
+    private Thread sampler;
+
+    @PostConstruct
+    void start() {
+        meterRegistry.gauge("judge.processes.supervised", trees, Map::size);
+        sampler = Thread.ofVirtual().name("process-supervisor").start(this::sample);
+    }
+
+    @PreDestroy
+    void stop() {
+        sampler.interrupt();
+        trees.keySet().forEach(root -> killTree(root, "shutdown"));
+    }
+
+    /**
+     * Starts the process, pumps it to completion like {@link ProcessPump#run}, and leaves none of
+     * its tree behind. Pumped stdout and stderr are capped at judge.diagnostics.max-kb each.
+     */
+    public ProcessPump.Outcome run(ProcessBuilder builder, byte[] stdin, long timeoutMillis)
+            throws IOException, InterruptedException {
+        Process process = builder.start();
+        ProcessHandle root = process.toHandle();
+        trees.put(root, ConcurrentHashMap.newKeySet());
+        try {
+            ProcessPump.Outcome outcome = ProcessPump.run(process, stdin, timeoutMillis, maxDiagnosticsKb * 1024);
+            // Whatever survived the pump's own kill, or outlived a clean exit in the background
+            killTree(root, outcome.isTimedOut() ? "timeout" : "orphan");
+            return outcome;
+        } catch (InterruptedException | RuntimeException e) {
+            killTree(root, "aborted");
+            throw e;
+        } finally {
+            trees.remove(root);
+        }
+    }
+
+    /**
+     * Whether the process belongs to a tree the supervisor is currently running, either by
+     * ancestry or because it was seen in one before being reparented.
+     */
+    public boolean isSupervised(ProcessHandle process) {
+        if (trees.values().stream().anyMatch(seen -> seen.contains(process))) {
+            return true;
+        }
+        for (ProcessHandle p = process; p != null; p = p.parent().orElse(null)) {
+            if (trees.containsKey(p)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void killTree(ProcessHandle root, String reason) {
+        Set<ProcessHandle> seen = trees.getOrDefault(root, Set.of());
+        // Collect the live tree before anything dies: orphans are reparented and drop out of it
+        root.descendants().forEach(seen::add);
+        int killed = 0;
+        if (root.isAlive() && root.destroyForcibly()) {
+            killed++;
+        }
+        for (ProcessHandle process : seen) {
+            if (process.isAlive() && process.destroyForcibly()) {
+                killed++;
+            }
+        }
+        if (killed > 0) {
+            meterRegistry.counter("judge.processes.killed", "reason", reason).increment(killed);
+        }
+    }
+
+    private void sample() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                trees.forEach((root, seen) -> root.descendants().forEach(seen::add));
+                Thread.sleep(sampleIntervalMillis);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
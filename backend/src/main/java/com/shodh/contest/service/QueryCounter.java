@@ -0,0 +1,34 @@
+package com.shodh.contest.service;
+
+/**
+ * Counts JDBC statements executed on the current thread between {@link #begin()} and
+ * {@link #end()}. HTTP requests and judge jobs each run on their own thread, so a thread-local
+ * scope attributes every statement, including lazy loads, to the unit of work that caused it.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<long[]> SCOPE = new ThreadLocal<>();
+
+    private QueryCounter() {
+    }
+
+    public static void begin() {
+        SCOPE.set(new long[1]);
+    }
+
+    /**
+     * Closes the current scope and returns the number of statements it executed.
+     */
+    public static long end() {
+        long[] count = SCOPE.get();
+        SCOPE.remove();
+        return count != null ? count[0] : 0;
+    }
+
+    public static void increment() {
+        long[] count = SCOPE.get();
+        if (count != null) {
+            count[0]++;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Publishes statement counts per HTTP endpoint and per judge job, and flags units of work that
+ * exceed their configured query budget so N+1 regressions show up as a counter instead of log
+ * noise.
+ */
+@Component
+public class QueryMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(QueryMetrics.class);
+
+    // "METHOD pattern:max" entries, e.g. "GET /api/contests/{contestId}/leaderboard:4"
+    @Value("${db.query-budget.endpoints:}")
+    private String endpointBudgetsConfig;
+
+    @Value("${db.query-budget.judge-job:0}")
+    private long judgeJobBudget;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Map<String, Long> endpointBudgets;
+
+    @PostConstruct
+    void init() {
+        endpointBudgets = parseBudgets(endpointBudgetsConfig);
+    }
+
+    public void recordRequest(String method, String pattern, long statements) {
+        DistributionSummary.builder("db.queries.request")
+                .baseUnit("statements")
+                .tag("method", method)
+                .tag("uri", pattern)
+                .register(meterRegistry)
+                .record(statements);
+
+        Long budget = endpointBudgets.get(method + " " + pattern);
+        if (budget != null && statements > budget) {
+            overBudget("request", method + " " + pattern, statements, budget);
+        }
+    }
+
+    public void recordJudgeJob(String kind, long statements) {
+        DistributionSummary.builder("db.queries.judge")
+                .baseUnit("statements")
+                .tag("kind", kind)
+                .register(meterRegistry)
+                .record(statements);
+
+        if (judgeJobBudget > 0 && statements > judgeJobBudget) {
+            overBudget("judge", kind, statements, judgeJobBudget);
+        }
+    }
+
+    private void overBudget(String scope, String name, long statements, long budget) {
+        meterRegistry.counter("db.queries.budget.exceeded", "scope", scope, "name", name).increment();
+        logger.warn("{} ran {} SQL statements, budget is {}", name, statements, budget);
+    }
+
+    static Map<String, Long> parseBudgets(String config) {
+        Map<String, Long> budgets = new HashMap<>();
+        if (config == null || config.isBlank()) {
+            return budgets;
+        }
+        for (String entry : config.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid query budget entry: " + entry);
+            }
+            budgets.put(entry.substring(0, separator).trim(), Long.parseLong(entry.substring(separator + 1).trim()));
+        }
+        return budgets;
+    }
+}
@@ -0,0 +1,43 @@
+package com.shodh.contest.service;
+
+/**
+ * Marks the work on the current thread that may read from the replica. Only API reads opt in, so
+ * the judge and everything else that reads its own writes keeps using the primary even inside
+ * read-only transactions.
+ */
+public final class ReadRouting {
+
+    // [0]: replica allowed, [1]: a replica connection was handed out
+    private static final ThreadLocal<boolean[]> SCOPE = new ThreadLocal<>();
+
+    private ReadRouting() {
+    }
+
+    public static void allowReplica() {
+        SCOPE.set(new boolean[] {true, false});
+    }
+
+    public static void end() {
+        SCOPE.remove();
+    }
+
+    public static boolean isReplicaAllowed() {
+        boolean[] scope = SCOPE.get();
+        return scope != null && scope[0];
+    }
+
+    public static void replicaUsed() {
+        boolean[] scope = SCOPE.get();
+        if (scope != null) {
+            scope[1] = true;
+        }
+    }
+
+    /**
+     * Whether this thread has read from the replica, so a missing row may just not be replicated yet.
+     */
+    public static boolean usedReplica() {
+        boolean[] scope = SCOPE.get();
+        return scope != null && scope[1];
+    }
+}
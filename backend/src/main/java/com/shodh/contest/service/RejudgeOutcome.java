@@ -0,0 +1,7 @@
+package com.shodh.contest.service;
+
+public enum RejudgeOutcome {
+    CHANGED,
+    UNCHANGED,
+    REUSED
+}
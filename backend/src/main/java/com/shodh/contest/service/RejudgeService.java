@@ -0,0 +1,311 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.RejudgeProgress;
+import com.shodh.contest.dto.RejudgeRequest;
+import com.shodh.contest.model.*;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import com.shodh.contest.repository.RejudgeTaskRepository;
+import com.shodh.contest.repository.SubmissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Re-runs already judged submissions after a problem's test data changes. Submissions are fed to
+ * the judge's background lane a few at a time, so a rejudge never holds more than its share of
+ * the workers and never runs ahead of live submissions. Progress is persisted after every
+ * submission and running tasks pick up from their cursor after a restart.
+ */
+@Service
+public class RejudgeService {
+    private static final Logger logger = LoggerFactory.getLogger(RejudgeService.class);
+
+    private static final List<SubmissionStatus> JUDGED_STATUSES = List.of(
+            SubmissionStatus.ACCEPTED,
+            SubmissionStatus.WRONG_ANSWER,
+            SubmissionStatus.TIME_LIMIT_EXCEEDED,
+            SubmissionStatus.MEMORY_LIMIT_EXCEEDED,
+            SubmissionStatus.RUNTIME_ERROR,
+            SubmissionStatus.COMPILATION_ERROR
+    );
+
+    @Autowired
+    private RejudgeTaskRepository rejudgeTaskRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private JudgeQueue judgeQueue;
+
+    @Autowired
+    private JudgeSlots judgeSlots;
+
+    @Value("${judge.rejudge.default-share:0.25}")
+    private double defaultShare;
+
+    @Value("${judge.rejudge.page-size:200}")
+    private int pageSize;
+
+    private final Map<String, ActiveRejudge> active = new ConcurrentHashMap<>();
+
+    public RejudgeProgress startRejudge(RejudgeRequest request) {
+        Contest contest = contestRepository.findByContestId(request.getContestId())
+                .orElseThrow(() -> new RuntimeException("Contest not found: " + request.getContestId()));
+
+        double share = request.getCapacityShare() != null ? request.getCapacityShare() : defaultShare;
+        if (share <= 0 || share > 1) {
+            throw new RuntimeException("Capacity share must be in (0, 1]: " + share);
+        }
+
+        List<SubmissionStatus> statuses = request.getStatuses() == null || request.getStatuses().isEmpty()
+                ? JUDGED_STATUSES
+                : request.getStatuses();
+
+        RejudgeTask task = new RejudgeTask();
+        task.setTaskId(UUID.randomUUID().toString());
+        task.setContestId(contest.getContestId());
+        task.setProblemId(request.getProblemId());
+        task.setUsername(request.getUsername());
+        task.setStatuses(statuses.stream().map(Enum::name).collect(Collectors.joining(",")));
+        task.setCapacityShare(share);
+        task.setStatus(RejudgeStatus.RUNNING);
+        task.setCreatedAt(LocalDateTime.now());
+
+        ActiveRejudge rejudge = activate(task, contest);
+        task.setTotalSubmissions(submissionRepository.countForRejudge(
+                rejudge.contestDbId, rejudge.problemDbId, task.getUsername(), rejudge.statuses, 0L));
+        rejudge.task = rejudgeTaskRepository.save(task);
+
+        logger.info("Started rejudge {} of {} submissions in contest {}",
+                task.getTaskId(), task.getTotalSubmissions(), task.getContestId());
+
+        active.put(task.getTaskId(), rejudge);
+        topUp(rejudge);
+        return toProgress(rejudge.task, rejudge);
+    }
+
+    public RejudgeProgress getProgress(String taskId) {
+        ActiveRejudge rejudge = active.get(taskId);
+        if (rejudge != null) {
+            synchronized (rejudge) {
+                return toProgress(rejudge.task, rejudge);
+            }
+        }
+        RejudgeTask task = rejudgeTaskRepository.findByTaskId(taskId)
+                .orElseThrow(() -> new RuntimeException("Rejudge not found: " + taskId));
+        return toProgress(task, null);
+    }
+
+    public List<RejudgeProgress> listRejudges() {
+        return rejudgeTaskRepository.findAllByOrderByCreatedAtDesc().stream()
+                .map(task -> getProgress(task.getTaskId()))
+                .collect(Collectors.toList());
+    }
+
+    public RejudgeProgress cancelRejudge(String taskId) {
+        ActiveRejudge rejudge = active.remove(taskId);
+        if (rejudge == null) {
+            throw new RuntimeException("Rejudge is not running: " + taskId);
+        }
+        synchronized (rejudge) {
+            rejudge.pending.clear();
+            rejudge.task.setStatus(RejudgeStatus.CANCELLED);
+            rejudge.task.setFinishedAt(LocalDateTime.now());
+            rejudge.task = rejudgeTaskRepository.save(rejudge.task);
+            return toProgress(rejudge.task, null);
+        }
+    }
+
+    /**
+     * Called by a judge worker for a job taken from the background lane.
+     */
+    public void run(JudgeJob job) {
+        ActiveRejudge rejudge = active.get(job.getRejudgeTaskId());
+        if (rejudge == null) {
+            return;
+        }
+
+        RejudgeOutcome outcome;
+        try {
+            outcome = submissionService.rejudgeSubmission(job.getSubmissionId());
+        } catch (Exception e) {
+            logger.error("Error rejudging submission: " + job.getSubmissionId(), e);
+            outcome = RejudgeOutcome.UNCHANGED;
+        }
+
+        synchronized (rejudge) {
+            if (!rejudge.inFlight.remove(job.getSubmissionId())) {
+                return;
+            }
+            RejudgeTask task = rejudge.task;
+            task.setCompletedSubmissions(task.getCompletedSubmissions() + 1);
+            if (outcome == RejudgeOutcome.CHANGED) {
+                task.setChangedVerdicts(task.getChangedVerdicts() + 1);
+            } else if (outcome == RejudgeOutcome.REUSED) {
+                task.setReusedResults(task.getReusedResults() + 1);
+            }
+            rejudge.finished.add(job.getSubmissionId());
+            task.setCursor(rejudge.cursor());
+            rejudge.finished.headSet(task.getCursor(), true).clear();
+            task.setFinishedAboveCursor(rejudge.finished.isEmpty() ? null : rejudge.finished.stream()
+                    .map(String::valueOf).collect(Collectors.joining(",")));
+            rejudge.completedSinceStart++;
+            rejudge.task = rejudgeTaskRepository.save(task);
+        }
+        topUp(rejudge);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeRunningRejudges() {
+        for (RejudgeTask task : rejudgeTaskRepository.findByStatus(RejudgeStatus.RUNNING)) {
+            try {
+                Contest contest = contestRepository.findByContestId(task.getContestId())
+                        .orElseThrow(() -> new RuntimeException("Contest not found: " + task.getContestId()));
+                ActiveRejudge rejudge = activate(task, contest);
+                active.put(task.getTaskId(), rejudge);
+                logger.info("Resuming rejudge {} after submission id {}", task.getTaskId(), task.getCursor());
+            } catch (RuntimeException e) {
+                logger.error("Cannot resume rejudge " + task.getTaskId(), e);
+            }
+        }
+    }
+
+    /**
+     * Safety net for tasks whose in-flight jobs have all finished between completions, and for
+     * tasks resumed at startup.
+     */
+    @Scheduled(fixedDelayString = "${judge.rejudge.pump-interval-ms:1000}")
+    public void pump() {
+        active.values().forEach(this::topUp);
+    }
+
+    private void topUp(ActiveRejudge rejudge) {
+        synchronized (rejudge) {
+            if (active.get(rejudge.task.getTaskId()) != rejudge) {
+                return;
+            }
+            while (rejudge.inFlight.size() < rejudge.capacity) {
+                if (rejudge.pending.isEmpty() && !rejudge.exhausted) {
+                    List<Long> page = submissionRepository.findIdsForRejudge(rejudge.contestDbId, rejudge.problemDbId,
+                            rejudge.task.getUsername(), rejudge.statuses, rejudge.lastFetchedId, PageRequest.of(0, pageSize));
+                    // Finished before a restart, and already counted
+                    page.stream().filter(id -> !rejudge.finished.contains(id)).forEach(rejudge.pending::addLast);
+                    if (!page.isEmpty()) {
+                        rejudge.lastFetchedId = page.get(page.size() - 1);
+                    }
+                    rejudge.exhausted = page.size() < pageSize;
+                }
+                Long submissionId = rejudge.pending.pollFirst();
+                if (submissionId == null) {
+                    break;
+                }
+                rejudge.inFlight.add(submissionId);
+                judgeQueue.submitBackground(JudgeJob.rejudge(submissionId, rejudge.task.getContestId(), rejudge.task.getTaskId()));
+            }
+
+            if (rejudge.exhausted && rejudge.pending.isEmpty() && rejudge.inFlight.isEmpty()) {
+                rejudge.task.setStatus(RejudgeStatus.COMPLETED);
+                rejudge.task.setFinishedAt(LocalDateTime.now());
+                rejudge.task = rejudgeTaskRepository.save(rejudge.task);
+                active.remove(rejudge.task.getTaskId());
+                logger.info("Rejudge {} completed: {} verdicts changed", rejudge.task.getTaskId(), rejudge.task.getChangedVerdicts());
+            }
+        }
+    }
+
+    private ActiveRejudge activate(RejudgeTask task, Contest contest) {
+        ActiveRejudge rejudge = new ActiveRejudge();
+        rejudge.task = task;
+        rejudge.contestDbId = contest.getId();
+        if (task.getProblemId() != null) {
+            Problem problem = problemRepository.findByContestIdAndProblemId(contest.getId(), task.getProblemId())
+                    .orElseThrow(() -> new RuntimeException("Problem not found: " + task.getProblemId()));
+            rejudge.problemDbId = problem.getId();
+        }
+        rejudge.statuses = Arrays.stream(task.getStatuses().split(","))
+                .map(SubmissionStatus::valueOf)
+                .collect(Collectors.toList());
+        rejudge.capacity = Math.max(1, (int) Math.floor(task.getCapacityShare() * judgeSlots.getSlotCount()));
+        rejudge.lastFetchedId = task.getCursor();
+        if (task.getFinishedAboveCursor() != null && !task.getFinishedAboveCursor().isBlank()) {
+            Arrays.stream(task.getFinishedAboveCursor().split(",")).map(Long::valueOf).forEach(rejudge.finished::add);
+        }
+        rejudge.startedNanos = System.nanoTime();
+        return rejudge;
+    }
+
+    private RejudgeProgress toProgress(RejudgeTask task, ActiveRejudge rejudge) {
+        RejudgeProgress progress = new RejudgeProgress();
+        progress.setTaskId(task.getTaskId());
+        progress.setContestId(task.getContestId());
+        progress.setProblemId(task.getProblemId());
+        progress.setStatus(task.getStatus());
+        progress.setCapacityShare(task.getCapacityShare());
+        progress.setTotalSubmissions(task.getTotalSubmissions());
+        progress.setCompletedSubmissions(task.getCompletedSubmissions());
+        progress.setChangedVerdicts(task.getChangedVerdicts());
+        progress.setReusedResults(task.getReusedResults());
+        progress.setCreatedAt(task.getCreatedAt());
+        progress.setFinishedAt(task.getFinishedAt());
+
+        if (rejudge != null && rejudge.completedSinceStart > 0) {
+            double elapsedSeconds = (System.nanoTime() - rejudge.startedNanos) / 1e9;
+            double perSecond = rejudge.completedSinceStart / elapsedSeconds;
+            long remaining = Math.max(0, task.getTotalSubmissions() - task.getCompletedSubmissions());
+            progress.setEtaSeconds((long) Math.ceil(remaining / perSecond));
+        }
+        return progress;
+    }
+
+    private static class ActiveRejudge {
+        RejudgeTask task;
+        Long contestDbId;
+        Long problemDbId;
+        List<SubmissionStatus> statuses;
+        int capacity;
+        long lastFetchedId;
+        boolean exhausted;
+        final Deque<Long> pending = new ArrayDeque<>();
+        final TreeSet<Long> inFlight = new TreeSet<>();
+        // Done, but above the cursor because a lower id is still unfinished
+        final TreeSet<Long> finished = new TreeSet<>();
+        long startedNanos;
+        long completedSinceStart;
+
+        /**
+         * Ids are fetched and dispatched in ascending order, so everything below the oldest
+         * unfinished id is done.
+         */
+        long cursor() {
+            if (!inFlight.isEmpty()) {
+                return inFlight.first() - 1;
+            }
+            if (!pending.isEmpty()) {
+                return pending.peekFirst() - 1;
+            }
+            return lastFetchedId;
+        }
+    }
+}
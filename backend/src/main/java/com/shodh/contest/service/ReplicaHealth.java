@@ -0,0 +1,109 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.ReplicaStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Decides whether the read replica may serve reads. Staleness is measured from a heartbeat the
+ * primary writes every datasource.replica.heartbeat-interval-ms: the replica holds every commit
+ * made before the newest heartbeat it has, so the age of that heartbeat bounds how stale it can
+ * be. Past datasource.replica.max-staleness-ms, or while the replica cannot be reached, reads go
+ * to the primary until a fresh heartbeat shows up again.
+ */
+@Service
+public class ReplicaHealth {
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaHealth.class);
+
+    @Value("${datasource.replica.url:}")
+    private String replicaUrl;
+
+    @Value("${datasource.replica.max-staleness-ms:2000}")
+    private long maxStalenessMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Counter replicaReads;
+    private Counter primaryReads;
+
+    // Newest heartbeat read back from the replica, 0 while unknown or unreachable
+    private volatile long replicatedBeatAt;
+    private volatile String failure;
+
+    @PostConstruct
+    void registerMetrics() {
+        replicaReads = meterRegistry.counter("datasource.reads", "target", "replica");
+        primaryReads = meterRegistry.counter("datasource.reads", "target", "primary");
+        meterRegistry.gauge("datasource.replica.staleness", this, health -> {
+            long staleness = health.stalenessMs();
+            return staleness < 0 ? Double.NaN : staleness;
+        });
+    }
+
+    public boolean isEnabled() {
+        return !replicaUrl.isBlank();
+    }
+
+    public long getMaxStalenessMs() {
+        return maxStalenessMs;
+    }
+
+    /**
+     * Whether a read that may be stale can go to the replica right now.
+     */
+    public boolean isServing() {
+        long staleness = stalenessMs();
+        return failure == null && staleness >= 0 && staleness <= maxStalenessMs;
+    }
+
+    public void heartbeatReplicated(long beatAt) {
+        if (replicatedBeatAt == 0 && failure == null) {
+            logger.info("Read replica is reachable, heartbeat {} ms old", System.currentTimeMillis() - beatAt);
+        }
+        replicatedBeatAt = beatAt;
+    }
+
+    public void replicaUnreachable(Exception e) {
+        if (replicatedBeatAt != 0) {
+            logger.warn("Read replica unreachable, reading from the primary: {}", e.getMessage());
+        }
+        replicatedBeatAt = 0;
+    }
+
+    /**
+     * Takes the replica out of service for good, for when it can no longer be trusted to match
+     * the primary.
+     */
+    public void replicaFailed(String reason) {
+        logger.error("Read replica taken out of service: {}", reason);
+        failure = reason;
+    }
+
+    public void recordRead(boolean fromReplica) {
+        (fromReplica ? replicaReads : primaryReads).increment();
+    }
+
+    public ReplicaStatus getStatus() {
+        long staleness = stalenessMs();
+        return new ReplicaStatus(
+                isEnabled(),
+                isEnabled() && isServing(),
+                staleness >= 0 ? staleness : null,
+                maxStalenessMs,
+                (long) replicaReads.count(),
+                (long) primaryReads.count(),
+                failure);
+    }
+
+    private long stalenessMs() {
+        long beatAt = replicatedBeatAt;
+        return beatAt == 0 ? -1 : Math.max(0, System.currentTimeMillis() - beatAt);
+    }
+}
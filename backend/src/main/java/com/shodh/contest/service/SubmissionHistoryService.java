@@ -0,0 +1,120 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.SubmissionPage;
+import com.shodh.contest.dto.SubmissionSummary;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import com.shodh.contest.repository.SubmissionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Submission history pages, newest first. Pages are addressed by an opaque cursor holding the
+ * (submittedAt, id) of the last row served rather than by offset, so a page deep into a large
+ * contest costs the same index seek as the first one.
+ */
+@Service
+public class SubmissionHistoryService {
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 200;
+
+    // Sorts after every real submission, so the first page uses the same query as the rest
+    private static final LocalDateTime NEWEST = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Transactional(readOnly = true)
+    public SubmissionPage getContestHistory(String contestId, String cursor, Integer limit) {
+        Contest contest = findContest(contestId);
+        return page(cursor, limit, (time, id, pageable) ->
+                submissionRepository.findContestHistory(contest.getId(), time, id, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public SubmissionPage getProblemHistory(String contestId, String problemId, String cursor, Integer limit) {
+        Contest contest = findContest(contestId);
+        Problem problem = problemRepository.findByContestIdAndProblemId(contest.getId(), problemId)
+                .orElseThrow(() -> new RuntimeException("Problem not found"));
+        return page(cursor, limit, (time, id, pageable) ->
+                submissionRepository.findProblemHistory(problem.getId(), time, id, pageable));
+    }
+
+    @Transactional(readOnly = true)
+    public SubmissionPage getUserHistory(String username, String cursor, Integer limit) {
+        return page(cursor, limit, (time, id, pageable) ->
+                submissionRepository.findUserHistory(username, time, id, pageable));
+    }
+
+    private Contest findContest(String contestId) {
+        return contestRepository.findByContestId(contestId)
+                .orElseThrow(() -> new RuntimeException("Contest not found"));
+    }
+
+    private SubmissionPage page(String cursor, Integer limit, HistoryQuery query) {
+        int size = limit != null ? limit : DEFAULT_LIMIT;
+        if (size < 1 || size > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        LocalDateTime beforeTime = NEWEST;
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decode(cursor);
+            beforeTime = LocalDateTime.parse(parts[0]);
+            beforeId = Long.parseLong(parts[1]);
+        }
+
+        // One extra row tells whether another page follows without counting the rest
+        List<SubmissionSummary> rows = query.fetch(beforeTime, beforeId, PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            SubmissionSummary last = rows.get(size - 1);
+            nextCursor = encode(last.getSubmittedAt(), last.getId());
+        }
+        return new SubmissionPage(rows, nextCursor);
+    }
+
+    private static String encode(LocalDateTime submittedAt, Long id) {
+        String raw = submittedAt + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(",");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(parts[0]);
+            Long.parseLong(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    @FunctionalInterface
+    private interface HistoryQuery {
+        List<SubmissionSummary> fetch(LocalDateTime beforeTime, Long beforeId, Pageable pageable);
+    }
+}
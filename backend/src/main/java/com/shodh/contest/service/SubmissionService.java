@@ -7,14 +7,20 @@ import com.shodh.contest.repository.ContestRepository;
 import com.shodh.contest.repository.ProblemRepository;
 import com.shodh.contest.repository.SubmissionRepository;
 import com.shodh.contest.service.CodeExecutionService;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -40,20 +46,64 @@ public class SubmissionService {
     
     @Autowired
     private LocalExecutionService localExecutionService;
-    
+
+    @Autowired
+    private JudgeQueue judgeQueue;
+
+    @Autowired
+    private NodeCalibration nodeCalibration;
+
+    @Autowired
+    private WorkloadCapture workloadCapture;
+
+    @Autowired
+    private CodeSimilarityIndex codeSimilarityIndex;
+
+    @Autowired
+    private ContestMembershipService contestMembershipService;
+
+    @Autowired
+    private SubmissionTracer submissionTracer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Value("${execution.service.type:docker}")
     private String executionServiceType;
 
-    @Transactional
+    private TransactionTemplate primaryRead;
+    private TransactionTemplate submitTransaction;
+
+    @PostConstruct
+    void init() {
+        // A new read-write transaction, so it gets its own connection from the primary
+        primaryRead = new TransactionTemplate(transactionManager);
+        primaryRead.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        submitTransaction = new TransactionTemplate(transactionManager);
+    }
+
     public SubmissionResponse submitCode(SubmissionRequest request) {
+        long startNanos = System.nanoTime();
+
         // Validate contest exists
         Contest contest = contestRepository.findByContestId(request.getContestId())
                 .orElseThrow(() -> new RuntimeException("Contest not found: " + request.getContestId()));
 
-        // Validate problem exists
-        Problem problem = problemRepository.findByProblemId(request.getProblemId())
+        // Validate problem exists in this contest
+        Problem problem = problemRepository.findByContestIdAndProblemId(contest.getId(), request.getProblemId())
                 .orElseThrow(() -> new RuntimeException("Problem not found: " + request.getProblemId()));
 
+        // Before the transaction: an auto-join commits on its own, and holding the submit
+        // transaction's connection while it waits for a second one can exhaust the pool
+        contestMembershipService.checkEligible(request.getUsername(), contest);
+
+        return submitTransaction.execute(status -> createSubmission(request, contest, problem, startNanos));
+    }
+
+    private SubmissionResponse createSubmission(SubmissionRequest request, Contest contest, Problem problem,
+                                                long startNanos) {
+        boolean firstAttempt = !submissionRepository.existsByUsernameAndProblemId(request.getUsername(), problem.getId());
+
         // Create submission
         Submission submission = new Submission();
         submission.setSubmissionId(UUID.randomUUID().toString());
@@ -68,16 +118,34 @@ public class SubmissionService {
         submission = submissionRepository.save(submission);
 
         logger.info("Created submission: {}", submission.getSubmissionId());
+        workloadCapture.recordSubmission(request, submission);
+        SubmissionTracer.Span submitSpan = submissionTracer.begin(submission, startNanos);
+
+        // Hand the submission to the judge once the row is visible to the workers
+        JudgeJob job = new JudgeJob(submission.getId(), contest.getContestId(), submission.getUsername(), firstAttempt);
+        TransactionSynchronization handoff = new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submitSpan.close();
+                submissionTracer.detach();
+                judgeQueue.submit(job);
+            }
 
-        // Process submission asynchronously
-        processSubmissionAsync(submission.getId());
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    submissionTracer.discard(job.getSubmissionId());
+                }
+            }
+        };
+        TransactionSynchronizationManager.registerSynchronization(handoff);
 
         return convertToResponse(submission);
     }
 
-    @Async
-    public void processSubmissionAsync(Long submissionId) {
+    public void processSubmission(Long submissionId) {
         try {
+            SubmissionTracer.Span claim = submissionTracer.startSpan("claim");
             Submission submission = submissionRepository.findById(submissionId)
                     .orElseThrow(() -> new RuntimeException("Submission not found: " + submissionId));
 
@@ -85,37 +153,33 @@ public class SubmissionService {
 
             submission.setStatus(SubmissionStatus.RUNNING);
             submissionRepository.save(submission);
+            claim.close();
 
-            // Execute the code
-            Problem problem = submission.getProblem();
-            CodeExecutionService.ExecutionResult result;
-            
-            if ("local".equals(executionServiceType)) {
-                result = localExecutionService.executeCode(
-                        submission.getCode(),
-                        problem,
-                        submission.getLanguage()
-                );
-            } else {
-                result = dockerExecutionService.executeCode(
-                        submission.getCode(),
-                        problem,
-                        submission.getLanguage()
-                );
-            }
+            CodeExecutionService.ExecutionResult result = execute(submission);
 
             // Update submission with results
             submission.setStatus(result.getStatus());
             submission.setErrorMessage(result.getErrorMessage());
             submission.setTestCasesPassed(result.getTestCasesPassed());
             submission.setTotalTestCases(result.getTotalTestCases());
+            submission.setScore(result.getScore());
+            submission.setCalibrationFactor(nodeCalibration.getFactor());
+            submission.setReruns(result.getReruns());
             submission.setProcessedAt(LocalDateTime.now());
 
-            submissionRepository.save(submission);
+            try (SubmissionTracer.Span persist = submissionTracer.startSpan("persist")) {
+                submissionRepository.save(submission);
+            }
+            try (SubmissionTracer.Span notify = submissionTracer.startSpan("notify")) {
+                workloadCapture.recordVerdict(submission);
+                codeSimilarityIndex.record(submission);
+                judgeQueue.recordVerdict(Duration.between(submission.getSubmittedAt(), submission.getProcessedAt()).toMillis());
+            }
+            submissionTracer.finish(result.getStatus().name(), false);
 
             logger.info("Submission {} processed with status: {}", submission.getSubmissionId(), result.getStatus());
 
-        } catch (Exception e) {
+        } catch (Exception | LinkageError e) {
             logger.error("Error processing submission: " + submissionId, e);
 
             // Update submission with error status
@@ -130,14 +194,84 @@ public class SubmissionService {
             } catch (Exception ex) {
                 logger.error("Error updating submission status", ex);
             }
+            submissionTracer.finish(SubmissionStatus.RUNTIME_ERROR.name(), true);
         }
     }
 
-    public SubmissionResponse getSubmission(String submissionId) {
-        Submission submission = submissionRepository.findBySubmissionId(submissionId)
+    /**
+     * Re-runs a judged submission against the problem's current test data and updates its verdict
+     * in place. The submission is not moved back to RUNNING, so the leaderboard keeps showing the
+     * old verdict until the new one is stored.
+     */
+    public RejudgeOutcome rejudgeSubmission(Long submissionId) {
+        Submission submission = submissionRepository.findById(submissionId)
                 .orElseThrow(() -> new RuntimeException("Submission not found: " + submissionId));
 
-        return convertToResponse(submission);
+        // Code and toolchain are unchanged, so a compilation failure cannot turn into anything else
+        if (submission.getStatus() == SubmissionStatus.COMPILATION_ERROR) {
+            return RejudgeOutcome.REUSED;
+        }
+
+        SubmissionStatus previousStatus = submission.getStatus();
+        Integer previousPassed = submission.getTestCasesPassed();
+        Integer previousScore = submission.getScore();
+        CodeExecutionService.ExecutionResult result = execute(submission);
+
+        submission.setStatus(result.getStatus());
+        submission.setErrorMessage(result.getErrorMessage());
+        submission.setTestCasesPassed(result.getTestCasesPassed());
+        submission.setTotalTestCases(result.getTotalTestCases());
+        submission.setScore(result.getScore());
+        submission.setCalibrationFactor(nodeCalibration.getFactor());
+        submission.setReruns(result.getReruns());
+        submission.setProcessedAt(LocalDateTime.now());
+        submissionRepository.save(submission);
+
+        if (previousStatus != result.getStatus()) {
+            codeSimilarityIndex.record(submission);
+        }
+
+        boolean changed = previousStatus != result.getStatus()
+                || !Integer.valueOf(result.getTestCasesPassed()).equals(previousPassed)
+                || !Integer.valueOf(result.getScore()).equals(previousScore);
+        if (changed) {
+            logger.info("Rejudged submission {}: {} -> {}", submission.getSubmissionId(), previousStatus, result.getStatus());
+        }
+        return changed ? RejudgeOutcome.CHANGED : RejudgeOutcome.UNCHANGED;
+    }
+
+    private CodeExecutionService.ExecutionResult execute(Submission submission) {
+        // The problem is loaded on its own since workers run outside a session
+        Problem problem = problemRepository.findById(submission.getProblem().getId())
+                .orElseThrow(() -> new RuntimeException("Problem not found for submission: " + submission.getId()));
+
+        try (SubmissionTracer.Span span = submissionTracer.startSpan("execute")
+                .attribute("executor", executionServiceType)) {
+            if ("local".equals(executionServiceType)) {
+                return localExecutionService.executeCode(
+                        submission.getCode(),
+                        problem,
+                        submission.getLanguage()
+                );
+            }
+            return dockerExecutionService.executeCode(
+                    submission.getCode(),
+                    problem,
+                    submission.getLanguage()
+            );
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public SubmissionResponse getSubmission(String submissionId) {
+        Optional<SubmissionResponse> response = submissionRepository.findBySubmissionId(submissionId)
+                .map(this::convertToResponse);
+        if (response.isEmpty() && ReadRouting.usedReplica()) {
+            // A client polling right after submitting can be ahead of the replica
+            response = primaryRead.execute(status -> submissionRepository.findBySubmissionId(submissionId)
+                    .map(this::convertToResponse));
+        }
+        return response.orElseThrow(() -> new RuntimeException("Submission not found: " + submissionId));
     }
 
     @Transactional(readOnly = true)
@@ -166,16 +300,27 @@ public class SubmissionService {
                             .filter(s -> s.getStatus() == SubmissionStatus.ACCEPTED)
                             .count();
 
+                    // Best score per problem, so a later worse attempt never costs points
+                    long totalPoints = userSubmissions.stream()
+                            .filter(s -> s.getScore() != null)
+                            .collect(Collectors.toMap(s -> s.getProblem().getProblemId(), Submission::getScore, Math::max))
+                            .values().stream()
+                            .mapToLong(Integer::longValue)
+                            .sum();
+
                     return new com.shodh.contest.dto.LeaderboardEntry(
                             entry.getKey(),
                             totalSubmissions,
                             acceptedSubmissions,
-                            uniqueProblemsSolved
+                            uniqueProblemsSolved,
+                            totalPoints
                     );
                 })
                 .sorted((a, b) -> {
-                    // Sort by problems solved (descending), then by accepted submissions (descending)
-                    int compare = Long.compare(b.getTotalProblemsSolved(), a.getTotalProblemsSolved());
+                    // Sort by points, then problems solved, then accepted submissions (all descending)
+                    int compare = Long.compare(b.getTotalPoints(), a.getTotalPoints());
+                    if (compare != 0) return compare;
+                    compare = Long.compare(b.getTotalProblemsSolved(), a.getTotalProblemsSolved());
                     if (compare != 0) return compare;
                     return Long.compare(b.getAcceptedSubmissions(), a.getAcceptedSubmissions());
                 })
@@ -192,6 +337,9 @@ public class SubmissionService {
         response.setErrorMessage(submission.getErrorMessage());
         response.setTestCasesPassed(submission.getTestCasesPassed());
         response.setTotalTestCases(submission.getTotalTestCases());
+        response.setScore(submission.getScore());
+        response.setCalibrationFactor(submission.getCalibrationFactor());
+        response.setReruns(submission.getReruns());
         response.setSubmittedAt(submission.getSubmittedAt());
         response.setProcessedAt(submission.getProcessedAt());
         return response;
@@ -0,0 +1,491 @@
+package com.shodh.contest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.contest.dto.SubmissionTrace;
+import com.shodh.contest.dto.TraceSpan;
+import com.shodh.contest.model.Submission;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-submission traces through the judge pipeline: submit, queue, claim, compile, every test run
+ * and output comparison, persist and notify. A trace follows its submission from the request
+ * thread to the judge worker that claims it. Code in between opens spans on whatever trace the
+ * current thread is working for, and gets no-op spans when there is none (rejudges, warm-up).
+ *
+ * <p>Finished traces are kept in memory for the admin API and exported as OTLP/JSON, one
+ * {@code ExportTraceServiceRequest} per line of a local file and optionally posted to an OTLP/HTTP
+ * collector. Export runs on its own thread and drops traces rather than holding up the judge.
+ */
+@Component
+public class SubmissionTracer {
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionTracer.class);
+
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+    private static final int EXPORT_BATCH = 100;
+    private static final Span NOOP = new Span(null, null, null, null, 0);
+
+    @Value("${tracing.enabled:true}")
+    private boolean enabled;
+
+    // Submissions whose trace is still open; beyond this new submissions go untraced
+    @Value("${tracing.max-active:10000}")
+    private int maxActive;
+
+    @Value("${tracing.retained:10000}")
+    private int retained;
+
+    @Value("${tracing.export.file:}")
+    private String exportFile;
+
+    @Value("${tracing.export.max-file-mb:100}")
+    private long maxFileMegabytes;
+
+    @Value("${tracing.export.otlp-endpoint:}")
+    private String otlpEndpoint;
+
+    @Value("${tracing.export.queue-size:10000}")
+    private int queueSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<Long, Trace> active = new ConcurrentHashMap<>();
+    private final Deque<Trace> finished = new ArrayDeque<>();
+    private final ThreadLocal<Trace> current = new ThreadLocal<>();
+
+    private BlockingQueue<Trace> exportQueue;
+    private HttpClient httpClient;
+    private Thread exporter;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    void start() {
+        if (!enabled || (exportFile.isBlank() && otlpEndpoint.isBlank())) {
+            return;
+        }
+        exportQueue = new LinkedBlockingQueue<>(queueSize);
+        if (!otlpEndpoint.isBlank()) {
+            httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        }
+        exporter = Thread.ofVirtual().name("trace-exporter").start(this::export);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (exporter == null) {
+            return;
+        }
+        stopping = true;
+        exporter.join(5000);
+    }
+
+    /**
+     * Opens the trace of a submission that was just stored, with its submit span starting at
+     * {@code startNanos}, and binds it to the current thread. Returns the submit span.
+     */
+    public Span begin(Submission submission, long startNanos) {
+        if (!enabled || active.size() >= maxActive) {
+            return NOOP;
+        }
+        Trace trace = new Trace(submission, startNanos);
+        active.put(submission.getId(), trace);
+        current.set(trace);
+        return trace.open("submit", startNanos);
+    }
+
+    /**
+     * Continues a submission's trace on the current thread. The time since the submit span ended
+     * is recorded as the queue span.
+     */
+    public void resume(Long submissionId) {
+        Trace trace = active.get(submissionId);
+        if (trace == null) {
+            return;
+        }
+        current.set(trace);
+        trace.recordQueue(System.nanoTime());
+    }
+
+    public Span startSpan(String name) {
+        Trace trace = current.get();
+        return trace == null ? NOOP : trace.open(name, System.nanoTime());
+    }
+
+    /**
+     * Closes the current thread's trace with the submission's final status.
+     */
+    public void finish(String status, boolean failed) {
+        Trace trace = current.get();
+        if (trace == null) {
+            return;
+        }
+        current.remove();
+        trace.finish(status, failed);
+        active.remove(trace.id);
+        synchronized (finished) {
+            finished.addLast(trace);
+            while (finished.size() > retained) {
+                finished.removeFirst();
+            }
+        }
+        if (exportQueue != null && !exportQueue.offer(trace)) {
+            meterRegistry.counter("tracing.exported", "result", "dropped").increment();
+        }
+    }
+
+    public void detach() {
+        current.remove();
+    }
+
+    public void discard(Long submissionId) {
+        active.remove(submissionId);
+        current.remove();
+    }
+
+    /**
+     * Traces finished in the last {@code minutes} minutes, slowest first, without their spans.
+     */
+    public List<SubmissionTrace> slowest(int minutes, int limit) {
+        if (minutes < 1 || limit < 1) {
+            throw new IllegalArgumentException("minutes and limit must be positive");
+        }
+        long since = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(minutes);
+        List<Trace> recent;
+        synchronized (finished) {
+            recent = new ArrayList<>(finished);
+        }
+        return recent.stream()
+                .filter(trace -> trace.finishedAtMillis >= since)
+                .sorted(Comparator.comparingLong(Trace::durationNanos).reversed())
+                .limit(limit)
+                .map(trace -> trace.toDto(false))
+                .toList();
+    }
+
+    /**
+     * The full timeline of a submission, finished or still in progress.
+     */
+    public SubmissionTrace getTrace(String submissionId) {
+        synchronized (finished) {
+            for (var it = finished.descendingIterator(); it.hasNext(); ) {
+                Trace trace = it.next();
+                if (trace.submissionId.equals(submissionId)) {
+                    return trace.toDto(true);
+                }
+            }
+        }
+        return active.values().stream()
+                .filter(trace -> trace.submissionId.equals(submissionId))
+                .findFirst()
+                .map(trace -> trace.toDto(true))
+                .orElseThrow(() -> new RuntimeException("No trace for submission: " + submissionId));
+    }
+
+    private void export() {
+        Path file = exportFile.isBlank() ? null : Paths.get(exportFile);
+        OutputStream out = null;
+        try {
+            if (file != null) {
+                Files.createDirectories(file.toAbsolutePath().getParent());
+                out = Files.newOutputStream(file);
+                logger.info("Exporting submission traces to {}", file);
+            }
+            List<Trace> batch = new ArrayList<>();
+            while (!stopping || !exportQueue.isEmpty()) {
+                Trace trace = exportQueue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (trace == null) {
+                    continue;
+                }
+                batch.add(trace);
+                exportQueue.drainTo(batch, EXPORT_BATCH - 1);
+                if (out != null) {
+                    for (Trace t : batch) {
+                        out.write(objectMapper.writeValueAsBytes(otlpRequest(List.of(t))));
+                        out.write('\n');
+                    }
+                    out.flush();
+                    // Keep one previous file, so the export never grows without bound
+                    if (Files.size(file) > maxFileMegabytes * 1024 * 1024) {
+                        out.close();
+                        Files.move(file, file.resolveSibling(file.getFileName() + ".1"), StandardCopyOption.REPLACE_EXISTING);
+                        out = Files.newOutputStream(file);
+                    }
+                }
+                if (httpClient != null) {
+                    post(batch);
+                }
+                meterRegistry.counter("tracing.exported", "result", "written").increment(batch.size());
+                batch.clear();
+            }
+        } catch (IOException e) {
+            logger.error("Trace export stopped: could not write {}", file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            try {
+                if (out != null) {
+                    out.close();
+                }
+            } catch (IOException e) {
+                logger.debug("Error closing trace export file", e);
+            }
+        }
+    }
+
+    private void post(List<Trace> batch) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(otlpEndpoint))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(otlpRequest(batch))))
+                .build();
+        try {
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() / 100 != 2) {
+                throw new IOException("HTTP " + response.statusCode());
+            }
+        } catch (IOException e) {
+            meterRegistry.counter("tracing.exported", "result", "failed").increment(batch.size());
+            logger.warn("Could not post {} traces to {}: {}", batch.size(), otlpEndpoint, e.getMessage());
+        }
+    }
+
+    // OTLP/JSON ExportTraceServiceRequest; 64-bit integers are strings in the JSON mapping
+    private Map<String, Object> otlpRequest(List<Trace> traces) {
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (Trace trace : traces) {
+            synchronized (trace) {
+                for (Span span : trace.spans) {
+                    Map<String, Object> otlp = new LinkedHashMap<>();
+                    otlp.put("traceId", trace.traceId);
+                    otlp.put("spanId", span.spanId);
+                    if (span.parentSpanId != null) {
+                        otlp.put("parentSpanId", span.parentSpanId);
+                    }
+                    otlp.put("name", span.name);
+                    otlp.put("kind", span.parentSpanId == null ? 2 : 1);
+                    otlp.put("startTimeUnixNano", Long.toString(trace.epochNanos(span.startNanos)));
+                    otlp.put("endTimeUnixNano", Long.toString(trace.epochNanos(span.endNanos)));
+                    otlp.put("attributes", span.attributes.entrySet().stream()
+                            .map(entry -> Map.of("key", entry.getKey(), "value", otlpValue(entry.getValue())))
+                            .toList());
+                    otlp.put("status", Map.of("code", span.failed ? 2 : 1));
+                    spans.add(otlp);
+                }
+            }
+        }
+        return Map.of("resourceSpans", List.of(Map.of(
+                "resource", Map.of("attributes", List.of(
+                        Map.of("key", "service.name", "value", Map.of("stringValue", "contest-platform")))),
+                "scopeSpans", List.of(Map.of(
+                        "scope", Map.of("name", SubmissionTracer.class.getName()),
+                        "spans", spans)))));
+    }
+
+    private static Map<String, Object> otlpValue(Object value) {
+        if (value instanceof Boolean b) {
+            return Map.of("boolValue", b);
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return Map.of("intValue", value.toString());
+        }
+        if (value instanceof Number n) {
+            return Map.of("doubleValue", n.doubleValue());
+        }
+        return Map.of("stringValue", String.valueOf(value));
+    }
+
+    private static String randomId(int bytes) {
+        byte[] id = new byte[bytes];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HexFormat.of().formatHex(id);
+    }
+
+    /**
+     * A step of a trace, closed with try-with-resources. Spans opened on a thread that is not
+     * working for a traced submission do nothing.
+     */
+    public static final class Span implements AutoCloseable {
+        private final Trace trace;
+        private final String spanId;
+        private final String parentSpanId;
+        private final String name;
+        private final long startNanos;
+        private final Map<String, Object> attributes = new LinkedHashMap<>();
+        private long endNanos;
+        private boolean failed;
+
+        private Span(Trace trace, String spanId, String parentSpanId, String name, long startNanos) {
+            this.trace = trace;
+            this.spanId = spanId;
+            this.parentSpanId = parentSpanId;
+            this.name = name;
+            this.startNanos = startNanos;
+        }
+
+        public Span attribute(String key, Object value) {
+            if (trace != null && value != null) {
+                synchronized (trace) {
+                    attributes.put(key, value);
+                }
+            }
+            return this;
+        }
+
+        public Span failed() {
+            if (trace != null) {
+                synchronized (trace) {
+                    failed = true;
+                }
+            }
+            return this;
+        }
+
+        @Override
+        public void close() {
+            if (trace != null) {
+                trace.close(this, System.nanoTime());
+            }
+        }
+    }
+
+    private static final class Trace {
+        final Long id;
+        final String submissionId;
+        final String username;
+        final String problemId;
+        final String language;
+        final String traceId = randomId(16);
+        // Span times are System.nanoTime values; these anchor them to the wall clock
+        final long anchorNanos = System.nanoTime();
+        final long anchorEpochNanos;
+        final Span root;
+        final List<Span> spans = new ArrayList<>();
+        final Deque<Span> open = new ArrayDeque<>();
+        long handoffNanos;
+        long finishedAtMillis;
+        String status;
+
+        Trace(Submission submission, long startNanos) {
+            Instant now = Instant.now();
+            anchorEpochNanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+            id = submission.getId();
+            submissionId = submission.getSubmissionId();
+            username = submission.getUsername();
+            problemId = submission.getProblem().getProblemId();
+            language = submission.getLanguage();
+            root = new Span(this, randomId(8), null, "submission", startNanos);
+            root.attributes.put("submission.id", submissionId);
+            root.attributes.put("user", username);
+            root.attributes.put("problem", problemId);
+            root.attributes.put("language", language);
+            spans.add(root);
+            open.push(root);
+        }
+
+        synchronized Span open(String name, long startNanos) {
+            Span span = new Span(this, randomId(8), open.peek().spanId, name, startNanos);
+            spans.add(span);
+            open.push(span);
+            return span;
+        }
+
+        synchronized void recordQueue(long endNanos) {
+            Span span = new Span(this, randomId(8), root.spanId, "queue", handoffNanos);
+            span.endNanos = endNanos;
+            spans.add(span);
+        }
+
+        synchronized void close(Span span, long endNanos) {
+            if (span.endNanos != 0) {
+                return;
+            }
+            span.endNanos = endNanos;
+            // Closing a span closes whatever was left open inside it
+            while (open.contains(span)) {
+                Span top = open.pop();
+                if (top.endNanos == 0) {
+                    top.endNanos = endNanos;
+                }
+            }
+            if (span.name.equals("submit")) {
+                handoffNanos = endNanos;
+            }
+        }
+
+        synchronized void finish(String status, boolean failed) {
+            this.status = status;
+            root.attributes.put("status", status);
+            root.failed = failed;
+            close(root, System.nanoTime());
+            finishedAtMillis = System.currentTimeMillis();
+        }
+
+        long epochNanos(long nanos) {
+            return anchorEpochNanos + (nanos - anchorNanos);
+        }
+
+        synchronized long durationNanos() {
+            return (root.endNanos != 0 ? root.endNanos : System.nanoTime()) - root.startNanos;
+        }
+
+        synchronized SubmissionTrace toDto(boolean withSpans) {
+            List<TraceSpan> spanDtos = null;
+            if (withSpans) {
+                long now = System.nanoTime();
+                spanDtos = spans.stream()
+                        .sorted(Comparator.comparingLong(span -> span.startNanos))
+                        .map(span -> new TraceSpan(span.spanId, span.parentSpanId, span.name,
+                                millis(span.startNanos - root.startNanos),
+                                millis((span.endNanos != 0 ? span.endNanos : now) - span.startNanos),
+                                span.attributes.isEmpty() ? null : new LinkedHashMap<>(span.attributes)))
+                        .toList();
+            }
+            LocalDateTime startedAt = LocalDateTime.ofInstant(
+                    Instant.ofEpochSecond(0, epochNanos(root.startNanos)), ZoneId.systemDefault());
+            return new SubmissionTrace(traceId, submissionId, username, problemId, language, status,
+                    startedAt, millis(durationNanos()), spanDtos);
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+}
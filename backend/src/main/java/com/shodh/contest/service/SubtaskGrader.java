@@ -0,0 +1,184 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.JudgingPolicy;
+import com.shodh.contest.model.Subtask;
+import com.shodh.contest.model.SubmissionStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+/**
+ * Runs a test set under its judging policy and turns the per-test results into a verdict and a
+ * score. Tests that can no longer change the outcome are skipped: everything after the first
+ * failure under ICPC, and the rest of a failed subtask under IOI.
+ *
+ * <p>Within a group, tests run in the order ranked by {@link TestFailureStats}, so likely failures
+ * come first. The ranking is frozen between refreshes, which keeps the verdict and the reported
+ * failing test the same for every submission judged against it.
+ *
+ * <p>A run that finishes close to the time limit, or exceeds it, is repeated and the fastest
+ * attempt counts, so a noisy neighbour on the node does not turn into a time limit verdict.
+ */
+@Component
+public class SubtaskGrader {
+
+    private static final int PREVIEW_BYTES = 256;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private TestFailureStats testFailureStats;
+
+    @Autowired
+    private NodeCalibration nodeCalibration;
+
+    // Runs within this fraction of the limit are close enough to re-run
+    @Value("${judge.rerun.margin:0.1}")
+    private double rerunMargin;
+
+    @Value("${judge.rerun.max-attempts:2}")
+    private int maxReruns;
+
+    @Autowired
+    private SubmissionTracer submissionTracer;
+
+    /**
+     * @param outputDir directory the runner writes each test's output to, named like the test files
+     * @param runner    runs one test; ACCEPTED means the program exited cleanly, and the output is
+     *                  compared here
+     */
+    public CodeExecutionService.ExecutionResult grade(TestSet tests, Path outputDir,
+                                                      IntFunction<CodeExecutionService.ExecutionResult> runner) throws IOException {
+        JudgingPolicy policy = tests.getPolicy();
+        int testCasesPassed = 0;
+        int testsRun = 0;
+        int score = 0;
+        int reruns = 0;
+        long maxTimeMillis = 0;
+        long timeLimitMillis = nodeCalibration.timeLimitMillis(tests);
+        SubmissionStatus verdict = null;
+        List<String> errors = new ArrayList<>();
+
+        // Under ICPC subtasks do not matter: the whole set is one all-or-nothing group
+        List<Subtask> groups = policy == JudgingPolicy.ICPC
+                ? List.of(new Subtask(tests.size(), tests.getMaxScore()))
+                : tests.getSubtasks();
+
+        int start = 0;
+        for (Subtask group : groups) {
+            int end = start + group.getTestCount();
+            CodeExecutionService.ExecutionResult firstFailure = null;
+
+            for (int index : testFailureStats.order(tests, start, end)) {
+                CodeExecutionService.ExecutionResult result = runTest(tests, outputDir, runner, index, 0);
+                testsRun++;
+                // Return immediately on compilation error
+                if (result.getStatus() == SubmissionStatus.COMPILATION_ERROR) {
+                    return result;
+                }
+                int attempts = 0;
+                while (attempts < maxReruns && nearLimit(result, timeLimitMillis)) {
+                    attempts++;
+                    CodeExecutionService.ExecutionResult rerun = runTest(tests, outputDir, runner, index, attempts);
+                    if (rerun.getTimeMillis() < result.getTimeMillis()) {
+                        result = rerun;
+                    }
+                }
+                reruns += attempts;
+                maxTimeMillis = Math.max(maxTimeMillis, result.getTimeMillis());
+                boolean failed = result.getStatus() != SubmissionStatus.ACCEPTED;
+                testFailureStats.record(tests, index, failed);
+                if (failed) {
+                    firstFailure = result;
+                    break;
+                }
+                testCasesPassed++;
+            }
+
+            if (firstFailure == null) {
+                score += group.getPoints();
+            } else {
+                errors.add(firstFailure.getErrorMessage());
+                if (verdict == null) {
+                    verdict = firstFailure.getStatus();
+                }
+                if (policy == JudgingPolicy.ICPC) {
+                    break;
+                }
+            }
+            start = end;
+        }
+
+        int skipped = tests.size() - testsRun;
+        meterRegistry.counter("judge.tests.run", "policy", policy.name()).increment(testsRun);
+        meterRegistry.counter("judge.tests.skipped", "policy", policy.name()).increment(skipped);
+        meterRegistry.counter("judge.tests.reruns").increment(reruns);
+
+        CodeExecutionService.ExecutionResult finalResult = new CodeExecutionService.ExecutionResult();
+        finalResult.setTestCasesPassed(testCasesPassed);
+        finalResult.setTotalTestCases(tests.size());
+        finalResult.setTimeMillis(maxTimeMillis);
+        finalResult.setReruns(reruns);
+
+        if (verdict == null) {
+            finalResult.setStatus(SubmissionStatus.ACCEPTED);
+            finalResult.setScore(tests.getMaxScore());
+            finalResult.setErrorMessage(null);
+            return finalResult;
+        }
+
+        // The first failing test decides the verdict; only IOI keeps the points of passed subtasks
+        finalResult.setStatus(verdict);
+        finalResult.setScore(policy == JudgingPolicy.IOI ? score : 0);
+        if (skipped > 0) {
+            errors.add("Skipped " + skipped + " test case" + (skipped == 1 ? "" : "s") + " that could not change the result");
+        }
+        finalResult.setErrorMessage(String.join("\n", errors));
+        return finalResult;
+    }
+
+    /**
+     * Only timing can change between attempts: a wrong answer or a crash well under the limit is
+     * final, while anything slow enough to be at the mercy of scheduling noise gets another try.
+     */
+    private boolean nearLimit(CodeExecutionService.ExecutionResult result, long timeLimitMillis) {
+        if (result.getStatus() != SubmissionStatus.ACCEPTED && result.getStatus() != SubmissionStatus.TIME_LIMIT_EXCEEDED) {
+            return false;
+        }
+        return result.getTimeMillis() >= timeLimitMillis * (1 - rerunMargin);
+    }
+
+    private CodeExecutionService.ExecutionResult runTest(TestSet tests, Path outputDir,
+                                                         IntFunction<CodeExecutionService.ExecutionResult> runner,
+                                                         int index, int attempt) throws IOException {
+        try (SubmissionTracer.Span span = submissionTracer.startSpan("test")
+                .attribute("test.index", index + 1)
+                .attribute("test.attempt", attempt)) {
+            CodeExecutionService.ExecutionResult result = runner.apply(index);
+            if (result.getStatus() == SubmissionStatus.ACCEPTED) {
+                // Compare the output files, ignoring surrounding whitespace
+                Path actualOutput = outputDir.resolve(TestSet.fileName(index, "out"));
+                try (SubmissionTracer.Span compare = submissionTracer.startSpan("compare")) {
+                    if (!OutputComparator.matches(actualOutput, tests.expectedOutput(index))) {
+                        result.setStatus(SubmissionStatus.WRONG_ANSWER);
+                        result.setErrorMessage("Test case " + (index + 1) + " failed.\nExpected: "
+                                + OutputComparator.preview(tests.expectedOutput(index), PREVIEW_BYTES)
+                                + "\nGot: " + OutputComparator.preview(actualOutput, PREVIEW_BYTES));
+                    }
+                }
+            } else if (result.getStatus() != SubmissionStatus.COMPILATION_ERROR) {
+                result.setErrorMessage("Test case " + (index + 1) + ": " + result.getErrorMessage());
+            }
+            span.attribute("status", result.getStatus().name()).attribute("time.ms", result.getTimeMillis());
+            return result;
+        }
+    }
+}
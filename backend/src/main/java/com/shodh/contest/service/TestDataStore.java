@@ -0,0 +1,334 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.JudgingPolicy;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Subtask;
+import com.shodh.contest.repository.ProblemRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Materializes each problem's test cases on disk once per problem version. Judging then only
+ * touches the files; the test case collections are read from the database when a version is
+ * first seen and never again. Imported problems keep their tests as files in the import store,
+ * which are linked into place instead.
+ *
+ * Judge runs lease the version they read, and a version superseded by a newer one is only removed
+ * once its last lease is released. A request for an older version than the newest one seen, from a
+ * stale replica read or cache entry, gets the newest one: the database only holds current data.
+ */
+@Component
+public class TestDataStore {
+    private static final Logger logger = LoggerFactory.getLogger(TestDataStore.class);
+
+    static final String MANIFEST = "COUNT";
+    private static final String SUBTASKS = "SUBTASKS";
+
+    @Value("${judge.testdata.dir:${java.io.tmpdir}/shodh-testdata}")
+    private String baseDir;
+
+    // Problem ids and versions restart with an in-memory database, so files left by a previous
+    // run cannot be trusted unless the database outlives the process
+    @Value("${judge.testdata.clear-on-startup:true}")
+    private boolean clearOnStartup;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, TestSet> cache = new ConcurrentHashMap<>();
+    private final Map<Long, Object> locks = new ConcurrentHashMap<>();
+
+    // Both guarded by leases
+    private final Map<Path, Integer> leases = new HashMap<>();
+    private final Set<Path> superseded = new HashSet<>();
+
+    @PostConstruct
+    void init() throws IOException {
+        Path base = Paths.get(baseDir);
+        if (clearOnStartup && Files.exists(base)) {
+            deleteRecursively(base);
+        }
+        Files.createDirectories(base);
+    }
+
+    /**
+     * The problem's test set, for callers that only need it materialized. Its files may be removed
+     * as soon as a newer version is published; judge runs use {@link #acquire(Problem)}.
+     */
+    public TestSet getTestSet(Problem problem) {
+        return getTestSet(problem, false);
+    }
+
+    /**
+     * The problem's test set, whose files stay in place until {@link #release(TestSet)} even if a
+     * newer version is published meanwhile.
+     */
+    public TestSet acquire(Problem problem) {
+        return getTestSet(problem, true);
+    }
+
+    public void release(TestSet testSet) {
+        Path directory = testSet.getDirectory();
+        synchronized (leases) {
+            Integer held = leases.get(directory);
+            if (held == null) {
+                return;
+            }
+            if (held > 1) {
+                leases.put(directory, held - 1);
+                return;
+            }
+            leases.remove(directory);
+            if (!superseded.remove(directory)) {
+                return;
+            }
+        }
+        deleteRecursively(directory);
+        logger.debug("Removed superseded test data {}", directory);
+    }
+
+    int getLeases(TestSet testSet) {
+        synchronized (leases) {
+            return leases.getOrDefault(testSet.getDirectory(), 0);
+        }
+    }
+
+    private TestSet getTestSet(Problem problem, boolean lease) {
+        Long problemId = problem.getId();
+        long version = problem.getVersion() != null ? problem.getVersion() : 0L;
+
+        TestSet cached = cache.get(problemId);
+        if (cached != null && cached.getVersion() >= version && (!lease || leaseIfCurrent(problemId, cached))) {
+            return cached;
+        }
+
+        synchronized (locks.computeIfAbsent(problemId, id -> new Object())) {
+            cached = cache.get(problemId);
+            if (cached != null && cached.getVersion() >= version) {
+                if (lease) {
+                    leaseIfCurrent(problemId, cached);
+                }
+                return cached;
+            }
+            TestSet testSet;
+            try {
+                testSet = load(problemId, version);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot materialize test data for problem " + problemId, e);
+            }
+            cache.put(problemId, testSet);
+            if (lease) {
+                leaseIfCurrent(problemId, testSet);
+            }
+            removeOlderVersions(testSet);
+            return testSet;
+        }
+    }
+
+    // Fails only if a newer version was cached meanwhile, whose publisher may be removing this one
+    private boolean leaseIfCurrent(Long problemId, TestSet testSet) {
+        synchronized (leases) {
+            if (cache.get(problemId) != testSet) {
+                return false;
+            }
+            leases.merge(testSet.getDirectory(), 1, Integer::sum);
+            return true;
+        }
+    }
+
+    /**
+     * Writes a test set that does not belong to a stored problem, such as warm-up canaries.
+     */
+    public TestSet writeTestSet(String name, List<String> inputs, List<String> outputs) {
+        Path directory = Paths.get(baseDir, name);
+        try {
+            if (Files.exists(directory)) {
+                deleteRecursively(directory);
+            }
+            Files.createDirectories(directory);
+            for (int i = 0; i < inputs.size(); i++) {
+                Files.writeString(directory.resolve(TestSet.fileName(i, "in")), inputs.get(i), StandardCharsets.UTF_8);
+                Files.writeString(directory.resolve(TestSet.fileName(i, "out")), outputs.get(i), StandardCharsets.UTF_8);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write test set " + name, e);
+        }
+        return new TestSet(directory, inputs.size(), 0L);
+    }
+
+    private TestSet load(Long problemId, long version) throws IOException {
+        Path problemDir = Paths.get(baseDir, String.valueOf(problemId));
+        Path versionDir = problemDir.resolve("v" + version);
+        Path manifest = versionDir.resolve(MANIFEST);
+
+        if (Files.exists(manifest)) {
+            int count = Integer.parseInt(Files.readString(manifest).trim());
+            return readSubtasks(problemId, versionDir, count, version);
+        }
+
+        Files.createDirectories(problemDir);
+        Path staging = Files.createTempDirectory(problemDir, "staging-");
+        TestSet staged = transactionTemplate.execute(status -> {
+            Problem problem = problemRepository.findById(problemId)
+                    .orElseThrow(() -> new RuntimeException("Problem not found: " + problemId));
+            try {
+                int tests = problem.getTestDataDir() != null
+                        ? linkImported(Paths.get(problem.getTestDataDir()), staging)
+                        : writeStored(problem, staging);
+                Long timeLimitMillis = problem.getTimeLimitSeconds() != null
+                        ? problem.getTimeLimitSeconds() * 1000L : null;
+                TestSet testSet = new TestSet(versionDir, tests, version, problemId,
+                        problem.getJudgingPolicy(), problem.getSubtasks(), timeLimitMillis);
+                writeSubtasks(staging, testSet);
+                return testSet;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        int count = staged.size();
+        Files.writeString(staging.resolve(MANIFEST), String.valueOf(count));
+
+        try {
+            Files.move(staging, versionDir, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Another node or an earlier run already published this version
+            deleteRecursively(staging);
+        }
+
+        logger.info("Materialized {} test cases for problem {} (version {})", count, problemId, version);
+        return staged;
+    }
+
+    private int writeStored(Problem problem, Path staging) throws IOException {
+        List<String> inputs = problem.getInputTestCases();
+        List<String> outputs = problem.getExpectedOutputs();
+        for (int i = 0; i < inputs.size(); i++) {
+            Files.writeString(staging.resolve(TestSet.fileName(i, "in")), inputs.get(i), StandardCharsets.UTF_8);
+            Files.writeString(staging.resolve(TestSet.fileName(i, "out")), outputs.get(i), StandardCharsets.UTF_8);
+        }
+        return inputs.size();
+    }
+
+    // Imported files are already numbered like a test set; links make even huge sets free to publish
+    private int linkImported(Path source, Path staging) throws IOException {
+        int count = Integer.parseInt(Files.readString(source.resolve(MANIFEST)).trim());
+        for (int i = 0; i < count; i++) {
+            for (String extension : List.of("in", "out")) {
+                Path file = source.resolve(TestSet.fileName(i, extension));
+                Path target = staging.resolve(TestSet.fileName(i, extension));
+                try {
+                    Files.createLink(target, file);
+                } catch (IOException | UnsupportedOperationException e) {
+                    Files.copy(file, target);
+                }
+            }
+        }
+        return count;
+    }
+
+    // One line with the policy and optional time limit, then "testCount points" per subtask
+    private void writeSubtasks(Path directory, TestSet testSet) throws IOException {
+        StringBuilder layout = new StringBuilder(testSet.getPolicy().name());
+        if (testSet.getTimeLimitMillis() != null) {
+            layout.append(' ').append(testSet.getTimeLimitMillis());
+        }
+        layout.append('\n');
+        for (Subtask subtask : testSet.getSubtasks()) {
+            layout.append(subtask.getTestCount()).append(' ').append(subtask.getPoints()).append('\n');
+        }
+        Files.writeString(directory.resolve(SUBTASKS), layout);
+    }
+
+    private TestSet readSubtasks(Long problemId, Path directory, int count, long version) throws IOException {
+        Path layout = directory.resolve(SUBTASKS);
+        if (!Files.exists(layout)) {
+            return new TestSet(directory, count, version, problemId, JudgingPolicy.ICPC, List.of(), null);
+        }
+        List<String> lines = Files.readAllLines(layout);
+        String[] header = lines.get(0).trim().split(" ");
+        Long timeLimitMillis = header.length > 1 ? Long.valueOf(header[1]) : null;
+        List<Subtask> subtasks = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.trim().split(" ");
+            subtasks.add(new Subtask(Integer.parseInt(fields[0]), Integer.parseInt(fields[1])));
+        }
+        return new TestSet(directory, count, version, problemId, JudgingPolicy.valueOf(header[0]), subtasks, timeLimitMillis);
+    }
+
+    /**
+     * Removes the versions older than the one just cached, or marks them for removal on their
+     * last release while judge runs still read them. Newer versions are kept: a stale request can
+     * materialize an old version number after a restart, and must not remove the current one.
+     */
+    private void removeOlderVersions(TestSet current) {
+        Path problemDir = current.getDirectory().getParent();
+        List<Path> unused = new ArrayList<>();
+        try (Stream<Path> children = Files.list(problemDir)) {
+            List<Path> older = children.filter(path -> versionOf(path) < current.getVersion()).toList();
+            synchronized (leases) {
+                for (Path path : older) {
+                    if (leases.containsKey(path)) {
+                        superseded.add(path);
+                    } else {
+                        unused.add(path);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.debug("Error listing test data versions in " + problemDir, e);
+        }
+        unused.forEach(this::deleteRecursively);
+    }
+
+    // Long.MAX_VALUE for anything that is not a version directory, such as staging directories
+    private static long versionOf(Path path) {
+        String name = path.getFileName().toString();
+        if (name.length() < 2 || name.charAt(0) != 'v') {
+            return Long.MAX_VALUE;
+        }
+        try {
+            return Long.parseLong(name.substring(1));
+        } catch (NumberFormatException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> -a.compareTo(b))
+                    .forEach(path -> {
+                        try {
+                            Files.delete(path);
+                        } catch (IOException e) {
+                            logger.debug("Error deleting file: " + path, e);
+                        }
+                    });
+        } catch (IOException e) {
+            logger.debug("Error cleaning up directory: " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.TestCaseStat;
+import com.shodh.contest.repository.TestCaseStatRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Per-test failure rates, used to run the tests most likely to fail first. Counts are kept in
+ * memory, decay exponentially with judge.test-order.half-life-hours, and are written to the
+ * database in the background rather than on the judging path.
+ *
+ * <p>The run order is not recomputed for every submission. It is frozen per problem and test
+ * data version and only re-ranked once per refresh interval, so every submission judged against
+ * the same ranking gets the same verdict and the same reported failing test. Ranks are persisted
+ * with the counts and survive a restart.
+ */
+@Component
+public class TestFailureStats {
+    private static final Logger logger = LoggerFactory.getLogger(TestFailureStats.class);
+
+    // Prior for tests without history: one run with a small failure rate
+    private static final double PRIOR_RUNS = 1.0;
+    private static final double PRIOR_FAILURES = 0.1;
+
+    @Value("${judge.test-order.adaptive:true}")
+    private boolean adaptive;
+
+    @Value("${judge.test-order.half-life-hours:24}")
+    private double halfLifeHours;
+
+    @Value("${judge.test-order.refresh-interval-minutes:15}")
+    private long refreshIntervalMinutes;
+
+    @Autowired
+    private TestCaseStatRepository testCaseStatRepository;
+
+    private final Map<Long, ProblemStats> problems = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes of tests from (inclusive) to (exclusive) in the order they should run. Test sets
+     * that do not belong to a problem keep their stored order.
+     */
+    public int[] order(TestSet tests, int from, int to) {
+        if (!adaptive || tests.getProblemId() == null) {
+            return IntStream.range(from, to).toArray();
+        }
+        ProblemStats stats = statsFor(tests.getProblemId());
+        int[] ranks;
+        synchronized (stats) {
+            ranks = stats.ranks(tests.size(), tests.getVersion(), LocalDateTime.now());
+        }
+        return IntStream.range(from, to).boxed()
+                .sorted(Comparator.comparingInt(index -> ranks[index]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    public void record(TestSet tests, int index, boolean failed) {
+        if (tests.getProblemId() == null) {
+            return;
+        }
+        ProblemStats stats = statsFor(tests.getProblemId());
+        synchronized (stats) {
+            stats.record(index, tests.getVersion(), failed, LocalDateTime.now());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${judge.test-order.flush-interval-ms:30000}")
+    public void flush() {
+        for (ProblemStats stats : problems.values()) {
+            List<TestCaseStat> pending;
+            synchronized (stats) {
+                pending = stats.drainDirty();
+            }
+            if (pending.isEmpty()) {
+                continue;
+            }
+            try {
+                List<TestCaseStat> saved = testCaseStatRepository.saveAll(pending);
+                synchronized (stats) {
+                    saved.forEach(stats::assignId);
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Could not store test statistics for problem {}", stats.problemId, e);
+                synchronized (stats) {
+                    pending.forEach(row -> stats.dirty.add(row.getTestIndex()));
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private ProblemStats statsFor(Long problemId) {
+        return problems.computeIfAbsent(problemId,
+                id -> new ProblemStats(id, testCaseStatRepository.findByProblemId(id)));
+    }
+
+    private double decay(LocalDateTime since, LocalDateTime now) {
+        if (since == null) {
+            return 1.0;
+        }
+        double hours = Duration.between(since, now).toMillis() / 3_600_000.0;
+        return Math.pow(0.5, Math.max(hours, 0) / halfLifeHours);
+    }
+
+    private class ProblemStats {
+        private final Long problemId;
+        private final Map<Integer, TestCaseStat> rows = new HashMap<>();
+        private final Set<Integer> dirty = new HashSet<>();
+
+        private int[] ranks;
+        private long rankedVersion;
+        private LocalDateTime rankedAt;
+
+        ProblemStats(Long problemId, List<TestCaseStat> stored) {
+            this.problemId = problemId;
+            stored.forEach(row -> rows.put(row.getTestIndex(), row));
+        }
+
+        int[] ranks(int count, long version, LocalDateTime now) {
+            if (ranks == null) {
+                ranks = storedRanks(count, version);
+                rankedVersion = version;
+                rankedAt = now;
+            }
+            boolean stale = rankedAt.plusMinutes(refreshIntervalMinutes).isBefore(now);
+            if (ranks == null || ranks.length != count || rankedVersion != version || stale) {
+                rerank(count, version, now);
+            }
+            return ranks;
+        }
+
+        // Ranks left by a previous run, if they cover exactly this version's tests
+        private int[] storedRanks(int count, long version) {
+            int[] stored = new int[count];
+            for (int index = 0; index < count; index++) {
+                TestCaseStat row = rows.get(index);
+                if (row == null || !isVersion(row, version) || row.getOrderRank() == null) {
+                    return null;
+                }
+                stored[index] = row.getOrderRank();
+            }
+            return stored;
+        }
+
+        private void rerank(int count, long version, LocalDateTime now) {
+            double[] rates = new double[count];
+            for (int index = 0; index < count; index++) {
+                rates[index] = failureRate(index, version, now);
+            }
+            int[] order = IntStream.range(0, count).boxed()
+                    .sorted(Comparator.<Integer>comparingDouble(index -> -rates[index])
+                            .thenComparingInt(index -> index))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            ranks = new int[count];
+            for (int rank = 0; rank < count; rank++) {
+                ranks[order[rank]] = rank;
+                row(order[rank], version, now).setOrderRank(rank);
+                dirty.add(order[rank]);
+            }
+            rankedVersion = version;
+            rankedAt = now;
+        }
+
+        private double failureRate(int index, long version, LocalDateTime now) {
+            TestCaseStat row = rows.get(index);
+            if (row == null || !isVersion(row, version)) {
+                return PRIOR_FAILURES / PRIOR_RUNS;
+            }
+            double factor = decay(row.getUpdatedAt(), now);
+            return (row.getFailures() * factor + PRIOR_FAILURES) / (row.getRuns() * factor + PRIOR_RUNS);
+        }
+
+        void record(int index, long version, boolean failed, LocalDateTime now) {
+            TestCaseStat row = row(index, version, now);
+            double factor = decay(row.getUpdatedAt(), now);
+            row.setRuns(row.getRuns() * factor + 1);
+            row.setFailures(row.getFailures() * factor + (failed ? 1 : 0));
+            row.setUpdatedAt(now);
+            dirty.add(index);
+        }
+
+        // The row for a test, reset when it still holds counts of another test data version
+        private TestCaseStat row(int index, long version, LocalDateTime now) {
+            TestCaseStat row = rows.computeIfAbsent(index,
+                    i -> new TestCaseStat(null, problemId, i, version, 0.0, 0.0, now, null));
+            if (!isVersion(row, version)) {
+                row.setTestDataVersion(version);
+                row.setRuns(0.0);
+                row.setFailures(0.0);
+                row.setUpdatedAt(now);
+                row.setOrderRank(null);
+            }
+            return row;
+        }
+
+        private boolean isVersion(TestCaseStat row, long version) {
+            return row.getTestDataVersion() != null && row.getTestDataVersion() == version;
+        }
+
+        // Copies, so the repository never holds the rows the judge keeps updating
+        List<TestCaseStat> drainDirty() {
+            List<TestCaseStat> pending = new ArrayList<>();
+            for (Integer index : dirty) {
+                TestCaseStat row = rows.get(index);
+                pending.add(new TestCaseStat(row.getId(), row.getProblemId(), row.getTestIndex(),
+                        row.getTestDataVersion(), row.getRuns(), row.getFailures(), row.getUpdatedAt(),
+                        row.getOrderRank()));
+            }
+            dirty.clear();
+            return pending;
+        }
+
+        void assignId(TestCaseStat saved) {
+            TestCaseStat row = rows.get(saved.getTestIndex());
+            if (row != null && row.getId() == null) {
+                row.setId(saved.getId());
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.JudgingPolicy;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Subtask;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A problem's test cases materialized on disk as numbered .in/.out files, so executors can wire
+ * them to processes directly instead of passing the data through the heap. The subtask layout is
+ * part of the set: it always covers every test exactly once.
+ */
+public class TestSet {
+    private final Path directory;
+    private final int count;
+    private final long version;
+    private final Long problemId;
+    private final JudgingPolicy policy;
+    private final List<Subtask> subtasks;
+    private final Long timeLimitMillis;
+
+    public TestSet(Path directory, int count, long version) {
+        this(directory, count, version, null, JudgingPolicy.ICPC, List.of(), null);
+    }
+
+    public TestSet(Path directory, int count, long version, Long problemId, JudgingPolicy policy,
+                   List<Subtask> subtasks, Long timeLimitMillis) {
+        this.directory = directory;
+        this.count = count;
+        this.version = version;
+        this.problemId = problemId;
+        this.policy = policy != null ? policy : JudgingPolicy.ICPC;
+        this.subtasks = normalize(subtasks, count);
+        this.timeLimitMillis = timeLimitMillis;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * The problem the tests belong to, or null for ad-hoc sets such as warm-up canaries.
+     */
+    public Long getProblemId() {
+        return problemId;
+    }
+
+    public JudgingPolicy getPolicy() {
+        return policy;
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks;
+    }
+
+    /**
+     * The problem's time limit on the reference machine, or null to use the judge default.
+     */
+    public Long getTimeLimitMillis() {
+        return timeLimitMillis;
+    }
+
+    public int getMaxScore() {
+        return subtasks.stream().mapToInt(Subtask::getPoints).sum();
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public Path input(int index) {
+        return directory.resolve(fileName(index, "in"));
+    }
+
+    public Path expectedOutput(int index) {
+        return directory.resolve(fileName(index, "out"));
+    }
+
+    public static String fileName(int index, String extension) {
+        return (index + 1) + "." + extension;
+    }
+
+    /**
+     * Clamps the configured subtasks to the tests that exist. Tests left over after the last
+     * subtask form a final group worth no points, so they still count towards the verdict.
+     */
+    private static List<Subtask> normalize(List<Subtask> configured, int count) {
+        if (configured == null || configured.isEmpty()) {
+            return List.of(new Subtask(count, Problem.DEFAULT_POINTS));
+        }
+        List<Subtask> subtasks = new ArrayList<>();
+        int remaining = count;
+        for (Subtask subtask : configured) {
+            int tests = Math.min(Math.max(subtask.getTestCount() != null ? subtask.getTestCount() : 0, 0), remaining);
+            int points = subtask.getPoints() != null ? Math.max(subtask.getPoints(), 0) : 0;
+            subtasks.add(new Subtask(tests, points));
+            remaining -= tests;
+        }
+        if (remaining > 0) {
+            subtasks.add(new Subtask(remaining, 0));
+        }
+        return List.copyOf(subtasks);
+    }
+}
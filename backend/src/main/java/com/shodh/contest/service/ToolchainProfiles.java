@@ -0,0 +1,364 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.CompileBenchmark;
+import com.shodh.contest.dto.ToolchainProfile;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Per-language acceleration profiles for the executors: a precompiled header for the common C++
+ * headers, a CDS archive of the JDK classes that javac and typical submissions load, and Python
+ * sources compiled to bytecode once per submission. Each profile can be switched off and falls
+ * back to the plain toolchain when its artifact could not be built.
+ *
+ * <p>Locally the artifacts are built during the executor warm-up; the executor image builds the
+ * same artifacts under {@code judge.toolchain.image-dir}.
+ */
+@Component
+public class ToolchainProfiles {
+    private static final Logger logger = LoggerFactory.getLogger(ToolchainProfiles.class);
+
+    private static final String CPP = "cpp";
+    private static final String JAVA = "java";
+    private static final String PYTHON = "python";
+
+    private static final Map<String, String> PROFILE_NAMES = Map.of(
+            CPP, "precompiled-header",
+            JAVA, "class-data-sharing",
+            PYTHON, "bytecode");
+
+    // Exercises the JDK classes typical submissions touch; the executor image trains on the same file
+    private static final String JAVA_TRAINING_RESOURCE = "/toolchain/Main.java";
+
+    private static final List<String> JDK_PACKAGES = List.of("java/", "javax/", "jdk/", "sun/", "com/sun/");
+    private static final Pattern CLASS_ID = Pattern.compile(" id: \\d+$");
+
+    @Value("${execution.service.type:docker}")
+    private String executionServiceType;
+
+    @Value("${judge.toolchain.dir:${java.io.tmpdir}/shodh-toolchain}")
+    private String localDir;
+
+    @Value("${judge.toolchain.image-dir:/opt/shodh-toolchain}")
+    private String imageDir;
+
+    @Value("${judge.toolchain.cpp-pch:true}")
+    private boolean cppPch;
+
+    @Value("${judge.toolchain.java-cds:true}")
+    private boolean javaCds;
+
+    @Value("${judge.toolchain.python-bytecode:true}")
+    private boolean pythonBytecode;
+
+    @Value("${judge.toolchain.build-timeout-ms:300000}")
+    private long buildTimeoutMillis;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    private final Map<String, ToolchainProfile> localProfiles = new ConcurrentSkipListMap<>();
+
+    /**
+     * Builds the local artifacts for every enabled profile. Does nothing when submissions run in
+     * containers, since the executor image carries its own artifacts.
+     */
+    public void prepare() {
+        if (!"local".equals(executionServiceType)) {
+            return;
+        }
+        Path base = Paths.get(localDir);
+        if (cppPch) {
+            prepare(CPP, () -> buildPrecompiledHeader(base));
+        }
+        if (javaCds) {
+            prepare(JAVA, () -> buildClassDataArchive(base));
+        }
+        if (pythonBytecode) {
+            prepare(PYTHON, () -> refreshStdlibBytecode(base));
+        }
+    }
+
+    public String compileCommand(String language, String baseCommand, boolean inContainer) {
+        if (!isActive(language, inContainer)) {
+            return baseCommand;
+        }
+        String dir = inContainer ? imageDir : localDir;
+        return switch (language) {
+            case CPP -> "g++ -I" + dir + "/pch -o main main.cpp";
+            case JAVA -> "javac -J-XX:SharedArchiveFile=" + dir + "/java/jdk.jsa -J-Xshare:auto Main.java";
+            // Syntax errors surface here as compilation errors instead of failing every test
+            case PYTHON -> "python3 -m compileall -q -b main.py";
+            default -> baseCommand;
+        };
+    }
+
+    public String runCommand(String language, String baseCommand, boolean inContainer) {
+        if (!isActive(language, inContainer)) {
+            return baseCommand;
+        }
+        String dir = inContainer ? imageDir : localDir;
+        return switch (language) {
+            case JAVA -> "java -XX:SharedArchiveFile=" + dir + "/java/jdk.jsa -Xshare:auto Main";
+            case PYTHON -> "python3 main.pyc";
+            default -> baseCommand;
+        };
+    }
+
+    public void recordCompile(String language, boolean inContainer, Duration elapsed) {
+        Timer.builder("judge.compile.latency")
+                .tag("language", language)
+                .tag("profile", isActive(language, inContainer) ? PROFILE_NAMES.get(language) : "none")
+                .register(meterRegistry)
+                .record(elapsed);
+    }
+
+    public List<ToolchainProfile> getProfiles() {
+        boolean inContainer = !"local".equals(executionServiceType);
+        List<ToolchainProfile> profiles = new ArrayList<>();
+        for (String language : PROFILE_NAMES.keySet().stream().sorted().toList()) {
+            ToolchainProfile local = localProfiles.get(language);
+            if (inContainer || local == null) {
+                profiles.add(new ToolchainProfile(language, PROFILE_NAMES.get(language), isEnabled(language),
+                        isActive(language, inContainer), null, inContainer ? "built into executor image" : null));
+            } else {
+                profiles.add(local);
+            }
+        }
+        return profiles;
+    }
+
+    /**
+     * Compiles and runs the warm-up canary for a language with and without its profile and
+     * reports the mean wall time of each phase.
+     */
+    public CompileBenchmark benchmark(String language, int iterations) {
+        if (!"local".equals(executionServiceType)) {
+            throw new RuntimeException("Compile benchmark runs against the local toolchain only");
+        }
+        if (!PROFILE_NAMES.containsKey(language)) {
+            throw new RuntimeException("No acceleration profile for language: " + language);
+        }
+        if (!isActive(language, false)) {
+            throw new RuntimeException("Profile for " + language + " is disabled or not prepared");
+        }
+        if (iterations < 1 || iterations > 20) {
+            throw new RuntimeException("Iterations must be between 1 and 20");
+        }
+
+        String source = JAVA.equals(language) ? javaTrainingProgram() : ExecutorWarmup.CANARY_PROGRAMS.get(language);
+        String fileName = switch (language) {
+            case CPP -> "main.cpp";
+            case JAVA -> "Main.java";
+            default -> "main.py";
+        };
+        String baseCompile = switch (language) {
+            case CPP -> "g++ -o main main.cpp";
+            case JAVA -> "javac Main.java";
+            default -> "";
+        };
+        String baseRun = switch (language) {
+            case CPP -> "./main";
+            case JAVA -> "java Main";
+            default -> "python3 main.py";
+        };
+
+        CompileBenchmark result = new CompileBenchmark();
+        result.setLanguage(language);
+        result.setProfile(PROFILE_NAMES.get(language));
+        result.setIterations(iterations);
+
+        long[] baseline = measure(fileName, source, baseCompile, baseRun, iterations);
+        long[] accelerated = measure(fileName, source, compileCommand(language, baseCompile, false),
+                runCommand(language, baseRun, false), iterations);
+        result.setBaselineCompileMs(baseCompile.isEmpty() ? null : baseline[0]);
+        result.setBaselineRunMs(baseline[1]);
+        result.setAcceleratedCompileMs(accelerated[0]);
+        result.setAcceleratedRunMs(accelerated[1]);
+        return result;
+    }
+
+    private boolean isEnabled(String language) {
+        return switch (language) {
+            case CPP -> cppPch;
+            case JAVA -> javaCds;
+            case PYTHON -> pythonBytecode;
+            default -> false;
+        };
+    }
+
+    private boolean isActive(String language, boolean inContainer) {
+        if (!isEnabled(language)) {
+            return false;
+        }
+        if (inContainer) {
+            return true;
+        }
+        ToolchainProfile profile = localProfiles.get(language);
+        return profile != null && profile.isReady();
+    }
+
+    private void prepare(String language, Build build) {
+        long start = System.nanoTime();
+        ToolchainProfile profile = new ToolchainProfile(language, PROFILE_NAMES.get(language), true, false, null, null);
+        try {
+            profile.setDetail(build.run());
+            profile.setReady(true);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            profile.setDetail(e.getMessage());
+            logger.warn("Could not prepare {} profile for {}, using the plain toolchain: {}",
+                    profile.getProfile(), language, e.getMessage());
+        }
+        profile.setPrepareMs(Duration.ofNanos(System.nanoTime() - start).toMillis());
+        localProfiles.put(language, profile);
+        logger.info("Prepared {} profile for {} in {} ms", profile.getProfile(), language, profile.getPrepareMs());
+    }
+
+    private String buildPrecompiledHeader(Path base) throws IOException, InterruptedException {
+        Path bits = Files.createDirectories(base.resolve("pch").resolve("bits"));
+        // The wrapper forwards to the real header, so g++ finds the .gch next to it via -I
+        Files.writeString(bits.resolve("stdc++.h"), "#include_next <bits/stdc++.h>\n");
+        exec(base, "g++ -w -x c++-header pch/bits/stdc++.h -o pch/bits/stdc++.h.gch");
+        return "pch/bits/stdc++.h.gch";
+    }
+
+    private String buildClassDataArchive(Path base) throws IOException, InterruptedException {
+        Path javaDir = Files.createDirectories(base.resolve("java"));
+        Path training = Files.createDirectories(javaDir.resolve("training"));
+        Files.writeString(training.resolve("Main.java"), javaTrainingProgram());
+        exec(training, "javac -J-XX:DumpLoadedClassList=../javac.classlist Main.java");
+        exec(training, "echo 1 | java -XX:DumpLoadedClassList=../run.classlist Main > /dev/null");
+
+        // Only JDK classes go into the archive; the training class itself lives on a different
+        // class path than any submission. The two lists number their classes independently, so
+        // the ids are dropped before merging.
+        Set<String> classes = new LinkedHashSet<>();
+        for (String list : List.of("javac.classlist", "run.classlist")) {
+            try (Stream<String> lines = Files.lines(javaDir.resolve(list))) {
+                lines.filter(ToolchainProfiles::isJdkClassEntry)
+                        .map(line -> CLASS_ID.matcher(line).replaceFirst(""))
+                        .forEach(classes::add);
+            }
+        }
+        Files.write(javaDir.resolve("jdk.classlist"), classes, StandardCharsets.UTF_8);
+        Files.deleteIfExists(javaDir.resolve("jdk.jsa"));
+        exec(javaDir, "java -Xshare:dump -XX:SharedClassListFile=jdk.classlist -XX:SharedArchiveFile=jdk.jsa > /dev/null");
+        return "java/jdk.jsa (" + classes.size() + " classes)";
+    }
+
+    private String refreshStdlibBytecode(Path base) throws IOException, InterruptedException {
+        Files.createDirectories(base);
+        // Best effort: distributions usually ship the bytecode already, and the stdlib may not be writable
+        exec(base, "python3 -m compileall -q -j 0 \"$(python3 -c 'import sysconfig; print(sysconfig.get_paths()[\"stdlib\"])')\" > /dev/null || true");
+        return "submissions compiled to main.pyc";
+    }
+
+    private static String javaTrainingProgram() {
+        try (InputStream in = ToolchainProfiles.class.getResourceAsStream(JAVA_TRAINING_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource " + JAVA_TRAINING_RESOURCE);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static boolean isJdkClassEntry(String line) {
+        if (line.isBlank() || line.startsWith("#")) {
+            return false;
+        }
+        String[] tokens = line.split(" ");
+        String className = tokens[0].startsWith("@") ? (tokens.length > 1 ? tokens[1] : "") : tokens[0];
+        return JDK_PACKAGES.stream().anyMatch(className::startsWith);
+    }
+
+    private long[] measure(String fileName, String source, String compileCommand, String runCommand, int iterations) {
+        Path dir = null;
+        try {
+            dir = Files.createTempDirectory("toolchain-benchmark-");
+            Files.writeString(dir.resolve(fileName), source);
+            long compileNanos = 0;
+            long runNanos = 0;
+            for (int i = 0; i < iterations; i++) {
+                long start = System.nanoTime();
+                if (!compileCommand.isEmpty()) {
+                    exec(dir, compileCommand);
+                }
+                compileNanos += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                exec(dir, "echo 1 | " + runCommand + " > /dev/null");
+                runNanos += System.nanoTime() - start;
+            }
+            return new long[] {
+                    Duration.ofNanos(compileNanos / iterations).toMillis(),
+                    Duration.ofNanos(runNanos / iterations).toMillis()};
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Benchmark interrupted");
+        } finally {
+            if (dir != null) {
+                deleteRecursively(dir);
+            }
+        }
+    }
+
+    private void exec(Path workingDir, String command) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder("bash", "-c", command);
+        builder.directory(workingDir.toFile());
+        builder.redirectErrorStream(true);
+        ProcessPump.Outcome outcome = processSupervisor.run(builder, null, buildTimeoutMillis);
+        if (outcome.isTimedOut()) {
+            throw new RuntimeException("Timed out: " + command);
+        }
+        if (outcome.getExitCode() != 0) {
+            throw new RuntimeException("'" + command + "' exited with " + outcome.getExitCode() + ": " + outcome.getStdout().trim());
+        }
+    }
+
+    private void deleteRecursively(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    logger.debug("Error deleting file: " + path, e);
+                }
+            });
+        } catch (IOException e) {
+            logger.debug("Error cleaning up directory: " + directory, e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Build {
+        String run() throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,179 @@
+package com.shodh.contest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.contest.dto.SubmissionRequest;
+import com.shodh.contest.dto.WorkloadEvent;
+import com.shodh.contest.model.Submission;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Records production traffic for later replay: submissions with their code, their verdict
+ * latency, and every API read. Events are gzip-compressed JSON lines in one file per startup.
+ * Request threads only enqueue; a single writer thread does the I/O, and events are dropped
+ * rather than ever slowing a request down when the writer falls behind.
+ */
+@Component
+public class WorkloadCapture {
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadCapture.class);
+
+    // Pending events are flushed to disk at least this often, so a crash loses little
+    private static final long FLUSH_INTERVAL_MILLIS = 1000;
+
+    @Value("${workload.capture.enabled:false}")
+    private boolean enabled;
+
+    @Value("${workload.capture.dir:${java.io.tmpdir}/shodh-workload}")
+    private String captureDir;
+
+    @Value("${workload.capture.queue-size:100000}")
+    private int queueSize;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private BlockingQueue<WorkloadEvent> queue;
+    private Counter written;
+    private Counter dropped;
+    private Thread writer;
+    private Path file;
+    private long startNanos;
+    private volatile boolean stopping;
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        queue = new LinkedBlockingQueue<>(queueSize);
+        written = meterRegistry.counter("workload.capture.events", "result", "written");
+        dropped = meterRegistry.counter("workload.capture.events", "result", "dropped");
+
+        Path dir = Paths.get(captureDir);
+        Files.createDirectories(dir);
+        file = dir.resolve("workload-" + System.currentTimeMillis() + ".jsonl.gz");
+        OutputStream out = new GZIPOutputStream(Files.newOutputStream(file), 65536, true);
+        startNanos = System.nanoTime();
+        writer = Thread.ofVirtual().name("workload-capture").start(() -> write(out));
+        logger.info("Capturing workload to {}", file);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public void recordSubmission(SubmissionRequest request, Submission submission) {
+        if (!enabled) {
+            return;
+        }
+        WorkloadEvent event = event(WorkloadEvent.Type.SUBMIT);
+        event.setSubmissionId(submission.getSubmissionId());
+        event.setContestId(request.getContestId());
+        event.setProblemId(request.getProblemId());
+        event.setUsername(request.getUsername());
+        event.setLanguage(submission.getLanguage());
+        event.setCode(request.getCode());
+        offer(event);
+    }
+
+    public void recordVerdict(Submission submission) {
+        if (!enabled) {
+            return;
+        }
+        WorkloadEvent event = event(WorkloadEvent.Type.VERDICT);
+        event.setSubmissionId(submission.getSubmissionId());
+        event.setStatus(submission.getStatus().name());
+        event.setLatencyMillis(Duration.between(submission.getSubmittedAt(), submission.getProcessedAt()).toMillis());
+        offer(event);
+    }
+
+    public void recordRead(String path) {
+        if (!enabled) {
+            return;
+        }
+        WorkloadEvent event = event(WorkloadEvent.Type.READ);
+        event.setPath(path);
+        offer(event);
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (writer == null) {
+            return;
+        }
+        stopping = true;
+        writer.join(5000);
+    }
+
+    private WorkloadEvent event(WorkloadEvent.Type type) {
+        WorkloadEvent event = new WorkloadEvent();
+        event.setT(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+        event.setType(type);
+        return event;
+    }
+
+    private void offer(WorkloadEvent event) {
+        if (!queue.offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    private void write(OutputStream out) {
+        try (out) {
+            while (!stopping || !queue.isEmpty()) {
+                WorkloadEvent event = queue.poll(FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (event == null) {
+                    out.flush();
+                    continue;
+                }
+                writeLine(out, event);
+                // Drain whatever else is pending before paying for a flush
+                while ((event = queue.poll()) != null) {
+                    writeLine(out, event);
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.error("Workload capture stopped: could not write {}", file, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLine(OutputStream out, WorkloadEvent event) throws IOException {
+        try {
+            out.write(objectMapper.writeValueAsBytes(event));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        out.write('\n');
+        written.increment();
+    }
+}
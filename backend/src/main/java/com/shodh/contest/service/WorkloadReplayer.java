@@ -0,0 +1,373 @@
+package com.shodh.contest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.contest.dto.LatencySummary;
+import com.shodh.contest.dto.ReplayReport;
+import com.shodh.contest.dto.ReplayRequest;
+import com.shodh.contest.dto.SubmissionRequest;
+import com.shodh.contest.dto.SubmissionResponse;
+import com.shodh.contest.dto.WorkloadEvent;
+import com.shodh.contest.model.SubmissionStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Replays a workload capture against this build, at the captured pace or up to max-speed times
+ * faster, and compares verdict latency and throughput with the capture. Submissions go through
+ * {@link SubmissionService} in this process or over HTTP to another instance; reads always go over
+ * HTTP, with captured submission ids swapped for the replayed ones.
+ *
+ * <p>Verdict latency is taken from the judged submission's own timestamps, so how often the
+ * replayer polls for verdicts does not skew the result.
+ */
+@Service
+public class WorkloadReplayer {
+    private static final Logger logger = LoggerFactory.getLogger(WorkloadReplayer.class);
+
+    private static final int LATENCY_SAMPLES = 100_000;
+
+    @Autowired
+    private SubmissionService submissionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${workload.replay.max-speed:10}")
+    private double maxSpeed;
+
+    @Value("${workload.replay.verdict-timeout-ms:300000}")
+    private long verdictTimeoutMillis;
+
+    @Value("${workload.replay.poll-interval-ms:500}")
+    private long pollIntervalMillis;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<String, Replay> replays = new ConcurrentHashMap<>();
+
+    public ReplayReport startReplay(ReplayRequest request) {
+        if (request.getFile() == null || !Files.isReadable(Paths.get(request.getFile()))) {
+            throw new RuntimeException("Capture file not found: " + request.getFile());
+        }
+        double speed = request.getSpeed() != null ? request.getSpeed() : 1.0;
+        if (speed < 1 || speed > maxSpeed) {
+            throw new RuntimeException("Speed must be between 1 and " + maxSpeed + ": " + speed);
+        }
+        String mode = request.getMode() != null ? request.getMode().toUpperCase() : "SERVICE";
+        if (!mode.equals("SERVICE") && !mode.equals("HTTP")) {
+            throw new RuntimeException("Mode must be SERVICE or HTTP: " + request.getMode());
+        }
+        String baseUrl = request.getBaseUrl() != null && !request.getBaseUrl().isBlank()
+                ? request.getBaseUrl().replaceAll("/+$", "")
+                : "http://localhost:" + serverPort;
+
+        Replay replay = new Replay(UUID.randomUUID().toString(), Paths.get(request.getFile()), speed, mode, baseUrl);
+        replays.put(replay.id, replay);
+        Thread.ofVirtual().name("workload-replay-" + replay.id).start(() -> run(replay));
+        logger.info("Replaying {} at {}x through {}", replay.file, speed, mode);
+        return replay.report();
+    }
+
+    public ReplayReport getReport(String replayId) {
+        Replay replay = replays.get(replayId);
+        if (replay == null) {
+            throw new RuntimeException("Replay not found: " + replayId);
+        }
+        return replay.report();
+    }
+
+    public List<ReplayReport> listReports() {
+        return replays.values().stream()
+                .map(Replay::report)
+                .sorted(Comparator.comparing(ReplayReport::getStartedAt).reversed())
+                .toList();
+    }
+
+    private void run(Replay replay) {
+        try {
+            dispatch(replay);
+            awaitVerdicts(replay);
+            replay.status = "COMPLETED";
+        } catch (Exception e) {
+            logger.error("Replay {} failed", replay.id, e);
+            replay.error = e.getMessage();
+            replay.status = "FAILED";
+        } finally {
+            replay.finishedAt = LocalDateTime.now();
+            logger.info("Replay {} {}: {}", replay.id, replay.status, replay.report());
+        }
+    }
+
+    /**
+     * Sends every captured event when it falls due. Each one runs on its own virtual thread, so a
+     * slow response never delays the events behind it.
+     */
+    private void dispatch(Replay replay) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Long firstT = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(replay.file)), StandardCharsets.UTF_8));
+             ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                WorkloadEvent event = objectMapper.readValue(line, WorkloadEvent.class);
+                if (firstT == null) {
+                    firstT = event.getT();
+                }
+                long due = start + (long) ((event.getT() - firstT) * 1_000_000 / replay.speed);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                }
+
+                switch (event.getType()) {
+                    case SUBMIT -> {
+                        replay.capturedSubmit(event);
+                        senders.submit(() -> submit(replay, event));
+                    }
+                    case READ -> senders.submit(() -> read(replay, event));
+                    case VERDICT -> replay.capturedVerdict(event);
+                }
+            }
+        }
+    }
+
+    private void submit(Replay replay, WorkloadEvent event) {
+        SubmissionRequest request = new SubmissionRequest();
+        request.setContestId(event.getContestId());
+        request.setProblemId(event.getProblemId());
+        request.setUsername(event.getUsername());
+        request.setLanguage(event.getLanguage());
+        request.setCode(event.getCode());
+        try {
+            SubmissionResponse response;
+            if (replay.mode.equals("HTTP")) {
+                HttpResponse<String> http = httpClient.send(HttpRequest.newBuilder(URI.create(replay.baseUrl + "/api/submissions"))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(request)))
+                                .build(),
+                        HttpResponse.BodyHandlers.ofString());
+                if (http.statusCode() / 100 != 2) {
+                    throw new IOException("HTTP " + http.statusCode() + ": " + http.body());
+                }
+                response = objectMapper.readValue(http.body(), SubmissionResponse.class);
+            } else {
+                response = submissionService.submitCode(request);
+            }
+            replay.submissionsSent.incrementAndGet();
+            replay.replayedIds.put(event.getSubmissionId(), response.getSubmissionId());
+        } catch (Exception e) {
+            replay.failedRequests.incrementAndGet();
+            logger.debug("Replayed submission {} failed", event.getSubmissionId(), e);
+        }
+    }
+
+    private void read(Replay replay, WorkloadEvent event) {
+        // Polls of a captured submission must hit its replayed counterpart
+        String[] segments = event.getPath().split("/", -1);
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = replay.replayedIds.getOrDefault(segments[i], segments[i]);
+        }
+        String path = String.join("/", segments);
+        long start = System.nanoTime();
+        try {
+            HttpResponse<Void> response = httpClient.send(HttpRequest.newBuilder(URI.create(replay.baseUrl + path)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            replay.readsSent.incrementAndGet();
+            replay.readLatency.record(Duration.ofNanos(System.nanoTime() - start).toMillis());
+            if (response.statusCode() / 100 != 2) {
+                replay.failedRequests.incrementAndGet();
+            }
+        } catch (Exception e) {
+            replay.failedRequests.incrementAndGet();
+            logger.debug("Replayed read {} failed", path, e);
+        }
+    }
+
+    private void awaitVerdicts(Replay replay) throws InterruptedException {
+        long deadline = System.nanoTime() + verdictTimeoutMillis * 1_000_000;
+        while (replay.verdictsPending() > 0 && System.nanoTime() < deadline) {
+            for (Map.Entry<String, String> entry : replay.replayedIds.entrySet()) {
+                if (replay.replayedVerdicts.containsKey(entry.getKey())) {
+                    continue;
+                }
+                SubmissionResponse response = fetch(replay, entry.getValue());
+                if (response != null && response.getProcessedAt() != null
+                        && response.getStatus() != SubmissionStatus.PENDING
+                        && response.getStatus() != SubmissionStatus.RUNNING) {
+                    replay.replayedVerdict(entry.getKey(), response);
+                }
+            }
+            Thread.sleep(pollIntervalMillis);
+        }
+    }
+
+    private SubmissionResponse fetch(Replay replay, String submissionId) {
+        try {
+            if (replay.mode.equals("SERVICE")) {
+                // No request scope keeps the session open here, and the response reads lazy associations
+                return transactionTemplate.execute(status -> submissionService.getSubmission(submissionId));
+            }
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(
+                            URI.create(replay.baseUrl + "/api/submissions/" + submissionId)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? objectMapper.readValue(response.body(), SubmissionResponse.class) : null;
+        } catch (Exception e) {
+            logger.debug("Could not fetch replayed submission {}", submissionId, e);
+            return null;
+        }
+    }
+
+    private static LatencySummary summarize(LatencyRecorder recorder) {
+        return new LatencySummary(recorder.getCount(), recorder.percentile(50), recorder.percentile(95),
+                recorder.percentile(99), recorder.getMax());
+    }
+
+    // Verdicts per second between the first submission and the last verdict
+    private static Double throughput(long verdicts, double spanMillis) {
+        return verdicts > 0 && spanMillis > 0 ? verdicts * 1000.0 / spanMillis : null;
+    }
+
+    private static class Replay {
+        final String id;
+        final Path file;
+        final double speed;
+        final String mode;
+        final String baseUrl;
+        final LocalDateTime startedAt = LocalDateTime.now();
+        volatile LocalDateTime finishedAt;
+        volatile String status = "RUNNING";
+        volatile String error;
+
+        final AtomicLong submissionsSent = new AtomicLong();
+        final AtomicLong readsSent = new AtomicLong();
+        final AtomicLong failedRequests = new AtomicLong();
+        final LatencyRecorder capturedLatency = new LatencyRecorder(LATENCY_SAMPLES);
+        final LatencyRecorder replayedLatency = new LatencyRecorder(LATENCY_SAMPLES);
+        final LatencyRecorder readLatency = new LatencyRecorder(LATENCY_SAMPLES);
+
+        // Captured submission id to replayed submission id, and each side's verdict by captured id;
+        // a captured submission without a verdict yet maps to an empty string
+        final Map<String, String> replayedIds = new ConcurrentHashMap<>();
+        final Map<String, String> capturedVerdicts = new ConcurrentHashMap<>();
+        final Map<String, String> replayedVerdicts = new ConcurrentHashMap<>();
+
+        private Long capturedFirstSubmitT;
+        private long capturedLastVerdictT;
+        private LocalDateTime replayedFirstSubmit;
+        private LocalDateTime replayedLastVerdict;
+
+        Replay(String id, Path file, double speed, String mode, String baseUrl) {
+            this.id = id;
+            this.file = file;
+            this.speed = speed;
+            this.mode = mode;
+            this.baseUrl = baseUrl;
+        }
+
+        synchronized void capturedSubmit(WorkloadEvent event) {
+            if (capturedFirstSubmitT == null) {
+                capturedFirstSubmitT = event.getT();
+            }
+            capturedVerdicts.put(event.getSubmissionId(), "");
+        }
+
+        synchronized void capturedVerdict(WorkloadEvent event) {
+            // Verdicts of submissions made before the capture started have nothing to compare with
+            if (!capturedVerdicts.containsKey(event.getSubmissionId())) {
+                return;
+            }
+            capturedVerdicts.put(event.getSubmissionId(), event.getStatus());
+            capturedLatency.record(event.getLatencyMillis());
+            capturedLastVerdictT = Math.max(capturedLastVerdictT, event.getT());
+        }
+
+        synchronized void replayedVerdict(String capturedId, SubmissionResponse response) {
+            replayedVerdicts.put(capturedId, response.getStatus().name());
+            replayedLatency.record(Duration.between(response.getSubmittedAt(), response.getProcessedAt()).toMillis());
+            if (replayedFirstSubmit == null || response.getSubmittedAt().isBefore(replayedFirstSubmit)) {
+                replayedFirstSubmit = response.getSubmittedAt();
+            }
+            if (replayedLastVerdict == null || response.getProcessedAt().isAfter(replayedLastVerdict)) {
+                replayedLastVerdict = response.getProcessedAt();
+            }
+        }
+
+        long verdictsPending() {
+            return replayedIds.size() - replayedVerdicts.size();
+        }
+
+        synchronized ReplayReport report() {
+            long mismatches = replayedVerdicts.entrySet().stream()
+                    .filter(e -> {
+                        String captured = capturedVerdicts.get(e.getKey());
+                        return captured != null && !captured.isEmpty() && !captured.equals(e.getValue());
+                    })
+                    .count();
+            // At speed s the captured traffic arrives s times faster, so an unchanged build keeps up s times faster
+            Double captured = capturedFirstSubmitT == null ? null
+                    : throughput(capturedLatency.getCount(), (capturedLastVerdictT - capturedFirstSubmitT) / speed);
+            Double replayed = replayedFirstSubmit == null ? null
+                    : throughput(replayedLatency.getCount(), Duration.between(replayedFirstSubmit, replayedLastVerdict).toMillis());
+
+            ReplayReport report = new ReplayReport();
+            report.setReplayId(id);
+            report.setFile(file.toString());
+            report.setMode(mode);
+            report.setSpeed(speed);
+            report.setStatus(status);
+            report.setError(error);
+            report.setSubmissionsSent(submissionsSent.get());
+            report.setReadsSent(readsSent.get());
+            report.setFailedRequests(failedRequests.get());
+            report.setVerdictsPending(verdictsPending());
+            report.setVerdictMismatches(mismatches);
+            report.setCapturedVerdictLatency(summarize(capturedLatency));
+            report.setReplayedVerdictLatency(summarize(replayedLatency));
+            report.setReplayedReadLatency(summarize(readLatency));
+            report.setCapturedThroughput(captured);
+            report.setReplayedThroughput(replayed);
+            report.setStartedAt(startedAt);
+            report.setFinishedAt(finishedAt);
+            return report;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.shodh.contest.service;
+
+import java.nio.file.Path;
+
+/**
+ * A submission's working directory, borrowed from the {@link WorkspacePool}. Closing it hands the
+ * directory back to be reset for the next submission.
+ */
+public class Workspace implements AutoCloseable {
+    static final String OUTPUT_DIR = ".output";
+
+    private final Path directory;
+    private final WorkspacePool pool;
+
+    Workspace(Path directory, WorkspacePool pool) {
+        this.directory = directory;
+        this.pool = pool;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Where each test's program output is written, one file per test named like the test files.
+     */
+    public Path getOutputDir() {
+        return directory.resolve(OUTPUT_DIR);
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+}
@@ -0,0 +1,293 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Submission workspaces on a RAM-backed filesystem. Directories are created up front and recycled
+ * between submissions: a released workspace is emptied in the background and goes back to the idle
+ * list, so neither directory creation nor cleanup sits on the judging path.
+ *
+ * <p>Every workspace gets a quota of judge.workspace.quota-mb, and no more workspaces exist than
+ * fit in judge.workspace.max-total-mb. With judge.workspace.mount-tmpfs each workspace is its own
+ * tmpfs of the quota's size, which caps the workspace as a whole; containers see the same mount
+ * through their bind. Without it, or when this process may not mount, only the file size limit of
+ * the processes applies: it caps each file at the quota, but not the workspace or the pool.
+ */
+@Component
+public class WorkspacePool {
+    private static final Logger logger = LoggerFactory.getLogger(WorkspacePool.class);
+
+    // Exit status of a process killed by SIGXFSZ for writing past the file size limit
+    private static final int FILE_SIZE_EXCEEDED_EXIT = 128 + 25;
+
+    // Free space below which a size-capped workspace counts as full; tmpfs allocates whole pages
+    private static final long FULL_BYTES = 64 * 1024;
+
+    private static final Path SHARED_MEMORY = Paths.get("/dev/shm");
+
+    // Empty means /dev/shm when it is available, otherwise the system temp directory
+    @Value("${judge.workspace.dir:}")
+    private String configuredDir;
+
+    @Value("${judge.workspace.quota-mb:64}")
+    private int quotaMb;
+
+    @Value("${judge.workspace.max-total-mb:512}")
+    private int maxTotalMb;
+
+    // Needs CAP_SYS_ADMIN; without it the pool falls back to the file size limit alone
+    @Value("${judge.workspace.mount-tmpfs:true}")
+    private boolean mountTmpfs;
+
+    // 0 pre-creates one workspace per judge slot
+    @Value("${judge.workspace.prewarm:0}")
+    private int prewarm;
+
+    @Value("${judge.workspace.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JudgeSlots judgeSlots;
+
+    private Path baseDir;
+    private int capacity;
+    private volatile boolean sizeCapped;
+    private final BlockingDeque<Workspace> idle = new LinkedBlockingDeque<>();
+    private final Set<Path> directories = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final ExecutorService resetter =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("workspace-reset").factory());
+
+    @PostConstruct
+    void init() throws IOException {
+        baseDir = resolveBaseDir();
+        if (Files.exists(baseDir)) {
+            // Mounts left by a previous run that did not shut down cleanly
+            try (Stream<Path> entries = Files.list(baseDir)) {
+                entries.filter(Files::isDirectory).forEach(this::unmount);
+            }
+            deleteContents(baseDir);
+        }
+        Files.createDirectories(baseDir);
+        sizeCapped = mountTmpfs;
+
+        capacity = Math.max(1, maxTotalMb / quotaMb);
+        int initial = prewarm > 0 ? prewarm : judgeSlots.getSlotCount();
+        for (int i = 0; i < Math.min(initial, capacity); i++) {
+            Workspace workspace = tryCreate();
+            if (workspace != null) {
+                idle.offerFirst(workspace);
+            }
+        }
+
+        meterRegistry.gauge("judge.workspace.in-use", inUse);
+        meterRegistry.gauge("judge.workspace.idle", idle, BlockingDeque::size);
+        logger.info("Workspace pool at {} with {} of {} workspaces ({} MB each, {})", baseDir, idle.size(), capacity,
+                quotaMb, sizeCapped ? "tmpfs per workspace" : "per file");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        resetter.shutdownNow();
+        directories.forEach(this::unmount);
+        deleteContents(baseDir);
+    }
+
+    /**
+     * Borrows an empty workspace, waiting up to judge.workspace.acquire-timeout-ms when all of
+     * them are in use and the memory cap allows no more.
+     */
+    public Workspace acquire() throws InterruptedException {
+        Workspace workspace = idle.pollFirst();
+        if (workspace == null) {
+            workspace = tryCreate();
+        }
+        if (workspace == null) {
+            workspace = idle.pollFirst(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            if (workspace == null) {
+                throw new IllegalStateException("No workspace became free within " + acquireTimeoutMs + " ms");
+            }
+        }
+        inUse.incrementAndGet();
+        return workspace;
+    }
+
+    public Path getBaseDir() {
+        return baseDir;
+    }
+
+    /**
+     * Whether the directory is one of the pool's live workspaces. Anything else under the base
+     * directory is debris, such as a retired workspace whose files could not all be deleted.
+     */
+    public boolean isPooled(Path directory) {
+        return directories.contains(directory);
+    }
+
+    public long getQuotaBytes() {
+        return quotaMb * 1024L * 1024L;
+    }
+
+    /**
+     * Whether every workspace is a tmpfs capped at the quota, rather than only its files.
+     */
+    public boolean isSizeCapped() {
+        return sizeCapped;
+    }
+
+    /**
+     * Whether a process ran into the quota: killed by SIGXFSZ, or, for runtimes that ignore the
+     * signal and fail the write instead, left an output file of the full quota size, or filled
+     * its size-capped workspace so that writes failed for lack of space.
+     */
+    public boolean exceededQuota(int exitCode, Path outputFile) {
+        if (exitCode == FILE_SIZE_EXCEEDED_EXIT) {
+            return true;
+        }
+        try {
+            if (Files.exists(outputFile) && Files.size(outputFile) >= getQuotaBytes()) {
+                return true;
+            }
+            return sizeCapped && Files.getFileStore(outputFile.getParent()).getUsableSpace() < FULL_BYTES;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    void release(Workspace workspace) {
+        inUse.decrementAndGet();
+        resetter.execute(() -> {
+            try {
+                reset(workspace);
+                // Most recently used first, so the same few directories stay hot
+                idle.offerFirst(workspace);
+            } catch (IOException | UncheckedIOException e) {
+                // Usually files the program made undeletable; retire the directory instead
+                logger.warn("Retiring workspace {}: {}", workspace.getDirectory(), e.getMessage());
+                unmount(workspace.getDirectory());
+                deleteContents(workspace.getDirectory());
+                directories.remove(workspace.getDirectory());
+                created.decrementAndGet();
+            }
+        });
+    }
+
+    private Workspace tryCreate() {
+        while (true) {
+            int current = created.get();
+            if (current >= capacity) {
+                return null;
+            }
+            if (created.compareAndSet(current, current + 1)) {
+                break;
+            }
+        }
+        Path directory = baseDir.resolve("ws-" + sequence.incrementAndGet());
+        try {
+            Files.createDirectories(directory);
+            if (sizeCapped && !mount(directory)) {
+                sizeCapped = false;
+                logger.warn("Cannot mount a tmpfs per workspace; only files are capped at {} MB, not workspaces", quotaMb);
+            }
+            Files.createDirectories(directory.resolve(Workspace.OUTPUT_DIR));
+            directories.add(directory);
+            return new Workspace(directory, this);
+        } catch (IOException e) {
+            created.decrementAndGet();
+            throw new UncheckedIOException("Cannot create workspace " + directory, e);
+        }
+    }
+
+    // Mode 1777 like /tmp, so container users other than the backend's can write to it
+    private boolean mount(Path directory) {
+        return runQuietly("mount", "-t", "tmpfs", "-o", "size=" + quotaMb + "m,mode=1777", "tmpfs", directory.toString());
+    }
+
+    private void unmount(Path directory) {
+        if (mountTmpfs) {
+            runQuietly("umount", "-l", directory.toString());
+        }
+    }
+
+    private static boolean runQuietly(String... command) {
+        try {
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+                return false;
+            }
+            return process.exitValue() == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reset(Workspace workspace) throws IOException {
+        Path directory = workspace.getDirectory();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted((a, b) -> -a.compareTo(b)).toList()) {
+                if (!path.equals(directory)) {
+                    Files.delete(path);
+                }
+            }
+        }
+        Files.createDirectory(workspace.getOutputDir());
+    }
+
+    private Path resolveBaseDir() {
+        if (configuredDir != null && !configuredDir.isBlank()) {
+            return Paths.get(configuredDir);
+        }
+        if (Files.isDirectory(SHARED_MEMORY) && Files.isWritable(SHARED_MEMORY)) {
+            return SHARED_MEMORY.resolve("shodh-workspaces");
+        }
+        return Paths.get(System.getProperty("java.io.tmpdir"), "shodh-workspaces");
+    }
+
+    private void deleteContents(Path directory) {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted((a, b) -> -a.compareTo(b))
+                    .filter(path -> !path.equals(directory))
+                    .forEach(path -> {
+                        try {
+                            Files.delete(path);
+                        } catch (IOException e) {
+                            logger.debug("Error deleting file: " + path, e);
+                        }
+                    });
+        } catch (IOException e) {
+            logger.debug("Error cleaning up directory: " + directory, e);
+        }
+    }
+}
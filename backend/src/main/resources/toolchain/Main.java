@@ -0,0 +1,25 @@
+// Exercises the JDK classes typical submissions touch, so they end up in the CDS archive
+import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+public class Main {
+    public static void main(String[] args) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        StringTokenizer tokens = new StringTokenizer("3 1 2");
+        Scanner scanner = new Scanner("4 5");
+        List<Integer> values = new ArrayList<>();
+        while (tokens.hasMoreTokens()) values.add(Integer.parseInt(tokens.nextToken()));
+        values.add(scanner.nextInt() + scanner.nextInt());
+        Map<Integer, Long> counts = values.stream().collect(Collectors.groupingBy(v -> v % 2, TreeMap::new, Collectors.counting()));
+        Deque<Integer> deque = new ArrayDeque<>(values);
+        PriorityQueue<Long> heap = new PriorityQueue<>(Comparator.reverseOrder());
+        heap.add((long) deque.size());
+        int[] sorted = values.stream().mapToInt(Integer::intValue).sorted().toArray();
+        Set<String> seen = new HashSet<>(Arrays.asList(String.valueOf(reader.readLine())));
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("%d %s %s %.2f%n", heap.peek(), counts, Arrays.toString(sorted), Math.sqrt(seen.size())));
+        PrintWriter writer = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        writer.print(out);
+        writer.flush();
+    }
+}
@@ -0,0 +1,126 @@
+package com.shodh.contest.config;
+
+import com.shodh.contest.service.ReadRouting;
+import com.shodh.contest.service.ReplicaHealth;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaRoutingTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private HikariDataSource primaryPool;
+    private HikariDataSource replicaPool;
+    private ReplicaHealth replicaHealth;
+    private ReplicaRouting routing;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        primaryPool = pool("jdbc:h2:mem:primary-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        replicaPool = pool("jdbc:h2:mem:replica-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        for (HikariDataSource pool : new HikariDataSource[] {primaryPool, replicaPool}) {
+            JdbcTemplate jdbc = new JdbcTemplate(pool);
+            jdbc.execute("CREATE TABLE which_db (name VARCHAR(16))");
+            jdbc.update("INSERT INTO which_db VALUES (?)", pool == primaryPool ? "primary" : "replica");
+        }
+
+        replicaHealth = new ReplicaHealth();
+        ReflectionTestUtils.setField(replicaHealth, "replicaUrl", replicaPool.getJdbcUrl());
+        ReflectionTestUtils.setField(replicaHealth, "maxStalenessMs", 2000L);
+        ReflectionTestUtils.setField(replicaHealth, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(replicaHealth, "registerMetrics");
+
+        routing = new ReplicaRouting(primaryPool, replicaPool, null, replicaHealth);
+        routing.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadRouting.end();
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        routing.close();
+    }
+
+    @Test
+    void sendsOptedInReadOnlyReadsToAFreshReplica() {
+        replicaHealth.heartbeatReplicated(System.currentTimeMillis());
+
+        assertThat(readAs(true, true)).isEqualTo("replica");
+        assertThat(ReadRouting.usedReplica()).isTrue();
+        assertThat(meterRegistry.counter("datasource.reads", "target", "replica").count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsEverythingElseOnThePrimary() {
+        replicaHealth.heartbeatReplicated(System.currentTimeMillis());
+
+        assertThat(readAs(false, true)).isEqualTo("primary");
+        assertThat(readAs(true, false)).isEqualTo("primary");
+        assertThat(ReadRouting.usedReplica()).isFalse();
+    }
+
+    @Test
+    void readsFromThePrimaryWhileTheReplicaIsTooStale() {
+        replicaHealth.heartbeatReplicated(System.currentTimeMillis() - 10_000);
+
+        assertThat(readAs(true, true)).isEqualTo("primary");
+        assertThat(meterRegistry.counter("datasource.reads", "target", "primary").count()).isEqualTo(1);
+    }
+
+    @Test
+    void tracksReplicationThroughTheHeartbeat() {
+        // The replica has no heartbeat table yet, as if it were unreachable
+        routing.heartbeat();
+        assertThat(replicaHealth.isServing()).isFalse();
+
+        Long beatAt = new JdbcTemplate(primaryPool).queryForObject("SELECT beat_at FROM replica_heartbeat", Long.class);
+        JdbcTemplate replica = new JdbcTemplate(replicaPool);
+        replica.execute("CREATE TABLE replica_heartbeat (id INT PRIMARY KEY, beat_at BIGINT NOT NULL)");
+        replica.update("INSERT INTO replica_heartbeat VALUES (1, ?)", beatAt);
+        routing.heartbeat();
+        assertThat(replicaHealth.isServing()).isTrue();
+        assertThat(readAs(true, true)).isEqualTo("replica");
+
+        replica.update("UPDATE replica_heartbeat SET beat_at = ?", System.currentTimeMillis() - 10_000);
+        routing.heartbeat();
+        assertThat(replicaHealth.isServing()).isFalse();
+    }
+
+    @Test
+    void fallsBackWhenTheReplicaConnectionFails() {
+        replicaHealth.heartbeatReplicated(System.currentTimeMillis());
+        replicaPool.close();
+
+        assertThat(readAs(true, true)).isEqualTo("primary");
+        assertThat(replicaHealth.isServing()).isFalse();
+    }
+
+    private String readAs(boolean replicaAllowed, boolean readOnly) {
+        if (replicaAllowed) {
+            ReadRouting.allowReplica();
+        } else {
+            ReadRouting.end();
+        }
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+        return new JdbcTemplate(routing.getDataSource()).queryForObject("SELECT name FROM which_db", String.class);
+    }
+
+    private static HikariDataSource pool(String url) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url);
+        pool.setUsername("sa");
+        pool.setMaximumPoolSize(2);
+        pool.setConnectionTimeout(5000);
+        pool.setInitializationFailTimeout(-1);
+        return pool;
+    }
+}
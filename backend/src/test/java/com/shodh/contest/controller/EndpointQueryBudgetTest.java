@@ -0,0 +1,263 @@
+package com.shodh.contest.controller;
+
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Submission;
+import com.shodh.contest.model.SubmissionStatus;
+import com.shodh.contest.model.User;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.SubmissionRepository;
+import com.shodh.contest.repository.UserRepository;
+import com.shodh.contest.service.ContestMembershipService;
+import com.shodh.contest.service.QueryCounter;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Upper bounds on the SQL statements each contest and user endpoint runs, counted with
+ * {@link QueryCounter} over data with several users, problems and submissions, so an N+1
+ * regression fails the build. Each request is made twice, so both a cold and a warm second-level
+ * cache must stay within the bound.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class EndpointQueryBudgetTest {
+
+    private static final String CONTEST = "CONTEST-001";
+    private static final int USERS = 6;
+
+    private static final Map<String, Long> BOUNDS = Map.ofEntries(
+            Map.entry("GET /api/contests/{contestId}", 4L),
+            Map.entry("GET /api/contests/{contestId}/problems", 4L),
+            Map.entry("GET /api/contests/{contestId}/leaderboard", 3L),
+            Map.entry("GET /api/contests/{contestId}/submissions", 2L),
+            Map.entry("GET /api/contests/{contestId}/problems/{problemId}/submissions", 3L),
+            Map.entry("GET /api/submissions/{submissionId}", 2L),
+            Map.entry("POST /api/submissions", 4L),
+            Map.entry("POST /api/custom-runs", 2L),
+            Map.entry("GET /api/custom-runs/{runId}", 0L),
+            Map.entry("POST /api/users/register", 2L),
+            Map.entry("POST /api/users/join-contest", 4L),
+            Map.entry("GET /api/users/{username}/submissions", 1L));
+
+    @Value("${db.query-budget.endpoints}")
+    private String configuredBudgets;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    @Autowired
+    private ContestMembershipService contestMembershipService;
+
+    @Autowired
+    @Qualifier("requestMappingHandlerMapping")
+    private RequestMappingHandlerMapping handlerMapping;
+
+    private String submissionId;
+
+    @BeforeAll
+    void seed() {
+        Contest contest = contestRepository.findByContestIdWithProblems(CONTEST).orElseThrow();
+        List<Problem> problems = contest.getProblems();
+        for (int u = 0; u < USERS; u++) {
+            String username = "budget-user-" + u;
+            User user = new User();
+            user.setUsername(username);
+            user.setDisplayName(username);
+            userRepository.save(user);
+            contestMembershipService.join(username, contest);
+
+            for (int p = 0; p < problems.size(); p++) {
+                for (int attempt = 0; attempt < 2; attempt++) {
+                    boolean accepted = attempt == 1 && (u + p) % 2 == 0;
+                    Submission submission = new Submission();
+                    submission.setSubmissionId(UUID.randomUUID().toString());
+                    submission.setContest(contest);
+                    submission.setProblem(problems.get(p));
+                    submission.setUsername(username);
+                    submission.setCode("print(1)");
+                    submission.setLanguage("python");
+                    submission.setStatus(accepted ? SubmissionStatus.ACCEPTED : SubmissionStatus.WRONG_ANSWER);
+                    submission.setScore(accepted ? 100 : 0);
+                    submission.setSubmittedAt(LocalDateTime.now().minusMinutes(60 - u * 5L - p - attempt));
+                    submission.setProcessedAt(submission.getSubmittedAt().plusSeconds(1));
+                    submissionId = submissionRepository.save(submission).getSubmissionId();
+                }
+            }
+        }
+    }
+
+    @Test
+    void everyEndpointHasABound() {
+        Set<String> endpoints = handlerMapping.getHandlerMethods().entrySet().stream()
+                .filter(entry -> entry.getValue().getBeanType() == ContestController.class
+                        || entry.getValue().getBeanType() == UserController.class)
+                .flatMap(entry -> entry.getKey().getMethodsCondition().getMethods().stream()
+                        .flatMap(method -> entry.getKey().getPatternValues().stream()
+                                .map(pattern -> method.name() + " " + pattern)))
+                .collect(Collectors.toSet());
+
+        assertThat(BOUNDS.keySet()).containsExactlyInAnyOrderElementsOf(endpoints);
+    }
+
+    // The runtime budgets flag the same bounds in production; raising one means raising both here
+    @Test
+    void boundsMatchConfiguredBudgets() {
+        Map<String, Long> configured = new TreeMap<>();
+        for (String entry : configuredBudgets.split(",")) {
+            int separator = entry.lastIndexOf(':');
+            configured.put(entry.substring(0, separator).trim(), Long.parseLong(entry.substring(separator + 1).trim()));
+        }
+
+        assertThat(configured).containsExactlyInAnyOrderEntriesOf(BOUNDS);
+    }
+
+    @Test
+    void contestDetail() throws Exception {
+        assertWithinBound("GET /api/contests/{contestId}", get("/api/contests/" + CONTEST), status().isOk());
+    }
+
+    @Test
+    void contestProblems() throws Exception {
+        assertWithinBound("GET /api/contests/{contestId}/problems", get("/api/contests/" + CONTEST + "/problems"),
+                status().isOk());
+    }
+
+    @Test
+    void leaderboard() throws Exception {
+        assertWithinBound("GET /api/contests/{contestId}/leaderboard",
+                get("/api/contests/" + CONTEST + "/leaderboard"), status().isOk());
+    }
+
+    @Test
+    void contestSubmissions() throws Exception {
+        assertWithinBound("GET /api/contests/{contestId}/submissions",
+                get("/api/contests/" + CONTEST + "/submissions").param("limit", "20"), status().isOk());
+    }
+
+    @Test
+    void problemSubmissions() throws Exception {
+        assertWithinBound("GET /api/contests/{contestId}/problems/{problemId}/submissions",
+                get("/api/contests/" + CONTEST + "/problems/SUM-001/submissions").param("limit", "20"),
+                status().isOk());
+    }
+
+    @Test
+    void submissionStatus() throws Exception {
+        assertWithinBound("GET /api/submissions/{submissionId}", get("/api/submissions/" + submissionId),
+                status().isOk());
+    }
+
+    @Test
+    void submit() throws Exception {
+        assertWithinBound("POST /api/submissions", post("/api/submissions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"contestId\":\"" + CONTEST + "\",\"problemId\":\"SUM-001\",\"username\":\"budget-user-0\","
+                        + "\"language\":\"python\",\"code\":\"print(8)\"}"), status().isOk());
+    }
+
+    @Test
+    void customRun() throws Exception {
+        long statements = 0;
+        for (int i = 0; i < 2; i++) {
+            statements = Math.max(statements, count(post("/api/custom-runs")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"contestId\":\"" + CONTEST + "\",\"username\":\"budget-user-" + (i + 1) + "\","
+                            + "\"language\":\"python\",\"code\":\"print(input())\",\"input\":\"1\"}"),
+                    status().isAccepted()).statements);
+        }
+        assertThat(statements).as("POST /api/custom-runs").isLessThanOrEqualTo(BOUNDS.get("POST /api/custom-runs"));
+    }
+
+    @Test
+    void customRunStatus() throws Exception {
+        Counted submitted = count(post("/api/custom-runs")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"contestId\":\"" + CONTEST + "\",\"username\":\"budget-user-3\","
+                        + "\"language\":\"python\",\"code\":\"print(2)\"}"), status().isAccepted());
+        String runId = submitted.result.getResponse().getContentAsString().replaceAll(".*\"runId\":\"([^\"]+)\".*", "$1");
+
+        assertWithinBound("GET /api/custom-runs/{runId}", get("/api/custom-runs/" + runId), status().isOk());
+    }
+
+    @Test
+    void register() throws Exception {
+        long statements = count(post("/api/users/register")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\":\"budget-newcomer\"}"), status().isCreated()).statements;
+        assertThat(statements).as("POST /api/users/register").isLessThanOrEqualTo(BOUNDS.get("POST /api/users/register"));
+    }
+
+    @Test
+    void joinContest() throws Exception {
+        assertWithinBound("POST /api/users/join-contest", post("/api/users/join-contest")
+                .param("username", "budget-user-0").param("contestId", CONTEST), status().isOk());
+    }
+
+    @Test
+    void userSubmissions() throws Exception {
+        assertWithinBound("GET /api/users/{username}/submissions",
+                get("/api/users/budget-user-0/submissions").param("limit", "20"), status().isOk());
+    }
+
+    private void assertWithinBound(String endpoint, MockHttpServletRequestBuilder request, ResultMatcher expected)
+            throws Exception {
+        Map<String, Long> counts = new TreeMap<>();
+        counts.put("first", count(request, expected).statements);
+        counts.put("second", count(request, expected).statements);
+        assertThat(counts).as(endpoint).allSatisfy((attempt, statements) ->
+                assertThat(statements).as(endpoint + " (" + attempt + " request)").isLessThanOrEqualTo(BOUNDS.get(endpoint)));
+    }
+
+    private Counted count(MockHttpServletRequestBuilder request, ResultMatcher expected) throws Exception {
+        QueryCounter.begin();
+        MvcResult result;
+        try {
+            result = mockMvc.perform(request).andExpect(expected).andReturn();
+        } catch (Exception | AssertionError e) {
+            QueryCounter.end();
+            throw e;
+        }
+        return new Counted(QueryCounter.end(), result);
+    }
+
+    private record Counted(long statements, MvcResult result) {
+    }
+}
@@ -0,0 +1,79 @@
+package com.shodh.contest.controller;
+
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.repository.ContestMembershipRepository;
+import com.shodh.contest.repository.ContestRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SubmissionAutoJoinTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ContestMembershipRepository membershipRepository;
+
+    /**
+     * With every other connection taken, as at a contest opening when each request holds one, a
+     * first submission must join and submit on a single connection rather than wait for a second.
+     */
+    @Test
+    void joinsAndSubmitsOnASingleConnection() throws Exception {
+        int poolSize = dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        List<Connection> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < poolSize - 1; i++) {
+                held.add(dataSource.getConnection());
+            }
+            CompletableFuture<Integer> status = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return mockMvc.perform(post("/api/submissions").contentType(MediaType.APPLICATION_JSON).content("""
+                                    {"contestId": "CONTEST-001", "problemId": "SUM-001", "username": "first-timer",
+                                     "language": "python", "code": "print(1)"}
+                                    """))
+                            .andReturn().getResponse().getStatus();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+
+            // Well inside the pool's 30 s connection timeout, which waiting for a second one runs into
+            assertThat(status.get(15, TimeUnit.SECONDS)).isEqualTo(200);
+        } finally {
+            for (Connection connection : held) {
+                connection.close();
+            }
+        }
+
+        Contest contest = contestRepository.findByContestId("CONTEST-001").orElseThrow();
+        assertThat(membershipRepository.existsByUsernameAndContestId("first-timer", contest.getId())).isTrue();
+    }
+}
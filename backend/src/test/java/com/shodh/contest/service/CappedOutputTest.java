@@ -0,0 +1,46 @@
+package com.shodh.contest.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CappedOutputTest {
+
+    @Test
+    void keepsOutputUnderTheCapAsIs() {
+        CappedOutput output = new CappedOutput(16);
+        write(output, "error: oops");
+
+        assertThat(output.isTruncated()).isFalse();
+        assertThat(output.toString()).isEqualTo("error: oops");
+    }
+
+    @Test
+    void keepsTheHeadAndMarksTheRestAsTruncated() {
+        CappedOutput output = new CappedOutput(8);
+        write(output, "12345");
+        write(output, "67890");
+        write(output, "abc");
+
+        assertThat(output.isTruncated()).isTrue();
+        assertThat(output.toString()).isEqualTo("12345678\n... [truncated, 13 bytes in total]");
+    }
+
+    @Test
+    void boundsPumpedStderrOfAFloodingProcess() throws Exception {
+        Process process = new ProcessBuilder("bash", "-c",
+                "yes | head -c 5000000 >&2; echo done").start();
+        ProcessPump.Outcome outcome = ProcessPump.run(process, null, 30000, 1024);
+
+        assertThat(outcome.isTimedOut()).isFalse();
+        assertThat(outcome.getStdout()).isEqualTo("done\n");
+        assertThat(outcome.getStderr()).isEqualTo("y\n".repeat(512) + "\n... [truncated, 5000000 bytes in total]");
+    }
+
+    private static void write(CappedOutput output, String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        output.write(bytes, 0, bytes.length);
+    }
+}
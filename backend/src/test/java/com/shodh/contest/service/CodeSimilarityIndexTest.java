@@ -0,0 +1,242 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.SimilarityCluster;
+import com.shodh.contest.dto.SimilarityMember;
+import com.shodh.contest.model.CodeSignature;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Submission;
+import com.shodh.contest.model.SubmissionStatus;
+import com.shodh.contest.repository.CodeSignatureRepository;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import com.shodh.contest.repository.SubmissionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CodeSimilarityIndexTest {
+
+    private static final String SUM = """
+            import java.util.Scanner;
+            public class Main {
+                public static void main(String[] args) {
+                    Scanner scanner = new Scanner(System.in);
+                    int n = scanner.nextInt();
+                    long total = 0;
+                    for (int i = 0; i < n; i++) {
+                        total += scanner.nextInt();
+                    }
+                    System.out.println(total);
+                }
+            }
+            """;
+
+    private static final String SUM_RENAMED = """
+            import java.util.Scanner;
+            // My own solution
+            public class Main {
+                public static void main(String[] argv) {
+                    Scanner sc = new Scanner(System.in);
+                    int count = sc.nextInt();
+                    long acc = 0;
+                    for (int k = 0; k < count; k++)
+                    {
+                        acc += sc.nextInt();
+                    }
+                    System.out.println(acc);
+                }
+            }
+            """;
+
+    private static final String MAX = """
+            import java.io.*;
+            public class Main {
+                public static void main(String[] args) throws IOException {
+                    BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+                    String[] parts = reader.readLine().trim().split(" ");
+                    int best = Integer.MIN_VALUE;
+                    for (String part : parts) {
+                        if (!part.isEmpty()) best = Math.max(best, Integer.parseInt(part));
+                    }
+                    System.out.println(best);
+                }
+            }
+            """;
+
+    private final Problem problem = new Problem();
+    private CodeSignatureRepository codeSignatureRepository;
+    private SubmissionRepository submissionRepository;
+    private ProblemRepository problemRepository;
+    private CodeSimilarityIndex index;
+    private long nextId = 1;
+
+    @BeforeEach
+    void setUp() {
+        problem.setId(7L);
+        problem.setProblemId("SUM-001");
+        codeSignatureRepository = mock(CodeSignatureRepository.class);
+        submissionRepository = mock(SubmissionRepository.class);
+        Contest contest = new Contest();
+        contest.setId(3L);
+        ContestRepository contestRepository = mock(ContestRepository.class);
+        when(contestRepository.findByContestId("CONTEST-001")).thenReturn(Optional.of(contest));
+        problemRepository = mock(ProblemRepository.class);
+        when(problemRepository.findByContestIdAndProblemId(3L, "SUM-001")).thenReturn(Optional.of(problem));
+        when(codeSignatureRepository.findPage(anyLong(), any())).thenReturn(List.of());
+        when(submissionRepository.findUnsigned(any(), anyLong(), any())).thenReturn(List.of());
+
+        index = new CodeSimilarityIndex();
+        ReflectionTestUtils.setField(index, "enabled", true);
+        ReflectionTestUtils.setField(index, "bands", 16);
+        ReflectionTestUtils.setField(index, "rows", 4);
+        ReflectionTestUtils.setField(index, "shingleTokens", 5);
+        ReflectionTestUtils.setField(index, "codeSignatureRepository", codeSignatureRepository);
+        ReflectionTestUtils.setField(index, "submissionRepository", submissionRepository);
+        ReflectionTestUtils.setField(index, "contestRepository", contestRepository);
+        ReflectionTestUtils.setField(index, "problemRepository", problemRepository);
+        ReflectionTestUtils.setField(index, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void signsDisguisedCopiesIdentically() {
+        assertThat(index.signature(SUM_RENAMED, "java")).isEqualTo(index.signature(SUM, "java"));
+        assertThat(index.signature(SUM, "java")).hasSize(64);
+    }
+
+    @Test
+    void signsDifferentProgramsDifferently() {
+        int[] sum = index.signature(SUM, "java");
+        int[] max = index.signature(MAX, "java");
+
+        int equal = 0;
+        for (int i = 0; i < sum.length; i++) {
+            equal += sum[i] == max[i] ? 1 : 0;
+        }
+        assertThat(equal).isLessThan(sum.length / 2);
+    }
+
+    @Test
+    void groupsCopiesAcrossUsersAndLeavesOthersOut() throws Exception {
+        Submission alice = accepted("alice", SUM);
+        Submission bob = accepted("bob", SUM_RENAMED);
+        Submission carol = accepted("carol", MAX);
+        accepted("dave", MAX.replace("best", "top"));
+        accepted("erin", "print(sum(map(int, open(0).read().split()[1:])))");
+        awaitIndexed();
+
+        List<SimilarityCluster> clusters = index.clusters("CONTEST-001", "SUM-001", 0.8, 10);
+
+        assertThat(clusters).hasSize(2);
+        assertThat(clusters).allSatisfy(cluster -> assertThat(cluster.getUsers()).isEqualTo(2));
+        SimilarityCluster copies = clusters.stream()
+                .filter(cluster -> cluster.getMembers().get(0).getUsername().equals("alice"))
+                .findFirst().orElseThrow();
+        assertThat(copies.getMembers()).extracting(SimilarityMember::getSubmissionId)
+                .containsExactly(alice.getSubmissionId(), bob.getSubmissionId());
+        assertThat(copies.getMembers()).extracting(SimilarityMember::getSimilarity).containsOnly(1.0);
+        assertThat(clusters).flatExtracting(SimilarityCluster::getMembers).extracting(SimilarityMember::getUsername)
+                .doesNotContain("erin")
+                .contains(carol.getUsername());
+        assertThat(index.clusters("CONTEST-001", "SUM-001", 0.8, 1)).hasSize(1);
+    }
+
+    @Test
+    void doesNotReportOneUsersOwnResubmissions() throws Exception {
+        accepted("alice", SUM);
+        accepted("alice", SUM_RENAMED);
+        awaitIndexed();
+
+        assertThat(index.clusters("CONTEST-001", "SUM-001", 0.8, 10)).isEmpty();
+    }
+
+    @Test
+    void dropsSubmissionsThatAreNoLongerAccepted() throws Exception {
+        accepted("alice", SUM);
+        Submission bob = accepted("bob", SUM_RENAMED);
+        awaitIndexed();
+        bob.setStatus(SubmissionStatus.WRONG_ANSWER);
+        index.record(bob);
+        awaitIndexed();
+
+        assertThat(index.clusters("CONTEST-001", "SUM-001", 0.8, 10)).isEmpty();
+        verify(codeSignatureRepository).deleteById(bob.getId());
+    }
+
+    @Test
+    void loadsStoredSignaturesAndSignsTheRestAtStartup() throws Exception {
+        Submission stored = submission("alice", SUM);
+        CodeSignature signature = new CodeSignature(stored.getId(), stored.getSubmissionId(), problem.getId(),
+                "alice", "java", encode(index.signature(SUM, "java")));
+        CodeSignature oldLayout = new CodeSignature(99L, "old", problem.getId(), "zed", "java", new byte[8]);
+        when(codeSignatureRepository.findPage(anyLong(), any())).thenReturn(List.of(signature, oldLayout));
+        Submission unsigned = submission("bob", SUM_RENAMED);
+        when(submissionRepository.findUnsigned(any(), anyLong(), any())).thenReturn(List.of(unsigned));
+
+        index.load();
+        awaitIndexed();
+
+        verify(codeSignatureRepository).delete(oldLayout);
+        verify(codeSignatureRepository).saveAll(any());
+        assertThat(index.clusters("CONTEST-001", "SUM-001", 0.8, 10)).singleElement()
+                .satisfies(cluster -> assertThat(cluster.getMembers()).extracting(SimilarityMember::getUsername)
+                        .containsExactly("alice", "bob"));
+    }
+
+    @Test
+    void rejectsUnknownProblemsAndBadThresholds() {
+        assertThatThrownBy(() -> index.clusters("NOPE", "SUM-001", 0.8, 10)).hasMessage("Contest not found: NOPE");
+        assertThatThrownBy(() -> index.clusters("CONTEST-001", "NOPE", 0.8, 10)).hasMessageContaining("Problem not found");
+
+        assertThatThrownBy(() -> index.clusters("CONTEST-001", "SUM-001", 0, 10)).hasMessageContaining("Threshold");
+        assertThatThrownBy(() -> index.clusters("CONTEST-001", "SUM-001", 1.5, 10)).hasMessageContaining("Threshold");
+    }
+
+    private Submission accepted(String username, String code) {
+        Submission submission = submission(username, code);
+        index.record(submission);
+        return submission;
+    }
+
+    private Submission submission(String username, String code) {
+        Submission submission = new Submission();
+        submission.setId(nextId++);
+        submission.setSubmissionId("sub-" + submission.getId());
+        submission.setProblem(problem);
+        submission.setUsername(username);
+        submission.setLanguage(code.startsWith("print") ? "python" : "java");
+        submission.setCode(code);
+        submission.setStatus(SubmissionStatus.ACCEPTED);
+        return submission;
+    }
+
+    // Everything queued on the single indexer thread before this has run
+    private void awaitIndexed() throws Exception {
+        ((ExecutorService) ReflectionTestUtils.getField(index, "indexer")).submit(() -> { }).get();
+    }
+
+    private static byte[] encode(int[] minHash) {
+        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.allocate(minHash.length * Integer.BYTES);
+        buffer.asIntBuffer().put(minHash);
+        return buffer.array();
+    }
+}
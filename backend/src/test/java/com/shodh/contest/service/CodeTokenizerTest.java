@@ -0,0 +1,56 @@
+package com.shodh.contest.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CodeTokenizerTest {
+
+    @Test
+    void normalizesIdentifiersAndLiterals() {
+        assertThat(CodeTokenizer.tokenize("int total = count + 42; String s = \"hi\";", "java"))
+                .containsExactly("int", "I", "=", "I", "+", "N", ";", "I", "I", "=", "S", ";");
+    }
+
+    @Test
+    void ignoresRenamingCommentsAndLayout() {
+        String original = """
+                // Sum of the input
+                int sum(int[] values) {
+                    int total = 0; /* accumulator */
+                    for (int v : values) total += v;
+                    return total;
+                }
+                """;
+        String disguised = """
+                int   add(int[] xs)
+                {
+                  int acc = 0;
+                  for (int x : xs)
+                      acc += x;   // keep going
+                  return acc;
+                }
+                """;
+
+        assertThat(CodeTokenizer.tokenize(disguised, "java")).isEqualTo(CodeTokenizer.tokenize(original, "java"));
+    }
+
+    @Test
+    void dropsPreprocessorLinesInTheCFamilyOnly() {
+        assertThat(CodeTokenizer.tokenize("#include <stdio.h>\nint x;", "cpp")).containsExactly("int", "I", ";");
+        assertThat(CodeTokenizer.tokenize("a = b # note\nc", "python")).containsExactly("I", "=", "I", "I");
+        assertThat(CodeTokenizer.tokenize("a = b # c", "java")).containsExactly("I", "=", "I", "#", "I");
+    }
+
+    @Test
+    void readsPythonDocstringsAsOneString() {
+        assertThat(CodeTokenizer.tokenize("def f():\n    \"\"\"Doc \"quoted\" text\"\"\"\n    return 1.5", "python"))
+                .containsExactly("def", "I", "(", ")", ":", "S", "return", "N");
+    }
+
+    @Test
+    void skipsEscapedQuotesInsideStrings() {
+        assertThat(CodeTokenizer.tokenize("s = \"a\\\"b\" + 'c'", "javascript"))
+                .containsExactly("I", "=", "S", "+", "S");
+    }
+}
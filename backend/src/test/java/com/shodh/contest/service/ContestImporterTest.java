@@ -0,0 +1,164 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.ImportReport;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ContestImporterTest {
+
+    @Autowired
+    private ContestImporter contestImporter;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void importsProblemIdsThatAnotherContestAlreadyUses() throws IOException {
+        // SUM-001 is also a problem of the seeded contest
+        Path first = contestPackage("IMPORT-SHARED-1", "SUM-001", "EXTRA");
+        Path second = contestPackage("IMPORT-SHARED-2", "SUM-001", "EXTRA");
+
+        contestImporter.importPath(first);
+        ImportReport report = contestImporter.importPath(second);
+
+        assertThat(report.getProblems()).isEqualTo(2);
+        assertThat(report.getTestCases()).isEqualTo(4);
+        Contest contest = contestRepository.findByContestId("IMPORT-SHARED-2").orElseThrow();
+        Problem problem = problemRepository.findByContestIdAndProblemId(contest.getId(), "SUM-001").orElseThrow();
+        assertThat(problem.getTitle()).isEqualTo("Problem SUM-001");
+        assertThat(problem.getDescription()).isEqualTo("Statement of SUM-001");
+    }
+
+    @Test
+    void rejectsDuplicateProblemIdsWithinOnePackage() throws IOException {
+        Path contest = contestPackage("IMPORT-DUPLICATE", "A", "A");
+
+        assertThatThrownBy(() -> contestImporter.importPath(contest))
+                .hasMessageContaining("Duplicate problemId: A");
+        assertThat(contestRepository.findByContestId("IMPORT-DUPLICATE")).isEmpty();
+    }
+
+    @Test
+    void rejectsAContestThatAlreadyExists() throws IOException {
+        Path contest = contestPackage("CONTEST-001", "A");
+
+        assertThatThrownBy(() -> contestImporter.importPath(contest))
+                .hasMessageContaining("Contest already exists: CONTEST-001");
+    }
+
+    @Test
+    void listsEveryProblemErrorAndStoresNothing() throws IOException {
+        Path contest = contestPackage("IMPORT-INVALID", "A", "B", "C");
+        Files.delete(contest.resolve("A").resolve("tests").resolve("2.out"));
+        Files.delete(contest.resolve("B").resolve("statement.md"));
+        try (Stream<Path> tests = Files.list(contest.resolve("C").resolve("tests"))) {
+            for (Path test : tests.toList()) {
+                Files.delete(test);
+            }
+        }
+
+        assertThatThrownBy(() -> contestImporter.importPath(contest))
+                .hasMessageContaining("A: test 2 has no .out file")
+                .hasMessageContaining("B: statement file not found")
+                .hasMessageContaining("C: no test cases");
+        assertThat(contestRepository.findByContestId("IMPORT-INVALID")).isEmpty();
+    }
+
+    @Test
+    void rejectsUnsafeIdsAndSubtasksBeyondTheTests() throws IOException {
+        Path unsafe = contestPackage("IMPORT-UNSAFE", "../A");
+        assertThatThrownBy(() -> contestImporter.importPath(unsafe))
+                .hasMessageContaining("problemId must be letters, digits");
+
+        Path subtasks = contestPackage("IMPORT-SUBTASKS", "A");
+        Files.writeString(subtasks.resolve("contest.json"), """
+                {"contestId": "IMPORT-SUBTASKS", "name": "Subtasks",
+                 "problems": [{"problemId": "A", "title": "A", "judgingPolicy": "IOI",
+                               "subtasks": [{"testCount": 2, "points": 50}, {"testCount": 1, "points": 50}]}]}
+                """);
+        assertThatThrownBy(() -> contestImporter.importPath(subtasks))
+                .hasMessageContaining("A: subtasks cover 3 tests but the package has 2");
+    }
+
+    @Test
+    void importsAZippedPackageInsideATopLevelDirectory() throws IOException {
+        Path contest = contestPackage("IMPORT-ZIP", "A");
+        ByteArrayOutputStream zipped = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(zipped); Stream<Path> files = Files.walk(contest)) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                zip.putNextEntry(new ZipEntry("round/" + contest.relativize(file)));
+                Files.copy(file, zip);
+                zip.closeEntry();
+            }
+        }
+
+        ImportReport report = contestImporter.importZip(new ByteArrayInputStream(zipped.toByteArray()));
+
+        assertThat(report.getContestId()).isEqualTo("IMPORT-ZIP");
+        assertThat(report.getTestCases()).isEqualTo(2);
+    }
+
+    @Test
+    void ordersTestNamesNaturally() {
+        assertThat(Stream.of("10", "2", "test10", "test2", "1").sorted(ContestImporter::compareNatural).toList())
+                .containsExactly("1", "2", "10", "test2", "test10");
+    }
+
+    // A package whose problems each have a statement and tests 1 and 2
+    private Path contestPackage(String contestId, String... problemIds) throws IOException {
+        Path root = Files.createDirectories(dir.resolve(contestId));
+        StringBuilder problems = new StringBuilder();
+        for (String problemId : problemIds) {
+            if (problems.length() > 0) {
+                problems.append(", ");
+            }
+            problems.append("{\"problemId\": \"").append(problemId).append("\", \"title\": \"Problem ")
+                    .append(problemId).append("\", \"timeLimitSeconds\": 2}");
+            Path problem = root.resolve(problemId).normalize();
+            if (!problem.startsWith(root)) {
+                continue;
+            }
+            Path tests = Files.createDirectories(problem.resolve("tests"));
+            Files.writeString(problem.resolve("statement.md"), "Statement of " + problemId);
+            for (String test : List.of("1", "2")) {
+                Files.writeString(tests.resolve(test + ".in"), test + "\n");
+                Files.writeString(tests.resolve(test + ".out"), test + "\n");
+            }
+        }
+        Files.writeString(root.resolve("contest.json"), "{\"contestId\": \"" + contestId + "\", \"name\": \"Import "
+                + contestId + "\", \"problems\": [" + problems + "]}");
+        return root;
+    }
+}
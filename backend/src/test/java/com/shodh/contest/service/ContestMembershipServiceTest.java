@@ -0,0 +1,116 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.repository.ContestMembershipRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ContestMembershipServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Contest contest = new Contest();
+    private ContestMembershipRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        contest.setId(3L);
+        contest.setContestId("CONTEST-001");
+        repository = mock(ContestMembershipRepository.class);
+    }
+
+    @Test
+    void rejectsAnUnknownMode() {
+        assertThatThrownBy(() -> service("invite-only", 10)).hasMessageContaining("contest.membership.mode");
+    }
+
+    @Test
+    void answersRepeatedChecksFromTheCache() {
+        when(repository.existsByUsernameAndContestId("alice", 3L)).thenReturn(true);
+        ContestMembershipService service = service("required", 10);
+
+        assertThat(service.isMember("alice", contest)).isTrue();
+        assertThat(service.isMember("alice", contest)).isTrue();
+
+        verify(repository, times(1)).existsByUsernameAndContestId("alice", 3L);
+        assertThat(cache("hit")).isEqualTo(1);
+        assertThat(cache("miss")).isEqualTo(1);
+    }
+
+    @Test
+    void forgetsTheLeastRecentlyUsedPairsBeyondTheCacheSize() {
+        ContestMembershipService service = service("required", 2);
+
+        service.isMember("alice", contest);
+        service.isMember("bob", contest);
+        service.isMember("alice", contest);
+        service.isMember("carol", contest);
+        service.isMember("alice", contest);
+        service.isMember("bob", contest);
+
+        verify(repository, times(1)).existsByUsernameAndContestId("alice", 3L);
+        verify(repository, times(2)).existsByUsernameAndContestId("bob", 3L);
+    }
+
+    @Test
+    void joinsOnTheFirstSubmissionInAutoJoinMode() {
+        ContestMembershipService service = service("auto-join", 10);
+
+        service.checkEligible("alice", contest);
+        service.checkEligible("alice", contest);
+
+        verify(repository, times(1)).saveAndFlush(any());
+        verify(repository, times(1)).existsByUsernameAndContestId("alice", 3L);
+        assertThat(service.isMember("alice", contest)).isTrue();
+    }
+
+    @Test
+    void rejectsNonMembersWhenJoiningIsRequired() {
+        ContestMembershipService service = service("required", 10);
+
+        assertThatThrownBy(() -> service.checkEligible("alice", contest))
+                .hasMessage("User alice has not joined contest CONTEST-001");
+        verify(repository, never()).saveAndFlush(any());
+
+        assertThat(service.join("alice", contest)).isTrue();
+        service.checkEligible("alice", contest);
+    }
+
+    @Test
+    void reportsARepeatedOrConcurrentJoinAsNotJoined() {
+        ContestMembershipService service = service("required", 10);
+        when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate"));
+
+        assertThat(service.join("alice", contest)).isFalse();
+        assertThat(service.isMember("alice", contest)).isTrue();
+        assertThat(service.join("alice", contest)).isFalse();
+        verify(repository, times(1)).saveAndFlush(any());
+    }
+
+    private ContestMembershipService service(String mode, int cacheSize) {
+        ContestMembershipService service = new ContestMembershipService();
+        ReflectionTestUtils.setField(service, "mode", mode);
+        ReflectionTestUtils.setField(service, "cacheSize", cacheSize);
+        ReflectionTestUtils.setField(service, "membershipRepository", repository);
+        ReflectionTestUtils.setField(service, "transactionManager", mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "meterRegistry", meterRegistry);
+        service.init();
+        return service;
+    }
+
+    private double cache(String result) {
+        return meterRegistry.counter("contest.membership.cache", "result", result).count();
+    }
+}
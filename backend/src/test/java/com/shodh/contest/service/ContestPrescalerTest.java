@@ -0,0 +1,183 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.ContestPrescale;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ContestPrescalerTest {
+
+    @TempDir
+    Path dir;
+
+    private ContestRepository contestRepository;
+    private ProblemRepository problemRepository;
+    private TestDataStore testDataStore;
+    private ExecutorWarmup executorWarmup;
+    private JudgeSlots judgeSlots;
+    private ContestPrescaler prescaler;
+    private final Problem problem = new Problem();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        contestRepository = mock(ContestRepository.class);
+        problemRepository = mock(ProblemRepository.class);
+        testDataStore = mock(TestDataStore.class);
+        executorWarmup = mock(ExecutorWarmup.class);
+        judgeSlots = mock(JudgeSlots.class);
+        when(judgeSlots.getSlotCount()).thenReturn(4);
+        when(judgeSlots.getActiveSlots()).thenReturn(4);
+
+        // Three tests of 1 MB input each, more than the preload budget
+        for (int i = 0; i < 3; i++) {
+            Files.write(dir.resolve(TestSet.fileName(i, "in")), new byte[1024 * 1024]);
+            Files.writeString(dir.resolve(TestSet.fileName(i, "out")), "42\n");
+        }
+        when(problemRepository.findByContestId(any())).thenReturn(List.of(problem));
+        when(testDataStore.acquire(problem)).thenReturn(new TestSet(dir, 3, 1));
+
+        prescaler = new ContestPrescaler();
+        ReflectionTestUtils.setField(prescaler, "enabled", true);
+        ReflectionTestUtils.setField(prescaler, "leadMinutes", 10L);
+        ReflectionTestUtils.setField(prescaler, "openingMinutes", 10L);
+        ReflectionTestUtils.setField(prescaler, "finalMinutes", 15L);
+        ReflectionTestUtils.setField(prescaler, "languages", Set.of("java"));
+        ReflectionTestUtils.setField(prescaler, "canaryRuns", 3);
+        ReflectionTestUtils.setField(prescaler, "preloadMaxMb", 2L);
+        ReflectionTestUtils.setField(prescaler, "idleSlots", 1);
+        ReflectionTestUtils.setField(prescaler, "contestRepository", contestRepository);
+        ReflectionTestUtils.setField(prescaler, "problemRepository", problemRepository);
+        ReflectionTestUtils.setField(prescaler, "testDataStore", testDataStore);
+        ReflectionTestUtils.setField(prescaler, "executorWarmup", executorWarmup);
+        ReflectionTestUtils.setField(prescaler, "judgeSlots", judgeSlots);
+        ReflectionTestUtils.setField(prescaler, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void preparesOnceForTheOpeningOfAContest() throws InterruptedException {
+        LocalDateTime now = LocalDateTime.now();
+        when(judgeSlots.getActiveSlots()).thenReturn(1);
+        contests(contest(1L, now.plusMinutes(5), now.plusHours(2)));
+
+        prescaler.check();
+        List<ContestPrescale> history = awaitHistory(1);
+        prescaler.check();
+        Thread.sleep(100);
+
+        assertThat(prescaler.getHistory()).hasSize(1);
+        ContestPrescale prepared = history.get(0);
+        assertThat(prepared.getContestId()).isEqualTo("C1");
+        assertThat(prepared.getWindow()).isEqualTo("opening");
+        assertThat(prepared.getWindowStart()).isEqualTo(now.plusMinutes(5).minusMinutes(10));
+        assertThat(prepared.getProblems()).isEqualTo(1);
+        assertThat(prepared.getTestDataMb()).isEqualTo(2);
+        assertThat(prepared.getError()).isNull();
+        verify(executorWarmup, times(1)).rewarm(Set.of("java"), 3);
+        verify(judgeSlots, times(2)).setActiveSlots(4);
+    }
+
+    @Test
+    void preparesForTheFinalMinutes() {
+        LocalDateTime now = LocalDateTime.now();
+        contests(contest(1L, now.minusHours(2), now.plusMinutes(5)));
+
+        prescaler.check();
+
+        assertThat(awaitHistory(1).get(0).getWindow()).isEqualTo("closing");
+    }
+
+    @Test
+    void scalesDownBetweenContestWindows() {
+        LocalDateTime now = LocalDateTime.now();
+        // Past its opening window and not yet in its final minutes
+        contests(contest(1L, now.minusMinutes(30), now.plusMinutes(16)));
+
+        prescaler.check();
+
+        verify(judgeSlots).setActiveSlots(1);
+        verifyNoInteractions(executorWarmup);
+    }
+
+    @Test
+    void keepsEverySlotWithoutAnIdleSize() {
+        ReflectionTestUtils.setField(prescaler, "idleSlots", 0);
+        when(judgeSlots.getActiveSlots()).thenReturn(2);
+        contests();
+
+        prescaler.check();
+
+        verify(judgeSlots).setActiveSlots(4);
+    }
+
+    @Test
+    void recordsAFailedPreparation() {
+        LocalDateTime now = LocalDateTime.now();
+        contests(contest(1L, now.plusMinutes(1), now.plusHours(1)));
+        when(testDataStore.acquire(problem)).thenThrow(new IllegalStateException("test data missing"));
+
+        prescaler.check();
+
+        assertThat(awaitHistory(1).get(0).getError()).isEqualTo("test data missing");
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(prescaler, "enabled", false);
+
+        prescaler.check();
+
+        verifyNoInteractions(contestRepository, judgeSlots);
+        verify(executorWarmup, never()).rewarm(any(), anyInt());
+    }
+
+    private void contests(Contest... contests) {
+        when(contestRepository.findStartingOrEndingBetween(any(), any())).thenReturn(List.of(contests));
+    }
+
+    private List<ContestPrescale> awaitHistory(int size) {
+        for (int i = 0; i < 500; i++) {
+            List<ContestPrescale> history = prescaler.getHistory();
+            if (history.size() >= size) {
+                return history;
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        }
+        throw new AssertionError("No preparation was recorded");
+    }
+
+    private static Contest contest(Long id, LocalDateTime start, LocalDateTime end) {
+        Contest contest = new Contest();
+        contest.setId(id);
+        contest.setContestId("C" + id);
+        contest.setStartTime(start);
+        contest.setEndTime(end);
+        return contest;
+    }
+}
@@ -0,0 +1,214 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.CustomRunRequest;
+import com.shodh.contest.dto.CustomRunResponse;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.SubmissionStatus;
+import com.shodh.contest.repository.ContestRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CustomRunServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private JudgeQueue judgeQueue;
+    private LocalExecutionService localExecutionService;
+    private CustomRunService service;
+
+    @BeforeEach
+    void setUp() {
+        ContestRepository contestRepository = mock(ContestRepository.class);
+        Contest contest = new Contest();
+        contest.setContestId("CONTEST-001");
+        when(contestRepository.findByContestId("CONTEST-001")).thenReturn(Optional.of(contest));
+        when(contestRepository.findByContestId("NOPE")).thenReturn(Optional.empty());
+
+        NodeCalibration nodeCalibration = mock(NodeCalibration.class);
+        when(nodeCalibration.getFactor()).thenReturn(1.5);
+        localExecutionService = mock(LocalExecutionService.class);
+        when(localExecutionService.getSupportedLanguages()).thenReturn(Set.of("java", "python"));
+        judgeQueue = mock(JudgeQueue.class);
+
+        service = new CustomRunService();
+        ReflectionTestUtils.setField(service, "enabled", true);
+        ReflectionTestUtils.setField(service, "maxConcurrent", 1);
+        ReflectionTestUtils.setField(service, "maxQueued", 2);
+        ReflectionTestUtils.setField(service, "timeLimitMillis", 2000L);
+        ReflectionTestUtils.setField(service, "maxCodeKb", 1);
+        ReflectionTestUtils.setField(service, "maxInputKb", 1);
+        ReflectionTestUtils.setField(service, "maxOutputKb", 1);
+        ReflectionTestUtils.setField(service, "retentionSeconds", 300L);
+        ReflectionTestUtils.setField(service, "executionServiceType", "local");
+        ReflectionTestUtils.setField(service, "contestRepository", contestRepository);
+        ReflectionTestUtils.setField(service, "contestMembershipService", mock(ContestMembershipService.class));
+        ReflectionTestUtils.setField(service, "judgeQueue", judgeQueue);
+        ReflectionTestUtils.setField(service, "nodeCalibration", nodeCalibration);
+        ReflectionTestUtils.setField(service, "localExecutionService", localExecutionService);
+        ReflectionTestUtils.setField(service, "meterRegistry", new SimpleMeterRegistry());
+        service.init();
+    }
+
+    @Test
+    void rejectsInvalidRequests() {
+        assertThatThrownBy(() -> service.submit(request(null, "print(1)"))).hasMessage("Username is required");
+        assertThatThrownBy(() -> service.submit(request("alice", " "))).hasMessage("Code is required");
+
+        CustomRunRequest cobol = request("alice", "DISPLAY 1");
+        cobol.setLanguage("cobol");
+        assertThatThrownBy(() -> service.submit(cobol)).hasMessage("Unsupported language: cobol");
+
+        assertThatThrownBy(() -> service.submit(request("alice", "x".repeat(1025)))).hasMessage("Code is larger than 1 KB");
+        CustomRunRequest bigInput = request("alice", "print(1)");
+        bigInput.setInput("1".repeat(1025));
+        assertThatThrownBy(() -> service.submit(bigInput)).hasMessage("Input is larger than 1 KB");
+
+        CustomRunRequest unknown = request("alice", "print(1)");
+        unknown.setContestId("NOPE");
+        assertThatThrownBy(() -> service.submit(unknown)).hasMessage("Contest not found: NOPE");
+
+        ReflectionTestUtils.setField(service, "enabled", false);
+        assertThatThrownBy(() -> service.submit(request("alice", "print(1)"))).hasMessage("Custom runs are disabled");
+        assertThat(service.getActiveRuns()).isZero();
+    }
+
+    @Test
+    void queuesRunsWithTheCalibratedTimeLimit() {
+        CustomRunResponse response = service.submit(request("alice", "print(1)"));
+
+        assertThat(response.getStatus()).isEqualTo(SubmissionStatus.PENDING);
+        assertThat(response.getLanguage()).isEqualTo("java");
+        CustomRun run = handedToJudge(1).get(0);
+        assertThat(run.getRunId()).isEqualTo(response.getRunId());
+        assertThat(run.getTimeLimitMillis()).isEqualTo(3000);
+        assertThat(run.getMaxOutputBytes()).isEqualTo(1024);
+        assertThat(run.getInput()).isEmpty();
+        assertThat(service.getRun(response.getRunId()).getRunId()).isEqualTo(response.getRunId());
+        assertThatThrownBy(() -> service.getRun("missing")).hasMessage("Custom run not found: missing");
+    }
+
+    @Test
+    void allowsOneActiveRunPerUserAndCapsTheQueue() {
+        service.submit(request("alice", "print(1)"));
+
+        assertThatThrownBy(() -> service.submit(request("alice", "print(2)")))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("still running");
+        service.submit(request("bob", "print(1)"));
+        assertThatThrownBy(() -> service.submit(request("carol", "print(1)")))
+                .isInstanceOf(IllegalStateException.class).hasMessageContaining("Too many custom runs");
+        assertThat(service.getActiveRuns()).isEqualTo(2);
+    }
+
+    @Test
+    void handsOutNoMoreThanMaxConcurrentRuns() {
+        CustomRunResponse response = new CustomRunResponse();
+        response.setStatus(SubmissionStatus.ACCEPTED);
+        response.setStdout("1\n");
+        when(localExecutionService.runCustom(any())).thenReturn(response);
+
+        service.submit(request("alice", "print(1)"));
+        service.submit(request("bob", "print(1)"));
+        CustomRun first = handedToJudge(1).get(0);
+
+        service.execute(first);
+
+        List<CustomRun> handed = handedToJudge(2);
+        assertThat(handed.get(1).getUsername()).isEqualTo("bob");
+        assertThat(service.getRun(first.getRunId()).getStatus()).isEqualTo(SubmissionStatus.ACCEPTED);
+        assertThat(service.getRun(first.getRunId()).getStdout()).isEqualTo("1\n");
+        assertThat(service.getActiveRuns()).isEqualTo(1);
+        // alice's run is done, so she may start another
+        service.submit(request("alice", "print(2)"));
+    }
+
+    @Test
+    void reportsExecutorFailuresAsRuntimeErrors() {
+        when(localExecutionService.runCustom(any())).thenThrow(new IllegalStateException("no workspace"));
+        service.submit(request("alice", "print(1)"));
+        CustomRun run = handedToJudge(1).get(0);
+
+        service.execute(run);
+
+        CustomRunResponse response = service.getRun(run.getRunId());
+        assertThat(response.getStatus()).isEqualTo(SubmissionStatus.RUNTIME_ERROR);
+        assertThat(response.getErrorMessage()).isEqualTo("Error running code: no workspace");
+        assertThat(response.getFinishedAt()).isNotNull();
+        assertThat(service.getActiveRuns()).isZero();
+    }
+
+    @Test
+    void purgesFinishedRunsPastRetention() {
+        CustomRunResponse accepted = new CustomRunResponse();
+        accepted.setStatus(SubmissionStatus.ACCEPTED);
+        when(localExecutionService.runCustom(any())).thenReturn(accepted);
+        String finished = service.submit(request("alice", "print(1)")).getRunId();
+        String waiting = service.submit(request("bob", "print(1)")).getRunId();
+        service.execute(handedToJudge(1).get(0));
+
+        service.purgeFinished();
+        assertThat(service.getRun(finished).getStatus()).isEqualTo(SubmissionStatus.ACCEPTED);
+
+        ReflectionTestUtils.setField(service, "retentionSeconds", -60L);
+        service.purgeFinished();
+        assertThatThrownBy(() -> service.getRun(finished)).hasMessageContaining("not found");
+        assertThat(service.getRun(waiting).getStatus()).isEqualTo(SubmissionStatus.PENDING);
+    }
+
+    @Test
+    void collectsOutcomesFromTheOutputFiles() throws IOException {
+        Files.writeString(dir.resolve(CustomRun.STDOUT_FILE), "x".repeat(10));
+        Files.writeString(dir.resolve(CustomRun.STDERR_FILE), "warn");
+
+        CustomRunResponse ok = CustomRun.collect(dir, 0, false, 40, 1000, 4);
+        assertThat(ok.getStatus()).isEqualTo(SubmissionStatus.ACCEPTED);
+        assertThat(ok.getStdout()).isEqualTo("xxxx");
+        assertThat(ok.getStderr()).isEqualTo("warn");
+        assertThat(ok.getOutputTruncated()).isTrue();
+
+        CustomRunResponse killed = CustomRun.collect(dir, null, false, 400, 1000, 64);
+        assertThat(killed.getStatus()).isEqualTo(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+        assertThat(killed.getTimeMillis()).isEqualTo(1000);
+        assertThat(killed.getOutputTruncated()).isFalse();
+
+        assertThat(CustomRun.collect(dir, NodeCalibration.TIMEOUT_EXIT_CODE, false, 1200, 1000, 64).getStatus())
+                .isEqualTo(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+        assertThat(CustomRun.collect(dir, 153, true, 10, 1000, 64).getErrorMessage()).isEqualTo("Output limit exceeded");
+        assertThat(CustomRun.collect(dir, 1, false, 10, 1000, 64).getErrorMessage())
+                .isEqualTo("Runtime error (exit code: 1)");
+        assertThat(CustomRun.collect(dir.resolve("empty"), 0, false, 10, 1000, 64).getStdout()).isEmpty();
+    }
+
+    private List<CustomRun> handedToJudge(int times) {
+        ArgumentCaptor<JudgeJob> jobs = ArgumentCaptor.forClass(JudgeJob.class);
+        verify(judgeQueue, times(times)).submitCustomRun(jobs.capture());
+        return jobs.getAllValues().stream().map(JudgeJob::getCustomRun).toList();
+    }
+
+    private static CustomRunRequest request(String username, String code) {
+        CustomRunRequest request = new CustomRunRequest();
+        request.setContestId("CONTEST-001");
+        request.setUsername(username);
+        request.setCode(code);
+        return request;
+    }
+}
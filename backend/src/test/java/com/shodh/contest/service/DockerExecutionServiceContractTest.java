@@ -0,0 +1,310 @@
+package com.shodh.contest.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.shodh.contest.config.DockerEngineConfig;
+import com.shodh.contest.dto.CustomRunResponse;
+import com.shodh.contest.model.SubmissionStatus;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs the executor's Engine API calls against a stub daemon on a TCP docker.host and checks the
+ * requests it makes and how it reads the answers.
+ */
+class DockerExecutionServiceContractTest {
+
+    @TempDir
+    Path workspaceDir;
+
+    private FakeDaemon daemon;
+    private DockerClient dockerClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        daemon = new FakeDaemon(workspaceDir);
+        Files.createDirectories(workspaceDir.resolve(Workspace.OUTPUT_DIR));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (dockerClient != null) {
+            dockerClient.close();
+        }
+        daemon.stop();
+    }
+
+    @Test
+    void createsAttachesStartsWaitsAndRemovesEachContainer() throws Exception {
+        daemon.exitCode = 0;
+        daemon.stdoutFile = "hello\n";
+        DockerExecutionService service = service("tcp://127.0.0.1:" + daemon.port());
+
+        CustomRunResponse response = service.runCustom(run("python"));
+
+        assertThat(response.getStatus()).isEqualTo(SubmissionStatus.ACCEPTED);
+        assertThat(response.getExitCode()).isZero();
+        assertThat(response.getStdout()).isEqualTo("hello\n");
+        assertThat(daemon.requests).containsExactly(
+                "POST /containers/create",
+                "POST /containers/c1/attach",
+                "POST /containers/c1/start",
+                "POST /containers/c1/wait",
+                "DELETE /containers/c1");
+        assertThat(daemon.queries.get(4)).contains("force=true");
+
+        String create = daemon.createBodies.get(0);
+        assertThat(create).contains("\"shodh.executor\":\"true\"")
+                .contains("\"NetworkMode\":\"none\"")
+                .contains(workspaceDir + ":/workspace")
+                .contains("python3 main.py");
+        assertThat(daemon.queries.get(0)).startsWith("name=executor-");
+    }
+
+    @Test
+    void readsCompilerDiagnosticsFromTheAttachStream() throws Exception {
+        daemon.exitCode = 1;
+        daemon.stderrFrame = "main.c:1: error: expected ';'\n";
+        DockerExecutionService service = service("tcp://127.0.0.1:" + daemon.port());
+
+        CustomRunResponse response = service.runCustom(run("c"));
+
+        assertThat(response.getStatus()).isEqualTo(SubmissionStatus.COMPILATION_ERROR);
+        assertThat(response.getErrorMessage()).isEqualTo("main.c:1: error: expected ';'\n");
+        assertThat(daemon.createBodies.get(0)).contains("gcc -o main main.c");
+        assertThat(daemon.requests).endsWith("DELETE /containers/c1");
+    }
+
+    @Test
+    void forceRemovesAContainerThatOutlivesItsTimeout() throws Exception {
+        daemon.exitCode = null;
+        DockerExecutionService service = service("tcp://127.0.0.1:" + daemon.port());
+
+        long start = System.nanoTime();
+        CustomRunResponse response = service.runCustom(run("python"));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(10_000);
+        assertThat(response.getStatus()).isEqualTo(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+        assertThat(daemon.requests).endsWith("POST /containers/c1/wait", "DELETE /containers/c1");
+        assertThat(daemon.queries.get(daemon.queries.size() - 1)).contains("force=true");
+    }
+
+    @Test
+    void failsTheRunWhenTheEngineIsUnreachable() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        DockerExecutionService service = service("tcp://127.0.0.1:" + closedPort);
+
+        CustomRunResponse response = service.runCustom(run("python"));
+
+        assertThat(response.getStatus()).isEqualTo(SubmissionStatus.RUNTIME_ERROR);
+        assertThat(response.getErrorMessage()).startsWith("Error running code: ");
+        assertThat(service.ensureImage("shodh/code-executor", 1000)).isFalse();
+    }
+
+    @Test
+    void pullsAMissingImage() throws Exception {
+        daemon.imagePresent = false;
+        DockerExecutionService service = service("tcp://127.0.0.1:" + daemon.port());
+
+        assertThat(service.ensureImage("shodh/code-executor:1.2", 5000)).isTrue();
+        assertThat(daemon.requests).containsExactly(
+                "GET /images/shodh/code-executor:1.2/json",
+                "POST /images/create");
+        assertThat(daemon.queries.get(1)).contains("fromImage=shodh%2Fcode-executor").contains("tag=1.2");
+    }
+
+    private DockerExecutionService service(String dockerHost) throws InterruptedException {
+        DockerEngineConfig engineConfig = new DockerEngineConfig();
+        ReflectionTestUtils.setField(engineConfig, "dockerHost", dockerHost);
+        ReflectionTestUtils.setField(engineConfig, "maxConnections", 4);
+        ReflectionTestUtils.setField(engineConfig, "connectTimeoutMillis", 1000L);
+        dockerClient = engineConfig.dockerClient();
+
+        WorkspacePool workspacePool = mock(WorkspacePool.class);
+        when(workspacePool.acquire()).thenReturn(new Workspace(workspaceDir, workspacePool));
+        when(workspacePool.getQuotaBytes()).thenReturn(64L * 1024 * 1024);
+        ToolchainProfiles toolchainProfiles = mock(ToolchainProfiles.class);
+        when(toolchainProfiles.compileCommand(anyString(), anyString(), anyBoolean()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+        when(toolchainProfiles.runCommand(anyString(), anyString(), anyBoolean()))
+                .thenAnswer(invocation -> invocation.getArgument(1));
+
+        DockerExecutionService service = new DockerExecutionService();
+        ReflectionTestUtils.setField(service, "dockerImageName", "shodh/code-executor");
+        ReflectionTestUtils.setField(service, "maxExecutionTime", 5000);
+        ReflectionTestUtils.setField(service, "memoryLimit", "256m");
+        ReflectionTestUtils.setField(service, "cpuLimit", "");
+        ReflectionTestUtils.setField(service, "maxDiagnosticsKb", 64);
+        ReflectionTestUtils.setField(service, "dockerClient", dockerClient);
+        ReflectionTestUtils.setField(service, "workspacePool", workspacePool);
+        ReflectionTestUtils.setField(service, "toolchainProfiles", toolchainProfiles);
+        ReflectionTestUtils.setField(service, "judgeSlots", mock(JudgeSlots.class));
+        ReflectionTestUtils.setField(service, "submissionTracer", new SubmissionTracer());
+        return service;
+    }
+
+    private static CustomRun run(String language) {
+        return new CustomRun("run-1", "alice", "print(input())", language, "hello\n", 200, 64 * 1024);
+    }
+
+    /**
+     * Answers the Engine API calls the executor makes. Containers exit with exitCode, or never
+     * when it is null, and write stdoutFile into the workspace when started.
+     */
+    private static class FakeDaemon {
+        private static final Pattern CONTAINER = Pattern.compile("(?:/v[\\d.]+)?/containers/([^/]+)(/\\w+)?");
+        private static final Pattern IMAGE = Pattern.compile("(?:/v[\\d.]+)?/images/(.+)/json");
+
+        final List<String> requests = new CopyOnWriteArrayList<>();
+        final List<String> queries = new CopyOnWriteArrayList<>();
+        final List<String> createBodies = new CopyOnWriteArrayList<>();
+        volatile Integer exitCode = 0;
+        volatile String stderrFrame;
+        volatile String stdoutFile;
+        volatile boolean imagePresent = true;
+
+        private final Path workspaceDir;
+        private final HttpServer server;
+        private final ExecutorService executor = Executors.newCachedThreadPool();
+        private final CountDownLatch stopped = new CountDownLatch(1);
+        private final AtomicInteger containers = new AtomicInteger();
+
+        FakeDaemon(Path workspaceDir) throws IOException {
+            this.workspaceDir = workspaceDir;
+            server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            server.createContext("/", this::handle);
+            server.setExecutor(executor);
+            server.start();
+        }
+
+        int port() {
+            return server.getAddress().getPort();
+        }
+
+        void stop() {
+            stopped.countDown();
+            server.stop(0);
+            executor.shutdownNow();
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getPath();
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            String query = exchange.getRequestURI().getRawQuery();
+            queries.add(query == null ? "" : query);
+
+            Matcher image = IMAGE.matcher(path);
+            if (image.matches()) {
+                requests.add(method + " /images/" + image.group(1) + "/json");
+                respond(exchange, imagePresent ? 200 : 404,
+                        imagePresent ? "{\"Id\":\"sha256:1\"}" : "{\"message\":\"No such image\"}");
+                return;
+            }
+            if (path.endsWith("/images/create")) {
+                requests.add(method + " /images/create");
+                imagePresent = true;
+                respond(exchange, 200, "{\"status\":\"Pulling from shodh/code-executor\"}\n"
+                        + "{\"status\":\"Status: Downloaded newer image\"}\n");
+                return;
+            }
+
+            Matcher container = CONTAINER.matcher(path);
+            if (!container.matches()) {
+                respond(exchange, 404, "{\"message\":\"page not found\"}");
+                return;
+            }
+            String id = container.group(1);
+            String action = container.group(2);
+            if ("create".equals(id)) {
+                requests.add(method + " /containers/create");
+                createBodies.add(body);
+                respond(exchange, 201, "{\"Id\":\"c" + containers.incrementAndGet() + "\",\"Warnings\":[]}");
+                return;
+            }
+            requests.add(method + " /containers/" + id + (action == null ? "" : action));
+            if (action == null) {
+                respond(exchange, 204, null);
+            } else if (action.equals("/attach")) {
+                exchange.getResponseHeaders().add("Content-Type", "application/vnd.docker.multiplexed-stream");
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    if (stderrFrame != null) {
+                        out.write(frame(2, stderrFrame));
+                    }
+                }
+            } else if (action.equals("/start")) {
+                if (stdoutFile != null) {
+                    Files.writeString(workspaceDir.resolve(Workspace.OUTPUT_DIR).resolve(CustomRun.STDOUT_FILE), stdoutFile);
+                }
+                respond(exchange, 204, null);
+            } else if (action.equals("/wait")) {
+                if (exitCode == null) {
+                    try {
+                        stopped.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    exchange.close();
+                    return;
+                }
+                respond(exchange, 200, "{\"StatusCode\":" + exitCode + "}");
+            } else {
+                respond(exchange, 404, "{\"message\":\"page not found\"}");
+            }
+        }
+
+        private static byte[] frame(int streamType, String payload) {
+            byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
+            return ByteBuffer.allocate(8 + bytes.length)
+                    .put((byte) streamType).put(new byte[3]).putInt(bytes.length).put(bytes)
+                    .array();
+        }
+
+        private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+            if (json == null) {
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+                return;
+            }
+            byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.LanguageWarmup;
+import com.shodh.contest.model.SubmissionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExecutorWarmupTest {
+
+    private DockerExecutionService dockerExecutionService;
+    private LocalExecutionService localExecutionService;
+    private ToolchainProfiles toolchainProfiles;
+    private ExecutorWarmup warmup;
+
+    @BeforeEach
+    void setUp() {
+        dockerExecutionService = mock(DockerExecutionService.class);
+        when(dockerExecutionService.getImageName()).thenReturn("executor:latest");
+        when(dockerExecutionService.getSupportedLanguages()).thenReturn(Set.of("java", "python", "brainfuck"));
+        when(dockerExecutionService.ensureImage(anyString(), anyLong())).thenReturn(true);
+        when(dockerExecutionService.executeCode(anyString(), any(TestSet.class), anyString())).thenReturn(accepted());
+        localExecutionService = mock(LocalExecutionService.class);
+        toolchainProfiles = mock(ToolchainProfiles.class);
+        TestDataStore testDataStore = mock(TestDataStore.class);
+        when(testDataStore.writeTestSet(anyString(), any(), any())).thenReturn(new TestSet(Path.of("canary"), 1, 0L));
+
+        warmup = new ExecutorWarmup();
+        ReflectionTestUtils.setField(warmup, "executionServiceType", "docker");
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "iterations", 2);
+        ReflectionTestUtils.setField(warmup, "extraImages", "gcc:13, ");
+        ReflectionTestUtils.setField(warmup, "pullTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(warmup, "dockerExecutionService", dockerExecutionService);
+        ReflectionTestUtils.setField(warmup, "localExecutionService", localExecutionService);
+        ReflectionTestUtils.setField(warmup, "testDataStore", testDataStore);
+        ReflectionTestUtils.setField(warmup, "toolchainProfiles", toolchainProfiles);
+        ReflectionTestUtils.setField(warmup, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Test
+    void staysOutOfServiceUntilTheWarmupHasFinished() throws InterruptedException {
+        CountDownLatch pulled = new CountDownLatch(1);
+        when(dockerExecutionService.ensureImage(eq("executor:latest"), anyLong())).thenAnswer(call -> {
+            pulled.await();
+            return true;
+        });
+
+        warmup.startWarmup();
+        Health pulling = warmup.health();
+        pulled.countDown();
+        Health done = awaitFinished();
+
+        assertThat(pulling.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(pulling.getDetails()).containsEntry("finished", false);
+        assertThat(done.getStatus()).isEqualTo(Status.UP);
+        verify(dockerExecutionService).ensureImage("gcc:13", 1000L);
+        verify(toolchainProfiles).prepare();
+    }
+
+    @Test
+    void reportsColdAndWarmLatencyPerLanguage() throws InterruptedException {
+        warmup.startWarmup();
+        awaitFinished();
+
+        // Languages without a canary program are skipped
+        assertThat(warmup.getResults()).extracting(LanguageWarmup::getLanguage).containsExactly("java", "python");
+        assertThat(warmup.getResults()).allSatisfy(result -> {
+            assertThat(result.getStatus()).isEqualTo(SubmissionStatus.ACCEPTED);
+            assertThat(result.getColdMs()).isNotNull();
+            assertThat(result.getWarmMs()).isNotNull();
+        });
+        verify(dockerExecutionService, times(2))
+                .executeCode(eq(ExecutorWarmup.CANARY_PROGRAMS.get("java")), any(TestSet.class), eq("java"));
+    }
+
+    @Test
+    void staysOutOfServiceWhenAnImageCannotBePulled() throws InterruptedException {
+        when(dockerExecutionService.ensureImage(eq("gcc:13"), anyLong())).thenReturn(false);
+
+        warmup.startWarmup();
+        Health health = awaitFinished();
+
+        assertThat(health.getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+        assertThat(health.getDetails()).containsEntry("imagesReady", false);
+        verify(dockerExecutionService, never()).executeCode(anyString(), any(TestSet.class), anyString());
+    }
+
+    @Test
+    void staysOutOfServiceWhenACanaryThrows() throws InterruptedException {
+        when(dockerExecutionService.executeCode(anyString(), any(TestSet.class), anyString()))
+                .thenThrow(new IllegalStateException("docker daemon went away"));
+
+        warmup.startWarmup();
+
+        assertThat(awaitFinished().getStatus()).isEqualTo(Status.OUT_OF_SERVICE);
+    }
+
+    @Test
+    void stopsAtAFailingCanary() throws InterruptedException {
+        CodeExecutionService.ExecutionResult failed = new CodeExecutionService.ExecutionResult();
+        failed.setStatus(SubmissionStatus.COMPILATION_ERROR);
+        when(dockerExecutionService.executeCode(anyString(), any(TestSet.class), eq("java"))).thenReturn(failed);
+
+        warmup.startWarmup();
+        awaitFinished();
+
+        LanguageWarmup java = warmup.getResults().get(0);
+        assertThat(java.getStatus()).isEqualTo(SubmissionStatus.COMPILATION_ERROR);
+        assertThat(java.getWarmMs()).isNull();
+    }
+
+    @Test
+    void isReadyAtOnceWhenDisabled() {
+        ReflectionTestUtils.setField(warmup, "enabled", false);
+
+        warmup.startWarmup();
+
+        assertThat(warmup.health().getStatus()).isEqualTo(Status.UP);
+        verify(dockerExecutionService, never()).ensureImage(anyString(), anyLong());
+    }
+
+    @Test
+    void runsCanariesOnTheLocalExecutorWithoutPullingImages() throws InterruptedException {
+        ReflectionTestUtils.setField(warmup, "executionServiceType", "local");
+        when(localExecutionService.getSupportedLanguages()).thenReturn(Set.of("python"));
+        when(localExecutionService.executeCode(anyString(), any(TestSet.class), anyString())).thenReturn(accepted());
+
+        warmup.startWarmup();
+
+        assertThat(awaitFinished().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmup.getResults()).extracting(LanguageWarmup::getLanguage).containsExactly("python");
+        verify(dockerExecutionService, never()).ensureImage(anyString(), anyLong());
+    }
+
+    @Test
+    void rewarmsTheRequestedLanguages() {
+        List<LanguageWarmup> warmed = warmup.rewarm(Set.of("python"), 3);
+
+        assertThat(warmed).extracting(LanguageWarmup::getLanguage).containsExactly("python");
+        verify(dockerExecutionService, times(3)).executeCode(anyString(), any(TestSet.class), eq("python"));
+
+        when(dockerExecutionService.ensureImage(anyString(), anyLong())).thenReturn(false);
+        assertThatThrownBy(() -> warmup.rewarm(Set.of(), 1)).hasMessage("Executor images are not available");
+    }
+
+    private Health awaitFinished() throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            Health health = warmup.health();
+            if (Boolean.TRUE.equals(health.getDetails().get("finished"))) {
+                return health;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("The warm-up did not finish");
+    }
+
+    private static CodeExecutionService.ExecutionResult accepted() {
+        CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+        result.setStatus(SubmissionStatus.ACCEPTED);
+        return result;
+    }
+}
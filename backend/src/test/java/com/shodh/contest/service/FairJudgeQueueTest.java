@@ -0,0 +1,105 @@
+package com.shodh.contest.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FairJudgeQueueTest {
+
+    private long nextId;
+
+    @Test
+    void interleavesUsersOfEqualWeight() {
+        FairJudgeQueue queue = new FairJudgeQueue(1.0);
+        offer(queue, "c", "alice", true, 3);
+        offer(queue, "c", "bob", true, 1);
+
+        assertThat(drainUsers(queue)).containsExactly("alice", "bob", "alice", "alice");
+    }
+
+    @Test
+    void sharesJudgeByContestWeight() {
+        FairJudgeQueue queue = new FairJudgeQueue(1.0);
+        for (int i = 0; i < 30; i++) {
+            queue.offer(job("heavy", "u", true), 2.0, 1.0);
+            queue.offer(job("light", "u", true), 1.0, 1.0);
+        }
+
+        List<JudgeJob> firstThirty = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            firstThirty.add(queue.poll());
+        }
+        assertThat(firstThirty.stream().filter(job -> job.getContestId().equals("heavy")).count()).isEqualTo(20);
+    }
+
+    @Test
+    void servesFirstAttemptsBeforeRepeatsOfTheSameUser() {
+        FairJudgeQueue queue = new FairJudgeQueue(2.0);
+        JudgeJob repeat = job("c", "alice", false);
+        JudgeJob first = job("c", "alice", true);
+        queue.offer(repeat, 1.0, 1.0);
+        queue.offer(first, 1.0, 1.0);
+
+        assertThat(queue.poll()).isSameAs(first);
+        assertThat(queue.poll()).isSameAs(repeat);
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    void chargesRepeatAttemptsMore() {
+        FairJudgeQueue queue = new FairJudgeQueue(2.0);
+        offer(queue, "c", "resubmitter", false, 10);
+        offer(queue, "c", "newcomer", true, 10);
+
+        List<String> users = drainUsers(queue).subList(0, 9);
+        assertThat(users.stream().filter("newcomer"::equals).count()).isEqualTo(6);
+    }
+
+    @Test
+    void returningUserDoesNotGetCreditForIdleTime() {
+        FairJudgeQueue queue = new FairJudgeQueue(1.0);
+        offer(queue, "c", "alice", true, 4);
+        drainUsers(queue);
+
+        offer(queue, "c", "bob", true, 2);
+        offer(queue, "c", "alice", true, 2);
+        assertThat(drainUsers(queue)).containsExactly("bob", "alice", "bob", "alice");
+    }
+
+    @Test
+    void prunesIdleLanesOfOneOffUsers() {
+        Set<String> pruned = new HashSet<>();
+        FairJudgeQueue queue = new FairJudgeQueue(1.0, (contestId, username) -> pruned.add(username));
+        for (int i = 0; i < 3000; i++) {
+            offer(queue, "c", "user-" + i, true, 1);
+            assertThat(queue.poll().getUsername()).isEqualTo("user-" + i);
+        }
+
+        assertThat(pruned).hasSizeGreaterThan(2000).contains("user-0").doesNotContain("user-2999");
+        assertThat(queue.size()).isZero();
+    }
+
+    private void offer(FairJudgeQueue queue, String contestId, String username, boolean firstAttempt, int count) {
+        for (int i = 0; i < count; i++) {
+            queue.offer(job(contestId, username, firstAttempt), 1.0, 1.0);
+        }
+    }
+
+    private JudgeJob job(String contestId, String username, boolean firstAttempt) {
+        return new JudgeJob(nextId++, contestId, username, firstAttempt);
+    }
+
+    private static List<String> drainUsers(FairJudgeQueue queue) {
+        List<String> users = new ArrayList<>();
+        JudgeJob job;
+        while ((job = queue.poll()) != null) {
+            users.add(job.getUsername());
+        }
+        return users;
+    }
+}
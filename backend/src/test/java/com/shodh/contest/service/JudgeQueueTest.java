@@ -0,0 +1,60 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.JudgeQueueStats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JudgeQueueTest {
+
+    private JudgeQueue judgeQueue;
+
+    @BeforeEach
+    void setUp() {
+        judgeQueue = new JudgeQueue();
+        ReflectionTestUtils.setField(judgeQueue, "contestWeightsConfig", "");
+        ReflectionTestUtils.setField(judgeQueue, "userWeightsConfig", "");
+        ReflectionTestUtils.setField(judgeQueue, "repeatAttemptCost", 2.0);
+        ReflectionTestUtils.setField(judgeQueue, "maxReportedLanes", 50);
+        judgeQueue.init();
+    }
+
+    @Test
+    void drainsLiveLaneBeforeCustomRunsAndRejudges() throws InterruptedException {
+        judgeQueue.submitBackground(JudgeJob.rejudge(1L, "c", "task"));
+        judgeQueue.submit(new JudgeJob(2L, "c", "alice", true));
+
+        assertThat(judgeQueue.take().getSubmissionId()).isEqualTo(2L);
+        assertThat(judgeQueue.take().isRejudge()).isTrue();
+    }
+
+    @Test
+    void reportsQueuedAndDispatchedPerLane() throws InterruptedException {
+        judgeQueue.submit(new JudgeJob(1L, "c", "alice", true));
+        judgeQueue.submit(new JudgeJob(2L, "c", "alice", false));
+        judgeQueue.take();
+
+        JudgeQueueStats stats = judgeQueue.getStats();
+        assertThat(stats.getQueued()).isEqualTo(1);
+        assertThat(stats.getLanes()).singleElement().satisfies(lane -> {
+            assertThat(lane.getLane()).isEqualTo("c/alice");
+            assertThat(lane.getQueued()).isEqualTo(1);
+            assertThat(lane.getDispatched()).isEqualTo(1);
+        });
+    }
+
+    @Test
+    void dropsCountersOfIdleLanes() throws InterruptedException {
+        for (long i = 0; i < 5000; i++) {
+            judgeQueue.submit(new JudgeJob(i, "c", "user-" + i, true));
+            judgeQueue.take();
+        }
+
+        Map<?, ?> laneCounters = (Map<?, ?>) ReflectionTestUtils.getField(judgeQueue, "laneCounters");
+        assertThat(laneCounters).hasSizeLessThanOrEqualTo(1024);
+    }
+}
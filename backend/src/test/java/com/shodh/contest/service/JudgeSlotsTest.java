@@ -0,0 +1,119 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JudgeSlotsTest {
+
+    @Test
+    void parsesCpuAffinityLists() {
+        assertThat(JudgeSlots.parseCpuList("0-3,8,10-11")).containsExactly(0, 1, 2, 3, 8, 10, 11);
+        assertThat(JudgeSlots.parseCpuList("5")).containsExactly(5);
+        assertThat(JudgeSlots.parseCpuList("")).isEmpty();
+    }
+
+    @Test
+    void pinsOneSlotPerCoreAfterTheReservedCores() {
+        JudgeSlots slots = slots(0, 1, true, cpus(0, 8), 16_384);
+
+        assertThat(slots.getSlotCount()).isEqualTo(7);
+        assertThat(slots.getCapacity().getSlotCpus()).containsExactly("1", "2", "3", "4", "5", "6", "7");
+        assertThat(slots.currentCpuset()).isEqualTo("0");
+    }
+
+    @Test
+    void groupsCoresIntoSlotsOfTheConfiguredWidth() {
+        JudgeSlots slots = slots(0, 2, true, cpus(4, 13), 16_384);
+
+        assertThat(slots.getCapacity().getSlotCpus()).containsExactly("5,6", "7,8", "9,10", "11,12");
+        assertThat(slots.currentCpuset()).isEqualTo("4");
+    }
+
+    @Test
+    void sizesByMemoryWhenMemoryIsScarcer() {
+        // (2048 - 1024) MB leaves room for four 256 MB slots on eight cores
+        JudgeSlots slots = slots(0, 1, true, cpus(0, 8), 2_048);
+
+        assertThat(slots.getSlotCount()).isEqualTo(4);
+    }
+
+    @Test
+    void givesUpTheReserveOnASingleCore() {
+        JudgeSlots slots = slots(0, 1, true, cpus(0, 1), 16_384);
+
+        assertThat(slots.getSlotCount()).isEqualTo(1);
+        assertThat(slots.getCapacity().getSlotCpus()).containsExactly("0");
+        assertThat(slots.currentCpuset()).isNull();
+    }
+
+    @Test
+    void doesNotPinMoreConfiguredSlotsThanCores() {
+        JudgeSlots slots = slots(6, 1, true, cpus(0, 4), 16_384);
+
+        assertThat(slots.getSlotCount()).isEqualTo(6);
+        assertThat(slots.getCapacity().getPinned()).isFalse();
+        assertThat(slots.getCapacity().getSlotCpus()).containsOnlyNulls();
+        assertThat(slots.currentCpuset()).isNull();
+    }
+
+    @Test
+    void runsJobsOnTheLeasedSlotsCores() throws InterruptedException {
+        JudgeSlots slots = slots(0, 1, true, cpus(0, 3), 16_384);
+
+        JudgeSlot slot = slots.acquire();
+        slots.enter(slot);
+        try {
+            assertThat(slots.currentCpuset()).isEqualTo(slot.getCpuset());
+            assertThat(slots.getCapacity().getBusySlots()).isEqualTo(1);
+        } finally {
+            slots.leave();
+            slots.release(slot);
+        }
+        assertThat(slots.currentCpuset()).isEqualTo("0");
+    }
+
+    @Test
+    void parksSlotsTakenOutOfServiceOnceTheyAreReleased() throws InterruptedException {
+        JudgeSlots slots = slots(0, 1, true, cpus(0, 4), 16_384);
+        JudgeSlot leased = slots.acquire();
+
+        slots.setActiveSlots(1);
+        assertThat(idle(slots)).isEmpty();
+        slots.release(leased);
+        assertThat(idle(slots)).containsExactly(leased);
+
+        slots.setActiveSlots(10);
+        assertThat(slots.getActiveSlots()).isEqualTo(3);
+        assertThat(idle(slots)).hasSize(3);
+    }
+
+    private static JudgeSlots slots(int configured, int cpusPerSlot, boolean pin, List<Integer> cpus, long memoryMb) {
+        JudgeSlots slots = new JudgeSlots();
+        ReflectionTestUtils.setField(slots, "configuredSlots", configured);
+        ReflectionTestUtils.setField(slots, "cpusPerSlot", cpusPerSlot);
+        ReflectionTestUtils.setField(slots, "reservedCpus", 1);
+        ReflectionTestUtils.setField(slots, "reservedMemoryMb", 1024L);
+        ReflectionTestUtils.setField(slots, "memoryPerSlot", "256m");
+        ReflectionTestUtils.setField(slots, "pinCpus", pin);
+        ReflectionTestUtils.setField(slots, "meterRegistry", new SimpleMeterRegistry());
+        slots.init(cpus, memoryMb);
+        return slots;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<JudgeSlot> idle(JudgeSlots slots) {
+        return (Collection<JudgeSlot>) ReflectionTestUtils.getField(slots, "idle");
+    }
+
+    private static List<Integer> cpus(int from, int to) {
+        return IntStream.range(from, to).boxed().collect(Collectors.toList());
+    }
+}
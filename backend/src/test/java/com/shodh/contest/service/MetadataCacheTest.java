@@ -0,0 +1,94 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.CacheRegionStats;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.function.ToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class MetadataCacheTest {
+
+    @Autowired
+    private MetadataCache metadataCache;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    private Contest first;
+    private Contest second;
+
+    @BeforeAll
+    void seed() {
+        first = save("CACHE-TEST-1", "First");
+        second = save("CACHE-TEST-2", "Second");
+    }
+
+    @Test
+    void looksProblemsUpWithinTheirContest() {
+        assertThat(problemRepository.findByContestIdAndProblemId(first.getId(), "SHARED"))
+                .hasValueSatisfying(problem -> assertThat(problem.getTitle()).isEqualTo("First"));
+        assertThat(problemRepository.findByContestIdAndProblemId(second.getId(), "SHARED"))
+                .hasValueSatisfying(problem -> assertThat(problem.getTitle()).isEqualTo("Second"));
+        assertThat(problemRepository.findByContestIdAndProblemId(first.getId(), "SUM-001")).isEmpty();
+    }
+
+    @Test
+    void servesRepeatedLookupsFromTheCache() {
+        problemRepository.findByContestIdAndProblemId(first.getId(), "SHARED");
+        long hits = total(CacheRegionStats::getHits);
+
+        problemRepository.findByContestIdAndProblemId(first.getId(), "SHARED");
+
+        assertThat(total(CacheRegionStats::getHits)).isGreaterThan(hits);
+    }
+
+    @Test
+    void missesAfterInvalidation() {
+        problemRepository.findByContestIdAndProblemId(second.getId(), "SHARED");
+        metadataCache.invalidate();
+        long misses = total(CacheRegionStats::getMisses);
+
+        assertThat(problemRepository.findByContestIdAndProblemId(second.getId(), "SHARED")).isPresent();
+
+        assertThat(total(CacheRegionStats::getMisses)).isGreaterThan(misses);
+    }
+
+    private long total(ToLongFunction<CacheRegionStats> count) {
+        return metadataCache.getStats().stream().mapToLong(count).sum();
+    }
+
+    private Contest save(String contestId, String title) {
+        Contest contest = new Contest();
+        contest.setContestId(contestId);
+        contest.setName(title);
+        contest.setStartTime(LocalDateTime.now().minusDays(1));
+        contest.setEndTime(LocalDateTime.now().plusDays(1));
+        contest = contestRepository.save(contest);
+
+        Problem problem = new Problem();
+        problem.setContest(contest);
+        problem.setProblemId("SHARED");
+        problem.setTitle(title);
+        problemRepository.save(problem);
+        return contest;
+    }
+}
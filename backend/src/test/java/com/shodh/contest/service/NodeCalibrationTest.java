@@ -0,0 +1,72 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class NodeCalibrationTest {
+
+    @Test
+    void scalesTheProblemsLimitByTheNodeFactor() {
+        NodeCalibration calibration = calibration(false, 150);
+        ReflectionTestUtils.setField(calibration, "factor", 1.5);
+
+        assertThat(calibration.timeLimitMillis(tests(1000L))).isEqualTo(1500);
+    }
+
+    @Test
+    void fallsBackToTheDefaultLimitForSetsWithoutOne() {
+        NodeCalibration calibration = calibration(false, 150);
+
+        assertThat(calibration.timeLimitMillis(tests(null))).isEqualTo(5000);
+    }
+
+    @Test
+    void keepsTheReferenceSpeedWhenDisabled() {
+        NodeCalibration calibration = calibration(false, 150);
+        calibration.calibrate();
+
+        assertThat(calibration.getFactor()).isEqualTo(1.0);
+        assertThat(calibration.getBenchmarkMillis()).isZero();
+    }
+
+    @Test
+    void clampsTheMeasuredFactor() {
+        NodeCalibration slowReference = calibration(true, 1e9);
+        slowReference.calibrate();
+        NodeCalibration fastReference = calibration(true, 1e-9);
+        fastReference.calibrate();
+
+        assertThat(slowReference.getBenchmarkMillis()).isPositive();
+        assertThat(slowReference.getFactor()).isEqualTo(0.5);
+        assertThat(fastReference.getFactor()).isEqualTo(3.0);
+    }
+
+    @Test
+    void formatsLimitsAsFractionalSeconds() {
+        assertThat(NodeCalibration.seconds(1500)).isEqualTo("1.500");
+        assertThat(NodeCalibration.seconds(7)).isEqualTo("0.007");
+        assertThat(NodeCalibration.seconds(12_000)).isEqualTo("12.000");
+    }
+
+    private static NodeCalibration calibration(boolean enabled, double referenceMillis) {
+        NodeCalibration calibration = new NodeCalibration();
+        ReflectionTestUtils.setField(calibration, "enabled", enabled);
+        ReflectionTestUtils.setField(calibration, "referenceMillis", referenceMillis);
+        ReflectionTestUtils.setField(calibration, "iterations", 0);
+        ReflectionTestUtils.setField(calibration, "minFactor", 0.5);
+        ReflectionTestUtils.setField(calibration, "maxFactor", 3.0);
+        ReflectionTestUtils.setField(calibration, "defaultTimeLimitMillis", 5000L);
+        ReflectionTestUtils.setField(calibration, "meterRegistry", new SimpleMeterRegistry());
+        return calibration;
+    }
+
+    private static TestSet tests(Long timeLimitMillis) {
+        return new TestSet(Path.of("unused"), 1, 1, 1L, null, List.of(), timeLimitMillis);
+    }
+}
@@ -0,0 +1,170 @@
+package com.shodh.contest.service;
+
+import com.github.dockerjava.api.DockerClient;
+import com.github.dockerjava.api.model.Container;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrphanReaperTest {
+
+    private static final Instant LONG_AGO = Instant.now().minus(Duration.ofHours(1));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final String tempPrefix = "reaper-test-" + UUID.randomUUID() + "-";
+
+    @TempDir
+    Path baseDir;
+
+    private WorkspacePool workspacePool;
+    private ProcessSupervisor processSupervisor;
+    private DockerClient dockerClient;
+    private OrphanReaper reaper;
+    private Process process;
+
+    @BeforeEach
+    void setUp() {
+        workspacePool = mock(WorkspacePool.class);
+        when(workspacePool.getBaseDir()).thenReturn(baseDir);
+        processSupervisor = mock(ProcessSupervisor.class);
+        dockerClient = mock(DockerClient.class, RETURNS_DEEP_STUBS);
+
+        reaper = new OrphanReaper();
+        ReflectionTestUtils.setField(reaper, "enabled", true);
+        ReflectionTestUtils.setField(reaper, "ttlMinutes", 15L);
+        ReflectionTestUtils.setField(reaper, "tempPrefixes", List.of(tempPrefix));
+        ReflectionTestUtils.setField(reaper, "executionServiceType", "docker");
+        ReflectionTestUtils.setField(reaper, "workspacePool", workspacePool);
+        ReflectionTestUtils.setField(reaper, "processSupervisor", processSupervisor);
+        ReflectionTestUtils.setField(reaper, "dockerClient", dockerClient);
+        ReflectionTestUtils.setField(reaper, "meterRegistry", meterRegistry);
+        reaper.registerMetrics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (process != null) {
+            process.destroyForcibly();
+        }
+    }
+
+    @Test
+    void removesStaleDirectoriesThatNoWorkspaceOwns() throws IOException {
+        Path pooled = directory(baseDir.resolve("ws-1"), LONG_AGO);
+        when(workspacePool.isPooled(pooled)).thenReturn(true);
+        Path retired = Files.createDirectory(baseDir.resolve("ws-0"));
+        Files.writeString(retired.resolve("Main.java"), "class Main {}");
+        directory(retired, LONG_AGO);
+        Path fresh = directory(baseDir.resolve("ws-2"), Instant.now());
+        Path tempDir = Paths.get(System.getProperty("java.io.tmpdir"));
+        Path staleTemp = directory(tempDir.resolve(tempPrefix + "old"), LONG_AGO);
+        Path freshTemp = directory(tempDir.resolve(tempPrefix + "new"), Instant.now());
+
+        try {
+            reaper.reap();
+
+            assertThat(retired).doesNotExist();
+            assertThat(staleTemp).doesNotExist();
+            assertThat(pooled).exists();
+            assertThat(fresh).exists();
+            assertThat(freshTemp).exists();
+            assertThat(reaped("workspace")).isEqualTo(1);
+            assertThat(reaped("temp-dir")).isEqualTo(1);
+        } finally {
+            Files.deleteIfExists(freshTemp);
+        }
+    }
+
+    @Test
+    void removesOnlyExecutorContainersOlderThanTheTtl() {
+        Container old = container("old", LONG_AGO);
+        Container recent = container("recent", Instant.now());
+        when(dockerClient.listContainersCmd().withShowAll(true).withLabelFilter(any(java.util.Map.class)).exec())
+                .thenReturn(List.of(old, recent));
+
+        reaper.reap();
+
+        verify(dockerClient).removeContainerCmd("old");
+        verify(dockerClient, never()).removeContainerCmd("recent");
+        assertThat(reaped("container")).isEqualTo(1);
+    }
+
+    @Test
+    void leavesContainersAloneForLocalExecution() {
+        ReflectionTestUtils.setField(reaper, "executionServiceType", "local");
+
+        reaper.reap();
+
+        verify(dockerClient, never()).removeContainerCmd(anyString());
+    }
+
+    @Test
+    void killsUnsupervisedProcessesRunningInAWorkspace() throws Exception {
+        Path workspace = Files.createDirectory(baseDir.resolve("ws-1"));
+        when(workspacePool.isPooled(workspace)).thenReturn(true);
+        process = new ProcessBuilder("sleep", "30").directory(workspace.toFile()).start();
+        // Younger processes may belong to a run the supervisor has not sampled yet
+        reaper.reap();
+        assertThat(process.isAlive()).isTrue();
+
+        Thread.sleep(5500);
+        when(processSupervisor.isSupervised(process.toHandle())).thenReturn(true);
+        reaper.reap();
+        assertThat(process.isAlive()).isTrue();
+
+        when(processSupervisor.isSupervised(process.toHandle())).thenReturn(false);
+        reaper.reap();
+        assertThat(process.waitFor(5, java.util.concurrent.TimeUnit.SECONDS)).isTrue();
+        assertThat(reaped("process")).isEqualTo(1);
+    }
+
+    @Test
+    void doesNothingWhenDisabled() throws IOException {
+        ReflectionTestUtils.setField(reaper, "enabled", false);
+        Path retired = directory(baseDir.resolve("ws-0"), LONG_AGO);
+
+        reaper.reap();
+
+        assertThat(retired).exists();
+    }
+
+    private double reaped(String kind) {
+        return meterRegistry.counter("judge.reaper.reaped", "kind", kind).count();
+    }
+
+    private static Path directory(Path path, Instant modified) throws IOException {
+        Files.createDirectories(path);
+        Files.setLastModifiedTime(path, FileTime.from(modified));
+        return path;
+    }
+
+    private static Container container(String id, Instant created) {
+        Container container = mock(Container.class);
+        when(container.getId()).thenReturn(id);
+        when(container.getCreated()).thenReturn(created.getEpochSecond());
+        when(container.getNames()).thenReturn(new String[] {"/" + id});
+        return container;
+    }
+}
@@ -0,0 +1,63 @@
+package com.shodh.contest.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OutputComparatorTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void matchesIdenticalOutput() throws IOException {
+        assertThat(matches("1 2 3\n4\n", "1 2 3\n4\n")).isTrue();
+    }
+
+    @Test
+    void ignoresLeadingAndTrailingWhitespace() throws IOException {
+        assertThat(matches("\n  42 \n\n", "42")).isTrue();
+        assertThat(matches("", " \n")).isTrue();
+    }
+
+    @Test
+    void treatsCrlfAndLfAsTheSameLineBreak() throws IOException {
+        assertThat(matches("1\r\n2\r\n3\r\n", "1\n2\n3\n")).isTrue();
+        assertThat(matches("1\n2\n3", "1\r\n2\r\n3")).isTrue();
+        assertThat(matches("1\r2", "1\n2")).isTrue();
+    }
+
+    @Test
+    void keepsLineCountSignificant() throws IOException {
+        assertThat(matches("1\r\n\r\n2", "1\n2")).isFalse();
+        assertThat(matches("1\r\r\n2", "1\n\n2")).isTrue();
+    }
+
+    @Test
+    void rejectsDifferentOutput() throws IOException {
+        assertThat(matches("1 2", "1  2")).isFalse();
+        assertThat(matches("12", "1\n2")).isFalse();
+        assertThat(matches("1\n2", "1\n2\n3")).isFalse();
+    }
+
+    @Test
+    void previewsTrimmedHead() throws IOException {
+        Path file = write("out", "\n  abcdef  \n");
+
+        assertThat(OutputComparator.preview(file, 3)).isEqualTo("abc...");
+        assertThat(OutputComparator.preview(file, 10)).isEqualTo("abcdef");
+    }
+
+    private boolean matches(String actual, String expected) throws IOException {
+        return OutputComparator.matches(write("actual", actual), write("expected", expected));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        return Files.writeString(dir.resolve(name), content);
+    }
+}
@@ -0,0 +1,70 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProcessSupervisorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ProcessSupervisor supervisor;
+
+    @BeforeEach
+    void setUp() {
+        supervisor = new ProcessSupervisor();
+        ReflectionTestUtils.setField(supervisor, "sampleIntervalMillis", 20L);
+        ReflectionTestUtils.setField(supervisor, "maxDiagnosticsKb", 64);
+        ReflectionTestUtils.setField(supervisor, "meterRegistry", meterRegistry);
+        supervisor.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        supervisor.stop();
+    }
+
+    @Test
+    void killsBackgroundChildrenLeftBehindByACleanExit() throws Exception {
+        ProcessPump.Outcome outcome = supervisor.run(
+                new ProcessBuilder("bash", "-c", "sleep 30 >/dev/null 2>&1 & echo $!; sleep 0.3"), new byte[0], 5000);
+
+        assertThat(outcome.isTimedOut()).isFalse();
+        assertThat(outcome.getExitCode()).isZero();
+        assertGone(Long.parseLong(outcome.getStdout().trim()));
+        assertThat(meterRegistry.counter("judge.processes.killed", "reason", "orphan").count()).isPositive();
+    }
+
+    @Test
+    void killsTheWholeTreeOnTimeout() throws Exception {
+        ProcessPump.Outcome outcome = supervisor.run(
+                new ProcessBuilder("bash", "-c", "sleep 30 >/dev/null 2>&1 & echo $!; sleep 30"), new byte[0], 500);
+
+        assertThat(outcome.isTimedOut()).isTrue();
+        assertGone(Long.parseLong(outcome.getStdout().trim()));
+    }
+
+    @Test
+    void forgetsTreesOnceTheirRunIsOver() throws Exception {
+        supervisor.run(new ProcessBuilder("true"), new byte[0], 5000);
+
+        assertThat(supervisor.isSupervised(ProcessHandle.current())).isFalse();
+        assertThat(meterRegistry.get("judge.processes.supervised").gauge().value()).isZero();
+    }
+
+    private static void assertGone(long pid) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Optional<ProcessHandle> process = ProcessHandle.of(pid);
+            if (process.isEmpty() || !process.get().isAlive()) {
+                return;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Process " + pid + " is still running");
+    }
+}
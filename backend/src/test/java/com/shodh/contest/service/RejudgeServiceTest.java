@@ -0,0 +1,182 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.RejudgeProgress;
+import com.shodh.contest.dto.RejudgeRequest;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.RejudgeStatus;
+import com.shodh.contest.model.RejudgeTask;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import com.shodh.contest.repository.RejudgeTaskRepository;
+import com.shodh.contest.repository.SubmissionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RejudgeServiceTest {
+
+    // Submission ids matching the rejudge's filters
+    private static final List<Long> IDS = List.of(1L, 2L, 3L, 4L, 5L, 6L);
+
+    private RejudgeTaskRepository rejudgeTaskRepository;
+    private SubmissionService submissionService;
+    private final List<Long> dispatched = new ArrayList<>();
+    private RejudgeTask saved;
+    private RejudgeService service;
+
+    @BeforeEach
+    void setUp() {
+        rejudgeTaskRepository = mock(RejudgeTaskRepository.class);
+        when(rejudgeTaskRepository.save(any())).thenAnswer(call -> saved = call.getArgument(0));
+        when(rejudgeTaskRepository.findByTaskId(anyString())).thenAnswer(call -> Optional.ofNullable(saved));
+        submissionService = mock(SubmissionService.class);
+        when(submissionService.rejudgeSubmission(anyLong())).thenReturn(RejudgeOutcome.UNCHANGED);
+        service = newService();
+    }
+
+    @Test
+    void validatesTheRequest() {
+        assertThatThrownBy(() -> service.startRejudge(request(1.5))).hasMessageContaining("Capacity share");
+        RejudgeRequest unknown = request(0.25);
+        unknown.setContestId("NOPE");
+        assertThatThrownBy(() -> service.startRejudge(unknown)).hasMessage("Contest not found: NOPE");
+    }
+
+    @Test
+    void keepsNoMoreJobsOnTheJudgeThanItsShare() {
+        // A quarter of 8 slots
+        RejudgeProgress progress = service.startRejudge(request(0.25));
+
+        assertThat(progress.getTotalSubmissions()).isEqualTo(6);
+        assertThat(dispatched).containsExactly(1L, 2L);
+
+        finish(1L);
+        assertThat(dispatched).containsExactly(1L, 2L, 3L);
+        service.pump();
+        assertThat(dispatched).hasSize(3);
+    }
+
+    @Test
+    void completesOnceEverySubmissionIsRejudged() {
+        when(submissionService.rejudgeSubmission(2L)).thenReturn(RejudgeOutcome.CHANGED);
+        when(submissionService.rejudgeSubmission(3L)).thenReturn(RejudgeOutcome.REUSED);
+        String taskId = service.startRejudge(request(0.25)).getTaskId();
+
+        for (int i = 0; i < IDS.size(); i++) {
+            finish(dispatched.get(i));
+        }
+
+        RejudgeProgress progress = service.getProgress(taskId);
+        assertThat(progress.getStatus()).isEqualTo(RejudgeStatus.COMPLETED);
+        assertThat(progress.getCompletedSubmissions()).isEqualTo(6);
+        assertThat(progress.getChangedVerdicts()).isEqualTo(1);
+        assertThat(progress.getReusedResults()).isEqualTo(1);
+        assertThat(progress.getFinishedAt()).isNotNull();
+        assertThat(saved.getCursor()).isEqualTo(6);
+        assertThat(saved.getFinishedAboveCursor()).isNull();
+    }
+
+    @Test
+    void stopsDispatchingWhenCancelled() {
+        String taskId = service.startRejudge(request(0.25)).getTaskId();
+
+        RejudgeProgress cancelled = service.cancelRejudge(taskId);
+        finish(1L);
+        service.pump();
+
+        assertThat(cancelled.getStatus()).isEqualTo(RejudgeStatus.CANCELLED);
+        assertThat(dispatched).containsExactly(1L, 2L);
+        assertThat(saved.getCompletedSubmissions()).isZero();
+        assertThatThrownBy(() -> service.cancelRejudge(taskId)).hasMessageContaining("not running");
+    }
+
+    @Test
+    void resumesFromTheCursorWithoutRejudgingFinishedSubmissionsAgain() {
+        service.startRejudge(request(0.25));
+        finish(2L);
+        finish(3L);
+        // 1 and 4 are still on the judge when the backend stops
+        assertThat(saved.getCursor()).isZero();
+        assertThat(saved.getFinishedAboveCursor()).isEqualTo("2,3");
+        assertThat(saved.getCompletedSubmissions()).isEqualTo(2);
+
+        dispatched.clear();
+        service = newService();
+        when(rejudgeTaskRepository.findByStatus(RejudgeStatus.RUNNING)).thenReturn(List.of(saved));
+        service.resumeRunningRejudges();
+        service.pump();
+        assertThat(dispatched).containsExactly(1L, 4L);
+
+        finish(1L);
+        assertThat(saved.getCursor()).isEqualTo(3);
+        assertThat(saved.getFinishedAboveCursor()).isNull();
+        finish(4L);
+        finish(5L);
+        finish(6L);
+
+        assertThat(dispatched).containsExactly(1L, 4L, 5L, 6L);
+        assertThat(saved.getStatus()).isEqualTo(RejudgeStatus.COMPLETED);
+        assertThat(saved.getCompletedSubmissions()).isEqualTo(saved.getTotalSubmissions());
+    }
+
+    private void finish(Long submissionId) {
+        service.run(JudgeJob.rejudge(submissionId, "CONTEST-001", saved.getTaskId()));
+    }
+
+    private RejudgeService newService() {
+        Contest contest = new Contest();
+        contest.setId(1L);
+        contest.setContestId("CONTEST-001");
+        ContestRepository contestRepository = mock(ContestRepository.class);
+        when(contestRepository.findByContestId("CONTEST-001")).thenReturn(Optional.of(contest));
+
+        SubmissionRepository submissionRepository = mock(SubmissionRepository.class);
+        when(submissionRepository.countForRejudge(any(), any(), any(), any(), eq(0L))).thenReturn((long) IDS.size());
+        when(submissionRepository.findIdsForRejudge(any(), any(), any(), any(), anyLong(), any())).thenAnswer(call -> {
+            long after = call.getArgument(4);
+            Pageable page = call.getArgument(5);
+            return IDS.stream().filter(id -> id > after).limit(page.getPageSize()).toList();
+        });
+
+        JudgeQueue judgeQueue = mock(JudgeQueue.class);
+        doAnswer(call -> dispatched.add(call.<JudgeJob>getArgument(0).getSubmissionId()))
+                .when(judgeQueue).submitBackground(any());
+        JudgeSlots judgeSlots = mock(JudgeSlots.class);
+        when(judgeSlots.getSlotCount()).thenReturn(8);
+
+        RejudgeService rejudgeService = new RejudgeService();
+        ReflectionTestUtils.setField(rejudgeService, "rejudgeTaskRepository", rejudgeTaskRepository);
+        ReflectionTestUtils.setField(rejudgeService, "submissionRepository", submissionRepository);
+        ReflectionTestUtils.setField(rejudgeService, "contestRepository", contestRepository);
+        ReflectionTestUtils.setField(rejudgeService, "problemRepository", mock(ProblemRepository.class));
+        ReflectionTestUtils.setField(rejudgeService, "submissionService", submissionService);
+        ReflectionTestUtils.setField(rejudgeService, "judgeQueue", judgeQueue);
+        ReflectionTestUtils.setField(rejudgeService, "judgeSlots", judgeSlots);
+        ReflectionTestUtils.setField(rejudgeService, "defaultShare", 0.25);
+        // Smaller than the number of ids, so resuming also pages
+        ReflectionTestUtils.setField(rejudgeService, "pageSize", 4);
+        return rejudgeService;
+    }
+
+    private static RejudgeRequest request(double share) {
+        RejudgeRequest request = new RejudgeRequest();
+        request.setContestId("CONTEST-001");
+        request.setCapacityShare(share);
+        return request;
+    }
+}
@@ -0,0 +1,82 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.ReplicaStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicaHealthTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void servesNothingUntilAHeartbeatArrives() {
+        ReplicaHealth health = health("jdbc:h2:mem:replica");
+
+        assertThat(health.isEnabled()).isTrue();
+        assertThat(health.isServing()).isFalse();
+        assertThat(health.getStatus().getStalenessMs()).isNull();
+    }
+
+    @Test
+    void servesWhileTheHeartbeatIsWithinTheBound() {
+        ReplicaHealth health = health("jdbc:h2:mem:replica");
+
+        health.heartbeatReplicated(System.currentTimeMillis() - 500);
+        assertThat(health.isServing()).isTrue();
+
+        health.heartbeatReplicated(System.currentTimeMillis() - 5000);
+        assertThat(health.isServing()).isFalse();
+        assertThat(health.getStatus().getStalenessMs()).isGreaterThanOrEqualTo(5000);
+    }
+
+    @Test
+    void fallsBackWhileTheReplicaIsUnreachable() {
+        ReplicaHealth health = health("jdbc:h2:mem:replica");
+        health.heartbeatReplicated(System.currentTimeMillis());
+
+        health.replicaUnreachable(new IllegalStateException("connection refused"));
+        assertThat(health.isServing()).isFalse();
+
+        health.heartbeatReplicated(System.currentTimeMillis());
+        assertThat(health.isServing()).isTrue();
+    }
+
+    @Test
+    void neverServesAgainOnceFailed() {
+        ReplicaHealth health = health("jdbc:h2:mem:replica");
+
+        health.replicaFailed("replication gap");
+        health.heartbeatReplicated(System.currentTimeMillis());
+
+        assertThat(health.isServing()).isFalse();
+        assertThat(health.getStatus().getFailure()).isEqualTo("replication gap");
+    }
+
+    @Test
+    void reportsWhereReadsWent() {
+        ReplicaHealth health = health("");
+        health.recordRead(true);
+        health.recordRead(false);
+        health.recordRead(false);
+
+        ReplicaStatus status = health.getStatus();
+
+        assertThat(status.getEnabled()).isFalse();
+        assertThat(status.getServing()).isFalse();
+        assertThat(status.getReplicaReads()).isEqualTo(1);
+        assertThat(status.getPrimaryReads()).isEqualTo(2);
+        assertThat(status.getMaxStalenessMs()).isEqualTo(2000);
+    }
+
+    private ReplicaHealth health(String replicaUrl) {
+        ReplicaHealth health = new ReplicaHealth();
+        ReflectionTestUtils.setField(health, "replicaUrl", replicaUrl);
+        ReflectionTestUtils.setField(health, "maxStalenessMs", 2000L);
+        ReflectionTestUtils.setField(health, "meterRegistry", meterRegistry);
+        health.registerMetrics();
+        return health;
+    }
+}
@@ -0,0 +1,159 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.SubmissionPage;
+import com.shodh.contest.dto.SubmissionSummary;
+import com.shodh.contest.model.Contest;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Submission;
+import com.shodh.contest.model.SubmissionStatus;
+import com.shodh.contest.repository.ContestRepository;
+import com.shodh.contest.repository.ProblemRepository;
+import com.shodh.contest.repository.SubmissionRepository;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SubmissionHistoryServiceTest {
+
+    private static final String USER = "history-user";
+    private static final LocalDateTime TIE = LocalDateTime.of(2026, 1, 1, 12, 0);
+
+    @Autowired
+    private SubmissionHistoryService submissionHistoryService;
+
+    @Autowired
+    private ContestRepository contestRepository;
+
+    @Autowired
+    private ProblemRepository problemRepository;
+
+    @Autowired
+    private SubmissionRepository submissionRepository;
+
+    private Contest contest;
+    private Problem problem;
+
+    @BeforeAll
+    void seed() {
+        contest = new Contest();
+        contest.setContestId("HISTORY-TEST");
+        contest.setName("History");
+        contest.setStartTime(TIE.minusDays(1));
+        contest.setEndTime(TIE.plusDays(1));
+        contest = contestRepository.save(contest);
+
+        problem = new Problem();
+        problem.setContest(contest);
+        problem.setProblemId("H1");
+        problem.setTitle("History");
+        problem = problemRepository.save(problem);
+
+        // Seven submissions share a timestamp, so only the id orders them
+        for (int i = 0; i < 7; i++) {
+            save(USER, TIE);
+        }
+        for (int i = 1; i <= 3; i++) {
+            save(USER, TIE.minusMinutes(i));
+        }
+        save("someone-else", TIE.plusMinutes(1));
+    }
+
+    @Test
+    void walksEveryRowOnceNewestFirstAcrossTies() {
+        List<SubmissionSummary> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            SubmissionPage page = submissionHistoryService.getUserHistory(USER, cursor, 3);
+            seen.addAll(page.getSubmissions());
+            pageSizes.add(page.getSubmissions().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(pageSizes).containsExactly(3, 3, 3, 1);
+        assertThat(seen).extracting(SubmissionSummary::getSubmissionId).doesNotHaveDuplicates().hasSize(10);
+        assertThat(seen).isSortedAccordingTo(Comparator.comparing(SubmissionSummary::getSubmittedAt)
+                .thenComparing(SubmissionSummary::getId).reversed());
+        assertThat(seen).allSatisfy(row -> assertThat(row.getUsername()).isEqualTo(USER));
+    }
+
+    @Test
+    void newerSubmissionsDoNotShiftLaterPages() {
+        SubmissionPage first = submissionHistoryService.getProblemHistory("HISTORY-TEST", "H1", null, 4);
+        save("late-user", TIE.plusHours(1));
+        SubmissionPage second = submissionHistoryService.getProblemHistory("HISTORY-TEST", "H1", first.getNextCursor(), 4);
+
+        List<SubmissionSummary> last = first.getSubmissions();
+        SubmissionSummary boundary = last.get(last.size() - 1);
+        assertThat(second.getSubmissions()).allSatisfy(row -> assertThat(
+                row.getSubmittedAt().isBefore(boundary.getSubmittedAt())
+                        || (row.getSubmittedAt().equals(boundary.getSubmittedAt()) && row.getId() < boundary.getId()))
+                .isTrue());
+        assertThat(second.getSubmissions()).extracting(SubmissionSummary::getSubmissionId)
+                .doesNotContainAnyElementsOf(first.getSubmissions().stream().map(SubmissionSummary::getSubmissionId).toList());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        SubmissionPage page = submissionHistoryService.getContestHistory("HISTORY-TEST", null, 200);
+
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getSubmissions()).isNotEmpty()
+                .allSatisfy(row -> assertThat(row.getContestId()).isEqualTo("HISTORY-TEST"));
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        String notACursor = Base64.getUrlEncoder().encodeToString("yesterday,1".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> submissionHistoryService.getUserHistory(USER, "%%%", 3))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+        assertThatThrownBy(() -> submissionHistoryService.getUserHistory(USER, notACursor, 3))
+                .isInstanceOf(IllegalArgumentException.class).hasMessage("Invalid cursor");
+    }
+
+    @Test
+    void rejectsLimitsOutOfRange() {
+        assertThatThrownBy(() -> submissionHistoryService.getUserHistory(USER, null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> submissionHistoryService.getUserHistory(USER, null, 201))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void looksUpProblemsWithinTheContest() {
+        assertThatThrownBy(() -> submissionHistoryService.getProblemHistory("CONTEST-001", "H1", null, 10))
+                .hasMessage("Problem not found");
+    }
+
+    private void save(String username, LocalDateTime submittedAt) {
+        Submission submission = new Submission();
+        submission.setSubmissionId(UUID.randomUUID().toString());
+        submission.setContest(contest);
+        submission.setProblem(problem);
+        submission.setUsername(username);
+        submission.setLanguage("python");
+        submission.setStatus(SubmissionStatus.WRONG_ANSWER);
+        submission.setSubmittedAt(submittedAt);
+        submissionRepository.save(submission);
+    }
+}
@@ -0,0 +1,202 @@
+package com.shodh.contest.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.contest.dto.SubmissionTrace;
+import com.shodh.contest.dto.TraceSpan;
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.model.Submission;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SubmissionTracerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void followsASubmissionFromSubmitToVerdictAcrossThreads() throws Exception {
+        SubmissionTracer tracer = tracer(10, 10, "");
+        Submission submission = submission(1L);
+
+        try (SubmissionTracer.Span submit = tracer.begin(submission, System.nanoTime())) {
+            submit.attribute("queue.depth", 3);
+        }
+        tracer.detach();
+
+        Thread worker = Thread.ofVirtual().start(() -> {
+            tracer.resume(1L);
+            try (SubmissionTracer.Span compile = tracer.startSpan("compile")) {
+                try (SubmissionTracer.Span run = tracer.startSpan("run")) {
+                    run.attribute("test", 1).failed();
+                }
+            }
+            tracer.finish("WRONG_ANSWER", true);
+        });
+        worker.join();
+
+        SubmissionTrace trace = tracer.getTrace("sub-1");
+        assertThat(trace.getStatus()).isEqualTo("WRONG_ANSWER");
+        assertThat(trace.getProblemId()).isEqualTo("SUM-001");
+        assertThat(trace.getSpans()).extracting(TraceSpan::getName)
+                .containsExactly("submission", "submit", "queue", "compile", "run");
+        Map<String, TraceSpan> spans = trace.getSpans().stream()
+                .collect(Collectors.toMap(TraceSpan::getName, Function.identity()));
+        String root = spans.get("submission").getSpanId();
+        assertThat(spans.get("submission").getParentSpanId()).isNull();
+        assertThat(spans.get("submit").getParentSpanId()).isEqualTo(root);
+        assertThat(spans.get("queue").getParentSpanId()).isEqualTo(root);
+        assertThat(spans.get("compile").getParentSpanId()).isEqualTo(root);
+        assertThat(spans.get("run").getParentSpanId()).isEqualTo(spans.get("compile").getSpanId());
+        assertThat(spans.get("submit").getAttributes()).containsEntry("queue.depth", 3);
+        assertThat(spans.get("submission").getAttributes()).containsEntry("status", "WRONG_ANSWER");
+        // The queue span covers the gap between the request thread and the worker
+        assertThat(spans.get("queue").getOffsetMs()).isGreaterThanOrEqualTo(spans.get("submit").getOffsetMs());
+    }
+
+    @Test
+    void givesNoOpSpansToThreadsWithoutATrace() {
+        SubmissionTracer tracer = tracer(10, 10, "");
+
+        try (SubmissionTracer.Span span = tracer.startSpan("compile")) {
+            span.attribute("language", "java").failed();
+        }
+        tracer.finish("ACCEPTED", false);
+
+        assertThat(tracer.slowest(5, 10)).isEmpty();
+        assertThatThrownBy(() -> tracer.getTrace("sub-1")).hasMessageContaining("No trace for submission");
+    }
+
+    @Test
+    void leavesSubmissionsBeyondTheActiveLimitUntraced() {
+        SubmissionTracer tracer = tracer(1, 10, "");
+
+        tracer.begin(submission(1L), System.nanoTime()).close();
+        tracer.detach();
+        tracer.begin(submission(2L), System.nanoTime()).close();
+
+        assertThat(tracer.getTrace("sub-1").getSpans()).hasSize(2);
+        assertThatThrownBy(() -> tracer.getTrace("sub-2")).hasMessageContaining("No trace");
+    }
+
+    @Test
+    void closingASpanClosesTheSpansLeftOpenInsideIt() {
+        SubmissionTracer tracer = tracer(10, 10, "");
+        tracer.begin(submission(1L), System.nanoTime()).close();
+
+        SubmissionTracer.Span compile = tracer.startSpan("compile");
+        tracer.startSpan("javac");
+        compile.close();
+        tracer.startSpan("run").close();
+        tracer.finish("ACCEPTED", false);
+
+        Map<String, TraceSpan> spans = tracer.getTrace("sub-1").getSpans().stream()
+                .collect(Collectors.toMap(TraceSpan::getName, Function.identity()));
+        assertThat(spans.get("run").getParentSpanId()).isEqualTo(spans.get("submission").getSpanId());
+    }
+
+    @Test
+    void listsTheSlowestRecentTracesAndKeepsOnlyTheRetainedOnes() throws InterruptedException {
+        SubmissionTracer tracer = tracer(10, 2, "");
+        for (long id = 1; id <= 3; id++) {
+            tracer.begin(submission(id), System.nanoTime()).close();
+            Thread.sleep(id == 2 ? 30 : 1);
+            tracer.finish("ACCEPTED", false);
+        }
+
+        List<SubmissionTrace> slowest = tracer.slowest(5, 10);
+
+        assertThat(slowest).extracting(SubmissionTrace::getSubmissionId).containsExactly("sub-2", "sub-3");
+        assertThat(slowest).allSatisfy(trace -> assertThat(trace.getSpans()).isNull());
+        assertThat(tracer.slowest(5, 1)).hasSize(1);
+        assertThatThrownBy(() -> tracer.slowest(0, 10)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void dropsTheTraceOfADiscardedSubmission() {
+        SubmissionTracer tracer = tracer(10, 10, "");
+        tracer.begin(submission(1L), System.nanoTime()).close();
+
+        tracer.discard(1L);
+        tracer.finish("ACCEPTED", false);
+
+        assertThatThrownBy(() -> tracer.getTrace("sub-1")).hasMessageContaining("No trace");
+    }
+
+    @Test
+    void exportsFinishedTracesAsOtlpJsonLines() throws Exception {
+        Path file = dir.resolve("traces").resolve("traces.jsonl");
+        SubmissionTracer tracer = tracer(10, 10, file.toString());
+        tracer.start();
+
+        tracer.begin(submission(1L), System.nanoTime()).close();
+        try (SubmissionTracer.Span compile = tracer.startSpan("compile")) {
+            compile.attribute("cached", true).attribute("millis", 12L).attribute("factor", 1.5);
+        }
+        tracer.finish("ACCEPTED", false);
+        tracer.stop();
+
+        List<String> lines = Files.readAllLines(file);
+        assertThat(lines).hasSize(1);
+        JsonNode resource = objectMapper.readTree(lines.get(0)).path("resourceSpans").get(0);
+        assertThat(resource.at("/resource/attributes/0/value/stringValue").asText()).isEqualTo("contest-platform");
+        JsonNode spans = resource.at("/scopeSpans/0/spans");
+        assertThat(spans).hasSize(3);
+        String traceId = tracer.getTrace("sub-1").getTraceId();
+        for (JsonNode span : spans) {
+            assertThat(span.get("traceId").asText()).isEqualTo(traceId);
+            assertThat(span.get("startTimeUnixNano").isTextual()).isTrue();
+            assertThat(span.get("endTimeUnixNano").asLong()).isGreaterThanOrEqualTo(span.get("startTimeUnixNano").asLong());
+        }
+        JsonNode compile = spans.get(2);
+        assertThat(compile.get("name").asText()).isEqualTo("compile");
+        assertThat(compile.get("kind").asInt()).isEqualTo(1);
+        assertThat(compile.at("/attributes/0/value/boolValue").asBoolean()).isTrue();
+        assertThat(compile.at("/attributes/1/value/intValue").asText()).isEqualTo("12");
+        assertThat(compile.at("/attributes/2/value/doubleValue").asDouble()).isEqualTo(1.5);
+        assertThat(spans.get(0).get("kind").asInt()).isEqualTo(2);
+        assertThat(spans.get(0).has("parentSpanId")).isFalse();
+        assertThat(meterRegistry.counter("tracing.exported", "result", "written").count()).isEqualTo(1);
+    }
+
+    private SubmissionTracer tracer(int maxActive, int retained, String exportFile) {
+        SubmissionTracer tracer = new SubmissionTracer();
+        ReflectionTestUtils.setField(tracer, "enabled", true);
+        ReflectionTestUtils.setField(tracer, "maxActive", maxActive);
+        ReflectionTestUtils.setField(tracer, "retained", retained);
+        ReflectionTestUtils.setField(tracer, "exportFile", exportFile);
+        ReflectionTestUtils.setField(tracer, "maxFileMegabytes", 100L);
+        ReflectionTestUtils.setField(tracer, "otlpEndpoint", "");
+        ReflectionTestUtils.setField(tracer, "queueSize", 100);
+        ReflectionTestUtils.setField(tracer, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(tracer, "meterRegistry", meterRegistry);
+        return tracer;
+    }
+
+    private static Submission submission(long id) {
+        Problem problem = new Problem();
+        problem.setProblemId("SUM-001");
+        Submission submission = new Submission();
+        submission.setId(id);
+        submission.setSubmissionId("sub-" + id);
+        submission.setUsername("alice");
+        submission.setLanguage("java");
+        submission.setProblem(problem);
+        return submission;
+    }
+}
@@ -0,0 +1,207 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.JudgingPolicy;
+import com.shodh.contest.model.Subtask;
+import com.shodh.contest.model.SubmissionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SubtaskGraderTest {
+
+    private static final long TIME_LIMIT = 1000;
+
+    @TempDir
+    Path dir;
+
+    private Path testDir;
+    private Path outputDir;
+    private SubtaskGrader grader;
+    private TestFailureStats testFailureStats;
+    private final List<Integer> ran = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        testDir = Files.createDirectories(dir.resolve("tests"));
+        outputDir = Files.createDirectories(dir.resolve("output"));
+
+        testFailureStats = mock(TestFailureStats.class);
+        when(testFailureStats.order(any(), anyInt(), anyInt()))
+                .thenAnswer(invocation -> IntStream.range(invocation.getArgument(1), invocation.getArgument(2)).toArray());
+        NodeCalibration nodeCalibration = mock(NodeCalibration.class);
+        when(nodeCalibration.timeLimitMillis(any())).thenReturn(TIME_LIMIT);
+
+        grader = new SubtaskGrader();
+        ReflectionTestUtils.setField(grader, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(grader, "testFailureStats", testFailureStats);
+        ReflectionTestUtils.setField(grader, "nodeCalibration", nodeCalibration);
+        ReflectionTestUtils.setField(grader, "submissionTracer", new SubmissionTracer());
+        ReflectionTestUtils.setField(grader, "rerunMargin", 0.1);
+        ReflectionTestUtils.setField(grader, "maxReruns", 2);
+    }
+
+    @Test
+    void icpcAcceptsWhenEveryTestPasses() throws IOException {
+        CodeExecutionService.ExecutionResult result = grade(tests(JudgingPolicy.ICPC, 3, List.of()), "ok", "ok", "ok");
+
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.ACCEPTED);
+        assertThat(result.getScore()).isEqualTo(100);
+        assertThat(result.getTestCasesPassed()).isEqualTo(3);
+        assertThat(result.getErrorMessage()).isNull();
+    }
+
+    @Test
+    void icpcStopsAtTheFirstFailureAndScoresNothing() throws IOException {
+        TestSet tests = tests(JudgingPolicy.ICPC, 5, List.of(new Subtask(2, 40), new Subtask(3, 60)));
+        CodeExecutionService.ExecutionResult result = grade(tests, "ok", "wa", "ok", "ok", "ok");
+
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.WRONG_ANSWER);
+        assertThat(result.getScore()).isZero();
+        assertThat(result.getTestCasesPassed()).isEqualTo(1);
+        assertThat(result.getTotalTestCases()).isEqualTo(5);
+        assertThat(ran).containsExactly(0, 1);
+        assertThat(result.getErrorMessage())
+                .startsWith("Test case 2 failed.\nExpected: answer-2\nGot: wrong")
+                .endsWith("Skipped 3 test cases that could not change the result");
+    }
+
+    @Test
+    void ioiKeepsThePointsOfPassedSubtasks() throws IOException {
+        TestSet tests = tests(JudgingPolicy.IOI, 5, List.of(new Subtask(2, 40), new Subtask(3, 60)));
+        CodeExecutionService.ExecutionResult result = grade(tests, "re", "ok", "ok", "ok", "ok");
+
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.RUNTIME_ERROR);
+        assertThat(result.getScore()).isEqualTo(60);
+        assertThat(result.getTestCasesPassed()).isEqualTo(3);
+        assertThat(ran).containsExactly(0, 2, 3, 4);
+        assertThat(result.getErrorMessage()).contains("Test case 1: crashed")
+                .endsWith("Skipped 1 test case that could not change the result");
+    }
+
+    @Test
+    void ioiTakesTheVerdictOfTheFirstFailingSubtask() throws IOException {
+        TestSet tests = tests(JudgingPolicy.IOI, 4, List.of(new Subtask(1, 10), new Subtask(1, 20), new Subtask(2, 70)));
+        CodeExecutionService.ExecutionResult result = grade(tests, "ok", "tle", "wa", "ok");
+
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+        assertThat(result.getScore()).isEqualTo(10);
+        assertThat(ran).containsExactly(0, 1, 1, 1, 2);
+    }
+
+    @Test
+    void testsBeyondTheSubtasksStillDecideTheVerdict() throws IOException {
+        TestSet tests = tests(JudgingPolicy.IOI, 3, List.of(new Subtask(2, 100)));
+        CodeExecutionService.ExecutionResult result = grade(tests, "ok", "ok", "wa");
+
+        assertThat(tests.getSubtasks()).extracting(Subtask::getPoints).containsExactly(100, 0);
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.WRONG_ANSWER);
+        assertThat(result.getScore()).isEqualTo(100);
+    }
+
+    @Test
+    void compilationErrorEndsJudgingImmediately() throws IOException {
+        CodeExecutionService.ExecutionResult result = grade(tests(JudgingPolicy.IOI, 3, List.of()), "ce", "ok", "ok");
+
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.COMPILATION_ERROR);
+        assertThat(ran).containsExactly(0);
+    }
+
+    @Test
+    void runsTestsInTheRankedOrder() throws IOException {
+        when(testFailureStats.order(any(), anyInt(), anyInt())).thenReturn(new int[] {2, 0, 1});
+        CodeExecutionService.ExecutionResult result = grade(tests(JudgingPolicy.ICPC, 3, List.of()), "wa", "ok", "wa");
+
+        assertThat(ran).containsExactly(2);
+        assertThat(result.getErrorMessage()).startsWith("Test case 3 failed.");
+    }
+
+    @Test
+    void reRunsNearTheLimitAndKeepsTheFastestAttempt() throws IOException {
+        TestSet tests = tests(JudgingPolicy.ICPC, 1, List.of());
+        long[] times = {950, 400};
+        CodeExecutionService.ExecutionResult result = grader.grade(tests, outputDir, index -> {
+            CodeExecutionService.ExecutionResult run = run(index, "ok");
+            run.setTimeMillis(times[Math.min(ran.size() - 1, times.length - 1)]);
+            return run;
+        });
+
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.ACCEPTED);
+        assertThat(result.getReruns()).isEqualTo(1);
+        assertThat(result.getTimeMillis()).isEqualTo(400);
+    }
+
+    @Test
+    void doesNotReRunWrongAnswers() throws IOException {
+        CodeExecutionService.ExecutionResult result = grade(tests(JudgingPolicy.ICPC, 1, List.of()), "wa-slow");
+
+        assertThat(result.getStatus()).isEqualTo(SubmissionStatus.WRONG_ANSWER);
+        assertThat(result.getReruns()).isZero();
+    }
+
+    private TestSet tests(JudgingPolicy policy, int count, List<Subtask> subtasks) throws IOException {
+        for (int i = 0; i < count; i++) {
+            Files.writeString(testDir.resolve(TestSet.fileName(i, "out")), "answer-" + (i + 1) + "\n");
+        }
+        return new TestSet(testDir, count, 1, 7L, policy, subtasks, null);
+    }
+
+    private CodeExecutionService.ExecutionResult grade(TestSet tests, String... outcomes) throws IOException {
+        IntFunction<CodeExecutionService.ExecutionResult> runner = index -> run(index, outcomes[index]);
+        return grader.grade(tests, outputDir, runner);
+    }
+
+    // ok: right answer, wa: wrong answer, tle, re: crash, ce: compilation error; "-slow" runs near the limit
+    private CodeExecutionService.ExecutionResult run(int index, String outcome) {
+        ran.add(index);
+        CodeExecutionService.ExecutionResult result = new CodeExecutionService.ExecutionResult();
+        result.setTimeMillis(outcome.endsWith("-slow") ? TIME_LIMIT : 10);
+        try {
+            switch (outcome.replace("-slow", "")) {
+                case "ok" -> writeOutput(index, "answer-" + (index + 1));
+                case "wa" -> writeOutput(index, "wrong");
+                case "tle" -> {
+                    result.setStatus(SubmissionStatus.TIME_LIMIT_EXCEEDED);
+                    result.setTimeMillis(TIME_LIMIT);
+                    result.setErrorMessage("Time limit exceeded");
+                    return result;
+                }
+                case "re" -> {
+                    result.setStatus(SubmissionStatus.RUNTIME_ERROR);
+                    result.setErrorMessage("crashed");
+                    return result;
+                }
+                case "ce" -> {
+                    result.setStatus(SubmissionStatus.COMPILATION_ERROR);
+                    result.setErrorMessage("syntax error");
+                    return result;
+                }
+                default -> throw new IllegalArgumentException(outcome);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        result.setStatus(SubmissionStatus.ACCEPTED);
+        return result;
+    }
+
+    private void writeOutput(int index, String text) throws IOException {
+        Files.writeString(outputDir.resolve(TestSet.fileName(index, "out")), text + "\n");
+    }
+}
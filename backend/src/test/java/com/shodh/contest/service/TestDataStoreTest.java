@@ -0,0 +1,130 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.Problem;
+import com.shodh.contest.repository.ProblemRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestDataStoreTest {
+
+    @TempDir
+    Path baseDir;
+
+    private final Problem stored = new Problem();
+    private ProblemRepository problemRepository;
+    private TransactionTemplate transactionTemplate;
+    private TestDataStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        stored.setId(1L);
+        stored.setInputTestCases(List.of("1 2"));
+        stored.setExpectedOutputs(List.of("3"));
+        problemRepository = mock(ProblemRepository.class);
+        when(problemRepository.findById(1L)).thenReturn(Optional.of(stored));
+        transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(call ->
+                call.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+        store = newStore();
+    }
+
+    @Test
+    void keepsALeasedVersionUntilItIsReleased() throws IOException {
+        TestSet old = store.acquire(version(1));
+        TestSet current = store.acquire(version(2));
+
+        assertThat(current.getDirectory()).isNotEqualTo(old.getDirectory());
+        assertThat(Files.readString(old.input(0))).isEqualTo("1 2");
+        assertThat(store.getLeases(old)).isEqualTo(1);
+
+        store.release(old);
+        assertThat(old.getDirectory()).doesNotExist();
+        store.release(current);
+        assertThat(current.getDirectory()).exists();
+    }
+
+    @Test
+    void removesUnleasedOlderVersionsRightAway() {
+        TestSet old = store.getTestSet(version(1));
+        store.getTestSet(version(2));
+
+        assertThat(old.getDirectory()).doesNotExist();
+    }
+
+    @Test
+    void countsEveryLeaseOfAVersion() {
+        TestSet first = store.acquire(version(1));
+        TestSet second = store.acquire(version(1));
+        assertThat(second).isSameAs(first);
+        assertThat(store.getLeases(first)).isEqualTo(2);
+
+        store.acquire(version(2));
+        store.release(first);
+        assertThat(first.getDirectory()).exists();
+        store.release(second);
+        assertThat(first.getDirectory()).doesNotExist();
+    }
+
+    @Test
+    void servesTheNewestVersionToStaleRequests() {
+        TestSet current = store.acquire(version(2));
+
+        TestSet stale = store.acquire(version(1));
+
+        assertThat(stale).isSameAs(current);
+        assertThat(baseDir.resolve("1").resolve("v1")).doesNotExist();
+        assertThat(store.getLeases(current)).isEqualTo(2);
+    }
+
+    @Test
+    void aStaleRequestAfterARestartKeepsTheNewerVersion() throws IOException {
+        TestSet current = store.getTestSet(version(2));
+
+        TestSet stale = newStore().getTestSet(version(1));
+
+        assertThat(stale.getVersion()).isEqualTo(1);
+        assertThat(Files.readString(stale.expectedOutput(0))).isEqualTo("3");
+        assertThat(current.getDirectory()).exists();
+    }
+
+    @Test
+    void leavesAdHocSetsAlone() {
+        TestSet canary = store.writeTestSet("canary-java", List.of(""), List.of("ok"));
+
+        store.release(canary);
+
+        assertThat(canary.getDirectory()).exists();
+    }
+
+    private TestDataStore newStore() throws IOException {
+        TestDataStore testDataStore = new TestDataStore();
+        ReflectionTestUtils.setField(testDataStore, "baseDir", baseDir.toString());
+        ReflectionTestUtils.setField(testDataStore, "clearOnStartup", false);
+        ReflectionTestUtils.setField(testDataStore, "problemRepository", problemRepository);
+        ReflectionTestUtils.setField(testDataStore, "transactionTemplate", transactionTemplate);
+        testDataStore.init();
+        return testDataStore;
+    }
+
+    private Problem version(long version) {
+        Problem problem = new Problem();
+        problem.setId(1L);
+        problem.setVersion(version);
+        return problem;
+    }
+}
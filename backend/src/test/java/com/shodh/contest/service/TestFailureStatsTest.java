@@ -0,0 +1,122 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.model.TestCaseStat;
+import com.shodh.contest.repository.TestCaseStatRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TestFailureStatsTest {
+
+    private static final long PROBLEM = 7L;
+
+    private TestCaseStatRepository repository;
+    private TestFailureStats stats;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(TestCaseStatRepository.class);
+        when(repository.findByProblemId(anyLong())).thenReturn(List.of());
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        stats = stats(15);
+    }
+
+    @Test
+    void keepsStoredOrderWithoutHistory() {
+        assertThat(stats.order(tests(4, 1), 0, 4)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void keepsStoredOrderForSetsWithoutAProblem() {
+        TestSet canary = new TestSet(Path.of("unused"), 3, 1);
+        stats.record(canary, 2, true);
+
+        assertThat(stats.order(canary, 0, 3)).containsExactly(0, 1, 2);
+    }
+
+    @Test
+    void freezesTheRankingUntilTheRefreshInterval() {
+        TestSet tests = tests(4, 1);
+        stats.order(tests, 0, 4);
+        failRepeatedly(tests, 3);
+
+        assertThat(stats.order(tests, 0, 4)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void runsTheMostFailingTestsFirstAfterARefresh() throws InterruptedException {
+        stats = stats(0);
+        TestSet tests = tests(4, 1);
+        stats.order(tests, 0, 4);
+        failRepeatedly(tests, 3);
+        failRepeatedly(tests, 1);
+        stats.record(tests, 1, false);
+        Thread.sleep(5);
+
+        assertThat(stats.order(tests, 0, 4)).containsExactly(3, 1, 0, 2);
+        assertThat(stats.order(tests, 2, 4)).containsExactly(3, 2);
+    }
+
+    @Test
+    void startsOverWhenTheTestDataChanges() {
+        TestSet tests = tests(4, 1);
+        failRepeatedly(tests, 3);
+        stats = stats(15);
+        when(repository.findByProblemId(PROBLEM)).thenReturn(List.of(
+                new TestCaseStat(1L, PROBLEM, 3, 1L, 5.0, 5.0, LocalDateTime.now(), 0),
+                new TestCaseStat(2L, PROBLEM, 0, 1L, 5.0, 0.0, LocalDateTime.now(), 1)));
+
+        assertThat(stats.order(tests(4, 2), 0, 4)).containsExactly(0, 1, 2, 3);
+    }
+
+    @Test
+    void reusesRanksStoredByAPreviousRun() {
+        LocalDateTime now = LocalDateTime.now();
+        when(repository.findByProblemId(PROBLEM)).thenReturn(List.of(
+                new TestCaseStat(1L, PROBLEM, 0, 1L, 1.0, 0.0, now, 2),
+                new TestCaseStat(2L, PROBLEM, 1, 1L, 1.0, 1.0, now, 0),
+                new TestCaseStat(3L, PROBLEM, 2, 1L, 1.0, 0.5, now, 1)));
+
+        assertThat(stats.order(tests(3, 1), 0, 3)).containsExactly(1, 2, 0);
+    }
+
+    @Test
+    void flushesChangedCountsInTheBackground() {
+        TestSet tests = tests(2, 1);
+        stats.record(tests, 1, true);
+        stats.flush();
+
+        verify(repository).saveAll(org.mockito.ArgumentMatchers.<List<TestCaseStat>>argThat(rows -> rows.size() == 1
+                && rows.get(0).getTestIndex() == 1 && rows.get(0).getFailures() == 1.0));
+    }
+
+    private TestFailureStats stats(long refreshIntervalMinutes) {
+        TestFailureStats stats = new TestFailureStats();
+        ReflectionTestUtils.setField(stats, "adaptive", true);
+        ReflectionTestUtils.setField(stats, "halfLifeHours", 24.0);
+        ReflectionTestUtils.setField(stats, "refreshIntervalMinutes", refreshIntervalMinutes);
+        ReflectionTestUtils.setField(stats, "testCaseStatRepository", repository);
+        return stats;
+    }
+
+    private void failRepeatedly(TestSet tests, int index) {
+        for (int i = 0; i < 5; i++) {
+            stats.record(tests, index, true);
+        }
+    }
+
+    private static TestSet tests(int count, long version) {
+        return new TestSet(Path.of("unused"), count, version, PROBLEM, null, List.of(), null);
+    }
+}
@@ -0,0 +1,174 @@
+package com.shodh.contest.service;
+
+import com.shodh.contest.dto.ToolchainProfile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ToolchainProfilesTest {
+
+    private static final Pattern CLASS_LIST = Pattern.compile("DumpLoadedClassList=\\.\\./(\\S+)");
+
+    @TempDir
+    Path localDir;
+
+    private ProcessSupervisor processSupervisor;
+    private SimpleMeterRegistry meterRegistry;
+    private ToolchainProfiles profiles;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        processSupervisor = mock(ProcessSupervisor.class);
+        // Builds succeed; the JVM's class lists get one JDK class and the training class each
+        when(processSupervisor.run(any(), any(), anyLong())).thenAnswer(call -> {
+            ProcessBuilder builder = call.getArgument(0);
+            Matcher classList = CLASS_LIST.matcher(builder.command().get(2));
+            if (classList.find()) {
+                Files.writeString(builder.directory().toPath().resolve("..").resolve(classList.group(1)),
+                        "# NOTE: comment\njava/lang/Object id: 1\nMain id: 2\n");
+            }
+            return outcome(0);
+        });
+        meterRegistry = new SimpleMeterRegistry();
+
+        profiles = new ToolchainProfiles();
+        ReflectionTestUtils.setField(profiles, "executionServiceType", "docker");
+        ReflectionTestUtils.setField(profiles, "localDir", localDir.toString());
+        ReflectionTestUtils.setField(profiles, "imageDir", "/opt/shodh-toolchain");
+        ReflectionTestUtils.setField(profiles, "cppPch", true);
+        ReflectionTestUtils.setField(profiles, "javaCds", true);
+        ReflectionTestUtils.setField(profiles, "pythonBytecode", true);
+        ReflectionTestUtils.setField(profiles, "buildTimeoutMillis", 1000L);
+        ReflectionTestUtils.setField(profiles, "processSupervisor", processSupervisor);
+        ReflectionTestUtils.setField(profiles, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void usesTheImageArtifactsInContainers() {
+        assertThat(profiles.compileCommand("cpp", "g++ -o main main.cpp", true))
+                .isEqualTo("g++ -I/opt/shodh-toolchain/pch -o main main.cpp");
+        assertThat(profiles.compileCommand("java", "javac Main.java", true))
+                .isEqualTo("javac -J-XX:SharedArchiveFile=/opt/shodh-toolchain/java/jdk.jsa -J-Xshare:auto Main.java");
+        assertThat(profiles.runCommand("java", "java Main", true))
+                .isEqualTo("java -XX:SharedArchiveFile=/opt/shodh-toolchain/java/jdk.jsa -Xshare:auto Main");
+        assertThat(profiles.compileCommand("python", "", true)).isEqualTo("python3 -m compileall -q -b main.py");
+        assertThat(profiles.runCommand("python", "python3 main.py", true)).isEqualTo("python3 main.pyc");
+        assertThat(profiles.runCommand("cpp", "./main", true)).isEqualTo("./main");
+    }
+
+    @Test
+    void fallsBackToThePlainCommandsWhenSwitchedOff() {
+        ReflectionTestUtils.setField(profiles, "cppPch", false);
+        ReflectionTestUtils.setField(profiles, "javaCds", false);
+        ReflectionTestUtils.setField(profiles, "pythonBytecode", false);
+
+        assertThat(profiles.compileCommand("cpp", "g++ -o main main.cpp", true)).isEqualTo("g++ -o main main.cpp");
+        assertThat(profiles.compileCommand("java", "javac Main.java", true)).isEqualTo("javac Main.java");
+        assertThat(profiles.runCommand("java", "java Main", true)).isEqualTo("java Main");
+        assertThat(profiles.compileCommand("python", "", true)).isEmpty();
+        assertThat(profiles.runCommand("python", "python3 main.py", true)).isEqualTo("python3 main.py");
+        assertThat(profiles.compileCommand("javascript", "", true)).isEmpty();
+    }
+
+    @Test
+    void usesLocalArtifactsOnlyOnceTheyAreBuilt() throws IOException {
+        ReflectionTestUtils.setField(profiles, "executionServiceType", "local");
+        assertThat(profiles.compileCommand("cpp", "g++ -o main main.cpp", false)).isEqualTo("g++ -o main main.cpp");
+
+        profiles.prepare();
+
+        assertThat(profiles.compileCommand("cpp", "g++ -o main main.cpp", false))
+                .isEqualTo("g++ -I" + localDir + "/pch -o main main.cpp");
+        assertThat(profiles.runCommand("java", "java Main", false))
+                .isEqualTo("java -XX:SharedArchiveFile=" + localDir + "/java/jdk.jsa -Xshare:auto Main");
+        assertThat(profiles.runCommand("python", "python3 main.py", false)).isEqualTo("python3 main.pyc");
+        // The wrapper header forwards to the real one so g++ picks the .gch up next to it
+        assertThat(localDir.resolve("pch/bits/stdc++.h")).hasContent("#include_next <bits/stdc++.h>");
+        // Only JDK classes go into the archive, once each, without ids
+        assertThat(Files.readAllLines(localDir.resolve("java/jdk.classlist"))).containsExactly("java/lang/Object");
+        assertThat(profiles.getProfiles()).extracting(ToolchainProfile::isReady).containsOnly(true);
+    }
+
+    @Test
+    void fallsBackLocallyWhenAnArtifactCannotBeBuilt() throws Exception {
+        ReflectionTestUtils.setField(profiles, "executionServiceType", "local");
+        doReturn(outcome(1)).when(processSupervisor).run(any(), any(), anyLong());
+
+        profiles.prepare();
+
+        assertThat(profiles.compileCommand("cpp", "g++ -o main main.cpp", false)).isEqualTo("g++ -o main main.cpp");
+        assertThat(profiles.compileCommand("java", "javac Main.java", false)).isEqualTo("javac Main.java");
+        ToolchainProfile cpp = profiles.getProfiles().get(0);
+        assertThat(cpp.getLanguage()).isEqualTo("cpp");
+        assertThat(cpp.isEnabled()).isTrue();
+        assertThat(cpp.isReady()).isFalse();
+        assertThat(cpp.getDetail()).contains("exited with 1");
+    }
+
+    @Test
+    void buildsNothingForContainers() {
+        profiles.prepare();
+
+        assertThat(profiles.getProfiles()).allSatisfy(profile -> {
+            assertThat(profile.isReady()).isTrue();
+            assertThat(profile.getDetail()).isEqualTo("built into executor image");
+        });
+        assertThat(localDir).isEmptyDirectory();
+    }
+
+    @Test
+    void tagsCompileLatencyWithTheProfileInUse() {
+        profiles.recordCompile("cpp", true, Duration.ofMillis(5));
+        profiles.recordCompile("cpp", false, Duration.ofMillis(5));
+
+        assertThat(meterRegistry.get("judge.compile.latency").tag("profile", "precompiled-header").timer().count())
+                .isEqualTo(1);
+        assertThat(meterRegistry.get("judge.compile.latency").tag("profile", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void keepsOnlyJdkClassesFromAClassList() {
+        assertThat(ToolchainProfiles.isJdkClassEntry("java/util/HashMap id: 12")).isTrue();
+        assertThat(ToolchainProfiles.isJdkClassEntry("@lambda-proxy java/lang/Runnable id: 3")).isTrue();
+        assertThat(ToolchainProfiles.isJdkClassEntry("Main id: 40")).isFalse();
+        assertThat(ToolchainProfiles.isJdkClassEntry("# NOTE: header")).isFalse();
+        assertThat(ToolchainProfiles.isJdkClassEntry(" ")).isFalse();
+    }
+
+    @Test
+    void benchmarksOnlyPreparedLocalProfiles() {
+        assertThatThrownBy(() -> profiles.benchmark("cpp", 1)).hasMessageContaining("local toolchain only");
+
+        ReflectionTestUtils.setField(profiles, "executionServiceType", "local");
+        assertThatThrownBy(() -> profiles.benchmark("javascript", 1)).hasMessageContaining("No acceleration profile");
+        assertThatThrownBy(() -> profiles.benchmark("cpp", 1)).hasMessageContaining("disabled or not prepared");
+        profiles.prepare();
+        assertThatThrownBy(() -> profiles.benchmark("cpp", 21)).hasMessageContaining("between 1 and 20");
+        assertThat(profiles.benchmark("python", 1).getProfile()).isEqualTo("bytecode");
+    }
+
+    private static ProcessPump.Outcome outcome(int exitCode) {
+        ProcessPump.Outcome outcome = new ProcessPump.Outcome();
+        ReflectionTestUtils.setField(outcome, "exitCode", exitCode);
+        ReflectionTestUtils.setField(outcome, "stdout", "");
+        ReflectionTestUtils.setField(outcome, "stderr", "");
+        return outcome;
+    }
+}
@@ -0,0 +1,110 @@
+package com.shodh.contest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.contest.dto.SubmissionRequest;
+import com.shodh.contest.dto.WorkloadEvent;
+import com.shodh.contest.model.Submission;
+import com.shodh.contest.model.SubmissionStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkloadCaptureTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void writesNothingWhenDisabled() throws Exception {
+        WorkloadCapture capture = capture(false);
+        capture.start();
+        capture.recordRead("/api/contests/CONTEST-001");
+        capture.stop();
+
+        assertThat(capture.getFile()).isNull();
+        try (var files = Files.list(dir)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void writesEveryEventAsAGzippedJsonLine() throws Exception {
+        WorkloadCapture capture = capture(true);
+        capture.start();
+
+        SubmissionRequest request = new SubmissionRequest();
+        request.setContestId("CONTEST-001");
+        request.setProblemId("SUM-001");
+        request.setUsername("alice");
+        request.setCode("print(1)");
+        Submission submission = new Submission();
+        submission.setSubmissionId("sub-1");
+        submission.setLanguage("python");
+        submission.setStatus(SubmissionStatus.ACCEPTED);
+        submission.setSubmittedAt(LocalDateTime.of(2026, 1, 1, 12, 0, 0));
+        submission.setProcessedAt(LocalDateTime.of(2026, 1, 1, 12, 0, 1, 250_000_000));
+
+        capture.recordSubmission(request, submission);
+        capture.recordRead("/api/submissions/sub-1");
+        capture.recordVerdict(submission);
+        capture.stop();
+
+        List<WorkloadEvent> events = read(capture.getFile());
+        assertThat(events).extracting(WorkloadEvent::getType).containsExactly(
+                WorkloadEvent.Type.SUBMIT, WorkloadEvent.Type.READ, WorkloadEvent.Type.VERDICT);
+        assertThat(events).extracting(WorkloadEvent::getT).isSorted();
+
+        WorkloadEvent submit = events.get(0);
+        assertThat(submit.getSubmissionId()).isEqualTo("sub-1");
+        assertThat(submit.getContestId()).isEqualTo("CONTEST-001");
+        assertThat(submit.getProblemId()).isEqualTo("SUM-001");
+        assertThat(submit.getUsername()).isEqualTo("alice");
+        assertThat(submit.getLanguage()).isEqualTo("python");
+        assertThat(submit.getCode()).isEqualTo("print(1)");
+        assertThat(events.get(1).getPath()).isEqualTo("/api/submissions/sub-1");
+        assertThat(events.get(2).getStatus()).isEqualTo("ACCEPTED");
+        assertThat(events.get(2).getLatencyMillis()).isEqualTo(1250);
+
+        assertThat(meterRegistry.counter("workload.capture.events", "result", "written").count()).isEqualTo(3);
+        assertThat(meterRegistry.counter("workload.capture.events", "result", "dropped").count()).isZero();
+    }
+
+    private WorkloadCapture capture(boolean enabled) {
+        WorkloadCapture capture = new WorkloadCapture();
+        ReflectionTestUtils.setField(capture, "enabled", enabled);
+        ReflectionTestUtils.setField(capture, "captureDir", dir.toString());
+        ReflectionTestUtils.setField(capture, "queueSize", 100);
+        ReflectionTestUtils.setField(capture, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(capture, "meterRegistry", meterRegistry);
+        return capture;
+    }
+
+    private List<WorkloadEvent> read(Path file) throws IOException {
+        List<WorkloadEvent> events = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                events.add(objectMapper.readValue(line, WorkloadEvent.class));
+            }
+        }
+        return events;
+    }
+}
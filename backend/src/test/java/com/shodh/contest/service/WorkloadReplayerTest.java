@@ -0,0 +1,209 @@
+package com.shodh.contest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.shodh.contest.dto.ReplayReport;
+import com.shodh.contest.dto.ReplayRequest;
+import com.shodh.contest.dto.SubmissionRequest;
+import com.shodh.contest.dto.SubmissionResponse;
+import com.shodh.contest.dto.WorkloadEvent;
+import com.shodh.contest.model.SubmissionStatus;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkloadReplayerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> reads = new CopyOnWriteArrayList<>();
+    private final Map<String, SubmissionResponse> judged = new ConcurrentHashMap<>();
+
+    @TempDir
+    Path dir;
+
+    private HttpServer server;
+    private SubmissionService submissionService;
+    private WorkloadReplayer replayer;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            reads.add(exchange.getRequestURI().getPath());
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+
+        submissionService = mock(SubmissionService.class);
+        when(submissionService.submitCode(any())).thenAnswer(invocation -> {
+            SubmissionRequest request = invocation.getArgument(0);
+            String id = "replayed-" + request.getCode();
+            judged.put(id, verdict(id, request.getCode().equals("wrong") ? SubmissionStatus.WRONG_ANSWER : SubmissionStatus.ACCEPTED));
+            SubmissionResponse response = new SubmissionResponse();
+            response.setSubmissionId(id);
+            response.setStatus(SubmissionStatus.PENDING);
+            return response;
+        });
+        when(submissionService.getSubmission(anyString())).thenAnswer(invocation -> judged.get(invocation.<String>getArgument(0)));
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        replayer = new WorkloadReplayer();
+        ReflectionTestUtils.setField(replayer, "submissionService", submissionService);
+        ReflectionTestUtils.setField(replayer, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(replayer, "transactionTemplate", transactionTemplate);
+        ReflectionTestUtils.setField(replayer, "maxSpeed", 10.0);
+        ReflectionTestUtils.setField(replayer, "verdictTimeoutMillis", 10_000L);
+        ReflectionTestUtils.setField(replayer, "pollIntervalMillis", 10L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void rejectsInvalidRequests() throws IOException {
+        Path capture = capture(List.of());
+
+        assertThatThrownBy(() -> replayer.startReplay(request(dir.resolve("missing.jsonl.gz"), 1.0, null)))
+                .hasMessageContaining("Capture file not found");
+        assertThatThrownBy(() -> replayer.startReplay(request(capture, 20.0, null)))
+                .hasMessageContaining("Speed must be between 1 and 10.0");
+        assertThatThrownBy(() -> replayer.startReplay(request(capture, 0.5, null)))
+                .hasMessageContaining("Speed must be between");
+        assertThatThrownBy(() -> replayer.startReplay(request(capture, 1.0, "grpc")))
+                .hasMessageContaining("Mode must be SERVICE or HTTP");
+        assertThatThrownBy(() -> replayer.getReport("unknown"))
+                .hasMessageContaining("Replay not found");
+    }
+
+    @Test
+    void replaysSubmissionsAndComparesTheirVerdicts() throws Exception {
+        Path capture = capture(List.of(
+                submit(0, "sub-1", "right"),
+                submit(20, "sub-2", "wrong"),
+                // Polled once the captured submit had returned
+                read(2000, "/api/submissions/sub-2"),
+                verdict(2100, "sub-1", "ACCEPTED", 100),
+                verdict(2200, "sub-2", "ACCEPTED", 300),
+                // Submitted before the capture started
+                verdict(2300, "sub-0", "ACCEPTED", 50)));
+
+        ReplayReport started = replayer.startReplay(request(capture, 10.0, "service"));
+        ReplayReport report = awaitFinished(started.getReplayId());
+
+        assertThat(report.getStatus()).isEqualTo("COMPLETED");
+        assertThat(report.getMode()).isEqualTo("SERVICE");
+        assertThat(report.getSubmissionsSent()).isEqualTo(2);
+        assertThat(report.getReadsSent()).isEqualTo(1);
+        assertThat(report.getFailedRequests()).isZero();
+        assertThat(report.getVerdictsPending()).isZero();
+        assertThat(report.getVerdictMismatches()).isEqualTo(1);
+        assertThat(report.getCapturedVerdictLatency().getCount()).isEqualTo(2);
+        assertThat(report.getCapturedVerdictLatency().getMaxMillis()).isEqualTo(300);
+        assertThat(report.getReplayedVerdictLatency().getCount()).isEqualTo(2);
+        assertThat(report.getReplayedVerdictLatency().getMaxMillis()).isEqualTo(500);
+        // Two verdicts over 2200 ms of captured time, sped up ten times
+        assertThat(report.getCapturedThroughput()).isCloseTo(2 * 1000.0 / 220, offset(0.001));
+        assertThat(reads).containsExactly("/api/submissions/replayed-wrong");
+        assertThat(replayer.listReports()).extracting(ReplayReport::getReplayId).containsExactly(started.getReplayId());
+    }
+
+    private ReplayReport awaitFinished(String replayId) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            ReplayReport report = replayer.getReport(replayId);
+            if (!report.getStatus().equals("RUNNING")) {
+                return report;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("Replay did not finish");
+    }
+
+    private ReplayRequest request(Path file, Double speed, String mode) {
+        ReplayRequest request = new ReplayRequest();
+        request.setFile(file.toString());
+        request.setSpeed(speed);
+        request.setMode(mode);
+        request.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+        return request;
+    }
+
+    private Path capture(List<WorkloadEvent> events) throws IOException {
+        Path file = dir.resolve("workload.jsonl.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            for (WorkloadEvent event : events) {
+                out.write(objectMapper.writeValueAsBytes(event));
+                out.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private static WorkloadEvent submit(long t, String submissionId, String code) {
+        WorkloadEvent event = new WorkloadEvent();
+        event.setT(t);
+        event.setType(WorkloadEvent.Type.SUBMIT);
+        event.setSubmissionId(submissionId);
+        event.setContestId("CONTEST-001");
+        event.setProblemId("SUM-001");
+        event.setUsername("alice");
+        event.setLanguage("python");
+        event.setCode(code);
+        return event;
+    }
+
+    private static WorkloadEvent read(long t, String path) {
+        WorkloadEvent event = new WorkloadEvent();
+        event.setT(t);
+        event.setType(WorkloadEvent.Type.READ);
+        event.setPath(path);
+        return event;
+    }
+
+    private static WorkloadEvent verdict(long t, String submissionId, String status, long latencyMillis) {
+        WorkloadEvent event = new WorkloadEvent();
+        event.setT(t);
+        event.setType(WorkloadEvent.Type.VERDICT);
+        event.setSubmissionId(submissionId);
+        event.setStatus(status);
+        event.setLatencyMillis(latencyMillis);
+        return event;
+    }
+
+    private static SubmissionResponse verdict(String submissionId, SubmissionStatus status) {
+        SubmissionResponse response = new SubmissionResponse();
+        response.setSubmissionId(submissionId);
+        response.setStatus(status);
+        response.setSubmittedAt(LocalDateTime.of(2026, 1, 1, 12, 0, 0));
+        response.setProcessedAt(LocalDateTime.of(2026, 1, 1, 12, 0, 0, status == SubmissionStatus.ACCEPTED ? 200_000_000 : 500_000_000));
+        return response;
+    }
+}
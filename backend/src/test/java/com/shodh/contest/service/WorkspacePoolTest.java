@@ -0,0 +1,143 @@
+package com.shodh.contest.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingDeque;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WorkspacePoolTest {
+
+    @TempDir
+    Path root;
+
+    private Path baseDir;
+    private WorkspacePool pool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        baseDir = root.resolve("workspaces");
+        Files.createDirectories(baseDir.resolve("ws-debris"));
+        Files.writeString(baseDir.resolve("ws-debris").resolve("Main.java"), "left over");
+        pool = newPool(64, false);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void clearsDebrisOfAPreviousRunAndPrewarmsOneWorkspacePerSlot() throws IOException {
+        try (var entries = Files.list(baseDir)) {
+            assertThat(entries.map(path -> path.getFileName().toString())).containsExactly("ws-1");
+        }
+        assertThat(pool.isPooled(baseDir.resolve("ws-1"))).isTrue();
+        assertThat(pool.isPooled(baseDir.resolve("ws-debris"))).isFalse();
+        assertThat(pool.isSizeCapped()).isFalse();
+    }
+
+    @Test
+    void createsNoMoreWorkspacesThanFitInTheMemoryCap() throws Exception {
+        Workspace first = pool.acquire();
+        Workspace second = pool.acquire();
+        ReflectionTestUtils.setField(pool, "acquireTimeoutMs", 100L);
+
+        assertThat(second.getDirectory()).isNotEqualTo(first.getDirectory());
+        assertThatThrownBy(pool::acquire)
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("No workspace became free");
+    }
+
+    @Test
+    void handsBackAnEmptiedWorkspaceAfterRelease() throws Exception {
+        Workspace first = pool.acquire();
+        Files.writeString(first.getDirectory().resolve("Main.java"), "class Main {}");
+        Files.writeString(first.getOutputDir().resolve("1.out"), "42");
+        Workspace second = pool.acquire();
+        first.close();
+
+        Workspace reused = pool.acquire();
+
+        assertThat(reused.getDirectory()).isEqualTo(first.getDirectory());
+        assertThat(reused.getDirectory().resolve("Main.java")).doesNotExist();
+        assertThat(reused.getOutputDir()).isEmptyDirectory();
+        second.close();
+    }
+
+    @Test
+    void reusesTheMostRecentlyReleasedWorkspaceFirst() throws Exception {
+        Workspace first = pool.acquire();
+        Workspace second = pool.acquire();
+        first.close();
+        second.close();
+        BlockingDeque<?> idle = (BlockingDeque<?>) ReflectionTestUtils.getField(pool, "idle");
+        for (int i = 0; i < 500 && idle.size() < 2; i++) {
+            Thread.sleep(10);
+        }
+
+        assertThat(pool.acquire().getDirectory()).isEqualTo(second.getDirectory());
+    }
+
+    @Test
+    void recognisesAProcessThatRanIntoTheQuota() throws IOException {
+        Path output = root.resolve("1.out");
+
+        assertThat(pool.exceededQuota(153, output)).isTrue();
+        assertThat(pool.exceededQuota(0, output)).isFalse();
+
+        Files.write(output, new byte[16]);
+        assertThat(pool.exceededQuota(1, output)).isFalse();
+
+        ReflectionTestUtils.setField(pool, "quotaMb", 0);
+        assertThat(pool.exceededQuota(1, output)).isTrue();
+    }
+
+    @Test
+    void capsTheWholeWorkspaceWhenItCanMountATmpfs() throws Exception {
+        pool.shutdown();
+        pool = newPool(1, true);
+        assumeTrue(pool.isSizeCapped(), "this process may not mount");
+
+        Workspace workspace = pool.acquire();
+        Path output = workspace.getOutputDir().resolve("1.out");
+        Files.write(workspace.getDirectory().resolve("a.bin"), new byte[700 * 1024]);
+        assertThatThrownBy(() -> Files.write(output, new byte[700 * 1024])).isInstanceOf(IOException.class);
+        assertThat(pool.exceededQuota(1, output)).isTrue();
+
+        workspace.close();
+        Workspace reused = pool.acquire();
+        Files.write(reused.getOutputDir().resolve("1.out"), new byte[700 * 1024]);
+        reused.close();
+
+        pool.shutdown();
+        assertThat(Files.readString(Path.of("/proc/mounts"))).doesNotContain(baseDir.toString());
+    }
+
+    private WorkspacePool newPool(int quotaMb, boolean mountTmpfs) throws IOException {
+        JudgeSlots judgeSlots = mock(JudgeSlots.class);
+        when(judgeSlots.getSlotCount()).thenReturn(1);
+        WorkspacePool workspacePool = new WorkspacePool();
+        ReflectionTestUtils.setField(workspacePool, "configuredDir", baseDir.toString());
+        ReflectionTestUtils.setField(workspacePool, "quotaMb", quotaMb);
+        ReflectionTestUtils.setField(workspacePool, "maxTotalMb", quotaMb * 2);
+        ReflectionTestUtils.setField(workspacePool, "mountTmpfs", mountTmpfs);
+        ReflectionTestUtils.setField(workspacePool, "acquireTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(workspacePool, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(workspacePool, "judgeSlots", judgeSlots);
+        workspacePool.init();
+        return workspacePool;
+    }
+}
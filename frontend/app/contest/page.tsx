@@ -414,6 +414,9 @@ export default function ContestPage() {
                     Test Cases: {submission.testCasesPassed}/{submission.totalTestCases}
                   </div>
                 )}
+                {submission.processedAt && submission.score !== undefined && (
+                  <div className="text-sm mt-1">Score: {submission.score}</div>
+                )}
                 {submission.errorMessage && (
                   <div className="text-sm mt-2 whitespace-pre-wrap">{submission.errorMessage}</div>
                 )}
@@ -443,7 +446,8 @@ export default function ContestPage() {
                 {/* Header */}
                 <div className="grid grid-cols-12 gap-2 px-4 py-2 bg-gray-100 rounded-lg text-sm font-semibold text-gray-700 mb-2">
                   <div className="col-span-1 text-center">Rank</div>
-                  <div className="col-span-5">Username</div>
+                  <div className="col-span-3">Username</div>
+                  <div className="col-span-2 text-center">Points</div>
                   <div className="col-span-2 text-center">Solved</div>
                   <div className="col-span-2 text-center">Accepted</div>
                   <div className="col-span-2 text-center">Total</div>
@@ -487,7 +491,7 @@ export default function ContestPage() {
                       </div>
                       
                       {/* Username */}
-                      <div className="col-span-5">
+                      <div className="col-span-3">
                         <div className={`font-semibold ${
                           isCurrentUser ? 'text-indigo-900' : 'text-gray-900'
                         }`}>
@@ -498,6 +502,13 @@ export default function ContestPage() {
                         </div>
                       </div>
                       
+                      {/* Points */}
+                      <div className="col-span-2 text-center">
+                        <div className="text-sm font-semibold text-gray-900">
+                          {entry.totalPoints}
+                        </div>
+                      </div>
+
                       {/* Problems Solved */}
                       <div className="col-span-2 text-center">
                         <div className={`text-xl font-bold ${
@@ -26,10 +26,22 @@ export interface Problem {
   description: string;
   inputTestCases: string[];
   expectedOutputs: string[];
+  judgingPolicy: JudgingPolicy;
+  subtasks: Subtask[];
   timeLimitSeconds: number;
   memoryLimitMB: number;
 }
 
+export enum JudgingPolicy {
+  ICPC = 'ICPC',
+  IOI = 'IOI',
+}
+
+export interface Subtask {
+  testCount: number;
+  points: number;
+}
+
 export interface SubmissionRequest {
   contestId: string;
   problemId: string;
@@ -47,6 +59,9 @@ export interface SubmissionResponse {
   errorMessage?: string;
   testCasesPassed?: number;
   totalTestCases?: number;
+  score?: number;
+  calibrationFactor?: number;
+  reruns?: number;
   submittedAt: string;
   processedAt?: string;
 }
@@ -67,6 +82,7 @@ export interface LeaderboardEntry {
   totalSubmissions: number;
   acceptedSubmissions: number;
   totalProblemsSolved: number;
+  totalPoints: number;
 }
 
 export const apiService = {